@@ -0,0 +1,65 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.nbt.NBTWriter;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+
+import java.io.*;
+
+/**
+ * 基准测试用的合成区块数据，由SyntheticWorldGenerator生成
+ * 地下方块从给定大小的调色板中均匀随机选取，调色板大小决定完全位于地下的区段（如Y=0）每个方块的位数
+ * （1种方块不打包，2-16种为4位，17-32种为5位，……，4096种为12位）。相同参数总是生成相同的数据。
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    private static SyntheticWorldGenerator generator(int paletteSize, long seed) {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(seed);
+        generator.setPaletteSize(paletteSize);
+        return generator;
+    }
+
+    /**
+     * 生成区块的NBT标签树
+     */
+    static NBTReader.NBTCompound chunkTag(int chunkX, int chunkZ, int paletteSize, long seed) {
+        return generator(paletteSize, seed).generateChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * 未压缩的区块NBT字节
+     */
+    static byte[] chunkBytes(int chunkX, int chunkZ, int paletteSize, long seed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (NBTWriter writer = new NBTWriter(bytes)) {
+            writer.writeNamedTag("", chunkTag(chunkX, chunkZ, paletteSize, seed));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 生成区域文件的字节，左上角 chunksPerSide x chunksPerSide 个区块有数据（zlib压缩）
+     */
+    static byte[] regionBytes(int chunksPerSide, int paletteSize, long seed) throws IOException {
+        SyntheticWorldGenerator generator = generator(paletteSize, seed);
+        generator.setChunksPerRegionSide(chunksPerSide);
+        return generator.generateRegion(0, 0).toBytes();
+    }
+
+    /**
+     * 把生成的区域写入临时目录中的 r.0.0.mca
+     */
+    static File writeRegion(int chunksPerSide, int paletteSize, long seed) throws IOException {
+        File dir = java.nio.file.Files.createTempDirectory("mcmap_bench").toFile();
+        File file = new File(dir, "r.0.0.mca");
+        SyntheticWorldGenerator generator = generator(paletteSize, seed);
+        generator.setChunksPerRegionSide(chunksPerSide);
+        generator.generateRegion(0, 0).writeTo(file);
+        file.deleteOnExit();
+        dir.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,47 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.gui.DynamicMapManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动态地图拼接的基准测试：按加载顺序把 regions x regions 个区域图像逐个加入
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicMapManagerBenchmark {
+
+    @Param({"2", "4", "8"})
+    public int regions;
+
+    private BufferedImage[] images;
+
+    @Setup
+    public void setup() {
+        images = new BufferedImage[regions * regions];
+        for (int i = 0; i < images.length; i++) {
+            BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = new int[512 * 512];
+            java.util.Arrays.fill(pixels, 0xFF000000 | (i * 0x10101 & 0xFFFFFF));
+            image.setRGB(0, 0, 512, 512, pixels, 0, 512);
+            images[i] = image;
+        }
+    }
+
+    @Benchmark
+    public BufferedImage addRegions() {
+        DynamicMapManager manager = new DynamicMapManager();
+        for (int z = 0; z < regions; z++) {
+            for (int x = 0; x < regions; x++) {
+                manager.addRegion(x, z, images[z * regions + x]);
+            }
+        }
+        return manager.getCombinedImage();
+    }
+}
@@ -0,0 +1,68 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.core.MapLayer;
+import com.minecraft.selector.core.MapRenderer;
+import com.minecraft.selector.region.ChunkCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地图渲染的基准测试，区域文件有16x16个区块
+ * renderLayerCached 的区块已在共享缓存中，主要衡量 processChunk 的逐列处理；
+ * renderLayerCold 每次先让缓存失效，包含读取和解码；renderToPng 只衡量上色、生物群系着色和阴影
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapRendererBenchmark {
+
+    private static final int CHUNKS_PER_SIDE = 16;
+
+    @Param({"1", "16", "256"})
+    public int paletteSize;
+
+    @Param({"false", "true"})
+    public boolean translucency;
+
+    private File regionFile;
+    private MapRenderer renderer;
+    private MapLayer layer;
+
+    @Setup
+    public void setup() throws IOException {
+        regionFile = BenchmarkData.writeRegion(CHUNKS_PER_SIDE, paletteSize, 42L);
+        renderer = new MapRenderer(1, null);
+        renderer.setReliefShading(true);
+        renderer.setTranslucency(translucency);
+        layer = renderer.renderLayer(regionFile.getAbsolutePath(), 32, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.shutdown();
+        ChunkCache.getShared().invalidateRegion(regionFile);
+    }
+
+    @Benchmark
+    public MapLayer renderLayerCached() throws IOException {
+        return renderer.renderLayer(regionFile.getAbsolutePath(), 32, 1);
+    }
+
+    @Benchmark
+    public MapLayer renderLayerCold() throws IOException {
+        ChunkCache.getShared().invalidateRegion(regionFile);
+        return renderer.renderLayer(regionFile.getAbsolutePath(), 32, 1);
+    }
+
+    @Benchmark
+    public BufferedImage renderToPng() {
+        return renderer.renderToPng(layer, 1);
+    }
+}
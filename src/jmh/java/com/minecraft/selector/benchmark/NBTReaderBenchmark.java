@@ -0,0 +1,40 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.nbt.NBTReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 区块NBT解析的基准测试：完整解析，以及只保留两个区段的过滤解析
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NBTReaderBenchmark {
+
+    // 对应0、4、5、6、8、12位
+    @Param({"1", "16", "32", "64", "256", "4096"})
+    public int paletteSize;
+
+    private byte[] chunkBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        chunkBytes = BenchmarkData.chunkBytes(0, 0, paletteSize, 42L);
+    }
+
+    @Benchmark
+    public NBTReader.NBTCompound readFromBytes() throws IOException {
+        return NBTReader.readFromBytes(chunkBytes);
+    }
+
+    @Benchmark
+    public NBTReader.NBTCompound readChunkFromBytesTwoSections() throws IOException {
+        return NBTReader.readChunkFromBytes(chunkBytes, 3, 4);
+    }
+}
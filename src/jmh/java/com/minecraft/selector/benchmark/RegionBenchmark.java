@@ -0,0 +1,50 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.region.Region;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从内存中的区域文件读取区块的基准测试（定位、zlib解压和NBT解析），每次调用读取8x8个区块
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionBenchmark {
+
+    private static final int CHUNKS_PER_SIDE = 8;
+
+    @Param({"1", "16", "256", "4096"})
+    public int paletteSize;
+
+    private Region region;
+
+    @Setup
+    public void setup() throws IOException {
+        region = new Region(BenchmarkData.regionBytes(CHUNKS_PER_SIDE, paletteSize, 42L));
+    }
+
+    @Benchmark
+    public void getChunkData(Blackhole blackhole) throws IOException {
+        for (int chunkZ = 0; chunkZ < CHUNKS_PER_SIDE; chunkZ++) {
+            for (int chunkX = 0; chunkX < CHUNKS_PER_SIDE; chunkX++) {
+                blackhole.consume(region.getChunkData(chunkX, chunkZ));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getChunkDataSurfaceSections(Blackhole blackhole) throws IOException {
+        for (int chunkZ = 0; chunkZ < CHUNKS_PER_SIDE; chunkZ++) {
+            for (int chunkX = 0; chunkX < CHUNKS_PER_SIDE; chunkX++) {
+                blackhole.consume(region.getChunkData(chunkX, chunkZ, 3, 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.minecraft.selector.benchmark;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.region.Chunk;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 区段方块解包的基准测试：逐个getBlock与批量解包、按层计数的对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SectionBenchmark {
+
+    // 对应0、4、5、6、8、12位
+    @Param({"1", "16", "32", "64", "256", "4096"})
+    public int paletteSize;
+
+    private Chunk.Section section;
+    private final int[] indices = new int[4096];
+    private int[] counts;
+
+    @Setup
+    public void setup() {
+        // 区段Y=0完全位于地表以下，方块均匀分布在整个调色板中
+        NBTReader.NBTCompound chunk = BenchmarkData.chunkTag(0, 0, paletteSize, 42L);
+        NBTReader.NBTList sections = chunk.getList("sections");
+        for (int i = 0; i < sections.size(); i++) {
+            NBTReader.NBTCompound sectionData = (NBTReader.NBTCompound) sections.get(i);
+            if (((NBTReader.NBTByte) sectionData.get("Y")).getValue() == 0) {
+                section = new Chunk.Section(sectionData);
+            }
+        }
+        counts = new int[Math.max(1, section.getPalette().size()) * 16];
+    }
+
+    @Benchmark
+    public void getBlock(Blackhole blackhole) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    blackhole.consume(section.getBlock(x, y, z));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] unpackIndices() {
+        section.unpackIndices(indices);
+        return indices;
+    }
+
+    @Benchmark
+    public int[] countIndicesByLayer() {
+        java.util.Arrays.fill(counts, 0);
+        section.countIndicesByLayer(counts, indices);
+        return counts;
+    }
+}
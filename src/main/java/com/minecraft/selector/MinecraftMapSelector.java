@@ -1,15 +1,34 @@
 package com.minecraft.selector;
 
+import com.minecraft.selector.core.BlockSearch;
+import com.minecraft.selector.core.BlockStatistics;
+import com.minecraft.selector.core.MapLayer;
 import com.minecraft.selector.core.MapRenderer;
+import com.minecraft.selector.core.RegionWatcher;
+import com.minecraft.selector.core.RenderMode;
 import com.minecraft.selector.gui.MinecraftMapGUI;
+import com.minecraft.selector.metrics.RenderMetrics;
+import com.minecraft.selector.region.RegionWriter;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import com.minecraft.selector.region.WorldIndex;
+import com.minecraft.selector.server.TileServer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Minecraft地图选择器主程序
@@ -19,6 +38,7 @@ public class MinecraftMapSelector {
     
     public static void main(String[] args) {
         System.out.println("Minecraft地图选择器 - Java版本");
+        RenderMetrics.getShared().configureFromSystemProperties();
         
         // 检查命令行参数
         if (args.length == 0) {
@@ -33,6 +53,24 @@ public class MinecraftMapSelector {
                     showUsage();
                 }
             });
+        } else if ("--serve".equals(args[0])) {
+            // 瓦片服务器模式
+            runTileServer(args);
+        } else if ("--watch".equals(args[0])) {
+            // 监视模式
+            runWatchMode(args);
+        } else if ("--stats".equals(args[0])) {
+            // 方块统计模式
+            runStatistics(args);
+        } else if ("--find".equals(args[0])) {
+            // 方块搜索模式
+            runBlockSearch(args);
+        } else if ("--generate".equals(args[0])) {
+            // 合成存档生成模式
+            runGenerator(args);
+        } else if ("--explored".equals(args[0])) {
+            // 已探索区域图模式
+            runExploredMap(args);
         } else if (args.length >= 1) {
             // 有参数，运行命令行模式
             runCommandLine(args);
@@ -47,6 +85,25 @@ public class MinecraftMapSelector {
     private static void runCommandLine(String[] args) {
         long overallStartTime = System.currentTimeMillis();
 
+        // 可以出现在任意位置的开关选项，其余为按位置的参数
+        boolean reliefShading = false;
+        boolean biomeTinting = false;
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if ("--relief".equals(arg)) {
+                reliefShading = true;
+            } else if ("--biome-tint".equals(arg)) {
+                biomeTinting = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[0]);
+        if (args.length == 0) {
+            showUsage();
+            return;
+        }
+
         String mcaFilePath = args[0];
 
         // 生成默认输出文件名（基于输入文件名和时间戳）
@@ -57,6 +114,9 @@ public class MinecraftMapSelector {
         int maxWorkers = args.length > 3 ? Integer.parseInt(args[3]) : Math.min(Runtime.getRuntime().availableProcessors(), 8);
         int regionSize = args.length > 4 ? Integer.parseInt(args[4]) : 32;
         int sampleInterval = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        int minY = args.length > 6 ? Integer.parseInt(args[6]) : MapRenderer.DEFAULT_MIN_Y;
+        int maxY = args.length > 7 ? Integer.parseInt(args[7]) : MapRenderer.DEFAULT_MAX_Y;
+        RenderMode renderMode = args.length > 8 ? RenderMode.fromName(args[8]) : RenderMode.SURFACE;
         
         System.out.println("正在处理区域文件: " + mcaFilePath);
         System.out.println("JSON输出路径: " + jsonOutput);
@@ -64,11 +124,18 @@ public class MinecraftMapSelector {
         System.out.println("使用线程数: " + maxWorkers);
         System.out.println("处理区域大小: " + regionSize + "x" + regionSize + " 区块");
         System.out.println("采样间隔: " + sampleInterval);
+        System.out.println("高度范围: " + minY + " ~ " + maxY);
+        System.out.println("渲染模式: " + renderMode.getDisplayName());
+        System.out.println("地形阴影: " + (reliefShading ? "开启" : "关闭") + "，生物群系着色: " + (biomeTinting ? "开启" : "关闭"));
         
         // 创建进度回调
         MapRenderer.ProgressCallback progressCallback = new MapRenderer.ProgressCallback() {
+            // 回调只由一个汇报线程调用，累加新发现的方块数即可
+            private int foundBlockCount;
+
             @Override
-            public void onProgress(int processed, int total, double speed, Set<String> foundBlocks) {
+            public void onProgress(int processed, int total, double speed, Set<String> newBlocks) {
+                foundBlockCount += newBlocks.size();
                 if (total == 0) return;
                 
                 int percent = Math.min(100, processed * 100 / total);
@@ -88,17 +155,22 @@ public class MinecraftMapSelector {
                 System.out.print("\r处理进度: [" + bar + "] " + percent + "% (" + processed + "/" + total + ") " +
                                "速度: " + String.format("%.1f", speed) + "区块/秒 " +
                                "剩余: " + String.format("%.1f", remaining) + "秒 " +
-                               "发现方块: " + foundBlocks.size() + "种");
+                               "发现方块: " + foundBlockCount + "种");
                 System.out.flush();
             }
         };
         
         // 创建地图渲染器
         MapRenderer renderer = new MapRenderer(maxWorkers, progressCallback);
+        renderer.setYRange(minY, maxY);
+        renderer.setRenderMode(renderMode);
+        renderer.setReliefShading(reliefShading);
+        renderer.setBiomeTinting(biomeTinting);
         
         try {
             // 读取区域文件
-            String[][] topBlocks = renderer.getTopBlocks(mcaFilePath, regionSize, sampleInterval);
+            MapLayer layer = renderer.renderLayer(mcaFilePath, regionSize, sampleInterval);
+            String[][] topBlocks = layer.getBlocks();
             
             if (topBlocks != null) {
                 System.out.println("\n\n区域文件读取成功!");
@@ -107,7 +179,7 @@ public class MinecraftMapSelector {
                 saveBlocksToJson(topBlocks, jsonOutput);
                 
                 // 渲染PNG
-                BufferedImage image = renderer.renderToPng(topBlocks, sampleInterval);
+                BufferedImage image = renderer.renderToPng(layer, sampleInterval);
                 if (image != null) {
                     saveImageToPng(image, imageOutput);
                 }
@@ -128,6 +200,329 @@ public class MinecraftMapSelector {
         }
     }
     
+    /**
+     * 运行瓦片服务器模式
+     */
+    private static void runTileServer(String[] args) {
+        if (args.length < 2) {
+            showUsage();
+            return;
+        }
+
+        String worldPath = args[1];
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+        File cacheDir = args.length > 3 ? new File(args[3]) : new File(System.getProperty("user.dir"), "tile_cache");
+        int renderThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() / 2, 4));
+
+        if (!new File(worldPath, "region").isDirectory()) {
+            System.err.println("存档目录中没有region文件夹: " + worldPath);
+            return;
+        }
+
+        System.out.println("存档目录: " + worldPath);
+        System.out.println("瓦片缓存目录: " + cacheDir.getAbsolutePath());
+
+        TileServer server = new TileServer(worldPath, port, cacheDir, renderThreads, 64);
+        try {
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        } catch (IOException e) {
+            System.err.println("启动瓦片服务器失败: " + e.getMessage());
+            server.stop();
+        }
+    }
+
+    /**
+     * 运行监视模式：先渲染所有区域，然后在存档保存时只重新渲染变化的区块
+     */
+    private static void runWatchMode(String[] args) {
+        if (args.length < 2) {
+            showUsage();
+            return;
+        }
+
+        File regionDir = new File(args[1], "region");
+        File outputDir = args.length > 2 ? new File(args[2]) : new File(System.getProperty("user.dir"), "watch_output");
+        int maxWorkers = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+
+        if (!regionDir.isDirectory()) {
+            System.err.println("存档目录中没有region文件夹: " + args[1]);
+            return;
+        }
+        outputDir.mkdirs();
+
+        System.out.println("存档目录: " + args[1]);
+        System.out.println("图像输出目录: " + outputDir.getAbsolutePath());
+
+        MapRenderer renderer = new MapRenderer(maxWorkers, null);
+
+        // 渲染缺失或已过期的区域图像
+        File[] mcaFiles = regionDir.listFiles((dir, name) -> name.endsWith(".mca"));
+        if (mcaFiles != null) {
+            for (File mcaFile : mcaFiles) {
+                File imageFile = new File(outputDir, mcaFile.getName().replaceAll("\\.mca$", ".png"));
+                if (imageFile.exists() && imageFile.lastModified() >= mcaFile.lastModified()) {
+                    continue;
+                }
+                try {
+                    MapLayer layer = renderer.renderLayer(mcaFile.getAbsolutePath(), 32, 1);
+                    String[][] topBlocks = layer.getBlocks();
+                    BufferedImage image = renderer.renderToPng(layer, 1);
+                    if (image != null) {
+                        ImageIO.write(image, "PNG", imageFile);
+                    }
+                } catch (IOException e) {
+                    System.err.println("渲染区域失败: " + mcaFile.getName() + " - " + e.getMessage());
+                }
+            }
+        }
+
+        RegionWatcher watcher = new RegionWatcher(regionDir, 3000, (regionX, regionZ, regionFile, changedChunks) ->
+            updateRegionImage(renderer, regionFile, new File(outputDir, String.format("r.%d.%d.png", regionX, regionZ)), changedChunks));
+
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            System.err.println("无法监视区域目录: " + e.getMessage());
+            renderer.shutdown();
+            return;
+        }
+
+        // 监视线程是守护线程，主线程需要一直等待到程序被终止
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            watcher.close();
+            renderer.shutdown();
+            stopped.countDown();
+        }));
+        System.out.println("正在监视存档变化，按Ctrl+C退出");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 运行方块统计模式：并行统计所有区域的方块数量，导出CSV和二进制文件
+     */
+    private static void runStatistics(String[] args) {
+        if (args.length < 2) {
+            showUsage();
+            return;
+        }
+
+        List<File> regionFiles = listRegionFiles(new File(args[1]));
+        if (regionFiles.isEmpty()) {
+            System.err.println("没有找到区域文件: " + args[1]);
+            return;
+        }
+        String prefix = args.length > 2 ? args[2] : "block_stats_" + System.currentTimeMillis();
+        int maxWorkers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int minY = args.length > 4 ? Integer.parseInt(args[4]) : Integer.MIN_VALUE;
+        int maxY = args.length > 5 ? Integer.parseInt(args[5]) : Integer.MAX_VALUE;
+
+        BlockStatistics statistics = new BlockStatistics(maxWorkers);
+        statistics.collect(regionFiles, minY, maxY);
+
+        System.out.println("\n数量最多的方块:");
+        int shown = 0;
+        for (Map.Entry<String, Long> entry : statistics.getTotals().entrySet()) {
+            System.out.printf("  %-40s %,d\n", entry.getKey(), entry.getValue());
+            if (++shown >= 20) {
+                break;
+            }
+        }
+
+        try {
+            statistics.writeCsv(new File(prefix + "_totals.csv"));
+            statistics.writeYDistributionCsv(new File(prefix + "_y.csv"));
+            statistics.writeRegionCsv(new File(prefix + "_regions.csv"));
+            statistics.writeBinary(new File(prefix + ".bin"));
+            System.out.println("统计结果已保存: " + prefix + "_totals.csv, " + prefix + "_y.csv, "
+                + prefix + "_regions.csv, " + prefix + ".bin");
+        } catch (IOException e) {
+            System.err.println("保存统计结果失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 运行方块搜索模式：逐个输出目标方块的坐标，调色板索引默认保存在存档目录下的 palette_index 中
+     */
+    private static void runBlockSearch(String[] args) {
+        if (args.length < 3) {
+            showUsage();
+            return;
+        }
+
+        List<File> regionFiles = listRegionFiles(new File(args[1]));
+        if (regionFiles.isEmpty()) {
+            System.err.println("没有找到区域文件: " + args[1]);
+            return;
+        }
+        List<String> blockIds = Arrays.asList(args[2].split(","));
+        File indexDir = args.length > 4 ? new File(args[4]) : defaultIndexDir(regionFiles.get(0));
+
+        PrintStream output = System.out;
+        try {
+            if (args.length > 3) {
+                output = new PrintStream(new BufferedOutputStream(new FileOutputStream(args[3])), false, "UTF-8");
+                output.println("block,x,y,z");
+            }
+            PrintStream target = output;
+            BlockSearch search = new BlockSearch(Runtime.getRuntime().availableProcessors(), indexDir);
+            search.search(regionFiles, blockIds, (blockId, x, y, z) -> target.println(blockId + "," + x + "," + y + "," + z));
+            if (args.length > 3) {
+                System.out.println("搜索结果已保存: " + args[3]);
+            }
+        } catch (IOException e) {
+            System.err.println("保存搜索结果失败: " + e.getMessage());
+        } finally {
+            if (output != System.out) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * 运行合成存档生成模式：生成用于性能测试的确定性存档
+     */
+    private static void runGenerator(String[] args) {
+        if (args.length < 2) {
+            showUsage();
+            return;
+        }
+
+        try {
+            int regionCount = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            SyntheticWorldGenerator generator = new SyntheticWorldGenerator(args.length > 6 ? Long.parseLong(args[6]) : 0L);
+            if (args.length > 3) {
+                generator.setPaletteSize(Integer.parseInt(args[3]));
+            }
+            if (args.length > 4) {
+                generator.setBlockEntitiesPerChunk(Integer.parseInt(args[4]));
+            }
+            if (args.length > 5) {
+                switch (args[5].toLowerCase()) {
+                    case "gzip":
+                        generator.setCompression(RegionWriter.COMPRESSION_GZIP);
+                        break;
+                    case "none":
+                        generator.setCompression(RegionWriter.COMPRESSION_NONE);
+                        break;
+                    default:
+                        generator.setCompression(RegionWriter.COMPRESSION_ZLIB);
+                }
+            }
+            generator.generateWorld(new File(args[1]), regionCount, Runtime.getRuntime().availableProcessors());
+        } catch (NumberFormatException e) {
+            System.err.println("参数无效: " + e.getMessage());
+            showUsage();
+        } catch (IOException e) {
+            System.err.println("生成存档失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 运行已探索区域图模式：只读取区域文件头部，输出1像素 = 1区块的已生成区块图
+     */
+    private static void runExploredMap(String[] args) {
+        if (args.length < 3) {
+            showUsage();
+            return;
+        }
+
+        File worldDir = new File(args[1]);
+        File regionDir = new File(worldDir, "region").isDirectory() ? new File(worldDir, "region") : worldDir;
+        WorldIndex index = WorldIndex.forDirectory(regionDir);
+        File cacheFile = args.length > 3 ? new File(args[3]) : null;
+
+        try {
+            long start = System.currentTimeMillis();
+            if (cacheFile != null) {
+                System.out.println("从缓存加载了 " + index.load(cacheFile) + " 个区域的索引");
+            }
+            int updated = index.update(Runtime.getRuntime().availableProcessors() * 2);
+            if (cacheFile != null && updated > 0) {
+                index.save(cacheFile);
+            }
+            System.out.printf("索引完成: %d 个区域, %d 个区块, 重新读取 %d 个头部, 耗时 %dms\n",
+                index.getRegionCount(), index.getChunkCount(), updated, System.currentTimeMillis() - start);
+
+            int[] bounds = index.getChunkBounds();
+            if (bounds == null) {
+                System.err.println("没有已生成的区块: " + regionDir);
+                return;
+            }
+            BufferedImage image = index.renderExploredMap(bounds[0], bounds[1], bounds[2], bounds[3], 0xFF3C8C3C, 0xFF202020);
+            ImageIO.write(image, "PNG", new File(args[2]));
+            System.out.printf("已探索区域图已保存: %s (%dx%d, 左上角区块 %d, %d)\n",
+                args[2], image.getWidth(), image.getHeight(), bounds[0], bounds[1]);
+        } catch (IOException e) {
+            System.err.println("生成已探索区域图失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取路径下的区域文件：可以是存档目录（含region文件夹）、region目录或单个.mca文件
+     */
+    private static List<File> listRegionFiles(File path) {
+        List<File> files = new ArrayList<>();
+        if (path.isFile()) {
+            files.add(path);
+            return files;
+        }
+        File regionDir = new File(path, "region").isDirectory() ? new File(path, "region") : path;
+        File[] mcaFiles = regionDir.listFiles((dir, name) -> name.endsWith(".mca"));
+        if (mcaFiles != null) {
+            Arrays.sort(mcaFiles, Comparator.comparing(File::getName));
+            files.addAll(Arrays.asList(mcaFiles));
+        }
+        return files;
+    }
+
+    /**
+     * 默认的调色板索引目录：区域目录所在的存档（或维度）目录下的 palette_index
+     */
+    private static File defaultIndexDir(File regionFile) {
+        File regionDir = regionFile.getAbsoluteFile().getParentFile();
+        File worldDir = regionDir.getParentFile() != null ? regionDir.getParentFile() : regionDir;
+        return new File(worldDir, "palette_index");
+    }
+
+    /**
+     * 增量更新已保存的区域图像
+     */
+    private static void updateRegionImage(MapRenderer renderer, File regionFile, File imageFile, List<int[]> changedChunks) {
+        try {
+            BufferedImage image = null;
+            if (imageFile.exists()) {
+                BufferedImage saved = ImageIO.read(imageFile);
+                if (saved != null && saved.getWidth() == 512 && saved.getHeight() == 512) {
+                    // 转换为ARGB以便直接写入像素
+                    image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+                    image.getGraphics().drawImage(saved, 0, 0, null);
+                }
+            }
+
+            if (image == null) {
+                // 没有可用的旧图像，完整渲染
+                MapLayer layer = renderer.renderLayer(regionFile.getAbsolutePath(), 32, 1);
+                String[][] topBlocks = layer.getBlocks();
+                image = renderer.renderToPng(layer, 1);
+            } else {
+                renderer.renderChunksInto(regionFile.getAbsolutePath(), changedChunks, image);
+            }
+
+            if (image != null) {
+                ImageIO.write(image, "PNG", imageFile);
+                System.out.println("已更新区域图像: " + imageFile.getName());
+            }
+        } catch (IOException e) {
+            System.err.println("更新区域图像失败: " + imageFile.getName() + " - " + e.getMessage());
+        }
+    }
+
     /**
      * 保存方块数据为JSON文件
      */
@@ -213,6 +608,12 @@ public class MinecraftMapSelector {
         System.out.println("用法:");
         System.out.println("  java -jar minecraft-map-selector.jar                                    # 启动GUI");
         System.out.println("  java -jar minecraft-map-selector.jar <mca文件路径> [选项...]              # 命令行模式");
+        System.out.println("  java -jar minecraft-map-selector.jar --serve <存档目录> [端口] [缓存目录]  # 瓦片服务器模式（浏览页面需联网从unpkg.com加载Leaflet）");
+        System.out.println("  java -jar minecraft-map-selector.jar --watch <存档目录> [输出目录]         # 监视模式");
+        System.out.println("  java -jar minecraft-map-selector.jar --stats <存档目录|mca文件> [输出前缀] [线程数] [最小Y] [最大Y]  # 方块统计");
+        System.out.println("  java -jar minecraft-map-selector.jar --find <存档目录|mca文件> <方块ID,方块ID...> [输出CSV] [索引目录]  # 方块搜索");
+        System.out.println("  java -jar minecraft-map-selector.jar --generate <输出存档目录> [区域数] [调色板大小] [每区块方块实体数] [gzip|zlib|none] [种子]  # 生成测试存档");
+        System.out.println("  java -jar minecraft-map-selector.jar --explored <存档目录> <输出PNG> [索引缓存文件]  # 已探索区域图");
         System.out.println();
         System.out.println("命令行选项:");
         System.out.println("  <mca文件路径>        必需，.mca区域文件路径");
@@ -221,11 +622,25 @@ public class MinecraftMapSelector {
         System.out.println("  [线程数]            可选，默认为CPU核心数或8（取较小值）");
         System.out.println("  [区域大小]          可选，以区块为单位，默认32（即32x32区块）");
         System.out.println("  [采样间隔]          可选，每隔多少个方块采样一次，默认1（全采样）");
+        System.out.println("  [最小Y] [最大Y]      可选，只渲染该高度范围内的方块，默认-64 319");
+        System.out.println("  [渲染模式]          可选，surface(地表)、slice(最大Y处的切片)、cave_floor(洞穴地面)、ceiling(天花板以下，用于下界)");
+        System.out.println("  --relief            可选，开启地形阴影（默认为平面颜色）");
+        System.out.println("  --biome-tint        可选，按生物群系给草地、树叶和水着色");
         System.out.println();
         System.out.println("示例:");
         System.out.println("  java -jar minecraft-map-selector.jar /path/to/r.0.0.mca");
         System.out.println("  java -jar minecraft-map-selector.jar /path/to/r.0.0.mca blocks.json map.png 8 32 1");
+        System.out.println("  java -jar minecraft-map-selector.jar /path/to/r.0.0.mca blocks.json map.png 8 32 1 -64 40");
+        System.out.println("  java -jar minecraft-map-selector.jar /path/to/DIM-1/region/r.0.0.mca nether.json nether.png 8 32 1 0 120 ceiling");
+        System.out.println("  java -jar minecraft-map-selector.jar /path/to/r.0.0.mca --relief --biome-tint");
+        System.out.println("  java -jar minecraft-map-selector.jar --serve /path/to/saves/world 8080");
+        System.out.println("  java -jar minecraft-map-selector.jar --stats /path/to/saves/world world_stats 8");
+        System.out.println("  java -jar minecraft-map-selector.jar --find /path/to/saves/world diamond_ore,deepslate_diamond_ore diamonds.csv");
+        System.out.println("  java -jar minecraft-map-selector.jar --generate /tmp/bench_world 100 16 4 zlib");
+        System.out.println("  java -jar minecraft-map-selector.jar --explored /path/to/saves/world explored.png world.idx");
         System.out.println();
         System.out.println("注意: 输出文件将保存到当前工作目录");
+        System.out.println("性能指标: 在JConsole中查看 " + RenderMetrics.OBJECT_NAME
+            + "，或使用 -Dmcmap.metrics.interval=秒数 [-Dmcmap.metrics.file=metrics.json] 定期输出");
     }
 }
@@ -0,0 +1,313 @@
+package com.minecraft.selector.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 生物群系颜色表
+ * 每个生物群系分配一个连续的编号，草地、树叶和水的颜色预先计算为相对于平原颜色的
+ * 定点比例（方块颜色表中的颜色按平原着色），着色时每个像素只需要查表和整数乘法。
+ */
+public class BiomeColors {
+
+    /**
+     * 着色类型
+     */
+    public enum TintType {
+        NONE, GRASS, FOLIAGE, WATER
+    }
+
+    // 未知生物群系的编号
+    public static final short UNKNOWN_BIOME = -1;
+
+    // 平原的颜色，方块颜色表中的草地/树叶/水颜色以此为基准
+    private static final int PLAINS_GRASS = 0x91BD59;
+    private static final int PLAINS_FOLIAGE = 0x77AB2F;
+    private static final int PLAINS_WATER = 0x3F76E4;
+
+    // 不改变颜色的比例
+    private static final int IDENTITY_RATIO = (256 << 20) | (256 << 10) | 256;
+
+    private static final Map<String, Short> BIOME_IDS = new ConcurrentHashMap<>();
+    private static final List<int[]> BIOME_TINTS = new ArrayList<>();
+
+    // 按编号索引的着色比例表 [TintType.ordinal()][biome]，每个值为打包的三个通道比例
+    private static volatile int[][] ratioTables = new int[TintType.values().length][0];
+
+    // 需要着色的方块
+    private static final Map<String, TintType> BLOCK_TINTS = new ConcurrentHashMap<>();
+
+    static {
+        // 生物群系：草地颜色、树叶颜色、水颜色
+        register("plains", 0x91BD59, 0x77AB2F, 0x3F76E4);
+        register("sunflower_plains", 0x91BD59, 0x77AB2F, 0x3F76E4);
+        register("meadow", 0x83BB6D, 0x63A948, 0x0E4ECF);
+        register("cherry_grove", 0xB6DB61, 0xB6DB61, 0x5DB7EF);
+        register("forest", 0x79C05A, 0x59AE30, 0x3F76E4);
+        register("flower_forest", 0x79C05A, 0x59AE30, 0x3F76E4);
+        register("birch_forest", 0x88BB67, 0x6BA941, 0x3F76E4);
+        register("old_growth_birch_forest", 0x88BB67, 0x6BA941, 0x3F76E4);
+        register("dark_forest", 0x507A32, 0x59AE30, 0x3F76E4);
+        register("pale_garden", 0x778272, 0x878D76, 0x76889D);
+        register("taiga", 0x86B783, 0x68A464, 0x287082);
+        register("old_growth_pine_taiga", 0x86B87F, 0x68A55F, 0x3F76E4);
+        register("old_growth_spruce_taiga", 0x86B783, 0x68A464, 0x3F76E4);
+        register("snowy_taiga", 0x80B497, 0x60A17B, 0x3D57D6);
+        register("snowy_plains", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("ice_spikes", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("snowy_beach", 0x83B593, 0x64A278, 0x3D57D6);
+        register("grove", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("snowy_slopes", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("frozen_peaks", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("jagged_peaks", 0x80B497, 0x60A17B, 0x3F76E4);
+        register("stony_peaks", 0x9ABE4B, 0x82AC1E, 0x3F76E4);
+        register("windswept_hills", 0x8AB689, 0x6DA36B, 0x3F76E4);
+        register("windswept_gravelly_hills", 0x8AB689, 0x6DA36B, 0x3F76E4);
+        register("windswept_forest", 0x8AB689, 0x6DA36B, 0x3F76E4);
+        register("stony_shore", 0x8AB689, 0x6DA36B, 0x3F76E4);
+        register("jungle", 0x59C93C, 0x30BB0B, 0x14A2C5);
+        register("bamboo_jungle", 0x59C93C, 0x30BB0B, 0x14A2C5);
+        register("sparse_jungle", 0x64C73F, 0x3EB80F, 0x0D8AE3);
+        register("swamp", 0x6A7039, 0x6A7039, 0x617B64);
+        register("mangrove_swamp", 0x6A7039, 0x8DB127, 0x3A7A6A);
+        register("mushroom_fields", 0x55C93F, 0x2BBB0F, 0x3F76E4);
+        register("beach", 0x91BD59, 0x77AB2F, 0x157CAB);
+        register("river", 0x8EB971, 0x71A74D, 0x0084FF);
+        register("frozen_river", 0x80B497, 0x60A17B, 0x185390);
+        register("ocean", 0x8EB971, 0x71A74D, 0x1787D4);
+        register("deep_ocean", 0x8EB971, 0x71A74D, 0x1787D4);
+        register("warm_ocean", 0x8EB971, 0x71A74D, 0x02B0E5);
+        register("lukewarm_ocean", 0x8EB971, 0x71A74D, 0x0D96DB);
+        register("deep_lukewarm_ocean", 0x8EB971, 0x71A74D, 0x0D96DB);
+        register("cold_ocean", 0x8EB971, 0x71A74D, 0x2080C9);
+        register("deep_cold_ocean", 0x8EB971, 0x71A74D, 0x2080C9);
+        register("frozen_ocean", 0x8EB971, 0x71A74D, 0x2570B5);
+        register("deep_frozen_ocean", 0x8EB971, 0x71A74D, 0x2570B5);
+        register("desert", 0xBFB755, 0xAEA42A, 0x32A598);
+        register("savanna", 0xBFB755, 0xAEA42A, 0x2C8B9C);
+        register("savanna_plateau", 0xBFB755, 0xAEA42A, 0x2590A8);
+        register("windswept_savanna", 0xBFB755, 0xAEA42A, 0x2590A8);
+        register("badlands", 0x90814D, 0x9E814D, 0x4E7F81);
+        register("eroded_badlands", 0x90814D, 0x9E814D, 0x497F99);
+        register("wooded_badlands", 0x90814D, 0x9E814D, 0x55809E);
+        register("lush_caves", 0x91BD59, 0x77AB2F, 0x3F76E4);
+        register("dripstone_caves", 0x91BD59, 0x77AB2F, 0x3F76E4);
+        register("deep_dark", 0x91BD59, 0x77AB2F, 0x3F76E4);
+        register("nether_wastes", 0xBFB755, 0xAEA42A, 0x905957);
+        register("crimson_forest", 0xBFB755, 0xAEA42A, 0x905957);
+        register("warped_forest", 0xBFB755, 0xAEA42A, 0x905957);
+        register("soul_sand_valley", 0xBFB755, 0xAEA42A, 0x905957);
+        register("basalt_deltas", 0xBFB755, 0xAEA42A, 0x3F76E4);
+        register("the_end", 0x8EB971, 0x71A74D, 0x62529E);
+        register("end_highlands", 0x8EB971, 0x71A74D, 0x62529E);
+        register("end_midlands", 0x8EB971, 0x71A74D, 0x62529E);
+        register("small_end_islands", 0x8EB971, 0x71A74D, 0x62529E);
+        register("end_barrens", 0x8EB971, 0x71A74D, 0x62529E);
+        register("the_void", 0x8EB971, 0x71A74D, 0x3F76E4);
+
+        // 使用草地颜色的方块
+        for (String block : new String[]{"grass_block", "grass", "short_grass", "tall_grass", "fern",
+                "large_fern", "sugar_cane", "potted_fern"}) {
+            BLOCK_TINTS.put(block, TintType.GRASS);
+        }
+        // 使用树叶颜色的方块（云杉和白桦树叶的颜色是固定的）
+        for (String block : new String[]{"oak_leaves", "jungle_leaves", "acacia_leaves", "dark_oak_leaves",
+                "mangrove_leaves", "vine"}) {
+            BLOCK_TINTS.put(block, TintType.FOLIAGE);
+        }
+        // 使用水颜色的方块
+        for (String block : new String[]{"water", "bubble_column", "water_cauldron"}) {
+            BLOCK_TINTS.put(block, TintType.WATER);
+        }
+    }
+
+    private BiomeColors() {
+    }
+
+    /**
+     * 注册生物群系颜色（RGB）
+     */
+    private static synchronized short register(String biome, int grass, int foliage, int water) {
+        Short existing = BIOME_IDS.get(biome);
+        if (existing != null) {
+            return existing;
+        }
+
+        short id = (short) BIOME_TINTS.size();
+        BIOME_TINTS.add(new int[]{grass, foliage, water});
+
+        // 重建比例表后再公开编号，读取方总能查到编号对应的比例
+        int[][] tables = new int[TintType.values().length][BIOME_TINTS.size()];
+        for (int i = 0; i < BIOME_TINTS.size(); i++) {
+            int[] tint = BIOME_TINTS.get(i);
+            tables[TintType.NONE.ordinal()][i] = IDENTITY_RATIO;
+            tables[TintType.GRASS.ordinal()][i] = ratio(tint[0], PLAINS_GRASS);
+            tables[TintType.FOLIAGE.ordinal()][i] = ratio(tint[1], PLAINS_FOLIAGE);
+            tables[TintType.WATER.ordinal()][i] = ratio(tint[2], PLAINS_WATER);
+        }
+        ratioTables = tables;
+        BIOME_IDS.put(biome, id);
+        return id;
+    }
+
+    /**
+     * 计算每个通道相对于基准颜色的比例（每通道10位，256表示不变）
+     */
+    private static int ratio(int tint, int base) {
+        int packed = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            int t = (tint >> shift) & 0xFF;
+            int b = Math.max(1, (base >> shift) & 0xFF);
+            int r = Math.min(1023, Math.round(t * 4.0f / b * 64));
+            packed = (packed << 10) | r;
+        }
+        return packed;
+    }
+
+    /**
+     * 获取生物群系编号（名称不含minecraft:前缀），未知的生物群系使用平原的颜色
+     */
+    public static short getBiomeId(String biome) {
+        if (biome == null) {
+            return UNKNOWN_BIOME;
+        }
+        Short id = BIOME_IDS.get(biome);
+        if (id != null) {
+            return id;
+        }
+        // 模组或新版本的生物群系：按平原注册，保证编号稳定
+        return register(biome, PLAINS_GRASS, PLAINS_FOLIAGE, PLAINS_WATER);
+    }
+
+    /**
+     * 获取方块的着色类型
+     */
+    public static TintType getTintType(String blockId) {
+        if (blockId == null) {
+            return TintType.NONE;
+        }
+        TintType type = BLOCK_TINTS.get(blockId);
+        return type != null ? type : TintType.NONE;
+    }
+
+    /**
+     * 获取生物群系的着色比例（打包的三个通道），未知生物群系返回不改变颜色的比例
+     */
+    public static int getTintRatio(TintType type, short biome) {
+        int[] table = ratioTables[type.ordinal()];
+        if (biome < 0 || biome >= table.length) {
+            return IDENTITY_RATIO;
+        }
+        return table[biome];
+    }
+
+    /**
+     * 按着色比例调整颜色，保留透明度
+     */
+    public static int applyRatio(int argb, int ratio) {
+        int r = Math.min(255, (((argb >> 16) & 0xFF) * ((ratio >> 20) & 0x3FF)) >> 8);
+        int g = Math.min(255, (((argb >> 8) & 0xFF) * ((ratio >> 10) & 0x3FF)) >> 8);
+        int b = Math.min(255, ((argb & 0xFF) * (ratio & 0x3FF)) >> 8);
+        return (argb & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * 对图层像素做生物群系着色（原地修改）
+     *
+     * @param argb 按行存储的像素颜色
+     * @param layer 提供方块编号和生物群系通道的图层
+     * @param blendRadius 混合半径，0表示不混合，否则对周围(2r+1)x(2r+1)列的着色比例取平均
+     */
+    public static void applyTints(int[] argb, MapLayer layer, int blendRadius) {
+        int width = layer.getWidth();
+        int height = layer.getHeight();
+        int[] blocks = layer.getBlockIndices();
+        short[] biomes = layer.getBiomes();
+
+        // 每列的着色类型，按方块编号查表
+        TintType[] types = TintType.values();
+        byte[] columnTypes = new byte[width * height];
+        boolean[] usedTypes = new boolean[types.length];
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == MapLayer.NO_BLOCK) {
+                continue;
+            }
+            TintType type = BlockColors.getTintType(blocks[i]);
+            columnTypes[i] = (byte) type.ordinal();
+            usedTypes[type.ordinal()] = true;
+        }
+
+        for (TintType type : types) {
+            if (type == TintType.NONE || !usedTypes[type.ordinal()]) {
+                continue;
+            }
+
+            int[] table = ratioTables[type.ordinal()];
+            int[] ratios = new int[width * height];
+            for (int i = 0; i < ratios.length; i++) {
+                short biome = biomes[i];
+                ratios[i] = biome >= 0 && biome < table.length ? table[biome] : IDENTITY_RATIO;
+            }
+            if (blendRadius > 0) {
+                ratios = blend(ratios, width, height, blendRadius);
+            }
+
+            byte ordinal = (byte) type.ordinal();
+            for (int i = 0; i < argb.length; i++) {
+                if (columnTypes[i] == ordinal) {
+                    argb[i] = applyRatio(argb[i], ratios[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 对打包的着色比例做可分离的方框平均，每个通道独立计算滑动和
+     */
+    private static int[] blend(int[] ratios, int width, int height, int radius) {
+        int[] horizontal = new int[ratios.length];
+        int[] result = new int[ratios.length];
+        int size = radius * 2 + 1;
+
+        for (int z = 0; z < height; z++) {
+            int row = z * width;
+            int r = 0, g = 0, b = 0;
+            for (int k = -radius; k <= radius; k++) {
+                int v = ratios[row + Math.max(0, Math.min(width - 1, k))];
+                r += (v >> 20) & 0x3FF;
+                g += (v >> 10) & 0x3FF;
+                b += v & 0x3FF;
+            }
+            for (int x = 0; x < width; x++) {
+                horizontal[row + x] = ((r / size) << 20) | ((g / size) << 10) | (b / size);
+                int out = ratios[row + Math.max(0, x - radius)];
+                int in = ratios[row + Math.min(width - 1, x + radius + 1)];
+                r += ((in >> 20) & 0x3FF) - ((out >> 20) & 0x3FF);
+                g += ((in >> 10) & 0x3FF) - ((out >> 10) & 0x3FF);
+                b += (in & 0x3FF) - (out & 0x3FF);
+            }
+        }
+
+        for (int x = 0; x < width; x++) {
+            int r = 0, g = 0, b = 0;
+            for (int k = -radius; k <= radius; k++) {
+                int v = horizontal[Math.max(0, Math.min(height - 1, k)) * width + x];
+                r += (v >> 20) & 0x3FF;
+                g += (v >> 10) & 0x3FF;
+                b += v & 0x3FF;
+            }
+            for (int z = 0; z < height; z++) {
+                result[z * width + x] = ((r / size) << 20) | ((g / size) << 10) | (b / size);
+                int out = horizontal[Math.max(0, z - radius) * width + x];
+                int in = horizontal[Math.min(height - 1, z + radius + 1) * width + x];
+                r += ((in >> 20) & 0x3FF) - ((out >> 20) & 0x3FF);
+                g += ((in >> 10) & 0x3FF) - ((out >> 10) & 0x3FF);
+                b += (in & 0x3FF) - (out & 0x3FF);
+            }
+        }
+
+        return result;
+    }
+}
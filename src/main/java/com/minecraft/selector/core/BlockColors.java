@@ -1,24 +1,32 @@
 package com.minecraft.selector.core;
 
+import com.minecraft.selector.region.BlockIndex;
+
 import java.awt.Color;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 方块颜色映射类
  * 对应Python代码中的BLOCK_COLORS和get_block_color函数
+ * 方块ID的稠密编号由BlockIndex分配（解码调色板时已解析），每个编号只解析一次颜色，之后按编号查表。
  */
 public class BlockColors {
     
     // 方块类型到颜色的映射 (RGB格式)
     private static final Map<String, Color> BLOCK_COLORS = new HashMap<>();
     
-    // 线程安全的颜色缓存
-    private static final Map<String, Color> COLOR_CACHE = new ConcurrentHashMap<>();
+    // 编号到颜色、不透明度和着色类型的表，解析新编号或重建时整体替换
+    private static volatile BlockTable blockTable = new BlockTable(64, 0);
 
     // 从Minecraft JAR提取的颜色
-    private static MinecraftResourceExtractor resourceExtractor = null;
+    private static volatile MinecraftResourceExtractor resourceExtractor = null;
+
+    // 半透明方块的不透明度（0-255），未列出的方块完全不透明；解析编号时查一次，结果存入编号表
+    private static final Map<String, Integer> BLOCK_OPACITY = new HashMap<>();
+
+    private static final BiomeColors.TintType[] TINT_TYPES = BiomeColors.TintType.values();
     
     static {
         // 石头类
@@ -55,6 +63,16 @@ public class BlockColors {
         BLOCK_COLORS.put("jungle_log", new Color(151, 114, 80));
         BLOCK_COLORS.put("acacia_log", new Color(169, 88, 33));
         BLOCK_COLORS.put("dark_oak_log", new Color(76, 51, 25));
+
+        // 木材（木板颜色，用于木板、楼梯、台阶、栅栏等派生方块）
+        BLOCK_COLORS.put("oak", new Color(162, 130, 78));
+        BLOCK_COLORS.put("spruce", new Color(114, 84, 48));
+        BLOCK_COLORS.put("birch", new Color(196, 179, 123));
+        BLOCK_COLORS.put("jungle", new Color(160, 115, 80));
+        BLOCK_COLORS.put("acacia", new Color(168, 90, 50));
+        BLOCK_COLORS.put("dark_oak", new Color(66, 43, 20));
+        BLOCK_COLORS.put("mangrove", new Color(117, 54, 48));
+        BLOCK_COLORS.put("cherry", new Color(226, 178, 172));
         
         // 树叶类
         BLOCK_COLORS.put("oak_leaves", new Color(42, 132, 39));
@@ -95,29 +113,133 @@ public class BlockColors {
         BLOCK_COLORS.put("cave_air", new Color(255, 255, 255, 0));
         BLOCK_COLORS.put("void_air", new Color(255, 255, 255, 0));
         BLOCK_COLORS.put("none", new Color(255, 0, 255, 170)); // 粉色半透明，表示无效区块
+
+        // 半透明方块（透视模式下与下方第一个不透明方块混合）
+        BLOCK_OPACITY.put("water", 150);
+        BLOCK_OPACITY.put("bubble_column", 150);
+        BLOCK_OPACITY.put("ice", 170);
+        BLOCK_OPACITY.put("frosted_ice", 170);
+        BLOCK_OPACITY.put("glass", 60);
+        BLOCK_OPACITY.put("glass_pane", 60);
+        BLOCK_OPACITY.put("tinted_glass", 210);
+        BLOCK_OPACITY.put("slime_block", 170);
+        BLOCK_OPACITY.put("honey_block", 170);
+        // 水下植物完全透明，透视时直接看到水底
+        BLOCK_OPACITY.put("seagrass", 0);
+        BLOCK_OPACITY.put("tall_seagrass", 0);
+        BLOCK_OPACITY.put("kelp", 0);
+        BLOCK_OPACITY.put("kelp_plant", 0);
     }
     
+    /**
+     * 按编号排列的颜色、不透明度和着色类型表，前resolved个编号已解析
+     * 发布后不再修改，解析新编号时复制为新表再整体替换，读取方不会看到写了一半的条目
+     */
+    private static final class BlockTable {
+        final Color[] colors;
+        final int[] argb;
+        final byte[] opacity;
+        final byte[] tints;
+        final int resolved;
+
+        BlockTable(int capacity, int resolved) {
+            colors = new Color[capacity];
+            argb = new int[capacity];
+            opacity = new byte[capacity];
+            tints = new byte[capacity];
+            this.resolved = resolved;
+        }
+
+        BlockTable copy(int capacity, int resolved) {
+            BlockTable table = new BlockTable(capacity, resolved);
+            System.arraycopy(colors, 0, table.colors, 0, this.resolved);
+            System.arraycopy(argb, 0, table.argb, 0, this.resolved);
+            System.arraycopy(opacity, 0, table.opacity, 0, this.resolved);
+            System.arraycopy(tints, 0, table.tints, 0, this.resolved);
+            return table;
+        }
+
+        void set(int index, String blockId) {
+            Color color = calculateBlockColor(blockId);
+            colors[index] = color;
+            argb[index] = color.getRGB();
+            String processedId = blockId.startsWith("minecraft:") ? blockId.substring("minecraft:".length()) : blockId;
+            opacity[index] = (byte) calculateOpacity(processedId);
+            tints[index] = (byte) BiomeColors.getTintType(processedId).ordinal();
+        }
+    }
+
+    /**
+     * 获取方块ID的稠密编号（与BlockIndex相同）
+     */
+    public static int getBlockIndex(String blockId) {
+        return BlockIndex.of(blockId);
+    }
+
+    /**
+     * 获取已解析到指定编号的表，编号还没解析时先解析
+     */
+    private static BlockTable tableFor(int blockIndex) {
+        BlockTable table = blockTable;
+        return blockIndex < table.resolved ? table : resolveTable(blockIndex);
+    }
+
+    private static synchronized BlockTable resolveTable(int blockIndex) {
+        BlockTable table = blockTable;
+        if (blockIndex < table.resolved) {
+            return table;
+        }
+        // 一次解析所有已分配但还没解析的编号
+        int count = Math.max(BlockIndex.size(), blockIndex + 1);
+        table = table.copy(Math.max(table.colors.length, Integer.highestOneBit(count - 1) << 1), count);
+        for (int i = blockTable.resolved; i < count; i++) {
+            table.set(i, BlockIndex.getId(i));
+        }
+        blockTable = table;
+        return table;
+    }
+
+    /**
+     * 按编号获取颜色（ARGB）
+     */
+    public static int getArgb(int blockIndex) {
+        return tableFor(blockIndex).argb[blockIndex];
+    }
+
+    /**
+     * 根据方块ID获取颜色（ARGB）
+     */
+    public static int getBlockArgb(String blockId) {
+        return getArgb(BlockIndex.of(blockId));
+    }
+
     /**
      * 根据方块ID获取对应的颜色
      */
     public static Color getBlockColor(String blockId) {
-        // 检查缓存
-        if (COLOR_CACHE.containsKey(blockId)) {
-            return COLOR_CACHE.get(blockId);
-        }
-        
-        Color color = calculateBlockColor(blockId);
-        COLOR_CACHE.put(blockId, color);
-        return color;
+        int index = BlockIndex.of(blockId);
+        return tableFor(index).colors[index];
     }
     
     /**
      * 设置资源提取器
      */
-    public static void setResourceExtractor(MinecraftResourceExtractor extractor) {
+    public static synchronized void setResourceExtractor(MinecraftResourceExtractor extractor) {
         resourceExtractor = extractor;
-        // 清除缓存以使用新的颜色数据
-        COLOR_CACHE.clear();
+        // 用新的颜色数据重建颜色表
+        rebuildColorTable();
+    }
+
+    /**
+     * 为所有已分配编号的方块重新解析颜色，完成后一次性替换颜色表
+     */
+    private static synchronized void rebuildColorTable() {
+        int count = blockTable.resolved;
+        BlockTable table = new BlockTable(blockTable.colors.length, count);
+        for (int i = 0; i < count; i++) {
+            table.set(i, BlockIndex.getId(i));
+        }
+        blockTable = table;
     }
 
     /**
@@ -129,34 +251,28 @@ public class BlockColors {
             return new Color(255, 0, 255, 128); // 半透明紫色
         }
 
-        // 从完整方块ID中提取基本名称
-        String processedId = blockId;
-        if (blockId.contains(":")) {
-            String[] parts = blockId.split(":", 2);
-            // 如果是minecraft命名空间，只使用名称部分
-            if ("minecraft".equals(parts[0])) {
-                processedId = parts[1];
-            }
-        }
+        // 从完整方块ID中提取基本名称（minecraft命名空间只使用名称部分）
+        String processedId = blockId.startsWith("minecraft:") ? blockId.substring("minecraft:".length()) : blockId;
 
         // 首先尝试从提取的颜色中获取
-        if (resourceExtractor != null && resourceExtractor.isExtractionCompleted()) {
-            Color extractedColor = resourceExtractor.getExtractedColor(processedId);
+        MinecraftResourceExtractor extractor = resourceExtractor;
+        if (extractor != null && extractor.isExtractionCompleted()) {
+            Color extractedColor = extractor.getExtractedColor(processedId);
             if (extractedColor != null) {
                 return extractedColor;
             }
         }
 
         // 尝试匹配完整ID
-        if (BLOCK_COLORS.containsKey(processedId)) {
-            return BLOCK_COLORS.get(processedId);
+        Color color = BLOCK_COLORS.get(processedId);
+        if (color != null) {
+            return color;
         }
 
-        // 尝试匹配部分ID（例如，如果blockId是"spruce_planks"，可以匹配"spruce"）
-        for (String key : BLOCK_COLORS.keySet()) {
-            if (processedId.contains(key)) {
-                return BLOCK_COLORS.get(key);
-            }
+        // 尝试匹配部分ID（例如"deepslate_diamond_ore"匹配"diamond_ore"，"spruce_planks"匹配"spruce"）
+        String matched = findPartialMatch(processedId);
+        if (matched != null) {
+            return BLOCK_COLORS.get(matched);
         }
 
         // 生成随机颜色但保持一致性
@@ -172,19 +288,120 @@ public class BlockColors {
     }
     
     /**
-     * 清除颜色缓存
+     * 方块是否有内置的默认颜色（不含部分匹配）
+     */
+    static boolean hasDefaultColor(String processedId) {
+        return BLOCK_COLORS.containsKey(processedId);
+    }
+
+    /**
+     * 查找与方块ID部分匹配的颜色键，结果与HashMap的遍历顺序无关：
+     * 1. 最长的下划线分隔后缀（mossy_cobblestone -> cobblestone）
+     * 2. 最长的连续单词（spruce_planks -> spruce，长度相同时取靠后的）
+     * 3. 最长的子串（sandstone -> stone 和 sand 中取 stone），长度相同时取字典序最小的，不匹配空气
+     */
+    static String findPartialMatch(String processedId) {
+        // 模组方块只用名称部分匹配
+        String name = processedId.substring(processedId.indexOf(':') + 1);
+        String[] tokens = name.split("_");
+
+        for (int start = 0; start < tokens.length; start++) {
+            String suffix = String.join("_", Arrays.asList(tokens).subList(start, tokens.length));
+            if (BLOCK_COLORS.containsKey(suffix)) {
+                return suffix;
+            }
+        }
+
+        String best = null;
+        for (int start = 0; start < tokens.length; start++) {
+            for (int end = start + 1; end <= tokens.length; end++) {
+                String run = String.join("_", Arrays.asList(tokens).subList(start, end));
+                if (BLOCK_COLORS.containsKey(run) && (best == null || run.length() >= best.length())) {
+                    best = run;
+                }
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+
+        for (String key : BLOCK_COLORS.keySet()) {
+            // 空气和无效区块的颜色是透明的，不参与子串匹配（避免stairs匹配到air）
+            if (isAirBlock(key) || "none".equals(key)) {
+                continue;
+            }
+            if (name.contains(key) && (best == null || key.length() > best.length()
+                    || (key.length() == best.length() && key.compareTo(best) < 0))) {
+                best = key;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 清除颜色缓存（重新解析所有已出现方块的颜色，编号保持不变）
      */
     public static void clearCache() {
-        COLOR_CACHE.clear();
+        rebuildColorTable();
     }
     
     /**
-     * 获取缓存大小
+     * 获取已解析颜色的方块数量
      */
     public static int getCacheSize() {
-        return COLOR_CACHE.size();
+        return blockTable.resolved;
     }
     
+    /**
+     * 按编号获取方块的不透明度（0-255），255表示不透明
+     */
+    public static int getOpacity(int blockIndex) {
+        return tableFor(blockIndex).opacity[blockIndex] & 0xFF;
+    }
+
+    /**
+     * 获取方块的不透明度（0-255），255表示不透明
+     */
+    public static int getOpacity(String blockId) {
+        if (blockId == null) {
+            return 255;
+        }
+        return getOpacity(BlockIndex.of(blockId));
+    }
+
+    /**
+     * 按编号检查方块在透视模式下是否可以看穿
+     */
+    public static boolean isTranslucent(int blockIndex) {
+        return getOpacity(blockIndex) < 255;
+    }
+
+    /**
+     * 检查方块在透视模式下是否可以看穿
+     */
+    public static boolean isTranslucent(String blockId) {
+        return getOpacity(blockId) < 255;
+    }
+
+    /**
+     * 按编号获取方块的生物群系着色类型
+     */
+    public static BiomeColors.TintType getTintType(int blockIndex) {
+        return TINT_TYPES[tableFor(blockIndex).tints[blockIndex]];
+    }
+
+    private static int calculateOpacity(String processedId) {
+        Integer opacity = BLOCK_OPACITY.get(processedId);
+        if (opacity != null) {
+            return opacity;
+        }
+        // 各种颜色的染色玻璃和玻璃板
+        if (processedId.endsWith("_stained_glass") || processedId.endsWith("_stained_glass_pane")) {
+            return 130;
+        }
+        return 255;
+    }
+
     /**
      * 检查是否为空气方块
      */
@@ -0,0 +1,267 @@
+package com.minecraft.selector.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 方块模型解析器
+ * 按 blockstates -> models（沿parent链合并纹理变量和元素）-> 朝上的面 的顺序，
+ * 找出每个方块从上方看到的纹理。解析过的模型会被记住，同一个JAR中的方块共享父模型的解析结果。
+ * 资源ID统一为"命名空间:路径"的形式，例如 minecraft:block/oak_log。
+ */
+public class BlockModelResolver {
+
+    // parent链和纹理变量引用的最大深度，防止循环引用
+    private static final int MAX_DEPTH = 32;
+
+    // 没有朝上的面时按顺序尝试的纹理变量（side和particle往往不是顶面的颜色，例如水的particle是灰色的water_still）
+    private static final String[] TOP_TEXTURE_KEYS = {"top", "up", "end", "all", "texture", "cross", "plant"};
+
+    // 按生物群系着色的十字形植物模型
+    private static final String TINTED_CROSS = "minecraft:block/tinted_cross";
+
+    /**
+     * 方块顶面：纹理ID、该面是否按生物群系着色，以及纹理是否只是按纹理变量名猜测的
+     */
+    public static final class TopFace {
+        private final String texture;
+        private final boolean tinted;
+        private final boolean guessed;
+
+        TopFace(String texture, boolean tinted, boolean guessed) {
+            this.texture = texture;
+            this.tinted = tinted;
+            this.guessed = guessed;
+        }
+
+        public String getTexture() {
+            return texture;
+        }
+
+        public boolean isTinted() {
+            return tinted;
+        }
+
+        /**
+         * 模型没有朝上的面，纹理是按纹理变量名猜测的
+         */
+        public boolean isGuessed() {
+            return guessed;
+        }
+    }
+
+    /**
+     * 沿parent链合并后的模型
+     */
+    private static final class ResolvedModel {
+        final Map<String, String> textures;
+        final JsonNode elements;
+        // parent链中有tinted_cross
+        final boolean tintedCross;
+
+        ResolvedModel(Map<String, String> textures, JsonNode elements, boolean tintedCross) {
+            this.textures = textures;
+            this.elements = elements;
+            this.tintedCross = tintedCross;
+        }
+    }
+
+    private static final ResolvedModel EMPTY_MODEL = new ResolvedModel(new HashMap<>(), null, false);
+
+    private final Map<String, JsonNode> blockstates;
+    private final Map<String, JsonNode> models;
+    private final Map<String, ResolvedModel> resolvedModels = new HashMap<>();
+
+    /**
+     * @param blockstates 方块状态文件，键为"命名空间:方块名"
+     * @param models 模型文件，键为"命名空间:路径"（如 minecraft:block/cube_all）
+     */
+    public BlockModelResolver(Map<String, JsonNode> blockstates, Map<String, JsonNode> models) {
+        this.blockstates = blockstates;
+        this.models = models;
+    }
+
+    /**
+     * 解析所有方块的顶面，无法解析的方块不包含在结果中
+     */
+    public Map<String, TopFace> resolveAll() {
+        Map<String, TopFace> result = new LinkedHashMap<>();
+        for (String blockId : blockstates.keySet()) {
+            TopFace face = resolveBlock(blockId);
+            if (face != null) {
+                result.put(blockId, face);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 解析单个方块的顶面
+     */
+    public TopFace resolveBlock(String blockId) {
+        JsonNode state = blockstates.get(blockId);
+        if (state == null) {
+            return null;
+        }
+        String modelId = selectModel(state);
+        if (modelId == null) {
+            return null;
+        }
+        String name = blockId.startsWith("minecraft:") ? blockId.substring("minecraft:".length()) : blockId;
+        return topFace(resolveModel(normalizeId(modelId), 0), BiomeColors.getTintType(name) != BiomeColors.TintType.NONE);
+    }
+
+    /**
+     * 从方块状态中选择代表模型：优先不旋转的变体（如 axis=y 的原木），多部件方块优先无条件的部件
+     */
+    private static String selectModel(JsonNode state) {
+        JsonNode variants = state.get("variants");
+        if (variants != null && variants.isObject()) {
+            String fallback = null;
+            Iterator<JsonNode> it = variants.elements();
+            while (it.hasNext()) {
+                JsonNode variant = firstOf(it.next());
+                String model = variant.path("model").asText(null);
+                if (model == null) {
+                    continue;
+                }
+                if (variant.path("x").asInt(0) == 0) {
+                    return model;
+                }
+                if (fallback == null) {
+                    fallback = model;
+                }
+            }
+            return fallback;
+        }
+
+        JsonNode multipart = state.get("multipart");
+        if (multipart != null && multipart.isArray()) {
+            String fallback = null;
+            for (JsonNode part : multipart) {
+                String model = firstOf(part.path("apply")).path("model").asText(null);
+                if (model == null) {
+                    continue;
+                }
+                if (!part.has("when")) {
+                    return model;
+                }
+                if (fallback == null) {
+                    fallback = model;
+                }
+            }
+            return fallback;
+        }
+        return null;
+    }
+
+    private static JsonNode firstOf(JsonNode node) {
+        return node.isArray() && node.size() > 0 ? node.get(0) : node;
+    }
+
+    /**
+     * 解析模型及其parent链，结果按模型ID记住
+     */
+    private ResolvedModel resolveModel(String modelId, int depth) {
+        ResolvedModel cached = resolvedModels.get(modelId);
+        if (cached != null) {
+            return cached;
+        }
+        JsonNode node = models.get(modelId);
+        if (node == null || depth > MAX_DEPTH) {
+            // 内置模型（如 builtin/generated）或缺失的模型；tinted_cross缺失时（只有模组JAR）仍然记住它是着色的
+            return TINTED_CROSS.equals(modelId) ? new ResolvedModel(new HashMap<>(), null, true) : EMPTY_MODEL;
+        }
+
+        ResolvedModel parent = EMPTY_MODEL;
+        String parentId = node.path("parent").asText(null);
+        if (parentId != null) {
+            parent = resolveModel(normalizeId(parentId), depth + 1);
+        }
+
+        Map<String, String> textures = new HashMap<>(parent.textures);
+        node.path("textures").fields().forEachRemaining(entry -> textures.put(entry.getKey(), entry.getValue().asText()));
+        JsonNode elements = node.has("elements") ? node.get("elements") : parent.elements;
+
+        ResolvedModel resolved = new ResolvedModel(textures, elements, parent.tintedCross || TINTED_CROSS.equals(modelId));
+        resolvedModels.put(modelId, resolved);
+        return resolved;
+    }
+
+    /**
+     * 找出模型朝上的面：取最高的带up面的元素；没有朝上的面时按常见纹理变量名猜测。
+     * 猜测的纹理在模型的面带tintindex、继承tinted_cross或方块按生物群系着色时视为着色的
+     *
+     * @param biomeTinted 方块在BiomeColors中注册了着色类型（如用cross模型、由代码着色的甘蔗）
+     */
+    private static TopFace topFace(ResolvedModel model, boolean biomeTinted) {
+        if (model.elements != null && model.elements.isArray()) {
+            JsonNode best = null;
+            double bestTop = Double.NEGATIVE_INFINITY;
+            for (JsonNode element : model.elements) {
+                JsonNode up = element.path("faces").get("up");
+                double top = element.path("to").path(1).asDouble(0);
+                if (up != null && top > bestTop) {
+                    best = up;
+                    bestTop = top;
+                }
+            }
+            if (best != null) {
+                String texture = resolveTexture(model.textures, best.path("texture").asText(null));
+                if (texture != null) {
+                    return new TopFace(texture, best.has("tintindex"), false);
+                }
+            }
+        }
+
+        for (String key : TOP_TEXTURE_KEYS) {
+            String texture = resolveTexture(model.textures, "#" + key);
+            if (texture != null) {
+                return new TopFace(texture, biomeTinted || model.tintedCross || hasTintedFace(model.elements), true);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 模型中是否有带tintindex的面
+     */
+    private static boolean hasTintedFace(JsonNode elements) {
+        if (elements == null || !elements.isArray()) {
+            return false;
+        }
+        for (JsonNode element : elements) {
+            Iterator<JsonNode> faces = element.path("faces").elements();
+            while (faces.hasNext()) {
+                if (faces.next().has("tintindex")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 展开"#变量"形式的纹理引用，返回规范化的纹理ID
+     */
+    private static String resolveTexture(Map<String, String> textures, String reference) {
+        for (int i = 0; reference != null && i < MAX_DEPTH; i++) {
+            if (!reference.startsWith("#")) {
+                return normalizeId(reference);
+            }
+            reference = textures.get(reference.substring(1));
+        }
+        return null;
+    }
+
+    /**
+     * 补全命名空间：block/stone -> minecraft:block/stone
+     */
+    static String normalizeId(String id) {
+        return id.indexOf(':') >= 0 ? id : "minecraft:" + id;
+    }
+}
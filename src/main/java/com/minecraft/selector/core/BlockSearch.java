@@ -0,0 +1,332 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Block;
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.Region;
+import com.minecraft.selector.utils.FileUtils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 方块搜索
+ * 先检查每个区段的调色板，只有调色板中包含目标方块的区段才解包方块数据，其余区段直接跳过。
+ * 找到的坐标通过回调逐个返回。可选地为每个区域保存调色板索引（每种方块出现在哪些区块中），
+ * 之后的搜索可以直接跳过不包含目标方块的区域和区块。索引按区域目录分开保存，
+ * 多个存档或维度共用一个索引目录时不会互相覆盖。
+ */
+public class BlockSearch {
+
+    // 索引文件的标识（"MCPI"）和版本
+    private static final int INDEX_MAGIC = 0x4D435049;
+    private static final int INDEX_VERSION = 1;
+
+    /**
+     * 搜索结果回调，调用是串行的（不会被多个线程同时调用）
+     */
+    public interface MatchListener {
+        void onMatch(String blockId, int x, int y, int z);
+    }
+
+    private final int maxWorkers;
+    private final File indexDir;
+
+    private final AtomicLong regionsSkipped = new AtomicLong(0);
+    private final AtomicLong chunksSkipped = new AtomicLong(0);
+    private final AtomicLong sectionsUnpacked = new AtomicLong(0);
+
+    /**
+     * 区域的调色板索引：方块ID -> 包含该方块的区块（1024位，索引为 z * 32 + x）
+     */
+    private static final class PaletteIndex {
+        final long fileLength;
+        final long lastModified;
+        final Map<String, long[]> chunkMasks;
+
+        PaletteIndex(long fileLength, long lastModified, Map<String, long[]> chunkMasks) {
+            this.fileLength = fileLength;
+            this.lastModified = lastModified;
+            this.chunkMasks = chunkMasks;
+        }
+
+        /**
+         * 包含任一目标方块的区块，没有时返回null
+         */
+        long[] chunksContaining(Set<String> targets) {
+            long[] result = null;
+            for (String target : targets) {
+                long[] mask = chunkMasks.get(target);
+                if (mask == null) {
+                    continue;
+                }
+                if (result == null) {
+                    result = new long[16];
+                }
+                for (int i = 0; i < 16; i++) {
+                    result[i] |= mask[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param maxWorkers 并行搜索的区域数
+     * @param indexDir 调色板索引目录，为null时不使用索引；每个区域目录在其中使用单独的子目录
+     */
+    public BlockSearch(int maxWorkers, File indexDir) {
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.indexDir = indexDir;
+    }
+
+    /**
+     * 在区域文件中搜索目标方块（可带minecraft:前缀）
+     *
+     * @return 找到的方块数量
+     */
+    public long search(List<File> regionFiles, Collection<String> blockIds, MatchListener listener) {
+        Set<String> targets = new HashSet<>();
+        for (String blockId : blockIds) {
+            targets.add(normalizeId(blockId.trim()));
+        }
+        System.out.println("正在 " + regionFiles.size() + " 个区域中搜索: " + targets);
+        long startTime = System.currentTimeMillis();
+        regionsSkipped.set(0);
+        chunksSkipped.set(0);
+        sectionsUnpacked.set(0);
+
+        // 串行化回调
+        MatchListener serial = (blockId, x, y, z) -> {
+            synchronized (listener) {
+                listener.onMatch(blockId, x, y, z);
+            }
+        };
+
+        AtomicLong found = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(maxWorkers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File regionFile : regionFiles) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        found.addAndGet(searchRegion(regionFile, targets, serial));
+                    } catch (IOException e) {
+                        System.err.println("搜索区域失败: " + regionFile.getName() + " - " + e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    System.err.println("搜索任务出错: " + e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        System.out.println("搜索完成，找到 " + found.get() + " 个方块，耗时: " + (totalTime / 1000.0) + "秒");
+        System.out.println("跳过区域: " + regionsSkipped.get() + "，跳过区块: " + chunksSkipped.get()
+            + "，解包区段: " + sectionsUnpacked.get());
+        return found.get();
+    }
+
+    /**
+     * 上一次搜索中按索引整个跳过的区域数
+     */
+    public long getRegionsSkipped() {
+        return regionsSkipped.get();
+    }
+
+    /**
+     * 上一次搜索中按索引跳过的区块数
+     */
+    public long getChunksSkipped() {
+        return chunksSkipped.get();
+    }
+
+    /**
+     * 上一次搜索中调色板包含目标方块、需要解包的区段数
+     */
+    public long getSectionsUnpacked() {
+        return sectionsUnpacked.get();
+    }
+
+    /**
+     * 搜索单个区域
+     */
+    private long searchRegion(File regionFile, Set<String> targets, MatchListener listener) throws IOException {
+        int[] regionCoords;
+        try {
+            regionCoords = FileUtils.parseRegionCoordinates(regionFile.getName());
+        } catch (IllegalArgumentException e) {
+            System.err.println("无法解析区域坐标，跳过: " + regionFile.getName());
+            return 0;
+        }
+
+        // 有有效索引时只读取包含目标方块的区块
+        PaletteIndex index = indexDir != null ? loadIndex(regionFile) : null;
+        long[] chunkFilter = null;
+        if (index != null) {
+            chunkFilter = index.chunksContaining(targets);
+            if (chunkFilter == null) {
+                regionsSkipped.incrementAndGet();
+                return 0;
+            }
+        }
+
+        Region region = Region.fromFile(regionFile.getPath());
+        // 没有索引时顺便建立索引
+        Map<String, long[]> chunkMasks = index == null ? new HashMap<>() : null;
+        // 有区块读取失败时索引不完整，不保存
+        boolean complete = true;
+        int[] indices = new int[4096];
+        long found = 0;
+
+        for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
+            for (int chunkX = 0; chunkX < 32; chunkX++) {
+                int bit = chunkZ * 32 + chunkX;
+                if (!region.chunkExists(chunkX, chunkZ)) {
+                    continue;
+                }
+                if (chunkFilter != null && (chunkFilter[bit >> 6] & (1L << (bit & 63))) == 0) {
+                    chunksSkipped.incrementAndGet();
+                    continue;
+                }
+
+                Chunk chunk;
+                try {
+                    chunk = region.getChunk(chunkX, chunkZ);
+                } catch (Exception e) {
+                    System.err.println("读取区块失败: " + regionFile.getName() + " (" + chunkX + ", " + chunkZ + ") - " + e.getMessage());
+                    complete = false;
+                    continue;
+                }
+                if (chunk == null) {
+                    continue;
+                }
+
+                int baseX = regionCoords[0] * 512 + chunkX * 16;
+                int baseZ = regionCoords[1] * 512 + chunkZ * 16;
+
+                for (Chunk.Section section : chunk.getSections()) {
+                    List<Block> palette = section.getPalette();
+
+                    // 先只看调色板
+                    boolean[] isTarget = new boolean[palette.size()];
+                    boolean anyTarget = false;
+                    for (int p = 0; p < palette.size(); p++) {
+                        String blockId = normalizeId(palette.get(p).getId());
+                        if (chunkMasks != null) {
+                            chunkMasks.computeIfAbsent(blockId, id -> new long[16])[bit >> 6] |= 1L << (bit & 63);
+                        }
+                        if (targets.contains(blockId)) {
+                            isTarget[p] = true;
+                            anyTarget = true;
+                        }
+                    }
+                    if (!anyTarget) {
+                        continue;
+                    }
+
+                    sectionsUnpacked.incrementAndGet();
+                    section.unpackIndices(indices);
+                    int baseY = section.getY() * 16;
+                    for (int i = 0; i < 4096; i++) {
+                        int p = indices[i];
+                        if (p < isTarget.length && isTarget[p]) {
+                            listener.onMatch(normalizeId(palette.get(p).getId()),
+                                baseX + (i & 15), baseY + (i >> 8), baseZ + ((i >> 4) & 15));
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (chunkMasks != null && indexDir != null && complete) {
+            saveIndex(regionFile, new PaletteIndex(regionFile.length(), regionFile.lastModified(), chunkMasks));
+        }
+        return found;
+    }
+
+    private static String normalizeId(String blockId) {
+        return blockId.startsWith("minecraft:") ? blockId.substring("minecraft:".length()) : blockId;
+    }
+
+    /**
+     * 区域的索引文件，每个区域目录一个子目录，不同存档中同名的区域文件不会共用索引
+     */
+    private File getIndexFile(File regionFile) {
+        File regionDir = regionFile.getAbsoluteFile().getParentFile();
+        File dir = new File(indexDir, String.format("%08x", regionDir.getAbsolutePath().hashCode()));
+        return new File(dir, regionFile.getName() + ".palette");
+    }
+
+    /**
+     * 读取区域的调色板索引，索引不存在或区域文件已改变时返回null
+     */
+    private PaletteIndex loadIndex(File regionFile) {
+        File indexFile = getIndexFile(regionFile);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            long fileLength = in.readLong();
+            long lastModified = in.readLong();
+            if (fileLength != regionFile.length() || lastModified != regionFile.lastModified()) {
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, long[]> chunkMasks = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String blockId = in.readUTF();
+                long[] mask = new long[16];
+                for (int j = 0; j < 16; j++) {
+                    mask[j] = in.readLong();
+                }
+                chunkMasks.put(blockId, mask);
+            }
+            return new PaletteIndex(fileLength, lastModified, chunkMasks);
+        } catch (IOException e) {
+            System.err.println("读取调色板索引失败: " + indexFile.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 保存区域的调色板索引
+     */
+    private void saveIndex(File regionFile, PaletteIndex index) {
+        File indexFile = getIndexFile(regionFile);
+        File dir = indexFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            System.err.println("无法创建调色板索引目录: " + dir.getAbsolutePath());
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(index.fileLength);
+            out.writeLong(index.lastModified);
+            out.writeInt(index.chunkMasks.size());
+            for (Map.Entry<String, long[]> entry : index.chunkMasks.entrySet()) {
+                out.writeUTF(entry.getKey());
+                for (long word : entry.getValue()) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("保存调色板索引失败: " + indexFile.getName() + " - " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Block;
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.RegionFile;
+import com.minecraft.selector.region.RegionHeader;
+import com.minecraft.selector.region.WorldIndex;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 方块统计
+ * 按区段批量统计调色板索引的出现次数（只有一种方块的区段整层计数，不解包），
+ * 得到每种方块的总数、按Y坐标的分布和每个区域的总数。多个区域并行统计，结果可导出为CSV或二进制文件。
+ * 区域文件按区块定位读取，每个线程同时只持有一个区块的数据；存档索引中没有区块的区域不打开。
+ */
+public class BlockStatistics {
+
+    // 二进制文件的标识（"MCBS"）和版本
+    private static final int BINARY_MAGIC = 0x4D434253;
+    private static final int BINARY_VERSION = 1;
+
+    private final int maxWorkers;
+
+    // 方块ID -> 计数（合并所有区域）
+    private final Map<String, BlockCount> totals = new HashMap<>();
+
+    // 区域文件名 -> (方块ID -> 数量)
+    private final Map<String, Map<String, Long>> regionTotals = new TreeMap<>();
+
+    private long chunkCount = 0;
+    private long sectionCount = 0;
+
+    /**
+     * 一种方块的计数：总数和按Y坐标的分布
+     */
+    public static final class BlockCount {
+        private long total;
+        private int baseY;
+        private long[] perY = new long[0];
+
+        /**
+         * 增加Y坐标处的数量
+         */
+        void add(int y, long count) {
+            if (perY.length == 0) {
+                baseY = y;
+                perY = new long[16];
+            } else if (y < baseY || y >= baseY + perY.length) {
+                int newBase = Math.min(baseY, y);
+                int newEnd = Math.max(baseY + perY.length, y + 1);
+                long[] grown = new long[newEnd - newBase];
+                System.arraycopy(perY, 0, grown, baseY - newBase, perY.length);
+                perY = grown;
+                baseY = newBase;
+            }
+            perY[y - baseY] += count;
+            total += count;
+        }
+
+        void addAll(BlockCount other) {
+            for (int i = 0; i < other.perY.length; i++) {
+                if (other.perY[i] != 0) {
+                    add(other.baseY + i, other.perY[i]);
+                }
+            }
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * 获取Y分布数组第一个元素对应的Y坐标
+         */
+        public int getBaseY() {
+            return baseY;
+        }
+
+        /**
+         * 获取按Y坐标的分布（下标0对应getBaseY()）
+         */
+        public long[] getPerY() {
+            return perY.clone();
+        }
+
+        /**
+         * 获取指定Y坐标处的数量
+         */
+        public long getCountAt(int y) {
+            int index = y - baseY;
+            return index >= 0 && index < perY.length ? perY[index] : 0;
+        }
+    }
+
+    public BlockStatistics(int maxWorkers) {
+        this.maxWorkers = Math.max(1, maxWorkers);
+    }
+
+    /**
+     * 统计区域文件中的所有方块
+     */
+    public void collect(List<File> regionFiles) {
+        collect(regionFiles, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 统计区域文件中Y坐标在[minY, maxY]范围内的方块，结果累加到已有的统计中
+     */
+    public void collect(List<File> regionFiles, int minY, int maxY) {
+        System.out.println("开始统计 " + regionFiles.size() + " 个区域文件，线程数: " + maxWorkers);
+        long startTime = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxWorkers);
+        AtomicInteger finished = new AtomicInteger(0);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File regionFile : regionFiles) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        countRegion(regionFile, minY, maxY);
+                    } catch (IOException e) {
+                        System.err.println("统计区域失败: " + regionFile.getName() + " - " + e.getMessage());
+                    }
+                    int done = finished.incrementAndGet();
+                    if (done % 16 == 0 || done == regionFiles.size()) {
+                        System.out.printf("已统计 %d/%d 个区域\n", done, regionFiles.size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    System.err.println("统计任务出错: " + e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        System.out.println("统计完成，耗时: " + (totalTime / 1000.0) + "秒，区块: " + getChunkCount()
+            + "，区段: " + getSectionCount() + "，方块类型: " + getTotals().size());
+    }
+
+    /**
+     * 统计单个区域文件，完成后合并到总结果
+     */
+    private void countRegion(File regionFile, int minY, int maxY) throws IOException {
+        // 文件未变化时使用存档索引中的头部，没有区块的区域直接跳过
+        RegionHeader indexed = WorldIndex.forDirectory(regionFile.getAbsoluteFile().getParentFile()).getHeader(regionFile);
+        if (indexed.getChunkCount() == 0) {
+            mergeRegion(regionFile, new HashMap<>(), 0, 0);
+            return;
+        }
+
+        int minSectionY = minY == Integer.MIN_VALUE ? Integer.MIN_VALUE : Math.floorDiv(minY, 16);
+        int maxSectionY = maxY == Integer.MAX_VALUE ? Integer.MAX_VALUE : Math.floorDiv(maxY, 16);
+
+        Map<String, BlockCount> local = new HashMap<>();
+        int[] scratch = new int[4096];
+        int[] counts = new int[0];
+        long chunks = 0;
+        long sections = 0;
+
+        try (RegionFile region = RegionFile.open(regionFile)) {
+            RegionHeader header = region.getHeader();
+            for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
+                for (int chunkX = 0; chunkX < 32; chunkX++) {
+                    if (!header.chunkExists(chunkX, chunkZ)) {
+                        continue;
+                    }
+                    Chunk chunk;
+                    try {
+                        RegionFile.RawChunk raw = region.readChunk(chunkX, chunkZ);
+                        chunk = raw != null ? raw.decode(minSectionY, maxSectionY) : null;
+                    } catch (Exception e) {
+                        System.err.println("读取区块失败: " + regionFile.getName() + " (" + chunkX + ", " + chunkZ + ") - " + e.getMessage());
+                        continue;
+                    }
+                    if (chunk == null) {
+                        continue;
+                    }
+                    chunks++;
+
+                    for (Chunk.Section section : chunk.getSections()) {
+                        List<Block> palette = section.getPalette();
+                        if (palette.isEmpty()) {
+                            continue;
+                        }
+                        int needed = palette.size() * 16;
+                        if (counts.length < needed) {
+                            counts = new int[needed];
+                        } else {
+                            Arrays.fill(counts, 0, needed, 0);
+                        }
+                        section.countIndicesByLayer(counts, scratch);
+                        sections++;
+
+                        int sectionBaseY = section.getY() * 16;
+                        for (int p = 0; p < palette.size(); p++) {
+                            BlockCount blockCount = null;
+                            for (int layer = 0; layer < 16; layer++) {
+                                int count = counts[p * 16 + layer];
+                                int y = sectionBaseY + layer;
+                                if (count == 0 || y < minY || y > maxY) {
+                                    continue;
+                                }
+                                if (blockCount == null) {
+                                    blockCount = local.computeIfAbsent(normalizeId(palette.get(p).getId()), id -> new BlockCount());
+                                }
+                                blockCount.add(y, count);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        mergeRegion(regionFile, local, chunks, sections);
+    }
+
+    /**
+     * 把一个区域的统计结果合并到总结果
+     */
+    private void mergeRegion(File regionFile, Map<String, BlockCount> local, long chunks, long sections) {
+        Map<String, Long> regionTotal = new TreeMap<>();
+        for (Map.Entry<String, BlockCount> entry : local.entrySet()) {
+            regionTotal.put(entry.getKey(), entry.getValue().getTotal());
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, BlockCount> entry : local.entrySet()) {
+                totals.computeIfAbsent(entry.getKey(), id -> new BlockCount()).addAll(entry.getValue());
+            }
+            regionTotals.merge(regionFile.getName(), regionTotal, (a, b) -> {
+                b.forEach((id, count) -> a.merge(id, count, Long::sum));
+                return a;
+            });
+            chunkCount += chunks;
+            sectionCount += sections;
+        }
+    }
+
+    private static String normalizeId(String blockId) {
+        return blockId.startsWith("minecraft:") ? blockId.substring("minecraft:".length()) : blockId;
+    }
+
+    /**
+     * 获取每种方块的总数，按数量从多到少排列
+     */
+    public synchronized Map<String, Long> getTotals() {
+        List<Map.Entry<String, BlockCount>> entries = new ArrayList<>(totals.entrySet());
+        entries.sort((a, b) -> {
+            int cmp = Long.compare(b.getValue().getTotal(), a.getValue().getTotal());
+            return cmp != 0 ? cmp : a.getKey().compareTo(b.getKey());
+        });
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, BlockCount> entry : entries) {
+            result.put(entry.getKey(), entry.getValue().getTotal());
+        }
+        return result;
+    }
+
+    /**
+     * 获取某种方块的计数（可带minecraft:前缀），没有时返回null
+     */
+    public synchronized BlockCount getBlockCount(String blockId) {
+        return totals.get(normalizeId(blockId));
+    }
+
+    /**
+     * 获取某种方块的总数
+     */
+    public synchronized long getTotal(String blockId) {
+        BlockCount count = totals.get(normalizeId(blockId));
+        return count != null ? count.getTotal() : 0;
+    }
+
+    /**
+     * 获取每个区域中每种方块的数量
+     */
+    public synchronized Map<String, Map<String, Long>> getRegionTotals() {
+        Map<String, Map<String, Long>> copy = new TreeMap<>();
+        regionTotals.forEach((region, counts) -> copy.put(region, new TreeMap<>(counts)));
+        return copy;
+    }
+
+    public synchronized long getChunkCount() {
+        return chunkCount;
+    }
+
+    public synchronized long getSectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * 导出每种方块的总数（block,total）
+     */
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter out = newCsvWriter(file)) {
+            out.println("block,total");
+            for (Map.Entry<String, Long> entry : getTotals().entrySet()) {
+                out.println(entry.getKey() + "," + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 导出按Y坐标的分布（y,block,count），只包含非零项
+     */
+    public synchronized void writeYDistributionCsv(File file) throws IOException {
+        try (PrintWriter out = newCsvWriter(file)) {
+            out.println("y,block,count");
+            for (String blockId : new TreeSet<>(totals.keySet())) {
+                BlockCount count = totals.get(blockId);
+                for (int i = 0; i < count.perY.length; i++) {
+                    if (count.perY[i] != 0) {
+                        out.println((count.baseY + i) + "," + blockId + "," + count.perY[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 导出每个区域的方块数量（region,block,count）
+     */
+    public synchronized void writeRegionCsv(File file) throws IOException {
+        try (PrintWriter out = newCsvWriter(file)) {
+            out.println("region,block,count");
+            for (Map.Entry<String, Map<String, Long>> region : regionTotals.entrySet()) {
+                for (Map.Entry<String, Long> entry : region.getValue().entrySet()) {
+                    out.println(region.getKey() + "," + entry.getKey() + "," + entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static PrintWriter newCsvWriter(File file) throws IOException {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 导出为紧凑的二进制文件（包含总数、Y分布和区域总数），可用readBinary读回
+     */
+    public synchronized void writeBinary(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeLong(chunkCount);
+            out.writeLong(sectionCount);
+
+            out.writeInt(totals.size());
+            for (Map.Entry<String, BlockCount> entry : totals.entrySet()) {
+                BlockCount count = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(count.baseY);
+                out.writeInt(count.perY.length);
+                for (long value : count.perY) {
+                    out.writeLong(value);
+                }
+            }
+
+            out.writeInt(regionTotals.size());
+            for (Map.Entry<String, Map<String, Long>> region : regionTotals.entrySet()) {
+                out.writeUTF(region.getKey());
+                out.writeInt(region.getValue().size());
+                for (Map.Entry<String, Long> entry : region.getValue().entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取writeBinary导出的二进制文件
+     */
+    public static BlockStatistics readBinary(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException("不是方块统计文件: " + file);
+            }
+            int version = in.readInt();
+            if (version != BINARY_VERSION) {
+                throw new IOException("不支持的方块统计文件版本: " + version);
+            }
+
+            BlockStatistics statistics = new BlockStatistics(1);
+            statistics.chunkCount = in.readLong();
+            statistics.sectionCount = in.readLong();
+
+            int blockTypes = in.readInt();
+            for (int i = 0; i < blockTypes; i++) {
+                String blockId = in.readUTF();
+                int baseY = in.readInt();
+                int length = in.readInt();
+                BlockCount count = new BlockCount();
+                for (int j = 0; j < length; j++) {
+                    long value = in.readLong();
+                    if (value != 0) {
+                        count.add(baseY + j, value);
+                    }
+                }
+                statistics.totals.put(blockId, count);
+            }
+
+            int regions = in.readInt();
+            for (int i = 0; i < regions; i++) {
+                String regionName = in.readUTF();
+                int entries = in.readInt();
+                Map<String, Long> counts = new TreeMap<>();
+                for (int j = 0; j < entries; j++) {
+                    counts.put(in.readUTF(), in.readLong());
+                }
+                statistics.regionTotals.put(regionName, counts);
+            }
+            return statistics;
+        }
+    }
+}
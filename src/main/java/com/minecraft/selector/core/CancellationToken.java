@@ -0,0 +1,126 @@
+package com.minecraft.selector.core;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协作式取消令牌
+ * 渲染任务在每个区块之间检查令牌，取消或超过截止时间后尽快停止。
+ * 取消时依次调用已登记的监听器（例如移除还在排队的任务），每个令牌只会触发一次。
+ */
+public class CancellationToken {
+
+    /**
+     * 永远不会被取消的令牌
+     */
+    public static final CancellationToken NONE = new CancellationToken(Long.MAX_VALUE, false);
+
+    // System.nanoTime()下的截止时间，没有截止时间时为Long.MAX_VALUE
+    private final long deadlineNanos;
+    private final boolean cancellable;
+
+    private volatile boolean cancelled;
+    private volatile boolean deadlineExceeded;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public CancellationToken() {
+        this(Long.MAX_VALUE, true);
+    }
+
+    private CancellationToken(long deadlineNanos, boolean cancellable) {
+        this.deadlineNanos = deadlineNanos;
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * 创建在指定时间后自动取消的令牌
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("超时时间不能为负数: " + timeout);
+        }
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * 请求取消并执行已登记的监听器，重复调用无效
+     */
+    public void cancel() {
+        if (!cancellable) {
+            return;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+        for (Runnable listener : listeners) {
+            // 与addListener竞争时只由成功移除的一方执行
+            if (listeners.remove(listener)) {
+                runListener(listener);
+            }
+        }
+    }
+
+    private static void runListener(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            System.err.println("取消监听器出错: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 是否已取消，超过截止时间时会触发取消
+     */
+    public boolean isCancelled() {
+        if (cancelled) {
+            return true;
+        }
+        if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0) {
+            deadlineExceeded = true;
+            cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 是否因为超过截止时间而取消
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * 已取消时抛出CancellationException
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException(deadlineExceeded ? "渲染超过截止时间" : "渲染已取消");
+        }
+    }
+
+    /**
+     * 登记取消监听器，令牌已取消时立即执行
+     */
+    public void addListener(Runnable listener) {
+        if (!cancellable) {
+            return;
+        }
+        listeners.add(listener);
+        if (cancelled && listeners.remove(listener)) {
+            runListener(listener);
+        }
+    }
+
+    /**
+     * 移除取消监听器，任务结束后应当移除以免长期存在的令牌持有已完成任务的引用
+     */
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
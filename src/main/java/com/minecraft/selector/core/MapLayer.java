@@ -0,0 +1,124 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Chunk;
+
+import java.util.Arrays;
+
+/**
+ * 渲染结果图层
+ * 每列显示的方块ID及其高度和生物群系编号，方块编号、高度和生物群系使用基本类型数组按行存储
+ * （索引为 z * width + x），避免为每一列创建对象。westEdge/northEdge是相邻区域紧贴边界的一列/一行高度，
+ * 用于跨区域边界的地形阴影。透视模式下另有水下（玻璃下）方块及其深度两个通道，按需创建。
+ */
+public class MapLayer {
+
+    private final int width;
+    private final int height;
+    private final String[][] blocks;
+    private final int[] blockIndices;
+    private final short[] heights;
+    private final short[] biomes;
+    private int[] underBlocks;
+    private short[] underDepths;
+    private short[] westEdge;
+    private short[] northEdge;
+
+    // 没有方块数据的列
+    public static final int NO_BLOCK = -1;
+
+    public MapLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.blocks = new String[height][width];
+        this.blockIndices = new int[width * height];
+        Arrays.fill(blockIndices, NO_BLOCK);
+        this.heights = new short[width * height];
+        Arrays.fill(heights, Chunk.NO_HEIGHT);
+        this.biomes = new short[width * height];
+        Arrays.fill(biomes, BiomeColors.UNKNOWN_BIOME);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 获取方块ID数组（[z][x]）
+     */
+    public String[][] getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * 获取方块编号通道（BlockIndex的编号，与getBlocks()中的方块ID对应），没有数据的列为NO_BLOCK
+     */
+    public int[] getBlockIndices() {
+        return blockIndices;
+    }
+
+    /**
+     * 获取高度通道，没有方块的列为Chunk.NO_HEIGHT
+     */
+    public short[] getHeights() {
+        return heights;
+    }
+
+    /**
+     * 获取生物群系通道（BiomeColors的编号），未知的列为BiomeColors.UNKNOWN_BIOME
+     */
+    public short[] getBiomes() {
+        return biomes;
+    }
+
+    /**
+     * 创建透视通道（已创建时不做任何事）
+     */
+    public void enableUnderLayer() {
+        if (underBlocks == null) {
+            underDepths = new short[width * height];
+            underBlocks = new int[width * height];
+            Arrays.fill(underBlocks, NO_BLOCK);
+        }
+    }
+
+    /**
+     * 获取半透明方块下方第一个不透明方块的编号（索引为 z * width + x），没有时为NO_BLOCK
+     * 未创建透视通道时返回null
+     */
+    public int[] getUnderBlocks() {
+        return underBlocks;
+    }
+
+    /**
+     * 获取显示方块到下方不透明方块的高度差，未创建透视通道时返回null
+     */
+    public short[] getUnderDepths() {
+        return underDepths;
+    }
+
+    /**
+     * 获取西侧相邻区域最东一列的高度（长度为height），不存在时为null
+     */
+    public short[] getWestEdge() {
+        return westEdge;
+    }
+
+    public void setWestEdge(short[] westEdge) {
+        this.westEdge = westEdge;
+    }
+
+    /**
+     * 获取北侧相邻区域最南一行的高度（长度为width），不存在时为null
+     */
+    public short[] getNorthEdge() {
+        return northEdge;
+    }
+
+    public void setNorthEdge(short[] northEdge) {
+        this.northEdge = northEdge;
+    }
+}
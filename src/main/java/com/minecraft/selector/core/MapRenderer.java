@@ -1,15 +1,20 @@
 package com.minecraft.selector.core;
 
+import com.minecraft.selector.metrics.ChunkCacheEvent;
+import com.minecraft.selector.metrics.RenderMetrics;
 import com.minecraft.selector.region.*;
+import com.minecraft.selector.utils.FileUtils;
+import com.minecraft.selector.utils.IoExecutors;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 地图渲染器
@@ -18,41 +23,173 @@ import java.util.concurrent.atomic.AtomicLong;
 public class MapRenderer {
     
     private final ExecutorService executorService;
+
+    // 区域I/O（读取头部、定位读取扇区、外部.mcc文件和缓存查找），支持时使用虚拟线程
+    private final ExecutorService ioExecutor;
     private final int maxWorkers;
-    private final ProgressCallback progressCallback;
     
     // 进度跟踪
-    private final AtomicInteger processedChunks = new AtomicInteger(0);
-    private final AtomicInteger totalChunks = new AtomicInteger(0);
-    private final AtomicLong startTime = new AtomicLong(0);
-    private final Set<String> foundBlocks = ConcurrentHashMap.newKeySet();
+    private final ProgressReporter progress;
+
+    // 默认渲染的世界高度范围
+    public static final int DEFAULT_MIN_Y = -64;
+    public static final int DEFAULT_MAX_Y = 319;
+
+    // 空气和无效区块的方块编号
+    private static final int AIR_INDEX = BlockIndex.of("air");
+    private static final int NONE_INDEX = BlockIndex.of("none");
+
+    // 没有方块数据的像素使用不透明的粉色
+    private static final int ERROR_ARGB = 0xFFFF00FF;
+
+    // 渲染的Y范围（包含两端），范围外的区段在解码时直接跳过
+    private volatile int minY = DEFAULT_MIN_Y;
+    private volatile int maxY = DEFAULT_MAX_Y;
+
+    // 渲染模式
+    private volatile RenderMode renderMode = RenderMode.SURFACE;
+
+    // 是否根据高度做地形阴影（默认为平面颜色，需要时显式开启）
+    private volatile boolean reliefShading = false;
+
+    // 是否按生物群系给草地、树叶和水着色（默认关闭），以及混合半径（0为不混合）
+    private volatile boolean biomeTinting = false;
+    private volatile int biomeBlendRadius = 0;
+
+    // 是否透视水、冰和玻璃等半透明方块
+    private volatile boolean translucency = false;
+
+    // 每处理完一个区块时接收其预览颜色，为null时不生成
+    private volatile ChunkPreviewListener previewListener;
     
     /**
      * 进度回调接口
+     * 由单个汇报线程按固定频率调用，newBlocks为自上次回调以来新发现的方块类型
      */
     public interface ProgressCallback {
-        void onProgress(int processed, int total, double speed, Set<String> foundBlocks);
+        void onProgress(int processed, int total, double speed, Set<String> newBlocks);
+    }
+
+    /**
+     * 区块预览监听器
+     * 在工作线程中每处理完一个区块调用一次，argb为该区块16x16的方块颜色（索引为 z * 16 + x），
+     * 不含阴影和生物群系着色，最终效果以renderToPng的结果为准。chunkX和chunkZ为区域内的区块坐标(0-31)
+     */
+    public interface ChunkPreviewListener {
+        void onChunkRendered(int chunkX, int chunkZ, int[] argb);
     }
     
     public MapRenderer(int maxWorkers, ProgressCallback progressCallback) {
         this.maxWorkers = maxWorkers;
-        this.progressCallback = progressCallback;
+        this.progress = new ProgressReporter(progressCallback);
         this.executorService = Executors.newFixedThreadPool(maxWorkers);
+        this.ioExecutor = IoExecutors.newIoExecutor("region-io", Math.max(8, maxWorkers * 2));
+    }
+
+    /**
+     * 设置渲染的Y范围（包含两端），只显示该范围内最高的方块
+     */
+    public void setYRange(int minY, int maxY) {
+        if (minY > maxY) {
+            throw new IllegalArgumentException("最小Y不能大于最大Y: " + minY + " > " + maxY);
+        }
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * 设置渲染模式，切片模式渲染最大Y所在的一层，天花板模式从最大Y开始向下查找
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode != null ? renderMode : RenderMode.SURFACE;
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * 设置是否做地形阴影（山体阴影和高度差描边）
+     */
+    public void setReliefShading(boolean reliefShading) {
+        this.reliefShading = reliefShading;
+    }
+
+    public boolean isReliefShading() {
+        return reliefShading;
+    }
+
+    /**
+     * 设置是否按生物群系着色
+     */
+    public void setBiomeTinting(boolean biomeTinting) {
+        this.biomeTinting = biomeTinting;
+    }
+
+    public boolean isBiomeTinting() {
+        return biomeTinting;
+    }
+
+    /**
+     * 设置生物群系颜色的混合半径（方块），0表示不混合
+     */
+    public void setBiomeBlendRadius(int biomeBlendRadius) {
+        this.biomeBlendRadius = Math.max(0, biomeBlendRadius);
+    }
+
+    public int getBiomeBlendRadius() {
+        return biomeBlendRadius;
+    }
+
+    /**
+     * 设置是否透视半透明方块，开启后水、冰和玻璃与下方第一个不透明方块混合，水越深颜色越暗
+     */
+    public void setTranslucency(boolean translucency) {
+        this.translucency = translucency;
+    }
+
+    public boolean isTranslucency() {
+        return translucency;
+    }
+
+    /**
+     * 设置区块预览监听器，用于在整个区域完成前逐个区块显示渲染结果
+     */
+    public void setPreviewListener(ChunkPreviewListener previewListener) {
+        this.previewListener = previewListener;
     }
 
     /**
      * 静态方法：渲染指定区域
      */
     public static BufferedImage renderRegion(String regionPath, int minX, int maxX, int minZ, int maxZ, int lodLevel) {
+        return renderRegion(regionPath, minX, maxX, minZ, maxZ, lodLevel, DEFAULT_MIN_Y, DEFAULT_MAX_Y, RenderMode.SURFACE);
+    }
+
+    /**
+     * 静态方法：渲染指定区域，只显示[minY, maxY]范围内按渲染模式选出的方块
+     */
+    public static BufferedImage renderRegion(String regionPath, int minX, int maxX, int minZ, int maxZ, int lodLevel,
+                                             int minY, int maxY, RenderMode renderMode) {
         try {
             // 创建简单的进度回调
-            ProgressCallback callback = (processed, total, speed, foundBlocks) -> {
+            ProgressCallback callback = (processed, total, speed, newBlocks) -> {
                 System.out.printf("渲染进度: %d/%d (%.1f%%) - 速度: %.1f区块/秒\n",
                     processed, total, (processed * 100.0 / total), speed);
             };
 
             // 创建渲染器
             MapRenderer renderer = new MapRenderer(4, callback);
+            renderer.setYRange(minY, maxY);
+            renderer.setRenderMode(renderMode);
 
             // 计算区域大小
             int width = maxX - minX;
@@ -66,9 +203,10 @@ public class MapRenderer {
             if (mcaFiles != null && mcaFiles.length > 0) {
                 // 使用第一个MCA文件进行渲染
                 String mcaPath = mcaFiles[0].getAbsolutePath();
-                String[][] topBlocks = renderer.getTopBlocks(mcaPath, Math.max(width/16, height/16), lodLevel);
+                MapLayer layer = renderer.renderLayer(mcaPath, Math.max(width/16, height/16), lodLevel);
+                String[][] topBlocks = layer.getBlocks();
                 if (topBlocks != null) {
-                    return renderer.renderToPng(topBlocks, lodLevel);
+                    return renderer.renderToPng(layer, lodLevel);
                 }
             }
 
@@ -84,71 +222,177 @@ public class MapRenderer {
      * 渲染区域文件为顶部方块数据
      */
     public String[][] getTopBlocks(String mcaFilePath, int regionSize, int sampleInterval) throws IOException {
+        return renderLayer(mcaFilePath, regionSize, sampleInterval).getBlocks();
+    }
+
+    /**
+     * 渲染区域文件为顶部方块数据，令牌取消或超过截止时间时抛出CancellationException
+     */
+    public String[][] getTopBlocks(String mcaFilePath, int regionSize, int sampleInterval,
+                                   CancellationToken token) throws IOException {
+        return renderLayer(mcaFilePath, regionSize, sampleInterval, token).getBlocks();
+    }
+
+    /**
+     * 渲染区域文件为方块和高度图层
+     */
+    public MapLayer renderLayer(String mcaFilePath, int regionSize, int sampleInterval) throws IOException {
+        return renderLayer(mcaFilePath, regionSize, sampleInterval, CancellationToken.NONE);
+    }
+
+    /**
+     * 渲染区域文件为方块和高度图层，每处理一个区块检查一次令牌
+     * 取消后还在排队的批次会立即从线程池移除，已分配的图层直接丢弃，并抛出CancellationException
+     */
+    public MapLayer renderLayer(String mcaFilePath, int regionSize, int sampleInterval,
+                                CancellationToken token) throws IOException {
+        token.throwIfCancelled();
         System.out.println("正在处理区域文件: " + mcaFilePath);
         System.out.println("区域大小: " + regionSize + "x" + regionSize + " 区块");
         System.out.println("采样间隔: " + sampleInterval);
         
-        // 重置进度
-        processedChunks.set(0);
-        foundBlocks.clear();
-        startTime.set(System.currentTimeMillis());
-        
-        // 加载区域文件
-        Region region = Region.fromFile(mcaFilePath);
+        // 只读取区域头部，区块数据优先从缓存获取
+        try (ChunkSource source = new ChunkSource(new File(mcaFilePath), minY, maxY, renderMode, translucency)) {
+            return renderLayer(source, regionSize, sampleInterval, token);
+        }
+    }
+
+    private MapLayer renderLayer(ChunkSource source, int regionSize, int sampleInterval,
+                                 CancellationToken token) throws IOException {
         
         // 获取存在的区块坐标
         List<int[]> populatedChunks = new ArrayList<>();
         for (int x = 0; x < regionSize; x++) {
             for (int z = 0; z < regionSize; z++) {
-                if (region.chunkExists(x, z)) {
+                if (source.header.chunkExists(x, z)) {
                     populatedChunks.add(new int[]{x, z});
                 }
             }
         }
         
-        totalChunks.set(populatedChunks.size());
+        progress.start(populatedChunks.size());
         System.out.println("发现 " + populatedChunks.size() + " 个有效区块");
         
+        // 创建结果图层
+        int arraySize = regionSize * 16;
+        MapLayer layer = new MapLayer(arraySize, arraySize);
+        if (source.translucency) {
+            layer.enableUnderLayer();
+        }
+        String[][] topBlocks = layer.getBlocks();
+
         if (populatedChunks.isEmpty()) {
             System.out.println("没有找到有效区块");
-            return new String[regionSize * 16][regionSize * 16];
+            progress.finish();
+            return layer;
         }
         
-        // 创建结果数组
-        int arraySize = regionSize * 16;
-        String[][] topBlocks = new String[arraySize][arraySize];
-        
         // 初始化为"none"
         for (int i = 0; i < arraySize; i++) {
             Arrays.fill(topBlocks[i], "none");
         }
+        Arrays.fill(layer.getBlockIndices(), NONE_INDEX);
         
-        // 分批处理区块
-        int batchSize = Math.max(1, populatedChunks.size() / maxWorkers);
-        List<List<int[]>> batches = new ArrayList<>();
-        
-        for (int i = 0; i < populatedChunks.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, populatedChunks.size());
-            batches.add(populatedChunks.subList(i, end));
+        // 读取阶段：在I/O线程上查缓存并定位读取压缩数据，放入队列；
+        // 解码阶段：线程池中的每个工作线程从队列中取出区块解压、解码和处理。
+        // 已读取但还没被取走的区块数有上限，磁盘慢时解码线程等待，解码慢时读取线程等待
+        int total = populatedChunks.size();
+        BlockingQueue<LoadedChunk> queue = new LinkedBlockingQueue<>();
+        Semaphore readAhead = new Semaphore(Math.max(32, maxWorkers * 8));
+        List<Future<?>> reads = new ArrayList<>(total);
+        for (int[] coord : populatedChunks) {
+            reads.add(ioExecutor.submit(() -> {
+                LoadedChunk loaded = null;
+                try {
+                    readAhead.acquire();
+                    if (!token.isCancelled()) {
+                        loaded = source.read(coord[0], coord[1]);
+                    }
+                } finally {
+                    // 读取抛出Error、等待许可时被中断或已取消时也放入一项，
+                    // 否则没有截止时间的渲染中解码线程会一直等待这个区块
+                    queue.add(loaded != null ? loaded : new LoadedChunk(coord[0], coord[1], null, null,
+                        new IOException("区块读取未完成: " + coord[0] + "," + coord[1])));
+                }
+                return null;
+            }));
         }
+
+        AtomicInteger claimed = new AtomicInteger();
+        ChunkFeed feed = () -> {
+            if (claimed.getAndIncrement() >= total) {
+                return null;
+            }
+            while (!token.isCancelled()) {
+                LoadedChunk item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    readAhead.release();
+                    return item;
+                }
+            }
+            return null;
+        };
+
+        int workers = Math.min(maxWorkers, total);
+        System.out.println("使用 " + workers + " 个解码线程" + (IoExecutors.isVirtualThreadsSupported() ? "，区域I/O使用虚拟线程" : ""));
+
+        List<Future<Map<String, String[][]>>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(executorService.submit(() -> processChunkBatch(source, feed, sampleInterval, layer, token)));
+        }
+        recordQueueDepth();
+
+        List<Future<?>> pending = new ArrayList<>(futures);
+        pending.addAll(reads);
+        Runnable releaseQueued = () -> {
+            cancelQueued(pending);
+            // 让等待读取许可的任务看到取消后直接返回
+            readAhead.release(total);
+        };
+        token.addListener(releaseQueued);
         
-        System.out.println("使用 " + batches.size() + " 个批次处理");
+        // 收集结果
+        try {
+            collectBatches(futures, topBlocks, arraySize, token);
+        } finally {
+            token.removeListener(releaseQueued);
+        }
+        progress.finish();
+        if (token.isCancelled()) {
+            cancelQueued(pending);
+            readAhead.release(total);
+            token.throwIfCancelled();
+        }
         
-        // 并行处理批次
-        List<Future<Map<String, String[][]>>> futures = new ArrayList<>();
+        // 完整区域时从缓存中取相邻区域的边缘高度，使阴影在区域边界处连续
+        if (reliefShading && regionSize == 32) {
+            layer.setWestEdge(loadEdgeHeights(source, -1, 0));
+            layer.setNorthEdge(loadEdgeHeights(source, 0, -1));
+        }
         
-        for (int i = 0; i < batches.size(); i++) {
-            final int batchIndex = i;
-            final List<int[]> batch = batches.get(i);
-            
-            Future<Map<String, String[][]>> future = executorService.submit(() -> 
-                processChunkBatch(region, batch, batchIndex, sampleInterval)
-            );
-            futures.add(future);
+        // 输出统计信息
+        long totalTime = System.currentTimeMillis() - progress.getStartTime();
+        System.out.println("\n处理完成!");
+        System.out.println("总耗时: " + (totalTime / 1000.0) + "秒");
+        System.out.println("处理区块: " + total);
+        System.out.println("平均速度: " + (total / (totalTime / 1000.0)) + " 区块/秒");
+        System.out.println("发现的方块类型数量: " + progress.getFoundBlockCount());
+        if (!source.isRegionOpened()) {
+            System.out.println("所有区块均来自缓存，未读取区域文件");
         }
         
-        // 收集结果
+        return layer;
+    }
+
+    /**
+     * 把各批次的区块结果复制到顶部方块数组，令牌取消后不再等待剩余批次
+     */
+    private void collectBatches(List<Future<Map<String, String[][]>>> futures, String[][] topBlocks, int arraySize,
+                                CancellationToken token) {
         for (Future<Map<String, String[][]>> future : futures) {
+            if (token.isCancelled()) {
+                return;
+            }
             try {
                 Map<String, String[][]> batchResults = future.get();
                 
@@ -176,74 +420,164 @@ public class MapRenderer {
                         }
                     }
                 }
+            } catch (CancellationException e) {
+                // 批次在排队时被取消
             } catch (Exception e) {
                 System.err.println("处理批次结果时出错: " + e.getMessage());
                 e.printStackTrace();
             }
         }
-        
-        // 输出统计信息
-        long totalTime = System.currentTimeMillis() - startTime.get();
-        System.out.println("\n处理完成!");
-        System.out.println("总耗时: " + (totalTime / 1000.0) + "秒");
-        System.out.println("处理区块: " + populatedChunks.size());
-        System.out.println("平均速度: " + (populatedChunks.size() / (totalTime / 1000.0)) + " 区块/秒");
-        System.out.println("发现的方块类型数量: " + foundBlocks.size());
-        
-        return topBlocks;
+    }
+
+    /**
+     * 取消还未开始的任务并立即从线程池队列中移除，正在运行的任务通过令牌自行结束
+     */
+    private void cancelQueued(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+        if (executorService instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) executorService).purge();
+        }
+        if (ioExecutor instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) ioExecutor).purge();
+        }
+    }
+
+    /**
+     * 工作线程获取下一个区块的来源
+     */
+    private interface ChunkFeed {
+        /**
+         * 返回下一个已读取的区块，没有更多区块或已取消时返回null
+         */
+        LoadedChunk next() throws InterruptedException;
+    }
+
+    /**
+     * 按列表顺序在当前线程读取区块
+     */
+    private static ChunkFeed listFeed(ChunkSource source, List<int[]> chunkCoords) {
+        Iterator<int[]> iterator = chunkCoords.iterator();
+        return () -> {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            int[] coord = iterator.next();
+            return source.read(coord[0], coord[1]);
+        };
     }
     
     /**
-     * 处理一批区块
+     * 处理来源中的区块直到取完，方块高度直接写入图层的高度通道（各区块写入的位置互不重叠）
      */
-    private Map<String, String[][]> processChunkBatch(Region region, List<int[]> chunkCoords, 
-                                                     int threadId, int sampleInterval) {
+    private Map<String, String[][]> processChunkBatch(ChunkSource source, ChunkFeed feed,
+                                                     int sampleInterval, MapLayer layer,
+                                                     CancellationToken token) {
         Map<String, String[][]> results = new HashMap<>();
         Set<String> localFoundBlocks = new HashSet<>();
+        int reportedBlockCount = 0;
+        ColumnBuffers columns = new ColumnBuffers();
         
-        for (int[] coord : chunkCoords) {
-            int chunkX = coord[0];
-            int chunkZ = coord[1];
+        while (!token.isCancelled()) {
+            // 已取消时剩余区块不再处理，结果会被丢弃
+            LoadedChunk item;
+            try {
+                item = feed.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (item == null) {
+                break;
+            }
+            int chunkX = item.chunkX;
+            int chunkZ = item.chunkZ;
             
             try {
-                Chunk chunk = region.getChunk(chunkX, chunkZ);
+                Chunk chunk = source.resolve(item);
                 if (chunk != null) {
-                    String[][] chunkBlocks = processChunk(chunk, localFoundBlocks, sampleInterval);
+                    long processStart = System.nanoTime();
+                    String[][] chunkBlocks = processChunk(chunk, localFoundBlocks, sampleInterval, source, columns);
+                    RenderMetrics.getShared().recordChunkProcess(System.nanoTime() - processStart);
                     results.put(chunkX + "," + chunkZ, chunkBlocks);
+                    ChunkPreviewListener listener = previewListener;
+                    if (listener != null) {
+                        listener.onChunkRendered(chunkX & 31, chunkZ & 31, previewColors(columns.blockIndices));
+                    }
+                    if (layer != null) {
+                        copyChunkColumns(columns.blockIndices, chunkX & 31, chunkZ & 31, layer.getBlockIndices(), layer);
+                        copyChunkColumns(columns.heights, chunkX & 31, chunkZ & 31, layer.getHeights(), layer);
+                        copyChunkColumns(columns.biomes, chunkX & 31, chunkZ & 31, layer.getBiomes(), layer);
+                        if (layer.getUnderBlocks() != null) {
+                            copyChunkColumns(columns.underBlocks, chunkX & 31, chunkZ & 31, layer.getUnderBlocks(), layer);
+                            copyChunkColumns(columns.underDepths, chunkX & 31, chunkZ & 31, layer.getUnderDepths(), layer);
+                        }
+                    }
                 } else {
                     results.put(chunkX + "," + chunkZ, null);
                 }
                 
-                // 更新进度
-                int processed = processedChunks.incrementAndGet();
-                if (processed % 8 == 0) { // 每处理8个区块更新一次进度
-                    updateProgress();
+                // 只有本批次发现了新的方块类型时才登记到全局集合
+                if (localFoundBlocks.size() != reportedBlockCount) {
+                    for (String blockId : localFoundBlocks) {
+                        progress.blockFound(blockId);
+                    }
+                    reportedBlockCount = localFoundBlocks.size();
                 }
                 
             } catch (Exception e) {
                 System.err.println("处理区块 (" + chunkX + ", " + chunkZ + ") 时出错: " + e.getMessage());
                 results.put(chunkX + "," + chunkZ, null);
             }
+            progress.chunkProcessed();
         }
         
-        // 将本地发现的方块添加到全局集合
-        foundBlocks.addAll(localFoundBlocks);
-        
         return results;
     }
     
+    /**
+     * 区块方块的预览颜色（索引为 z * 16 + x）
+     */
+    private static int[] previewColors(int[] blockIndices) {
+        int[] argb = new int[256];
+        for (int i = 0; i < 256; i++) {
+            argb[i] = BlockColors.getArgb(blockIndices[i]);
+        }
+        return argb;
+    }
+
+    /**
+     * 一个区块的列数据（索引为 z * 16 + x），每个批次复用一份
+     */
+    private static class ColumnBuffers {
+        final int[] blockIndices = new int[256];
+        final short[] heights = new short[256];
+        final short[] biomes = new short[256];
+        final int[] underBlocks = new int[256];
+        final short[] underDepths = new short[256];
+    }
+
     /**
      * 处理单个区块，提取顶部方块
      */
-    private String[][] processChunk(Chunk chunk, Set<String> localFoundBlocks, int sampleInterval) {
+    private String[][] processChunk(Chunk chunk, Set<String> localFoundBlocks, int sampleInterval,
+                                    ChunkSource source, ColumnBuffers columns) {
+        short[] columnHeights = columns.heights;
+        short[] columnBiomes = columns.biomes;
+        int minY = source.minY;
+        int maxY = source.maxY;
         String[][] chunkBlocks = new String[16][16];
 
         // 初始化为空气
         for (int i = 0; i < 16; i++) {
             Arrays.fill(chunkBlocks[i], "air");
         }
-
-
+        Arrays.fill(columns.blockIndices, AIR_INDEX);
+        Arrays.fill(columnHeights, Chunk.NO_HEIGHT);
+        Arrays.fill(columnBiomes, BiomeColors.UNKNOWN_BIOME);
+        Arrays.fill(columns.underBlocks, MapLayer.NO_BLOCK);
+        Arrays.fill(columns.underDepths, (short) 0);
         
         // 根据采样间隔创建要处理的坐标列表
         List<int[]> sampleCoords = new ArrayList<>();
@@ -261,39 +595,63 @@ public class MapRenderer {
         boolean hasSections = chunk.hasSections();
         
         if (hasSections) {
-            // 对每个采样点从世界顶部向下查找第一个非空气方块
+            // 按渲染模式确定每列显示的方块高度，然后每个区段只解包一次取出方块
+            short[] layerHeights = getLayerHeights(chunk, source.mode, minY, maxY);
+            Block[] layerBlocks = chunk.getBlocksAt(layerHeights);
+            String[] layerBiomes = chunk.getBiomesAt(layerHeights);
+            Block[] underBlocks = null;
+            short[] underHeights = null;
+            if (source.translucency) {
+                // 只有显示方块可以看穿的列才向下查找
+                short[] startHeights = new short[256];
+                Arrays.fill(startHeights, Chunk.NO_HEIGHT);
+                boolean anyTranslucent = false;
+                for (int column = 0; column < 256; column++) {
+                    Block block = layerBlocks[column];
+                    if (block != null && BlockColors.isTranslucent(block.getIndex())) {
+                        startHeights[column] = layerHeights[column];
+                        anyTranslucent = true;
+                    }
+                }
+                if (anyTranslucent) {
+                    underHeights = chunk.getOpaqueHeightsBelow(startHeights, minY, BlockColors::isTranslucent);
+                    underBlocks = chunk.getBlocksAt(underHeights);
+                }
+            }
+
             for (int[] coord : sampleCoords) {
                 int localX = coord[0];
                 int localZ = coord[1];
 
                 String resultBlockId = "air";
-                int topY = -1;
-
-                // 从世界最高点向下扫描，找到第一个非空气方块
-                for (int y = 319; y >= -64; y--) {
-                    try {
-                        Block block = chunk.getBlock(localX, y, localZ);
-                        if (block != null && !BlockColors.isAirBlock(block.getId())) {
-                            resultBlockId = block.getId();
-                            topY = y;
+                int resultIndex = AIR_INDEX;
+                int topY = Integer.MIN_VALUE;
 
-
-                            break; // 找到第一个非空气方块就停止
-                        }
-                    } catch (Exception e) {
-                        // 如果出错，继续向下查找
-                        continue;
+                int layerY = layerHeights[localZ * 16 + localX];
+                if (layerY != Chunk.NO_HEIGHT && layerY >= minY && layerY <= maxY) {
+                    Block block = layerBlocks[localZ * 16 + localX];
+                    if (block != null && !BlockColors.isAirBlock(block.getId())) {
+                        resultBlockId = block.getId();
+                        resultIndex = block.getIndex();
+                        topY = layerY;
                     }
                 }
                 
                 // 处理找到的顶层方块
-                if (!"air".equals(resultBlockId) && topY >= -64) {
+                if (!"air".equals(resultBlockId) && topY >= minY) {
                     String blockId = resultBlockId;
                     // 移除minecraft:前缀
                     if (blockId.startsWith("minecraft:")) {
                         blockId = blockId.substring("minecraft:".length());
                     }
                     chunkBlocks[localZ][localX] = blockId;
+                    columns.blockIndices[localZ * 16 + localX] = resultIndex;
+                    columnHeights[localZ * 16 + localX] = (short) topY;
+                    columnBiomes[localZ * 16 + localX] = BiomeColors.getBiomeId(layerBiomes[localZ * 16 + localX]);
+                    if (underBlocks != null && underBlocks[localZ * 16 + localX] != null) {
+                        columns.underBlocks[localZ * 16 + localX] = underBlocks[localZ * 16 + localX].getIndex();
+                        columns.underDepths[localZ * 16 + localX] = (short) (topY - underHeights[localZ * 16 + localX]);
+                    }
                     localFoundBlocks.add(blockId);
                     foundBlocks[localZ][localX] = true;
                 } else {
@@ -304,7 +662,11 @@ public class MapRenderer {
             
             // 如果使用了采样间隔 > 1，填充未采样的方块
             if (sampleInterval > 1) {
-                fillUnsampledBlocks(chunkBlocks, foundBlocks, sampleInterval);
+                fillUnsampledBlocks(chunkBlocks, columns.blockIndices, foundBlocks, sampleInterval);
+                fillUnsampledColumns(columnHeights, sampleInterval);
+                fillUnsampledColumns(columnBiomes, sampleInterval);
+                fillUnsampledColumns(columns.underBlocks, sampleInterval);
+                fillUnsampledColumns(columns.underDepths, sampleInterval);
             }
         }
         
@@ -312,9 +674,35 @@ public class MapRenderer {
     }
     
     /**
-     * 填充未采样的方块
+     * 按渲染模式计算每列显示的方块高度
+     */
+    private static short[] getLayerHeights(Chunk chunk, RenderMode mode, int minY, int maxY) {
+        switch (mode) {
+            case SLICE: {
+                short[] heights = new short[256];
+                Arrays.fill(heights, (short) maxY);
+                return heights;
+            }
+            case CAVE_FLOOR:
+                return chunk.getFloorHeights(chunk.getSurfaceHeights(minY, maxY), minY);
+            case CEILING: {
+                short[] ceiling = new short[256];
+                Arrays.fill(ceiling, (short) maxY);
+                // 最大Y在下界基岩顶层之上（如默认的319）时越过上方的空气和顶层，在顶层之下的空洞中时直接向下找地面
+                return chunk.getFloorHeights(ceiling, minY, true);
+            }
+            case SURFACE:
+            default:
+                // 每列在Y范围内的最高非空气方块高度（完整范围时随区块一起缓存）
+                return chunk.getSurfaceHeights(minY, maxY);
+        }
+    }
+
+    /**
+     * 填充未采样的方块（方块ID和编号）
      */
-    private void fillUnsampledBlocks(String[][] chunkBlocks, boolean[][] foundBlocks, int sampleInterval) {
+    private void fillUnsampledBlocks(String[][] chunkBlocks, int[] blockIndices, boolean[][] foundBlocks,
+                                     int sampleInterval) {
         for (int localZ = 0; localZ < 16; localZ++) {
             for (int localX = 0; localX < 16; localX++) {
                 if (!foundBlocks[localZ][localX]) {
@@ -333,9 +721,11 @@ public class MapRenderer {
                     // 如果该采样点有方块数据，使用它
                     if (foundBlocks[sampleZ][sampleX]) {
                         chunkBlocks[localZ][localX] = chunkBlocks[sampleZ][sampleX];
+                        blockIndices[localZ * 16 + localX] = blockIndices[sampleZ * 16 + sampleX];
                     } else {
                         // 如果没有找到最近的采样点，使用默认值
                         chunkBlocks[localZ][localX] = "air";
+                        blockIndices[localZ * 16 + localX] = AIR_INDEX;
                     }
                 }
             }
@@ -343,19 +733,87 @@ public class MapRenderer {
     }
     
     /**
-     * 更新进度
+     * 未采样的列使用所在采样格左上角采样点的值（高度或生物群系）
      */
-    private void updateProgress() {
-        if (progressCallback != null) {
-            int processed = processedChunks.get();
-            int total = totalChunks.get();
-            long elapsed = System.currentTimeMillis() - startTime.get();
-            double speed = processed / Math.max(0.1, elapsed / 1000.0);
-            
-            progressCallback.onProgress(processed, total, speed, new HashSet<>(foundBlocks));
+    private static void fillUnsampledColumns(short[] columnValues, int sampleInterval) {
+        for (int localZ = 0; localZ < 16; localZ++) {
+            int sampleZ = Math.min((localZ / sampleInterval) * sampleInterval, 16 - sampleInterval);
+            for (int localX = 0; localX < 16; localX++) {
+                int sampleX = Math.min((localX / sampleInterval) * sampleInterval, 16 - sampleInterval);
+                columnValues[localZ * 16 + localX] = columnValues[sampleZ * 16 + sampleX];
+            }
         }
     }
-    
+
+    private static void fillUnsampledColumns(int[] columnValues, int sampleInterval) {
+        for (int localZ = 0; localZ < 16; localZ++) {
+            int sampleZ = Math.min((localZ / sampleInterval) * sampleInterval, 16 - sampleInterval);
+            for (int localX = 0; localX < 16; localX++) {
+                int sampleX = Math.min((localX / sampleInterval) * sampleInterval, 16 - sampleInterval);
+                columnValues[localZ * 16 + localX] = columnValues[sampleZ * 16 + sampleX];
+            }
+        }
+    }
+
+    /**
+     * 将区块的列数据复制到图层的对应通道
+     */
+    private static void copyChunkColumns(Object columnValues, int chunkX, int chunkZ, Object channel, MapLayer layer) {
+        int width = layer.getWidth();
+        int startX = chunkX * 16;
+        int startZ = chunkZ * 16;
+        if (startX + 16 > width || startZ + 16 > layer.getHeight()) {
+            return;
+        }
+        for (int localZ = 0; localZ < 16; localZ++) {
+            System.arraycopy(columnValues, localZ * 16, channel, (startZ + localZ) * width + startX, 16);
+        }
+    }
+
+    /**
+     * 获取相邻区域紧贴边界的一列（dx = -1，西侧区域最东列）或一行（dz = -1，北侧区域最南行）的高度
+     * 只使用已在区块缓存中的相邻区块，不读取也不解码区域文件（按顺序渲染整个世界时相邻区域通常刚渲染过）；
+     * 不在缓存中的区块对应的边缘为NO_HEIGHT，阴影按与边界像素同高处理。相邻区域不存在时返回null
+     */
+    private short[] loadEdgeHeights(ChunkSource source, int dx, int dz) {
+        int[] coords;
+        try {
+            coords = FileUtils.parseRegionCoordinates(source.regionFile.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        File neighbourFile = new File(source.regionFile.getParentFile(),
+            String.format("r.%d.%d.mca", coords[0] + dx, coords[1] + dz));
+        if (!neighbourFile.isFile()) {
+            return null;
+        }
+
+        short[] edge = new short[512];
+        Arrays.fill(edge, Chunk.NO_HEIGHT);
+        try (ChunkSource neighbour = new ChunkSource(neighbourFile, source.minY, source.maxY, source.mode, false)) {
+            for (int i = 0; i < 32; i++) {
+                Chunk chunk = neighbour.getCachedChunk(dx < 0 ? 31 : i, dz < 0 ? 31 : i);
+                if (chunk == null || !chunk.hasSections()) {
+                    continue;
+                }
+                short[] heights = getLayerHeights(chunk, source.mode, source.minY, source.maxY);
+                Block[] blocks = chunk.getBlocksAt(heights);
+                for (int j = 0; j < 16; j++) {
+                    int column = dx < 0 ? j * 16 + 15 : 15 * 16 + j;
+                    Block block = blocks[column];
+                    if (block != null && !BlockColors.isAirBlock(block.getId())) {
+                        edge[i * 16 + j] = heights[column];
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("读取相邻区域边缘高度时出错: " + e.getMessage());
+            return null;
+        }
+        return edge;
+    }
+
     /**
      * 渲染顶部方块数据为PNG图像
      */
@@ -364,97 +822,401 @@ public class MapRenderer {
             System.err.println("无法渲染：顶部方块数据为空");
             return null;
         }
+        int height = topBlocks.length;
+        int width = height > 0 ? topBlocks[0].length : 0;
+        long startTime = System.currentTimeMillis();
+        BufferedImage image = createImage(width, height, sampleInterval);
+        if (image == null) {
+            return null;
+        }
 
-        System.out.println("正在渲染PNG图像...");
+        // 相邻的列通常是同一个方块ID（同一个字符串对象），只在方块ID变化时查颜色
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int errorCount = 0;
+        int updateInterval = Math.max(1, height / 10);
+        String lastId = null;
+        int lastArgb = 0;
+        for (int i = 0; i < height; i++) {
+            String[] row = topBlocks[i];
+            for (int j = 0; j < width; j++) {
+                String blockId = row[j];
+                if (blockId == null) {
+                    // 如果方块ID无效，使用粉色表示错误
+                    pixels[i * width + j] = ERROR_ARGB;
+                    errorCount++;
+                    continue;
+                }
+                if (blockId != lastId) {
+                    lastArgb = BlockColors.getBlockArgb(blockId);
+                    lastId = blockId;
+                }
+                pixels[i * width + j] = lastArgb;
+            }
+            reportImageProgress(i, height, updateInterval);
+        }
+
+        finishImage(errorCount, width, height, startTime);
+        return image;
+    }
+
+    /**
+     * 按图层的方块编号通道填充像素，每个像素只查一次颜色数组
+     */
+    private BufferedImage renderIndicesToPng(MapLayer layer, int sampleInterval) {
+        int width = layer.getWidth();
+        int height = layer.getHeight();
         long startTime = System.currentTimeMillis();
+        BufferedImage image = createImage(width, height, sampleInterval);
+        if (image == null) {
+            return null;
+        }
 
-        int height = topBlocks.length;
-        int width = topBlocks[0].length;
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] blockIndices = layer.getBlockIndices();
+        int errorCount = 0;
+        int updateInterval = Math.max(1, height / 10);
+        for (int i = 0; i < height; i++) {
+            for (int j = i * width; j < (i + 1) * width; j++) {
+                int index = blockIndices[j];
+                if (index == MapLayer.NO_BLOCK) {
+                    pixels[j] = ERROR_ARGB;
+                    errorCount++;
+                } else {
+                    pixels[j] = BlockColors.getArgb(index);
+                }
+            }
+            reportImageProgress(i, height, updateInterval);
+        }
 
+        finishImage(errorCount, width, height, startTime);
+        return image;
+    }
+
+    /**
+     * 创建RGBA图像并输出图像信息，尺寸无效时返回null
+     */
+    private static BufferedImage createImage(int width, int height, int sampleInterval) {
+        System.out.println("正在渲染PNG图像...");
         if (height <= 0 || width <= 0) {
             System.err.println("无效的数组大小: " + width + "x" + height);
             return null;
         }
-
         if (sampleInterval > 1) {
             System.out.println("注意：使用了优化采样（每" + sampleInterval + "个方块采样1次），图像质量可能略有降低");
         }
-
         System.out.println("图像大小: " + width + "x" + height + "像素");
+        System.out.println("正在填充像素数组...");
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
 
-        // 创建RGBA图像
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    private static void reportImageProgress(int row, int height, int updateInterval) {
+        if (row % updateInterval == 0) {
+            int percent = row * 100 / height;
+            System.out.print("\r图像渲染: " + percent + "% 完成");
+            System.out.flush();
+        }
+    }
 
-        // 预处理所有方块ID及其颜色
-        System.out.println("正在预处理方块颜色...");
-        Set<String> uniqueBlocks = new HashSet<>();
-        for (String[] row : topBlocks) {
-            for (String blockId : row) {
-                if (blockId != null) {
-                    uniqueBlocks.add(blockId);
-                }
+    private static void finishImage(int errorCount, int width, int height, long startTime) {
+        if (errorCount > 0) {
+            System.out.println("\n注意：处理过程中有 " + errorCount + " 个像素出现错误 (" +
+                             String.format("%.2f", errorCount * 100.0 / (width * height)) + "%)");
+        }
+        long totalTime = System.currentTimeMillis() - startTime;
+        System.out.println("\n渲染完成，耗时: " + (totalTime / 1000.0) + "秒");
+    }
+
+    /**
+     * 只重新渲染区域中的指定区块，并直接写入已有的区域图像（512x512，1像素 = 1方块）
+     * 用于存档变化后的增量更新，返回实际重新渲染的区块数
+     * 开启地形阴影时，阴影依赖于变化区块高度的东侧和南侧区块也会一起重新着色
+     */
+    public int renderChunksInto(String mcaFilePath, List<int[]> chunkCoords, BufferedImage image) throws IOException {
+        if (image.getWidth() != 512 || image.getHeight() != 512) {
+            throw new IllegalArgumentException("区域图像尺寸必须为512x512: " + image.getWidth() + "x" + image.getHeight());
+        }
+        if (chunkCoords.isEmpty()) {
+            return 0;
+        }
+
+        boolean shading = reliefShading;
+
+        // 需要重新着色的区块（索引为 z * 32 + x）
+        Set<Integer> targets = new LinkedHashSet<>();
+        for (int[] coord : chunkCoords) {
+            int chunkX = coord[0] & 31;
+            int chunkZ = coord[1] & 31;
+            targets.add(chunkZ * 32 + chunkX);
+            if (shading) {
+                if (chunkX < 31) targets.add(chunkZ * 32 + chunkX + 1);
+                if (chunkZ < 31) targets.add((chunkZ + 1) * 32 + chunkX);
             }
         }
 
-        Map<String, Color> blockColorMap = new HashMap<>();
-        for (String blockId : uniqueBlocks) {
-            if (blockId != null) {
-                blockColorMap.put(blockId, BlockColors.getBlockColor(blockId));
+        // 需要高度的区块：上述区块及其西侧和北侧的区块
+        Set<Integer> needed = new LinkedHashSet<>(targets);
+        if (shading) {
+            for (int index : targets) {
+                if ((index & 31) > 0) needed.add(index - 1);
+                if (index >= 32) needed.add(index - 32);
             }
         }
+        List<int[]> neededCoords = new ArrayList<>();
+        for (int index : needed) {
+            neededCoords.add(new int[]{index & 31, index >> 5});
+        }
 
-        // 填充像素数组
-        System.out.println("正在填充像素数组...");
-        int errorCount = 0;
-        int updateInterval = Math.max(1, height / 10);
+        progress.start(neededCoords.size());
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
+        // 存档已变化，先丢弃该区域的缓存区块
+        File regionFile = new File(mcaFilePath);
+        ChunkCache.getShared().invalidateRegion(regionFile);
+        WorldIndex.forDirectory(regionFile.getAbsoluteFile().getParentFile()).invalidate(regionFile);
+        try (ChunkSource source = new ChunkSource(regionFile, minY, maxY, renderMode, translucency)) {
+            MapLayer layer = new MapLayer(512, 512);
+            if (source.translucency) {
+                layer.enableUnderLayer();
+            }
+
+            // 与renderLayer相同的分批并行处理
+            int batchSize = Math.max(1, neededCoords.size() / maxWorkers);
+            List<Future<Map<String, String[][]>>> futures = new ArrayList<>();
+            for (int i = 0; i < neededCoords.size(); i += batchSize) {
+                final List<int[]> batch = neededCoords.subList(i, Math.min(i + batchSize, neededCoords.size()));
+                futures.add(executorService.submit(() ->
+                    processChunkBatch(source, listFeed(source, batch), 1, layer, CancellationToken.NONE)));
+            }
+            recordQueueDepth();
+
+            Map<String, String[][]> results = new HashMap<>();
+            for (Future<Map<String, String[][]>> future : futures) {
                 try {
-                    String blockId = topBlocks[i][j];
-                    Color color;
+                    results.putAll(future.get());
+                } catch (Exception e) {
+                    System.err.println("处理批次结果时出错: " + e.getMessage());
+                }
+            }
+            progress.finish();
 
-                    if (blockId == null || !blockColorMap.containsKey(blockId)) {
-                        // 如果方块ID无效，使用粉色表示错误
-                        color = new Color(255, 0, 255, 255);
-                        errorCount++;
-                    } else {
-                        color = blockColorMap.get(blockId);
+            if (shading) {
+                for (int index : targets) {
+                    if ((index & 31) == 0 && layer.getWestEdge() == null) {
+                        layer.setWestEdge(loadEdgeHeights(source, -1, 0));
+                    }
+                    if (index < 32 && layer.getNorthEdge() == null) {
+                        layer.setNorthEdge(loadEdgeHeights(source, 0, -1));
                     }
+                }
+            }
 
-                    // 设置像素颜色
-                    image.setRGB(j, i, color.getRGB());
+            long pixelStart = System.nanoTime();
+            int noneColor = BlockColors.getBlockArgb("none");
+            int[] pixels = new int[512 * 512];
+            Arrays.fill(pixels, noneColor);
 
-                } catch (Exception e) {
-                    // 记录错误并使用紫色表示处理失败的像素
-                    image.setRGB(j, i, new Color(128, 0, 128, 255).getRGB());
-                    errorCount++;
+            int[] blockIndices = layer.getBlockIndices();
+            for (int[] coord : neededCoords) {
+                String[][] chunkBlocks = results.get(coord[0] + "," + coord[1]);
+                if (chunkBlocks == null) {
+                    continue;
+                }
+                for (int localZ = 0; localZ < 16; localZ++) {
+                    int row = (coord[1] * 16 + localZ) * 512 + coord[0] * 16;
+                    System.arraycopy(chunkBlocks[localZ], 0, layer.getBlocks()[coord[1] * 16 + localZ], coord[0] * 16, 16);
+                    for (int localX = 0; localX < 16; localX++) {
+                        pixels[row + localX] = BlockColors.getArgb(blockIndices[row + localX]);
+                    }
                 }
             }
 
-            // 更新进度
-            if (i % updateInterval == 0) {
-                int percent = i * 100 / height;
-                System.out.print("\r图像渲染: " + percent + "% 完成");
-                System.out.flush();
+            applyLayerEffects(pixels, layer, biomeTinting, shading);
+
+            for (int index : targets) {
+                int startX = (index & 31) * 16;
+                int startZ = (index >> 5) * 16;
+                image.setRGB(startX, startZ, 16, 16, pixels, startZ * 512 + startX, 512);
             }
+            RenderMetrics.getShared().recordPixelWrite(System.nanoTime() - pixelStart, targets.size() * 256L);
+
+            return chunkCoords.size();
         }
+    }
 
-        if (errorCount > 0) {
-            System.out.println("\n注意：处理过程中有 " + errorCount + " 个像素出现错误 (" +
-                             String.format("%.2f", errorCount * 100.0 / (width * height)) + "%)");
+    /**
+     * 区块来源
+     * 优先从共享的区块缓存获取，只有缓存未命中时才加载区域文件（每次渲染最多加载一次）
+     */
+    private static class ChunkSource implements Closeable {
+        final File regionFile;
+        final RegionHeader header;
+        final int minY;
+        final int maxY;
+        final RenderMode mode;
+        final boolean translucency;
+        // 需要解码的区段范围，默认高度范围时解码全部区段，使缓存的区块可被任何范围复用
+        final int minSectionY;
+        final int maxSectionY;
+        // 第一次缓存未命中时才打开，之后定位读取各区块
+        private RegionFile region;
+
+        ChunkSource(File regionFile, int minY, int maxY, RenderMode mode, boolean translucency) throws IOException {
+            this.regionFile = regionFile;
+            // 文件未变化时使用存档索引中已读取的头部
+            this.header = WorldIndex.forDirectory(regionFile.getAbsoluteFile().getParentFile()).getHeader(regionFile);
+            this.minY = minY;
+            this.maxY = maxY;
+            this.mode = mode;
+            this.translucency = translucency;
+            if (mode == RenderMode.SLICE) {
+                // 切片只需要一个区段
+                this.minSectionY = Math.floorDiv(maxY, 16);
+                this.maxSectionY = this.minSectionY;
+            } else if (minY <= DEFAULT_MIN_Y && maxY >= DEFAULT_MAX_Y) {
+                this.minSectionY = Integer.MIN_VALUE;
+                this.maxSectionY = Integer.MAX_VALUE;
+            } else {
+                this.minSectionY = Math.floorDiv(minY, 16);
+                this.maxSectionY = Math.floorDiv(maxY, 16);
+            }
         }
 
-        long totalTime = System.currentTimeMillis() - startTime;
-        System.out.println("\n渲染完成，耗时: " + (totalTime / 1000.0) + "秒");
+        /**
+         * 读取阶段（I/O线程）：查缓存，未命中时读取压缩数据，出错时把异常留给解码阶段报告
+         */
+        LoadedChunk read(int chunkX, int chunkZ) {
+            try {
+                if (!header.chunkExists(chunkX, chunkZ)) {
+                    return new LoadedChunk(chunkX, chunkZ, null, null, null);
+                }
 
+                ChunkCache cache = ChunkCache.getShared();
+                Chunk cached = cache.get(regionFile, chunkX, chunkZ, header.getTimestamp(chunkX, chunkZ),
+                    header.getLocation(chunkX, chunkZ), minSectionY, maxSectionY);
+                ChunkCacheEvent.emit(regionFile.getPath(), chunkX, chunkZ, cached != null);
+                if (cached != null) {
+                    RenderMetrics.getShared().recordCacheHit();
+                    return new LoadedChunk(chunkX, chunkZ, cached, null, null);
+                }
+                RenderMetrics.getShared().recordCacheMiss();
+
+                return new LoadedChunk(chunkX, chunkZ, null, openRegion().readChunk(chunkX, chunkZ), null);
+            } catch (IOException | RuntimeException e) {
+                return new LoadedChunk(chunkX, chunkZ, null, null, e);
+            }
+        }
+
+        /**
+         * 解码阶段（工作线程）：解压并解码读取到的数据，结果放入缓存
+         */
+        Chunk resolve(LoadedChunk item) throws IOException {
+            if (item.error != null) {
+                throw item.error instanceof IOException
+                    ? (IOException) item.error : new IOException(item.error.getMessage(), item.error);
+            }
+            if (item.cached != null || item.raw == null) {
+                return item.cached;
+            }
+            Chunk chunk = item.raw.decode(minSectionY, maxSectionY);
+            // 使用实际读取到的文件头部中的时间戳和位置项，避免文件在两次读取之间被改写
+            return ChunkCache.getShared().put(regionFile, item.chunkX, item.chunkZ, item.raw.getTimestamp(),
+                item.raw.getLocation(), chunk);
+        }
+
+        Chunk getChunk(int chunkX, int chunkZ) throws IOException {
+            return resolve(read(chunkX, chunkZ));
+        }
+
+        /**
+         * 只从缓存中获取区块，不在缓存中或不存在时返回null
+         */
+        Chunk getCachedChunk(int chunkX, int chunkZ) {
+            if (!header.chunkExists(chunkX, chunkZ)) {
+                return null;
+            }
+            return ChunkCache.getShared().get(regionFile, chunkX, chunkZ, header.getTimestamp(chunkX, chunkZ),
+                header.getLocation(chunkX, chunkZ), minSectionY, maxSectionY);
+        }
+
+        private synchronized RegionFile openRegion() throws IOException {
+            if (region == null) {
+                region = RegionFile.open(regionFile);
+            }
+            return region;
+        }
+
+        synchronized boolean isRegionOpened() {
+            return region != null;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (region != null) {
+                region.close();
+                region = null;
+            }
+        }
+    }
+
+    /**
+     * 读取阶段的结果：缓存中的区块、压缩数据或读取时的异常（都为null表示区块不存在）
+     */
+    private static final class LoadedChunk {
+        final int chunkX;
+        final int chunkZ;
+        final Chunk cached;
+        final RegionFile.RawChunk raw;
+        final Exception error;
+
+        LoadedChunk(int chunkX, int chunkZ, Chunk cached, RegionFile.RawChunk raw, Exception error) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.cached = cached;
+            this.raw = raw;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 渲染图层为PNG图像，然后按生物群系通道着色、透视半透明方块、按高度通道做地形阴影
+     */
+    public BufferedImage renderToPng(MapLayer layer, int sampleInterval) {
+        long start = System.nanoTime();
+        BufferedImage image = renderIndicesToPng(layer, sampleInterval);
+        if (image != null) {
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            applyLayerEffects(pixels, layer, biomeTinting, reliefShading);
+            RenderMetrics.getShared().recordPixelWrite(System.nanoTime() - start, pixels.length);
+        }
         return image;
     }
 
+    /**
+     * 依次做生物群系着色、透视混合和地形阴影（原地修改像素）
+     */
+    private void applyLayerEffects(int[] pixels, MapLayer layer, boolean tinting, boolean shading) {
+        if (tinting) {
+            BiomeColors.applyTints(pixels, layer, biomeBlendRadius);
+        }
+        TranslucencyBlender.blend(pixels, layer, tinting);
+        if (shading) {
+            ReliefShader.shade(pixels, layer);
+        }
+    }
+
+    /**
+     * 记录线程池中等待执行的任务数
+     */
+    private void recordQueueDepth() {
+        if (executorService instanceof ThreadPoolExecutor) {
+            RenderMetrics.getShared().recordQueueDepth(((ThreadPoolExecutor) executorService).getQueue().size());
+        }
+    }
+
     /**
      * 关闭线程池
      */
     public void shutdown() {
+        ioExecutor.shutdown();
         executorService.shutdown();
         try {
             if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -1,5 +1,6 @@
 package com.minecraft.selector.core;
 
+import com.minecraft.selector.nbt.NBTReader;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -7,9 +8,16 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
@@ -17,17 +25,29 @@ import java.util.zip.ZipFile;
 
 /**
  * Minecraft资源提取器
- * 从Minecraft客户端JAR文件中提取方块纹理和颜色信息
+ * 从Minecraft客户端JAR文件和模组JAR文件中提取方块纹理和颜色信息，
+ * 每个JAR的提取结果按文件大小和修改时间缓存，JAR未变化时直接读取缓存。
  */
 public class MinecraftResourceExtractor {
     
-    private static final String ASSETS_PATH = "assets/minecraft/";
-    private static final String TEXTURES_PATH = ASSETS_PATH + "textures/block/";
-    private static final String BLOCKSTATES_PATH = ASSETS_PATH + "blockstates/";
-    private static final String MODELS_PATH = ASSETS_PATH + "models/block/";
-    
-    private Map<String, Color> extractedColors = new HashMap<>();
-    private boolean extractionCompleted = false;
+    // 同时等待解码的纹理数量上限（每个线程），限制读入内存的纹理数据量
+    private static final int PENDING_TEXTURES_PER_THREAD = 8;
+
+    // 同时读取的JAR文件数量上限
+    private static final int MAX_PARALLEL_JARS = 4;
+
+    // 单个JAR颜色缓存文件的格式版本，提取逻辑变化时递增使旧缓存失效
+    private static final int JAR_CACHE_VERSION = 2;
+
+    // 平原的草地颜色，用于给模型中需要着色的灰度纹理上色
+    private static final Color PLAINS_GRASS = new Color(0x91BD59);
+
+    // 提取或加载完成后整体替换，读取方不会看到清空或合并到一半的颜色表
+    private volatile Map<String, Color> extractedColors = Collections.emptyMap();
+    private volatile boolean extractionCompleted = false;
+
+    // 最近一次提取中实际扫描（缓存未命中）的JAR数量
+    private volatile int lastScannedJarCount = 0;
     
     /**
      * 从Minecraft JAR文件提取方块颜色
@@ -35,20 +55,19 @@ public class MinecraftResourceExtractor {
     public boolean extractColorsFromMinecraftJar(String jarPath) {
         System.out.println("正在从Minecraft JAR文件提取方块颜色: " + jarPath);
         
+        long startTime = System.currentTimeMillis();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService decodePool = Executors.newFixedThreadPool(threads);
         try (JarFile jarFile = new JarFile(jarPath)) {
-            // 提取方块纹理
-            Map<String, BufferedImage> textures = extractBlockTextures(jarFile);
-            System.out.println("提取了 " + textures.size() + " 个方块纹理");
-            
-            // 计算平均颜色
-            for (Map.Entry<String, BufferedImage> entry : textures.entrySet()) {
-                String blockName = entry.getKey();
-                BufferedImage texture = entry.getValue();
-                Color avgColor = calculateAverageColor(blockName, texture);
-                extractedColors.put(blockName, avgColor);
-            }
+            // 提取方块纹理并计算平均颜色
+            Map<String, Color> colors = new ConcurrentHashMap<>();
+            int textureCount = extractBlockTextures(jarFile, colors, decodePool, threads);
+            System.out.println("提取了 " + textureCount + " 个方块纹理，耗时 "
+                + (System.currentTimeMillis() - startTime) + "ms");
             
+            extractedColors = colors;
             extractionCompleted = true;
+            lastScannedJarCount = 1;
             System.out.println("成功提取了 " + extractedColors.size() + " 个方块的颜色信息");
             return true;
             
@@ -56,42 +75,373 @@ public class MinecraftResourceExtractor {
             System.err.println("提取方块颜色失败: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            decodePool.shutdownNow();
+        }
+    }
+
+    /**
+     * 从多个JAR文件（原版客户端和模组）提取方块颜色并合并
+     * 每个JAR的结果缓存在cacheDir中，以文件名、大小和修改时间为键，JAR未变化时直接读取缓存；
+     * 缓存未命中的JAR并行扫描。列表中靠后的JAR覆盖靠前JAR中相同方块的颜色。
+     *
+     * @param jarPaths JAR文件路径，通常原版客户端在前、模组在后
+     * @param cacheDir 缓存目录，为null时不使用缓存
+     * @return 至少有一个JAR提取成功时返回true
+     */
+    public boolean extractColorsFromJars(List<String> jarPaths, File cacheDir) {
+        long startTime = System.currentTimeMillis();
+        if (cacheDir != null && !cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            System.err.println("无法创建颜色缓存目录: " + cacheDir.getAbsolutePath());
+            cacheDir = null;
+        }
+        final File cache = cacheDir;
+
+        List<Map<String, Color>> results = new ArrayList<>(Collections.nCopies(jarPaths.size(), null));
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < jarPaths.size(); i++) {
+            File jar = new File(jarPaths.get(i));
+            Map<String, Color> cached = cache != null ? loadJarCache(jar, cache) : null;
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                misses.add(i);
+            }
+        }
+        System.out.println("共 " + jarPaths.size() + " 个JAR文件，缓存命中 "
+            + (jarPaths.size() - misses.size()) + " 个，需要扫描 " + misses.size() + " 个");
+
+        if (!misses.isEmpty()) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            ExecutorService decodePool = Executors.newFixedThreadPool(threads);
+            ExecutorService jarPool = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_JARS, misses.size()));
+            try {
+                List<Future<Map<String, Color>>> futures = new ArrayList<>();
+                for (int index : misses) {
+                    File jar = new File(jarPaths.get(index));
+                    futures.add(jarPool.submit(() -> {
+                        Map<String, Color> colors = new ConcurrentHashMap<>();
+                        try (JarFile jarFile = new JarFile(jar)) {
+                            extractBlockTextures(jarFile, colors, decodePool, threads);
+                        }
+                        if (cache != null) {
+                            saveJarCache(jar, cache, colors);
+                        }
+                        return colors;
+                    }));
+                }
+                for (int i = 0; i < misses.size(); i++) {
+                    try {
+                        results.set(misses.get(i), futures.get(i).get());
+                    } catch (Exception e) {
+                        System.err.println("提取JAR颜色失败: " + jarPaths.get(misses.get(i)) + " - " + e.getMessage());
+                    }
+                }
+            } finally {
+                jarPool.shutdownNow();
+                decodePool.shutdownNow();
+            }
+        }
+
+        // 按JAR顺序合并
+        Map<String, Color> merged = new HashMap<>();
+        boolean anySuccess = false;
+        for (Map<String, Color> colors : results) {
+            if (colors != null) {
+                merged.putAll(colors);
+                anySuccess = true;
+            }
+        }
+        if (!anySuccess) {
+            return false;
+        }
+
+        extractedColors = merged;
+        extractionCompleted = true;
+        lastScannedJarCount = misses.size();
+        System.out.println("成功合并了 " + extractedColors.size() + " 个方块的颜色信息，耗时 "
+            + (System.currentTimeMillis() - startTime) + "ms");
+        return true;
+    }
+
+    /**
+     * 获取最近一次提取中实际扫描（没有使用缓存）的JAR数量
+     */
+    public int getLastScannedJarCount() {
+        return lastScannedJarCount;
+    }
+
+    /**
+     * 获取JAR对应的缓存文件，文件名包含JAR的大小和修改时间
+     */
+    private static File getJarCacheFile(File jar, File cacheDir) {
+        String name = jar.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(cacheDir, name + "_" + jar.length() + "_" + jar.lastModified() + "_colors.json");
+    }
+
+    /**
+     * 读取JAR的颜色缓存，缓存不存在、版本不符或与JAR不匹配时返回null
+     */
+    private static Map<String, Color> loadJarCache(File jar, File cacheDir) {
+        File cacheFile = getJarCacheFile(jar, cacheDir);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            JsonNode root = new ObjectMapper().readTree(cacheFile);
+            if (root.path("version").asInt() != JAR_CACHE_VERSION
+                    || root.path("size").asLong() != jar.length()
+                    || root.path("lastModified").asLong() != jar.lastModified()) {
+                return null;
+            }
+            Map<String, Color> colors = new HashMap<>();
+            root.path("colors").fields().forEachRemaining(entry ->
+                colors.put(entry.getKey(), new Color(Integer.parseInt(entry.getValue().asText().substring(1), 16))));
+            return colors;
+        } catch (Exception e) {
+            System.err.println("读取颜色缓存失败: " + cacheFile.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 保存JAR的颜色缓存
+     */
+    private static void saveJarCache(File jar, File cacheDir, Map<String, Color> colors) {
+        File cacheFile = getJarCacheFile(jar, cacheDir);
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            ObjectNode root = mapper.createObjectNode();
+            root.put("version", JAR_CACHE_VERSION);
+            root.put("jar", jar.getName());
+            root.put("size", jar.length());
+            root.put("lastModified", jar.lastModified());
+            ObjectNode colorsNode = mapper.createObjectNode();
+            new TreeMap<>(colors).forEach((blockName, color) ->
+                colorsNode.put(blockName, String.format("#%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue())));
+            root.set("colors", colorsNode);
+            mapper.writeValue(cacheFile, root);
+
+            // 删除同一JAR旧版本的缓存
+            String prefix = jar.getName().replaceAll("[^A-Za-z0-9._-]", "_") + "_";
+            File[] stale = cacheDir.listFiles((dir, name) -> name.startsWith(prefix)
+                && name.endsWith("_colors.json") && !name.equals(cacheFile.getName()));
+            if (stale != null) {
+                for (File file : stale) {
+                    file.delete();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("保存颜色缓存失败: " + cacheFile.getName() + " - " + e.getMessage());
         }
     }
     
     /**
-     * 从JAR文件中提取方块纹理
+     * 从JAR文件中提取方块颜色（所有命名空间，模组方块的键为"命名空间:名称"）
+     * 当前线程按顺序读出条目数据，纹理的解码和求平均在线程池中并行进行，每张图像算完颜色后立即丢弃。
+     * 读完后按 blockstates -> models -> 顶面纹理 为每个方块选出从上方看到的纹理；
+     * 没有方块状态的纹理仍按文件名对应到方块。
+     *
+     * @return 成功处理的纹理数量
      */
-    private Map<String, BufferedImage> extractBlockTextures(JarFile jarFile) throws IOException {
-        Map<String, BufferedImage> textures = new HashMap<>();
-        
-        Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
-            JarEntry entry = entries.nextElement();
-            String entryName = entry.getName();
-            
-            // 只处理方块纹理文件
-            if (entryName.startsWith(TEXTURES_PATH) && entryName.endsWith(".png")) {
-                String fileName = entryName.substring(TEXTURES_PATH.length());
-                String blockName = fileName.replaceAll("\\.png$", "");
-                
-                // 跳过一些特殊纹理
-                if (shouldSkipTexture(blockName)) {
+    private int extractBlockTextures(JarFile jarFile, Map<String, Color> colors,
+                                     ExecutorService pool, int threads) throws IOException {
+        Semaphore pending = new Semaphore(threads * PENDING_TEXTURES_PER_THREAD);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        // 纹理ID（如 minecraft:block/oak_log_top）-> 未修正的平均颜色
+        Map<String, Color> textureColors = new ConcurrentHashMap<>();
+        Map<String, byte[]> blockstateFiles = new HashMap<>();
+        Map<String, byte[]> modelFiles = new HashMap<>();
+
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+
+                String textureId = getResourceId(entryName, "textures/", ".png");
+                String blockstateId = textureId == null ? getResourceId(entryName, "blockstates/", ".json") : null;
+                String modelId = textureId == null && blockstateId == null ? getResourceId(entryName, "models/", ".json") : null;
+                // 只处理方块纹理（含子目录）、方块状态和方块模型
+                if (!isBlockResource(textureId) && blockstateId == null && !isBlockResource(modelId)) {
                     continue;
                 }
-                
+
+                byte[] data;
                 try (InputStream is = jarFile.getInputStream(entry)) {
-                    BufferedImage image = ImageIO.read(is);
-                    if (image != null) {
-                        textures.put(blockName, image);
+                    data = is.readAllBytes();
+                } catch (IOException e) {
+                    System.err.println("读取资源失败: " + entryName + " - " + e.getMessage());
+                    continue;
+                }
+
+                if (blockstateId != null) {
+                    blockstateFiles.put(blockstateId, data);
+                    continue;
+                }
+                if (modelId != null) {
+                    modelFiles.put(modelId, data);
+                    continue;
+                }
+
+                pending.acquireUninterruptibly();
+                futures.add(pool.submit(() -> {
+                    try {
+                        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+                        if (image == null) {
+                            return false;
+                        }
+                        textureColors.put(textureId, calculateAverageColor(image));
+                        return true;
+                    } catch (Exception e) {
+                        System.err.println("读取纹理失败: " + entryName + " - " + e.getMessage());
+                        return false;
+                    } finally {
+                        pending.release();
+                    }
+                }));
+            }
+
+            int count = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        count++;
                     }
                 } catch (Exception e) {
-                    System.err.println("读取纹理失败: " + entryName + " - " + e.getMessage());
+                    System.err.println("解码纹理时出错: " + e.getMessage());
+                }
+            }
+
+            // 1. 按纹理文件名对应方块（跳过顶面、侧面等局部纹理）
+            for (Map.Entry<String, Color> entry : textureColors.entrySet()) {
+                String blockName = textureIdToBlockName(entry.getKey());
+                if (blockName != null && !shouldSkipTexture(blockName)) {
+                    colors.put(blockName, applyColorCorrections(blockName, entry.getValue(), false));
                 }
             }
+
+            // 2. 按方块模型的顶面纹理覆盖
+            int resolved = 0;
+            Map<String, BlockModelResolver.TopFace> topFaces =
+                new BlockModelResolver(parseJsonFiles(blockstateFiles), parseJsonFiles(modelFiles)).resolveAll();
+            for (Map.Entry<String, BlockModelResolver.TopFace> entry : topFaces.entrySet()) {
+                BlockModelResolver.TopFace face = entry.getValue();
+                Color textureColor = textureColors.get(face.getTexture());
+                if (textureColor == null) {
+                    continue;
+                }
+                String blockName = entry.getKey().startsWith("minecraft:")
+                    ? entry.getKey().substring("minecraft:".length()) : entry.getKey();
+                // 猜测的纹理不覆盖着色方块和流体已有的颜色（例如水的灰色water_still不能替换蓝色）
+                if (face.isGuessed() && isTintedOrFluid(blockName)
+                        && (colors.containsKey(blockName) || BlockColors.hasDefaultColor(blockName))) {
+                    continue;
+                }
+                colors.put(blockName, applyColorCorrections(blockName, textureColor, face.isTinted()));
+                resolved++;
+            }
+            if (!blockstateFiles.isEmpty()) {
+                System.out.println("通过方块模型解析了 " + resolved + "/" + blockstateFiles.size() + " 个方块的顶面纹理");
+            }
+            return count;
+        } finally {
+            // 出错时取消本JAR尚未完成的任务，线程池由调用方关闭
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
+            }
         }
-        
-        return textures;
+    }
+
+    /**
+     * 按生物群系着色的方块或流体，这些方块的纹理是灰色的或者没有顶面模型
+     */
+    private static boolean isTintedOrFluid(String blockName) {
+        return BiomeColors.getTintType(blockName) != BiomeColors.TintType.NONE
+            || blockName.equals("water") || blockName.equals("lava");
+    }
+
+    /**
+     * 解析JSON文件，无法解析的文件被忽略
+     */
+    private static Map<String, JsonNode> parseJsonFiles(Map<String, byte[]> files) {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> result = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            try {
+                result.put(entry.getKey(), mapper.readTree(entry.getValue()));
+            } catch (IOException e) {
+                System.err.println("解析JSON失败: " + entry.getKey() + " - " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从JAR条目路径获取资源ID
+     * 例如 assets/minecraft/textures/block/stone.png（类型目录"textures/"）-> minecraft:block/stone，
+     * 不是该类型的资源时返回null
+     */
+    static String getResourceId(String entryName, String typeDir, String extension) {
+        if (!entryName.startsWith("assets/") || !entryName.endsWith(extension)) {
+            return null;
+        }
+        int namespaceEnd = entryName.indexOf('/', "assets/".length());
+        if (namespaceEnd < 0 || !entryName.startsWith(typeDir, namespaceEnd + 1)) {
+            return null;
+        }
+        String namespace = entryName.substring("assets/".length(), namespaceEnd);
+        String path = entryName.substring(namespaceEnd + 1 + typeDir.length(), entryName.length() - extension.length());
+        return path.isEmpty() ? null : namespace + ":" + path;
+    }
+
+    /**
+     * 资源ID是否位于方块目录下（block/ 或旧版模组的 blocks/）
+     */
+    private static boolean isBlockResource(String resourceId) {
+        if (resourceId == null) {
+            return false;
+        }
+        String path = resourceId.substring(resourceId.indexOf(':') + 1);
+        return path.startsWith("block/") || path.startsWith("blocks/");
+    }
+
+    /**
+     * 纹理ID对应的方块名称：minecraft:block/stone -> stone，create:block/casing -> create:casing，
+     * 不在方块纹理目录下时返回null
+     */
+    private static String textureIdToBlockName(String textureId) {
+        int colon = textureId.indexOf(':');
+        return getTextureBlockName("assets/" + textureId.substring(0, colon) + "/textures/"
+            + textureId.substring(colon + 1) + ".png");
+    }
+
+    /**
+     * 从JAR条目路径获取方块名称
+     * assets/minecraft/textures/block/stone.png -> stone，
+     * assets/create/textures/block(s)/casing.png -> create:casing，不是方块纹理时返回null
+     */
+    static String getTextureBlockName(String entryName) {
+        String textureId = getResourceId(entryName, "textures/", ".png");
+        if (textureId == null) {
+            return null;
+        }
+        int colon = textureId.indexOf(':');
+        String namespace = textureId.substring(0, colon);
+        String path = textureId.substring(colon + 1);
+        String name;
+        if (path.startsWith("block/")) {
+            name = path.substring("block/".length());
+        } else if (path.startsWith("blocks/")) {
+            // 旧版模组的纹理目录
+            name = path.substring("blocks/".length());
+        } else {
+            return null;
+        }
+        if (name.isEmpty() || name.indexOf('/') >= 0) {
+            return null;
+        }
+        return "minecraft".equals(namespace) ? name : namespace + ":" + name;
     }
     
     /**
@@ -112,32 +462,49 @@ public class MinecraftResourceExtractor {
     }
     
     /**
-     * 计算图像的平均颜色
+     * 计算图像的平均颜色（跳过透明像素）
      */
-    private Color calculateAverageColor(String blockName, BufferedImage image) {
+    private static Color calculateAverageColor(BufferedImage image) {
         long totalRed = 0, totalGreen = 0, totalBlue = 0;
         int pixelCount = 0;
         
         int width = image.getWidth();
         int height = image.getHeight();
+        DataBuffer buffer = image.getRaster().getDataBuffer();
         
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int alpha = (rgb >> 24) & 0xFF;
-                
+        if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR && buffer instanceof DataBufferByte) {
+            // 常见的带透明通道PNG：直接读取栅格字节（A, B, G, R）
+            byte[] data = ((DataBufferByte) buffer).getData();
+            for (int i = 0; i + 3 < data.length; i += 4) {
                 // 跳过透明像素
-                if (alpha < 128) {
+                if ((data[i] & 0xFF) < 128) {
                     continue;
                 }
-                
-                int red = (rgb >> 16) & 0xFF;
-                int green = (rgb >> 8) & 0xFF;
-                int blue = rgb & 0xFF;
-                
-                totalRed += red;
-                totalGreen += green;
-                totalBlue += blue;
+                totalBlue += data[i + 1] & 0xFF;
+                totalGreen += data[i + 2] & 0xFF;
+                totalRed += data[i + 3] & 0xFF;
+                pixelCount++;
+            }
+        } else if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && buffer instanceof DataBufferByte) {
+            // 不透明PNG（B, G, R）
+            byte[] data = ((DataBufferByte) buffer).getData();
+            for (int i = 0; i + 2 < data.length; i += 3) {
+                totalBlue += data[i] & 0xFF;
+                totalGreen += data[i + 1] & 0xFF;
+                totalRed += data[i + 2] & 0xFF;
+                pixelCount++;
+            }
+        } else {
+            // 其他格式（调色板、灰度等）一次性转换为ARGB
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            for (int rgb : pixels) {
+                // 跳过透明像素
+                if (((rgb >> 24) & 0xFF) < 128) {
+                    continue;
+                }
+                totalRed += (rgb >> 16) & 0xFF;
+                totalGreen += (rgb >> 8) & 0xFF;
+                totalBlue += rgb & 0xFF;
                 pixelCount++;
             }
         }
@@ -150,16 +517,15 @@ public class MinecraftResourceExtractor {
         int avgGreen = (int) (totalGreen / pixelCount);
         int avgBlue = (int) (totalBlue / pixelCount);
 
-        Color originalColor = new Color(avgRed, avgGreen, avgBlue);
-
-        // 应用颜色修正（主要是生物群系着色）
-        return applyColorCorrections(blockName, originalColor);
+        return new Color(avgRed, avgGreen, avgBlue);
     }
     
     /**
      * 应用生物群系着色和特殊颜色修正
+     *
+     * @param tinted 模型中该面是否按生物群系着色（灰度纹理乘以平原草地颜色）
      */
-    private Color applyColorCorrections(String blockName, Color originalColor) {
+    private Color applyColorCorrections(String blockName, Color originalColor, boolean tinted) {
         // 树叶方块需要应用生物群系着色（绿色）
         if (blockName.endsWith("_leaves")) {
             // 如果原始颜色是灰色（生物群系着色前的颜色），应用绿色着色
@@ -175,6 +541,14 @@ public class MinecraftResourceExtractor {
             }
         }
 
+        // 其他需要着色的灰度纹理（藤蔓、蕨、睡莲、模组植物等）
+        if (tinted && isGrayish(originalColor)) {
+            return new Color(
+                originalColor.getRed() * PLAINS_GRASS.getRed() / 255,
+                originalColor.getGreen() * PLAINS_GRASS.getGreen() / 255,
+                originalColor.getBlue() * PLAINS_GRASS.getBlue() / 255);
+        }
+
         return originalColor;
     }
 
@@ -318,7 +692,7 @@ public class MinecraftResourceExtractor {
                 props.load(fis);
             }
 
-            extractedColors.clear();
+            Map<String, Color> colors = new HashMap<>();
             for (String blockName : props.stringPropertyNames()) {
                 String colorString = props.getProperty(blockName);
                 String[] rgb = colorString.split(",");
@@ -326,10 +700,11 @@ public class MinecraftResourceExtractor {
                     int r = Integer.parseInt(rgb[0]);
                     int g = Integer.parseInt(rgb[1]);
                     int b = Integer.parseInt(rgb[2]);
-                    extractedColors.put(blockName, new Color(r, g, b));
+                    colors.put(blockName, new Color(r, g, b));
                 }
             }
 
+            extractedColors = colors;
             extractionCompleted = true;
             System.out.println("从Properties文件加载了 " + extractedColors.size() + " 个方块颜色");
             return true;
@@ -348,7 +723,7 @@ public class MinecraftResourceExtractor {
             ObjectMapper mapper = new ObjectMapper();
             JsonNode root = mapper.readTree(new File(filePath));
 
-            extractedColors.clear();
+            Map<String, Color> colors = new HashMap<>();
             JsonNode colorsNode = root.get("colors");
             if (colorsNode != null) {
                 colorsNode.fields().forEachRemaining(entry -> {
@@ -359,10 +734,11 @@ public class MinecraftResourceExtractor {
                     int g = colorNode.get("g").asInt();
                     int b = colorNode.get("b").asInt();
 
-                    extractedColors.put(blockName, new Color(r, g, b));
+                    colors.put(blockName, new Color(r, g, b));
                 });
             }
 
+            extractedColors = colors;
             extractionCompleted = true;
             System.out.println("从JSON文件加载了 " + extractedColors.size() + " 个方块颜色");
             return true;
@@ -432,6 +808,76 @@ public class MinecraftResourceExtractor {
         return jarPaths;
     }
 
+    /**
+     * 从存档路径查找模组JAR文件，按文件名排序
+     * 包括存档所在游戏目录下的mods目录；游戏目录是共享的.minecraft时，
+     * 另外只包括与存档level.dat中游戏版本匹配的版本目录（如 1.20.1、1.20.1-forge-47.2.0）下的mods目录
+     */
+    public static List<String> findModJarsFromSavePath(String savePath) {
+        List<String> jarPaths = new ArrayList<>();
+        File saveDir = new File(savePath);
+        File minecraftDir = saveDir.getParentFile() != null ? saveDir.getParentFile().getParentFile() : null;
+        if (minecraftDir == null || !minecraftDir.isDirectory()) {
+            return jarPaths;
+        }
+
+        List<File> modsDirs = new ArrayList<>();
+        modsDirs.add(new File(minecraftDir, "mods"));
+        // 版本隔离时存档已经在 versions/<版本>/saves 下，游戏目录就是该版本目录
+        File parent = minecraftDir.getParentFile();
+        boolean isolated = parent != null && "versions".equals(parent.getName());
+        String version = isolated ? null : readSaveVersion(saveDir);
+        File[] versionDirs = version != null ? new File(minecraftDir, "versions").listFiles(File::isDirectory) : null;
+        if (versionDirs != null) {
+            for (File versionDir : versionDirs) {
+                if (matchesVersion(versionDir.getName(), version)) {
+                    modsDirs.add(new File(versionDir, "mods"));
+                }
+            }
+        }
+
+        for (File modsDir : modsDirs) {
+            File[] jars = modsDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".jar"));
+            if (jars == null) {
+                continue;
+            }
+            Arrays.sort(jars, Comparator.comparing(File::getName));
+            for (File jar : jars) {
+                jarPaths.add(jar.getAbsolutePath());
+            }
+            System.out.println("在 " + modsDir.getAbsolutePath() + " 找到 " + jars.length + " 个模组JAR文件");
+        }
+        return jarPaths;
+    }
+
+    /**
+     * 读取存档level.dat中的游戏版本名（Data.Version.Name），读取失败时返回null
+     */
+    static String readSaveVersion(File saveDir) {
+        File levelDat = new File(saveDir, "level.dat");
+        if (!levelDat.isFile()) {
+            return null;
+        }
+        try {
+            NBTReader.NBTCompound data = NBTReader.readFromFile(levelDat.getPath()).getCompound("Data");
+            if (data == null || !data.contains("Version")) {
+                return null;
+            }
+            String name = data.getCompound("Version").getString("Name");
+            return name == null || name.isEmpty() ? null : name;
+        } catch (Exception e) {
+            System.err.println("读取存档版本失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 版本目录名是否属于指定游戏版本：与版本名相同，或按"-"分隔后有一段与版本名相同
+     */
+    static boolean matchesVersion(String versionDirName, String version) {
+        return versionDirName.equals(version) || Arrays.asList(versionDirName.split("-")).contains(version);
+    }
+
     /**
      * 递归搜索JAR文件
      */
@@ -0,0 +1,145 @@
+package com.minecraft.selector.core;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 渲染进度汇总
+ * 工作线程只累加分段计数器(LongAdder)和登记新发现的方块类型，由一个共享的守护线程按固定频率
+ * 读取汇总值并调用回调，回调次数只与渲染时长有关，与线程数和区块数无关。
+ * 回调中只传递自上次回调以来新发现的方块类型，不再复制完整集合。
+ */
+public class ProgressReporter {
+
+    // 默认每秒汇报10次
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "render-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MapRenderer.ProgressCallback callback;
+    private final long intervalMillis;
+
+    private final LongAdder processed = new LongAdder();
+    private final Set<String> foundBlocks = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<String> newBlocks = new ConcurrentLinkedQueue<>();
+
+    private volatile int total;
+    private volatile long startTime;
+
+    // 以下字段只在持有锁时访问
+    private ScheduledFuture<?> task;
+    private long lastReported = -1;
+
+    public ProgressReporter(MapRenderer.ProgressCallback callback) {
+        this(callback, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    public ProgressReporter(MapRenderer.ProgressCallback callback, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("汇报间隔必须大于0: " + intervalMillis);
+        }
+        this.callback = callback;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * 重置计数并开始定期汇报，没有回调时只计数
+     */
+    public synchronized void start(int total) {
+        stopTask();
+        processed.reset();
+        foundBlocks.clear();
+        newBlocks.clear();
+        this.total = total;
+        this.startTime = System.currentTimeMillis();
+        lastReported = -1;
+        if (callback != null) {
+            task = SCHEDULER.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 停止定期汇报，并把最终进度汇报一次
+     */
+    public synchronized void finish() {
+        stopTask();
+        report();
+    }
+
+    private void stopTask() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * 工作线程每处理完一个区块调用一次
+     */
+    public void chunkProcessed() {
+        processed.increment();
+    }
+
+    /**
+     * 登记发现的方块类型，已登记过的直接忽略
+     */
+    public void blockFound(String blockId) {
+        if (foundBlocks.add(blockId)) {
+            newBlocks.add(blockId);
+        }
+    }
+
+    public int getProcessed() {
+        return (int) processed.sum();
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getFoundBlockCount() {
+        return foundBlocks.size();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 汇报一次进度，与上次相比没有变化时跳过
+     */
+    private synchronized void report() {
+        if (callback == null) {
+            return;
+        }
+        int current = getProcessed();
+        Set<String> delta = new HashSet<>();
+        for (String blockId; (blockId = newBlocks.poll()) != null; ) {
+            delta.add(blockId);
+        }
+        if (current == lastReported && delta.isEmpty()) {
+            return;
+        }
+        lastReported = current;
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        double speed = current / Math.max(0.1, elapsed / 1000.0);
+        try {
+            callback.onProgress(current, total, speed, delta);
+        } catch (RuntimeException e) {
+            // 回调异常不能终止定时任务
+            System.err.println("进度回调出错: " + e.getMessage());
+        }
+    }
+}
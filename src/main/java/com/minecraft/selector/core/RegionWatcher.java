@@ -0,0 +1,190 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.RegionHeader;
+import com.minecraft.selector.utils.FileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 区域文件监视器
+ * 使用WatchService监视存档的region目录，对自动保存时的连续写入做防抖处理，
+ * 然后比较区域头部的时间戳，只报告真正发生变化的区块
+ */
+public class RegionWatcher implements Closeable {
+
+    /**
+     * 区域变化回调接口
+     */
+    public interface ChangeListener {
+        void onRegionChanged(int regionX, int regionZ, File regionFile, List<int[]> changedChunks);
+    }
+
+    private final File regionDir;
+    private final long debounceMillis;
+    private final ChangeListener listener;
+
+    // 每个区域文件最后一次已处理的头部
+    private final Map<String, RegionHeader> snapshots = new ConcurrentHashMap<>();
+
+    // 等待防抖的文件及其最后一次写入事件的时间
+    private final Map<String, Long> pending = new HashMap<>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running = false;
+
+    /**
+     * @param regionDir 存档的region目录
+     * @param debounceMillis 最后一次写入后等待多久再处理
+     * @param listener 变化回调（在监视线程中调用）
+     */
+    public RegionWatcher(File regionDir, long debounceMillis, ChangeListener listener) {
+        this.regionDir = regionDir;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * 开始监视
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+
+        // 记录当前所有区域的头部作为基准
+        File[] mcaFiles = regionDir.listFiles((dir, name) -> name.endsWith(".mca"));
+        if (mcaFiles != null) {
+            for (File file : mcaFiles) {
+                try {
+                    snapshots.put(file.getName(), RegionHeader.read(file));
+                } catch (IOException e) {
+                    System.err.println("读取区域头部失败: " + file.getName() + " - " + e.getMessage());
+                }
+            }
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        regionDir.toPath().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        running = true;
+        watchThread = new Thread(this::watchLoop, "region-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        System.out.println("开始监视区域目录: " + regionDir.getAbsolutePath());
+    }
+
+    /**
+     * 停止监视
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // 忽略关闭错误
+            }
+        }
+    }
+
+    /**
+     * 是否正在监视
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(250, java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    long now = System.currentTimeMillis();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // 事件丢失，检查所有区域
+                            File[] mcaFiles = regionDir.listFiles((dir, name) -> name.endsWith(".mca"));
+                            if (mcaFiles != null) {
+                                for (File file : mcaFiles) {
+                                    pending.put(file.getName(), now);
+                                }
+                            }
+                            continue;
+                        }
+                        String fileName = event.context().toString();
+                        if (fileName.endsWith(".mca")) {
+                            pending.put(fileName, now);
+                        }
+                    }
+                    key.reset();
+                }
+
+                processDueFiles();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("监视区域目录时出错: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 处理已经静默超过防抖时间的文件
+     */
+    private void processDueFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> it = pending.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() < debounceMillis) {
+                continue;
+            }
+
+            String fileName = entry.getKey();
+            File file = new File(regionDir, fileName);
+
+            int[] coords;
+            try {
+                coords = FileUtils.parseRegionCoordinates(fileName);
+            } catch (IllegalArgumentException e) {
+                it.remove();
+                continue;
+            }
+
+            RegionHeader header;
+            try {
+                header = RegionHeader.read(file);
+            } catch (IOException e) {
+                // 文件可能仍在写入，稍后重试
+                entry.setValue(now);
+                continue;
+            }
+            it.remove();
+
+            List<int[]> changed = header.changedChunks(snapshots.get(fileName));
+            snapshots.put(fileName, header);
+
+            if (!changed.isEmpty()) {
+                System.out.printf("区域 %s 有 %d 个区块发生变化\n", fileName, changed.size());
+                try {
+                    listener.onRegionChanged(coords[0], coords[1], file, changed);
+                } catch (Exception e) {
+                    System.err.println("处理区域变化时出错: " + fileName + " - " + e.getMessage());
+                }
+            }
+        }
+    }
+}
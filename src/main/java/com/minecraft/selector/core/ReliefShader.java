@@ -0,0 +1,93 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Chunk;
+
+/**
+ * 地形阴影
+ * 根据高度通道对已填充颜色的像素做山体阴影（光线来自西北）和高度差描边，
+ * 只比较西侧和北侧的相邻列，所以每个高度台阶只描一次边，
+ * 区域边界处使用相邻区域的边缘高度，拼接后不会出现断线。
+ */
+public final class ReliefShader {
+
+    // 高度差超过该值时描边
+    public static final int HEIGHT_DIFF_THRESHOLD = 3;
+
+    // 描边颜色达到最深时的高度差
+    public static final int MAX_HEIGHT_DIFF = 50;
+
+    // 山体阴影考虑的最大坡度
+    private static final int MAX_SLOPE = 8;
+
+    // 坡度 -> 亮度系数（8.8定点数）
+    private static final int[] SLOPE_FACTORS = new int[MAX_SLOPE * 2 + 1];
+
+    // 高度差 -> 描边系数（8.8定点数）
+    private static final int[] EDGE_FACTORS = new int[MAX_HEIGHT_DIFF + 1];
+
+    static {
+        for (int slope = -MAX_SLOPE; slope <= MAX_SLOPE; slope++) {
+            SLOPE_FACTORS[slope + MAX_SLOPE] = Math.round(256 * (1.0f + slope * 0.025f));
+        }
+        for (int diff = 0; diff <= MAX_HEIGHT_DIFF; diff++) {
+            float intensity = diff > HEIGHT_DIFF_THRESHOLD ? Math.min(1.0f, (float) diff / MAX_HEIGHT_DIFF) : 0f;
+            EDGE_FACTORS[diff] = Math.round(256 * (1 - intensity * 0.7f));
+        }
+    }
+
+    private ReliefShader() {
+    }
+
+    /**
+     * 对图层颜色做地形阴影（原地修改）
+     *
+     * @param argb 按行存储的像素颜色，索引与高度通道一致
+     * @param layer 提供高度通道和边缘高度的图层
+     */
+    public static void shade(int[] argb, MapLayer layer) {
+        shade(argb, layer.getHeights(), layer.getWidth(), layer.getHeight(), layer.getWestEdge(), layer.getNorthEdge());
+    }
+
+    /**
+     * 对像素颜色做地形阴影（原地修改）
+     *
+     * @param westEdge 西侧相邻一列的高度，为null时视为与边界像素同高
+     * @param northEdge 北侧相邻一行的高度，为null时视为与边界像素同高
+     */
+    public static void shade(int[] argb, short[] heights, int width, int height, short[] westEdge, short[] northEdge) {
+        for (int z = 0; z < height; z++) {
+            int row = z * width;
+            for (int x = 0; x < width; x++) {
+                int i = row + x;
+                int h = heights[i];
+                if (h == Chunk.NO_HEIGHT) {
+                    continue;
+                }
+
+                int west = x > 0 ? heights[i - 1] : (westEdge != null ? westEdge[z] : h);
+                int north = z > 0 ? heights[i - width] : (northEdge != null ? northEdge[x] : h);
+                if (west == Chunk.NO_HEIGHT) {
+                    west = h;
+                }
+                if (north == Chunk.NO_HEIGHT) {
+                    north = h;
+                }
+
+                int dw = h - west;
+                int dn = h - north;
+                int slope = Math.max(-MAX_SLOPE, Math.min(MAX_SLOPE, dw + dn));
+                int diff = Math.min(MAX_HEIGHT_DIFF, Math.max(Math.abs(dw), Math.abs(dn)));
+                int factor = (SLOPE_FACTORS[slope + MAX_SLOPE] * EDGE_FACTORS[diff]) >> 8;
+                if (factor == 256) {
+                    continue;
+                }
+
+                int c = argb[i];
+                int r = Math.min(255, (((c >> 16) & 0xFF) * factor) >> 8);
+                int g = Math.min(255, (((c >> 8) & 0xFF) * factor) >> 8);
+                int b = Math.min(255, ((c & 0xFF) * factor) >> 8);
+                argb[i] = (c & 0xFF000000) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.minecraft.selector.core;
+
+/**
+ * 地图渲染模式
+ * 决定每一列显示哪一个方块，都限制在渲染器的Y范围内
+ */
+public enum RenderMode {
+    /**
+     * 最高的非空气方块（默认）
+     */
+    SURFACE("地表"),
+
+    /**
+     * 固定高度的切片，显示最大Y那一层的方块（空气也会显示）
+     */
+    SLICE("高度切片"),
+
+    /**
+     * 地表以下第一个洞穴的地面
+     */
+    CAVE_FLOOR("洞穴地面"),
+
+    /**
+     * 从最大Y向下越过第一段实心方块（天花板）后，第一个空气下方的方块，用于下界的基岩顶层之下；
+     * 最大Y已在天花板之下的空洞中时直接显示下方第一个非空气方块
+     */
+    CEILING("天花板以下");
+
+    private final String displayName;
+
+    RenderMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * 获取显示名称
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /**
+     * 按名称解析（不区分大小写），无法识别时返回SURFACE
+     */
+    public static RenderMode fromName(String name) {
+        if (name != null) {
+            for (RenderMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name) || mode.displayName.equals(name)) {
+                    return mode;
+                }
+            }
+        }
+        return SURFACE;
+    }
+}
@@ -0,0 +1,94 @@
+package com.minecraft.selector.core;
+
+/**
+ * 透视混合
+ * 将半透明方块（水、冰、玻璃等）的颜色按不透明度叠加在下方第一个不透明方块的颜色上，
+ * 水越深，水的颜色越浓、水底越暗，浅滩和深海因此可以区分开。
+ */
+public final class TranslucencyBlender {
+
+    // 水深每增加一格，水的不透明度增加的量
+    private static final int WATER_OPACITY_PER_BLOCK = 6;
+
+    // 水底变暗到最深时的水深
+    private static final int MAX_DEPTH = 32;
+
+    // 水深 -> 水底亮度系数（8.8定点数）
+    private static final int[] DEPTH_FACTORS = new int[MAX_DEPTH + 1];
+
+    static {
+        for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+            DEPTH_FACTORS[depth] = Math.round(256 * (1 - 0.5f * depth / MAX_DEPTH));
+        }
+    }
+
+    private TranslucencyBlender() {
+    }
+
+    /**
+     * 对图层像素做透视混合（原地修改），没有透视通道的图层不做处理
+     *
+     * @param argb 按行存储的像素颜色，半透明方块的颜色应已按生物群系着色
+     * @param layer 提供方块编号、透视通道和生物群系通道的图层
+     * @param biomeTinting 是否按生物群系给下方方块着色
+     */
+    public static void blend(int[] argb, MapLayer layer, boolean biomeTinting) {
+        int[] underBlocks = layer.getUnderBlocks();
+        if (underBlocks == null) {
+            return;
+        }
+        short[] depths = layer.getUnderDepths();
+        short[] biomes = layer.getBiomes();
+        int[] blocks = layer.getBlockIndices();
+        int width = layer.getWidth();
+        int height = layer.getHeight();
+
+        for (int z = 0; z < height; z++) {
+            for (int x = 0; x < width; x++) {
+                int i = z * width + x;
+                int under = underBlocks[i];
+                int over = blocks[i];
+                if (under == MapLayer.NO_BLOCK || over == MapLayer.NO_BLOCK) {
+                    continue;
+                }
+
+                int below = BlockColors.getArgb(under);
+                if (biomeTinting) {
+                    BiomeColors.TintType type = BlockColors.getTintType(under);
+                    if (type != BiomeColors.TintType.NONE) {
+                        below = BiomeColors.applyRatio(below, BiomeColors.getTintRatio(type, biomes[i]));
+                    }
+                }
+
+                int opacity = BlockColors.getOpacity(over);
+                if (BlockColors.getTintType(over) == BiomeColors.TintType.WATER) {
+                    int depth = Math.max(0, Math.min(MAX_DEPTH, depths[i]));
+                    opacity = Math.min(255, opacity + Math.max(0, depth - 1) * WATER_OPACITY_PER_BLOCK);
+                    below = scale(below, DEPTH_FACTORS[depth]);
+                }
+                argb[i] = mix(argb[i], below, opacity);
+            }
+        }
+    }
+
+    /**
+     * 按8.8定点系数缩放RGB
+     */
+    private static int scale(int argb, int factor) {
+        int r = (((argb >> 16) & 0xFF) * factor) >> 8;
+        int g = (((argb >> 8) & 0xFF) * factor) >> 8;
+        int b = ((argb & 0xFF) * factor) >> 8;
+        return (argb & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * 按不透明度将上层颜色叠加到下层颜色上，保留上层的透明度
+     */
+    private static int mix(int over, int below, int opacity) {
+        int inverse = 255 - opacity;
+        int r = (((over >> 16) & 0xFF) * opacity + ((below >> 16) & 0xFF) * inverse) / 255;
+        int g = (((over >> 8) & 0xFF) * opacity + ((below >> 8) & 0xFF) * inverse) / 255;
+        int b = ((over & 0xFF) * opacity + (below & 0xFF) * inverse) / 255;
+        return (over & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+}
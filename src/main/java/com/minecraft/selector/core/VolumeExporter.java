@@ -0,0 +1,514 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.nbt.NBTWriter;
+import com.minecraft.selector.region.Block;
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.Region;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 三维方块体积导出器
+ * 按区块并行读取选区（X/Z矩形加Y范围，均包含边界）内的全部方块，按区块顺序流式写出，
+ * 同时在内存中的只有正在处理的少量区块，选区再大也不需要把整个体积放进内存。
+ *
+ * 二进制格式（整体gzip压缩，大端）：
+ * 头部 int 标识"MCVX"、int 版本、int minX、minY、minZ、int 宽(X)、高(Y)、长(Z)、int 区块记录数；
+ * 每条区块记录 int chunkX、chunkZ、int 在体积内的起点x、z、int 宽、长、int 调色板大小、
+ * 调色板（UTF字符串，如 minecraft:oak_log[axis=y]，第0项总是空气）、byte 索引字节数（1或2）、
+ * 按 y、z、x 顺序排列的 宽*长*高 个索引。
+ */
+public class VolumeExporter {
+
+    private static final int MAGIC = 0x4D435658;
+    private static final int VERSION = 1;
+
+    private static final String AIR = "minecraft:air";
+
+    // 没有读到区块数据版本时写入schem的数据版本（1.20.1）
+    private static final int DEFAULT_DATA_VERSION = 3465;
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        BINARY("mcvol"),
+        SCHEMATIC("schem");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 按文件扩展名选择格式，.schem为Sponge格式，其余为二进制格式
+         */
+        public static Format fromFile(File file) {
+            return file.getName().toLowerCase().endsWith("." + SCHEMATIC.extension) ? SCHEMATIC : BINARY;
+        }
+    }
+
+    /**
+     * 导出进度回调
+     */
+    public interface ProgressCallback {
+        void onProgress(int processedChunks, int totalChunks);
+    }
+
+    /**
+     * 一个区块与选区相交部分的方块
+     */
+    private static final class ChunkVolume {
+        final int chunkX;
+        final int chunkZ;
+        final int x0;
+        final int z0;
+        final int width;
+        final int length;
+        final List<String> palette;
+        final int[] indices;
+        final int dataVersion;
+
+        ChunkVolume(int chunkX, int chunkZ, int x0, int z0, int width, int length,
+                    List<String> palette, int[] indices, int dataVersion) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.x0 = x0;
+            this.z0 = z0;
+            this.width = width;
+            this.length = length;
+            this.palette = palette;
+            this.indices = indices;
+            this.dataVersion = dataVersion;
+        }
+    }
+
+    /**
+     * 区块数据的写出目标，只在一个线程中按顺序调用
+     */
+    private interface VolumeSink extends Closeable {
+        void accept(ChunkVolume volume) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final int maxWorkers;
+    private final ProgressCallback progressCallback;
+
+    public VolumeExporter(int maxWorkers, ProgressCallback progressCallback) {
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.progressCallback = progressCallback;
+    }
+
+    /**
+     * 导出选区内的方块
+     *
+     * @param regionDir 存档的region目录
+     * @return 导出的非空气方块数量
+     */
+    public long export(File regionDir, int minX, int minZ, int maxX, int maxZ, int minY, int maxY,
+                       File outputFile, Format format) throws IOException {
+        if (minX > maxX || minZ > maxZ || minY > maxY) {
+            throw new IllegalArgumentException("无效的选区: (" + minX + "," + minY + "," + minZ + ") 到 ("
+                + maxX + "," + maxY + "," + maxZ + ")");
+        }
+        long sizeX = (long) maxX - minX + 1;
+        long sizeY = (long) maxY - minY + 1;
+        long sizeZ = (long) maxZ - minZ + 1;
+        if (format == Format.SCHEMATIC && (sizeX > 65535 || sizeY > 65535 || sizeZ > 65535)) {
+            throw new IllegalArgumentException("schem格式每个方向最多65535个方块");
+        }
+
+        // 按区域分组排列区块，同一区域的区块相邻，区域文件只需读取一次
+        List<int[]> chunks = new ArrayList<>();
+        int minChunkX = Math.floorDiv(minX, 16), maxChunkX = Math.floorDiv(maxX, 16);
+        int minChunkZ = Math.floorDiv(minZ, 16), maxChunkZ = Math.floorDiv(maxZ, 16);
+        for (int regionZ = Math.floorDiv(minChunkZ, 32); regionZ <= Math.floorDiv(maxChunkZ, 32); regionZ++) {
+            for (int regionX = Math.floorDiv(minChunkX, 32); regionX <= Math.floorDiv(maxChunkX, 32); regionX++) {
+                for (int chunkZ = Math.max(minChunkZ, regionZ * 32); chunkZ <= Math.min(maxChunkZ, regionZ * 32 + 31); chunkZ++) {
+                    for (int chunkX = Math.max(minChunkX, regionX * 32); chunkX <= Math.min(maxChunkX, regionX * 32 + 31); chunkX++) {
+                        chunks.add(new int[]{chunkX, chunkZ});
+                    }
+                }
+            }
+        }
+
+        System.out.println("开始导出 " + sizeX + "x" + sizeY + "x" + sizeZ + " 的方块体积（" + chunks.size() + " 个区块）到: "
+            + outputFile.getAbsolutePath());
+        long startTime = System.currentTimeMillis();
+
+        long nonAir = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(maxWorkers);
+        try (VolumeSink sink = format == Format.SCHEMATIC
+                ? new SchematicSink(outputFile, minX, minY, minZ, (int) sizeX, (int) sizeY, (int) sizeZ)
+                : new BinarySink(outputFile, minX, minY, minZ, (int) sizeX, (int) sizeY, (int) sizeZ, chunks.size())) {
+
+            // 最多同时处理 2 * 线程数 个区块，按提交顺序写出
+            ArrayDeque<Future<ChunkVolume>> pending = new ArrayDeque<>();
+            Region region = null;
+            int loadedRegionX = Integer.MIN_VALUE, loadedRegionZ = Integer.MIN_VALUE;
+            int processed = 0;
+
+            for (int[] chunk : chunks) {
+                int regionX = Math.floorDiv(chunk[0], 32), regionZ = Math.floorDiv(chunk[1], 32);
+                if (regionX != loadedRegionX || regionZ != loadedRegionZ) {
+                    region = loadRegion(regionDir, regionX, regionZ);
+                    loadedRegionX = regionX;
+                    loadedRegionZ = regionZ;
+                }
+                Region source = region;
+                pending.add(executor.submit(() -> extractChunk(source, chunk[0], chunk[1], minX, minZ, maxX, maxZ, minY, maxY)));
+
+                while (pending.size() >= maxWorkers * 2) {
+                    nonAir += writeNext(pending, sink);
+                    reportProgress(++processed, chunks.size());
+                }
+            }
+            while (!pending.isEmpty()) {
+                nonAir += writeNext(pending, sink);
+                reportProgress(++processed, chunks.size());
+            }
+            sink.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        System.out.println("导出完成，非空气方块: " + nonAir + "，耗时: " + (totalTime / 1000.0) + "秒");
+        return nonAir;
+    }
+
+    private long writeNext(ArrayDeque<Future<ChunkVolume>> pending, VolumeSink sink) throws IOException {
+        ChunkVolume volume;
+        try {
+            volume = pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("导出被中断");
+        } catch (ExecutionException e) {
+            throw new IOException("读取区块失败: " + e.getCause().getMessage(), e.getCause());
+        }
+        sink.accept(volume);
+
+        long nonAir = 0;
+        for (int index : volume.indices) {
+            if (index != 0) {
+                nonAir++;
+            }
+        }
+        return nonAir;
+    }
+
+    private void reportProgress(int processed, int total) {
+        if (progressCallback != null) {
+            progressCallback.onProgress(processed, total);
+        }
+    }
+
+    private static Region loadRegion(File regionDir, int regionX, int regionZ) throws IOException {
+        File regionFile = new File(regionDir, "r." + regionX + "." + regionZ + ".mca");
+        return regionFile.isFile() ? Region.fromFile(regionFile.getPath()) : null;
+    }
+
+    /**
+     * 读取区块与选区相交的部分，缺失的区块视为全部是空气
+     */
+    private static ChunkVolume extractChunk(Region region, int chunkX, int chunkZ,
+                                            int minX, int minZ, int maxX, int maxZ, int minY, int maxY) throws IOException {
+        int worldX0 = Math.max(minX, chunkX * 16), worldX1 = Math.min(maxX, chunkX * 16 + 15);
+        int worldZ0 = Math.max(minZ, chunkZ * 16), worldZ1 = Math.min(maxZ, chunkZ * 16 + 15);
+        int width = worldX1 - worldX0 + 1;
+        int length = worldZ1 - worldZ0 + 1;
+        int height = maxY - minY + 1;
+
+        List<String> palette = new ArrayList<>();
+        palette.add(AIR);
+        int[] indices = new int[width * length * height];
+        int dataVersion = 0;
+
+        int localX = Math.floorMod(chunkX, 32), localZ = Math.floorMod(chunkZ, 32);
+        Chunk chunk = region != null && region.chunkExists(localX, localZ)
+            ? region.getChunk(localX, localZ, Math.floorDiv(minY, 16), Math.floorDiv(maxY, 16))
+            : null;
+
+        if (chunk != null) {
+            if (chunk.getNbtData().contains("DataVersion")) {
+                dataVersion = chunk.getNbtData().getInt("DataVersion");
+            }
+            Map<String, Integer> localIds = new HashMap<>();
+            localIds.put(AIR, 0);
+            int[] scratch = new int[4096];
+
+            for (Chunk.Section section : chunk.getSections()) {
+                int sectionMinY = section.getY() * 16;
+                int y0 = Math.max(minY, sectionMinY), y1 = Math.min(maxY, sectionMinY + 15);
+                List<Block> sectionPalette = section.getPalette();
+                if (y0 > y1 || sectionPalette.isEmpty()) {
+                    continue;
+                }
+
+                // 区段调色板 -> 本区块调色板
+                int[] mapping = new int[sectionPalette.size()];
+                boolean allAir = true;
+                for (int p = 0; p < mapping.length; p++) {
+                    String state = toStateString(sectionPalette.get(p));
+                    mapping[p] = localIds.computeIfAbsent(state, s -> {
+                        palette.add(s);
+                        return palette.size() - 1;
+                    });
+                    allAir &= mapping[p] == 0;
+                }
+                if (allAir) {
+                    continue;
+                }
+
+                section.unpackIndices(scratch);
+                for (int y = y0; y <= y1; y++) {
+                    for (int z = worldZ0; z <= worldZ1; z++) {
+                        int src = ((y - sectionMinY) << 8) | ((z & 15) << 4);
+                        int dst = ((y - minY) * length + (z - worldZ0)) * width;
+                        for (int x = worldX0; x <= worldX1; x++) {
+                            int paletteIndex = scratch[src | (x & 15)];
+                            // 越界的索引（损坏的数据）按空气处理
+                            indices[dst + (x - worldX0)] = paletteIndex < mapping.length ? mapping[paletteIndex] : 0;
+                        }
+                    }
+                }
+            }
+        }
+
+        return new ChunkVolume(chunkX, chunkZ, worldX0 - minX, worldZ0 - minZ, width, length, palette, indices, dataVersion);
+    }
+
+    /**
+     * 方块状态字符串，属性按名称排序，例如 minecraft:oak_log[axis=y]；各种空气统一为 minecraft:air
+     */
+    static String toStateString(Block block) {
+        String id = block.getId();
+        if ("air".equals(id) || "cave_air".equals(id) || "void_air".equals(id)) {
+            return AIR;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (id.indexOf(':') < 0) {
+            sb.append("minecraft:");
+        }
+        sb.append(id);
+        Map<String, String> properties = new TreeMap<>(block.getProperties());
+        if (!properties.isEmpty()) {
+            sb.append('[');
+            boolean first = true;
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(entry.getKey()).append('=').append(entry.getValue());
+                first = false;
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 写出二进制格式，每个区块一条记录
+     */
+    private static final class BinarySink implements VolumeSink {
+        private final DataOutputStream out;
+
+        BinarySink(File file, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int chunkCount) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 65536)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(minX);
+            out.writeInt(minY);
+            out.writeInt(minZ);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(sizeZ);
+            out.writeInt(chunkCount);
+        }
+
+        @Override
+        public void accept(ChunkVolume volume) throws IOException {
+            out.writeInt(volume.chunkX);
+            out.writeInt(volume.chunkZ);
+            out.writeInt(volume.x0);
+            out.writeInt(volume.z0);
+            out.writeInt(volume.width);
+            out.writeInt(volume.length);
+            out.writeInt(volume.palette.size());
+            for (String state : volume.palette) {
+                out.writeUTF(state);
+            }
+
+            boolean wide = volume.palette.size() > 256;
+            out.writeByte(wide ? 2 : 1);
+            int[] indices = volume.indices;
+            byte[] bytes = new byte[indices.length * (wide ? 2 : 1)];
+            if (wide) {
+                for (int i = 0; i < indices.length; i++) {
+                    bytes[i * 2] = (byte) (indices[i] >> 8);
+                    bytes[i * 2 + 1] = (byte) indices[i];
+                }
+            } else {
+                for (int i = 0; i < indices.length; i++) {
+                    bytes[i] = (byte) indices[i];
+                }
+            }
+            out.write(bytes);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * 写出Sponge Schematic（第2版）。BlockData要求整个体积按 y、z、x 顺序排列，
+     * 所以先把每个方块的全局调色板ID（2字节）按位置写入临时文件，最后再顺序读出编码为varint
+     */
+    private static final class SchematicSink implements VolumeSink {
+        private final File outputFile;
+        private final int minX, minY, minZ;
+        private final int sizeX, sizeY, sizeZ;
+        private final File tempFile;
+        private final FileChannel channel;
+        private final Map<String, Integer> globalIds = new LinkedHashMap<>();
+        private long blockDataLength;
+        private int dataVersion;
+
+        SchematicSink(File outputFile, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) throws IOException {
+            this.outputFile = outputFile;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.tempFile = File.createTempFile("volume_export", ".tmp");
+            // 临时文件初始全为0，即空气
+            this.channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            globalIds.put(AIR, 0);
+            // 每个空气方块的varint占1字节，其他方块按ID补上多出的字节
+            blockDataLength = (long) sizeX * sizeY * sizeZ;
+        }
+
+        @Override
+        public void accept(ChunkVolume volume) throws IOException {
+            int[] mapping = new int[volume.palette.size()];
+            for (int i = 0; i < mapping.length; i++) {
+                mapping[i] = globalIds.computeIfAbsent(volume.palette.get(i), s -> globalIds.size());
+            }
+            if (globalIds.size() > 65536) {
+                throw new IOException("方块状态超过65536种，无法导出为schem");
+            }
+            if (volume.dataVersion > dataVersion) {
+                dataVersion = volume.dataVersion;
+            }
+
+            ByteBuffer row = ByteBuffer.allocate(volume.width * 2);
+            int index = 0;
+            for (int y = 0; y < sizeY; y++) {
+                for (int z = 0; z < volume.length; z++) {
+                    row.clear();
+                    boolean anyBlock = false;
+                    for (int x = 0; x < volume.width; x++) {
+                        int id = mapping[volume.indices[index++]];
+                        row.putShort((short) id);
+                        if (id != 0) {
+                            anyBlock = true;
+                            blockDataLength += varIntSize(id) - 1;
+                        }
+                    }
+                    if (anyBlock) {
+                        row.flip();
+                        long position = ((long) y * sizeZ * sizeX + (long) (volume.z0 + z) * sizeX + volume.x0) * 2;
+                        while (row.hasRemaining()) {
+                            position += channel.write(row, position);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (blockDataLength > Integer.MAX_VALUE) {
+                throw new IOException("选区太大，schem的BlockData超过2GB");
+            }
+
+            try (NBTWriter writer = new NBTWriter(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(outputFile), 65536)));
+                 DataInputStream ids = new DataInputStream(new BufferedInputStream(new FileInputStream(tempFile), 65536))) {
+                writer.beginCompound("Schematic");
+                writer.writeInt("Version", 2);
+                writer.writeInt("DataVersion", dataVersion > 0 ? dataVersion : DEFAULT_DATA_VERSION);
+                writer.writeShort("Width", (short) sizeX);
+                writer.writeShort("Height", (short) sizeY);
+                writer.writeShort("Length", (short) sizeZ);
+                writer.writeIntArray("Offset", new int[]{minX, minY, minZ});
+
+                // 临时文件可能比体积短（末尾全是空气的部分没有写入），读完后补0
+                long remainingInFile = channel.size() / 2;
+                DataOutputStream blockData = writer.beginByteArray("BlockData", (int) blockDataLength);
+                long total = (long) sizeX * sizeY * sizeZ;
+                for (long i = 0; i < total; i++) {
+                    int id = 0;
+                    if (remainingInFile > 0) {
+                        id = ids.readUnsignedShort();
+                        remainingInFile--;
+                    }
+                    while ((id & ~0x7F) != 0) {
+                        blockData.writeByte((id & 0x7F) | 0x80);
+                        id >>>= 7;
+                    }
+                    blockData.writeByte(id);
+                }
+
+                writer.writeInt("PaletteMax", globalIds.size());
+                writer.beginCompound("Palette");
+                for (Map.Entry<String, Integer> entry : globalIds.entrySet()) {
+                    writer.writeInt(entry.getKey(), entry.getValue());
+                }
+                writer.endCompound();
+                writer.endCompound();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (!tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+
+        private static int varIntSize(int value) {
+            int size = 1;
+            while ((value & ~0x7F) != 0) {
+                size++;
+                value >>>= 7;
+            }
+            return size;
+        }
+    }
+}
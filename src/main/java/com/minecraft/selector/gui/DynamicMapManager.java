@@ -1,5 +1,6 @@
 package com.minecraft.selector.gui;
 
+import com.minecraft.selector.metrics.TileCompositeEvent;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.concurrent.ConcurrentHashMap;
@@ -113,6 +114,9 @@ public class DynamicMapManager {
             return;
         }
 
+        TileCompositeEvent event = new TileCompositeEvent();
+        event.begin();
+
         // 计算合成图像的大小
         int width = (combinedMaxRegionX - combinedMinRegionX + 1) * REGION_SIZE_PIXELS;
         int height = (combinedMaxRegionZ - combinedMinRegionZ + 1) * REGION_SIZE_PIXELS;
@@ -131,41 +135,108 @@ public class DynamicMapManager {
 
         // 绘制每个区域，根据MCA文件的坐标系统正确定位
         for (Map.Entry<RegionCoord, BufferedImage> entry : regionImages.entrySet()) {
-            RegionCoord coord = entry.getKey();
-            BufferedImage regionImage = entry.getValue();
-
-            // 计算在合成图像中的位置
-            // MCA文件坐标系：r.x.z.mca 对应世界坐标 (x*512, z*512)
-            int pixelX = (coord.x - combinedMinRegionX) * REGION_SIZE_PIXELS;
-            int pixelY = (coord.z - combinedMinRegionZ) * REGION_SIZE_PIXELS;
-
-            // 确保区域图像是512x512
-            if (regionImage.getWidth() != REGION_SIZE_PIXELS || regionImage.getHeight() != REGION_SIZE_PIXELS) {
-                // 如果尺寸不对，进行缩放
-                g2d.drawImage(regionImage, pixelX, pixelY, REGION_SIZE_PIXELS, REGION_SIZE_PIXELS, null);
-            } else {
-                // 直接绘制
-                g2d.drawImage(regionImage, pixelX, pixelY, null);
-            }
-
-            // 可选：绘制区域边界（调试用）
-            if (false) { // 设置为true可以看到区域边界
-                g2d.setColor(Color.RED);
-                g2d.setStroke(new BasicStroke(1));
-                g2d.drawRect(pixelX, pixelY, REGION_SIZE_PIXELS, REGION_SIZE_PIXELS);
-
-                // 绘制区域标签
-                g2d.setColor(Color.WHITE);
-                g2d.drawString(String.format("r.%d.%d", coord.x, coord.z), pixelX + 5, pixelY + 15);
-            }
+            drawRegion(g2d, entry.getKey(), entry.getValue());
         }
 
         g2d.dispose();
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.target = "dynamic-map";
+            event.width = width;
+            event.height = height;
+            event.regions = regionImages.size();
+            event.commit();
+        }
+
         System.out.printf("重建合成地图: %dx%d像素, 包含%d个区域\n",
             width, height, regionImages.size());
     }
     
+    /**
+     * 在合成图像中绘制单个区域
+     */
+    private void drawRegion(Graphics2D g2d, RegionCoord coord, BufferedImage regionImage) {
+        // 计算在合成图像中的位置
+        // MCA文件坐标系：r.x.z.mca 对应世界坐标 (x*512, z*512)
+        int pixelX = (coord.x - combinedMinRegionX) * REGION_SIZE_PIXELS;
+        int pixelY = (coord.z - combinedMinRegionZ) * REGION_SIZE_PIXELS;
+
+        // 确保区域图像是512x512
+        if (regionImage.getWidth() != REGION_SIZE_PIXELS || regionImage.getHeight() != REGION_SIZE_PIXELS) {
+            // 如果尺寸不对，进行缩放
+            g2d.drawImage(regionImage, pixelX, pixelY, REGION_SIZE_PIXELS, REGION_SIZE_PIXELS, null);
+        } else {
+            // 直接绘制
+            g2d.drawImage(regionImage, pixelX, pixelY, null);
+        }
+
+        // 可选：绘制区域边界（调试用）
+        if (false) { // 设置为true可以看到区域边界
+            g2d.setColor(Color.RED);
+            g2d.setStroke(new BasicStroke(1));
+            g2d.drawRect(pixelX, pixelY, REGION_SIZE_PIXELS, REGION_SIZE_PIXELS);
+
+            // 绘制区域标签
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(String.format("r.%d.%d", coord.x, coord.z), pixelX + 5, pixelY + 15);
+        }
+    }
+
+    /**
+     * 区域图像内容被原地修改后，只重绘该区域在合成图像中的部分
+     */
+    public synchronized void refreshRegion(int regionX, int regionZ) {
+        RegionCoord coord = new RegionCoord(regionX, regionZ);
+        BufferedImage regionImage = regionImages.get(coord);
+        if (regionImage == null || combinedImage == null) {
+            return;
+        }
+
+        Graphics2D g2d = combinedImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+
+        // 先用背景色清除，避免透明像素残留旧内容
+        int pixelX = (coord.x - combinedMinRegionX) * REGION_SIZE_PIXELS;
+        int pixelY = (coord.z - combinedMinRegionZ) * REGION_SIZE_PIXELS;
+        g2d.setColor(new Color(32, 32, 32));
+        g2d.fillRect(pixelX, pixelY, REGION_SIZE_PIXELS, REGION_SIZE_PIXELS);
+
+        drawRegion(g2d, coord, regionImage);
+        g2d.dispose();
+    }
+
+    /**
+     * 获取已加载的区域图像
+     */
+    public synchronized BufferedImage getRegionImage(int regionX, int regionZ) {
+        return regionImages.get(new RegionCoord(regionX, regionZ));
+    }
+
+    /**
+     * 替换已加载区域的图像，只重绘合成图像中该区域的部分；区域未加载时忽略
+     */
+    public synchronized void replaceRegion(int regionX, int regionZ, BufferedImage regionImage) {
+        RegionCoord coord = new RegionCoord(regionX, regionZ);
+        if (regionImage == null || !regionImages.containsKey(coord)) {
+            return;
+        }
+        regionImages.put(coord, regionImage);
+        refreshRegion(regionX, regionZ);
+    }
+
+    /**
+     * 获取所有已加载区域的坐标
+     */
+    public synchronized java.util.List<Point> getLoadedRegions() {
+        java.util.List<Point> regions = new java.util.ArrayList<>();
+        for (RegionCoord coord : regionImages.keySet()) {
+            regions.add(new Point(coord.x, coord.z));
+        }
+        return regions;
+    }
+
     /**
      * 清除所有区域
      */
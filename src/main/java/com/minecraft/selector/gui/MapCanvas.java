@@ -39,6 +39,10 @@ public class MapCanvas extends JPanel {
     private int worldMinX = 0, worldMinZ = 0;  // 地图对应的世界坐标起点
     private double pixelsPerBlock = 1.0;       // 每个方块对应的像素数
 
+    // 已探索区域叠加层，每个像素对应一个区块
+    private BufferedImage exploredOverlay;
+    private int overlayMinChunkX, overlayMinChunkZ;
+
     // 视野管理
     private ViewportManager viewportManager;
     private Timer viewportUpdateTimer;
@@ -159,6 +163,14 @@ public class MapCanvas extends JPanel {
         repaint();
     }
     
+    /**
+     * 替换显示的图像但保持当前的缩放和位置，用于渲染完成后把预览换成最终图像
+     */
+    public void replaceImage(BufferedImage image) {
+        this.image = image;
+        repaint();
+    }
+
     /**
      * 设置缩放比例
      */
@@ -289,6 +301,18 @@ public class MapCanvas extends JPanel {
             int scaledHeight = (int) (image.getHeight() * scale);
             
             g2d.drawImage(image, imageOffset.x, imageOffset.y, scaledWidth, scaledHeight, null);
+
+            // 绘制已探索区域叠加层，区块边界保持清晰
+            if (exploredOverlay != null) {
+                Point overlayStart = worldToScreenCoordinates(new Point(overlayMinChunkX * 16, overlayMinChunkZ * 16));
+                int overlayWidth = (int) Math.round(exploredOverlay.getWidth() * 16 * pixelsPerBlock * scale);
+                int overlayHeight = (int) Math.round(exploredOverlay.getHeight() * 16 * pixelsPerBlock * scale);
+                Graphics2D overlayGraphics = (Graphics2D) g2d.create();
+                overlayGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                overlayGraphics.drawImage(exploredOverlay, overlayStart.x, overlayStart.y, overlayWidth, overlayHeight, null);
+                overlayGraphics.dispose();
+            }
             
             // 绘制选择框 - 根据当前缩放和偏移调整
             if (selecting && selectionStart != null && selectionEnd != null) {
@@ -351,6 +375,17 @@ public class MapCanvas extends JPanel {
             worldMinX, worldMinZ, pixelsPerBlock);
     }
 
+    /**
+     * 设置已探索区域叠加层，每个像素对应一个区块，左上角像素对应区块 (minChunkX, minChunkZ)
+     * @param overlay 叠加层图像，为null时移除叠加层
+     */
+    public void setExploredOverlay(BufferedImage overlay, int minChunkX, int minChunkZ) {
+        this.exploredOverlay = overlay;
+        this.overlayMinChunkX = minChunkX;
+        this.overlayMinChunkZ = minChunkZ;
+        repaint();
+    }
+
     /**
      * 设置视野回调
      */
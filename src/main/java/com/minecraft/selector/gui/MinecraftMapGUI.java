@@ -1,9 +1,16 @@
 package com.minecraft.selector.gui;
 
+import com.minecraft.selector.core.CancellationToken;
+import com.minecraft.selector.core.MapLayer;
 import com.minecraft.selector.core.MapRenderer;
 import com.minecraft.selector.core.MinecraftResourceExtractor;
 import com.minecraft.selector.core.BlockColors;
+import com.minecraft.selector.core.RegionWatcher;
+import com.minecraft.selector.core.RenderMode;
+import com.minecraft.selector.core.VolumeExporter;
 import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.region.WorldIndex;
+import com.minecraft.selector.utils.FileUtils;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -16,7 +23,11 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import javax.swing.SwingWorker;
 
 /**
@@ -35,6 +46,11 @@ public class MinecraftMapGUI extends JFrame {
     private JTextField minYEntry;
     private JTextField maxYEntry;
     private JComboBox<String> lodDropdown;
+    private JComboBox<RenderMode> renderModeDropdown;
+    private JCheckBox reliefCheckbox;
+    private JCheckBox biomeTintCheckbox;
+    private JCheckBox biomeBlendCheckbox;
+    private JCheckBox translucencyCheckbox;
     private JTextField xCoordEntry;
     private JTextField zCoordEntry;
     private JTextField rangeXEntry;
@@ -42,9 +58,12 @@ public class MinecraftMapGUI extends JFrame {
     private JTextField rangeSizeEntry;
     private JComboBox<String> mcaRangeDropdown;
     private JCheckBox autoLoadCheckbox;
+    private JCheckBox watchCheckbox;
+    private JCheckBox exploredCheckbox;
     private DynamicMapManager dynamicMapManager;
     private JButton renderButton;
     private JButton renderAroundPlayerButton;
+    private JButton cancelRenderButton;
     private JButton jumpButton;
     private JButton confirmSelectionButton;
     private JButton reRenderButton;
@@ -64,6 +83,18 @@ public class MinecraftMapGUI extends JFrame {
     private String currentJsonFile;
     private MinecraftResourceExtractor resourceExtractor;
     private String programDir;
+    private RegionWatcher regionWatcher;
+    // 监视模式下所有增量更新共用的渲染器
+    private volatile MapRenderer watchRenderer;
+
+    // 当前存档的区域头部索引，加载存档时在后台构建
+    private volatile WorldIndex worldIndex;
+
+    // 当前主渲染任务（渲染玩家周围/单个文件）的取消令牌，只在事件线程中访问
+    private CancellationToken mainRenderToken;
+
+    // 自动加载中正在渲染的区域及其取消令牌
+    private final Map<Point, CancellationToken> regionLoadTokens = new ConcurrentHashMap<>();
     
     public MinecraftMapGUI() {
         // 初始化程序目录
@@ -150,6 +181,14 @@ public class MinecraftMapGUI extends JFrame {
         lodDropdown = new JComboBox<>(lodOptions);
         lodDropdown.setSelectedIndex(0);
 
+        // 渲染模式下拉框
+        renderModeDropdown = new JComboBox<>(RenderMode.values());
+        renderModeDropdown.setSelectedItem(RenderMode.SURFACE);
+        reliefCheckbox = new JCheckBox("地形阴影", false);
+        biomeTintCheckbox = new JCheckBox("生物群系着色", false);
+        biomeBlendCheckbox = new JCheckBox("生物群系混合", false);
+        translucencyCheckbox = new JCheckBox("透视水和玻璃", false);
+
         // MCA文件范围下拉框
         mcaRangeDropdown = new JComboBox<>(new String[]{"1x1 (单个文件)", "3x3 (9个文件)", "5x5 (25个文件)", "7x7 (49个文件)"});
         mcaRangeDropdown.setSelectedItem("1x1 (单个文件)");
@@ -157,11 +196,19 @@ public class MinecraftMapGUI extends JFrame {
         // 自动加载复选框
         autoLoadCheckbox = new JCheckBox("启用自动加载", true);
 
+        // 监视存档变化复选框
+        watchCheckbox = new JCheckBox("监视存档变化", false);
+
+        // 已探索区域复选框
+        exploredCheckbox = new JCheckBox("显示已探索区域", false);
+
         // 按钮
         renderButton = new JButton("渲染选定区域");
         renderButton.setEnabled(false);
         renderAroundPlayerButton = new JButton("渲染玩家周围");
         renderAroundPlayerButton.setEnabled(false);
+        cancelRenderButton = new JButton("取消渲染");
+        cancelRenderButton.setEnabled(false);
         jumpButton = new JButton("跳转到坐标");
         confirmSelectionButton = new JButton("确认选择区域");
         confirmSelectionButton.setEnabled(false);
@@ -209,6 +256,8 @@ public class MinecraftMapGUI extends JFrame {
                     System.out.printf("右下角坐标: (%d, %d)\n", maxX, maxZ);
                     System.out.printf("中心坐标: (%d, %d)\n", centerX, centerZ);
                     System.out.printf("区域大小: %dx%d\n", sizeX, sizeZ);
+
+                    promptVolumeExport(minX, minZ, maxX, maxZ);
                 });
             }
         });
@@ -320,7 +369,25 @@ public class MinecraftMapGUI extends JFrame {
         JPanel maxYPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         maxYPanel.add(new JLabel("最大Y坐标:"));
         maxYPanel.add(maxYEntry);
-        heightPanel.add(maxYPanel, BorderLayout.SOUTH);
+        heightPanel.add(maxYPanel, BorderLayout.CENTER);
+
+        JPanel renderModePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        renderModePanel.add(new JLabel("渲染模式:"));
+        renderModePanel.add(renderModeDropdown);
+        renderModePanel.add(reliefCheckbox);
+        renderModePanel.add(biomeTintCheckbox);
+        renderModePanel.add(biomeBlendCheckbox);
+        renderModePanel.add(translucencyCheckbox);
+        heightPanel.add(renderModePanel, BorderLayout.SOUTH);
+
+        // 修改高度后按回车重新渲染已加载的区域
+        minYEntry.addActionListener(e -> reRenderCurrentView());
+        maxYEntry.addActionListener(e -> reRenderCurrentView());
+        renderModeDropdown.addActionListener(e -> onRenderModeChanged());
+        reliefCheckbox.addActionListener(e -> reRenderCurrentView());
+        biomeTintCheckbox.addActionListener(e -> reRenderCurrentView());
+        biomeBlendCheckbox.addActionListener(e -> reRenderCurrentView());
+        translucencyCheckbox.addActionListener(e -> reRenderCurrentView());
         
         panel.add(heightPanel);
         panel.add(Box.createVerticalStrut(10));
@@ -361,6 +428,14 @@ public class MinecraftMapGUI extends JFrame {
         autoLoadCheckbox.addActionListener(e -> toggleAutoLoad());
         mcaBottomPanel.add(autoLoadCheckbox);
 
+        // 添加监视存档变化复选框
+        watchCheckbox.addActionListener(e -> toggleWatch());
+        mcaBottomPanel.add(watchCheckbox);
+
+        // 添加已探索区域复选框
+        exploredCheckbox.addActionListener(e -> toggleExploredOverlay());
+        mcaBottomPanel.add(exploredCheckbox);
+
         mcaRangePanel.add(mcaBottomPanel, BorderLayout.SOUTH);
 
         panel.add(mcaRangePanel);
@@ -440,6 +515,11 @@ public class MinecraftMapGUI extends JFrame {
         panel.add(renderAroundPlayerButton);
         panel.add(Box.createVerticalStrut(5));
 
+        // 取消渲染按钮
+        cancelRenderButton.addActionListener(e -> cancelMainRender());
+        panel.add(cancelRenderButton);
+        panel.add(Box.createVerticalStrut(5));
+
         // 确认选择按钮
         confirmSelectionButton.addActionListener(e -> confirmSelection());
         panel.add(confirmSelectionButton);
@@ -513,7 +593,9 @@ public class MinecraftMapGUI extends JFrame {
 
                     // 渲染地图
                     String regionPath = new File(savePath, "region").getAbsolutePath();
-                    BufferedImage image = MapRenderer.renderRegion(regionPath, minX, maxX, minZ, maxZ, lodLevel);
+                    int[] yRange = getYRange();
+                    BufferedImage image = MapRenderer.renderRegion(regionPath, minX, maxX, minZ, maxZ, lodLevel,
+                        yRange[0], yRange[1], (RenderMode) renderModeDropdown.getSelectedItem());
 
                     if (image != null) {
                         SwingUtilities.invokeLater(() -> {
@@ -556,6 +638,65 @@ public class MinecraftMapGUI extends JFrame {
         worker.execute();
     }
 
+    /**
+     * 询问是否导出确认的选区内的全部方块（使用当前的高度设置）
+     */
+    private void promptVolumeExport(int minX, int minZ, int maxX, int maxZ) {
+        if (savePath == null) {
+            return;
+        }
+        int[] yRange = getYRange();
+        int choice = JOptionPane.showConfirmDialog(this,
+            String.format("是否导出选区 (%d,%d,%d) 到 (%d,%d,%d) 内的全部方块？", minX, yRange[0], minZ, maxX, yRange[1], maxZ),
+            "导出方块", JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Sponge Schematic (*.schem)", "schem"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("方块体积二进制文件 (*.mcvol)", "mcvol"));
+        fileChooser.setSelectedFile(new File(programDir, "selection_" + System.currentTimeMillis() + ".mcvol"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File outputFile = fileChooser.getSelectedFile();
+        if (!outputFile.getName().contains(".")) {
+            // 没有扩展名时按选择的过滤器补上
+            String extension = fileChooser.getFileFilter() instanceof FileNameExtensionFilter
+                ? ((FileNameExtensionFilter) fileChooser.getFileFilter()).getExtensions()[0] : "mcvol";
+            outputFile = new File(outputFile.getParentFile(), outputFile.getName() + "." + extension);
+        }
+        File target = outputFile;
+
+        progressLabel.setText("正在导出选区方块...");
+        SwingWorker<Long, Void> worker = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                VolumeExporter exporter = new VolumeExporter(Runtime.getRuntime().availableProcessors(),
+                    (processed, total) -> SwingUtilities.invokeLater(() ->
+                        progressLabel.setText(String.format("正在导出选区方块: %d/%d 区块", processed, total))));
+                return exporter.export(new File(savePath, "region"), minX, minZ, maxX, maxZ, yRange[0], yRange[1],
+                    target, VolumeExporter.Format.fromFile(target));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long blocks = get();
+                    progressLabel.setText("导出完成: " + target.getName() + "（" + blocks + " 个非空气方块）");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    progressLabel.setText("导出失败: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(MinecraftMapGUI.this, "导出失败: " + cause.getMessage(),
+                                                "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        worker.execute();
+    }
+
     /**
      * 获取LOD级别
      */
@@ -567,6 +708,52 @@ public class MinecraftMapGUI extends JFrame {
         if (selected.contains("8 (")) return 8;
         return 1; // 默认或自动
     }
+
+    /**
+     * 获取高度设置，返回 {最小Y, 最大Y}，输入无效时使用默认的完整高度
+     */
+    private int[] getYRange() {
+        try {
+            int minY = Integer.parseInt(minYEntry.getText().trim());
+            int maxY = Integer.parseInt(maxYEntry.getText().trim());
+            if (minY <= maxY) {
+                return new int[]{minY, maxY};
+            }
+            System.err.println("最小Y坐标大于最大Y坐标，使用完整高度");
+        } catch (NumberFormatException e) {
+            System.err.println("高度设置无效，使用完整高度: " + e.getMessage());
+        }
+        return new int[]{MapRenderer.DEFAULT_MIN_Y, MapRenderer.DEFAULT_MAX_Y};
+    }
+
+    /**
+     * 创建使用当前高度设置和渲染模式的地图渲染器
+     */
+    private MapRenderer createRenderer(int maxWorkers, MapRenderer.ProgressCallback progressCallback) {
+        MapRenderer renderer = new MapRenderer(maxWorkers, progressCallback);
+        applyRenderSettings(renderer);
+        return renderer;
+    }
+
+    /**
+     * 把当前的高度设置和渲染选项应用到渲染器，需要在事件线程中调用
+     */
+    private void applyRenderSettings(MapRenderer renderer) {
+        int[] yRange = getYRange();
+        renderer.setYRange(yRange[0], yRange[1]);
+        renderer.setRenderMode((RenderMode) renderModeDropdown.getSelectedItem());
+        renderer.setReliefShading(reliefCheckbox.isSelected());
+        renderer.setBiomeTinting(biomeTintCheckbox.isSelected());
+        renderer.setBiomeBlendRadius(biomeBlendCheckbox.isSelected() ? 3 : 0);
+        renderer.setTranslucency(translucencyCheckbox.isSelected());
+    }
+
+    /**
+     * 切换渲染模式后重新渲染已加载的区域
+     */
+    private void onRenderModeChanged() {
+        reRenderCurrentView();
+    }
     
     /**
      * 选择Minecraft存档
@@ -656,6 +843,9 @@ public class MinecraftMapGUI extends JFrame {
             // 首先尝试从存档路径查找并提取JAR文件颜色
             autoExtractColorsFromSavePath();
 
+            // 读取所有区域文件的头部，之后查找区域和区块不必再访问文件
+            worldIndex = loadWorldIndex();
+
             // 读取level.dat获取玩家位置
             File levelDat = new File(savePath, "level.dat");
             if (levelDat.exists()) {
@@ -701,20 +891,28 @@ public class MinecraftMapGUI extends JFrame {
                     String selectedJar = foundJars.get(foundJars.size() - 1);
                     System.out.println("选择JAR文件: " + selectedJar);
 
+                    // 原版JAR在前，模组JAR在后
+                    java.util.List<String> jars = new java.util.ArrayList<>();
+                    jars.add(selectedJar);
+                    jars.addAll(MinecraftResourceExtractor.findModJarsFromSavePath(savePath));
+
                     SwingUtilities.invokeLater(() -> {
-                        progressLabel.setText("正在从JAR文件提取方块颜色...");
+                        progressLabel.setText("正在从 " + jars.size() + " 个JAR文件提取方块颜色...");
                     });
 
-                    // 提取颜色
-                    if (resourceExtractor.extractColorsFromMinecraftJar(selectedJar)) {
+                    // 提取颜色，未变化的JAR直接使用缓存
+                    File cacheDir = new File(programDir, "color_cache");
+                    if (resourceExtractor.extractColorsFromJars(jars, cacheDir)) {
                         BlockColors.setResourceExtractor(resourceExtractor);
 
-                        // 保存为JSON和Properties两种格式
-                        String jsonFile = new File(programDir, "block_colors.json").getAbsolutePath();
-                        String propsFile = new File(programDir, "extracted_colors.properties").getAbsolutePath();
+                        // 有JAR重新扫描过时才更新JSON和Properties两种格式的颜色文件
+                        if (resourceExtractor.getLastScannedJarCount() > 0) {
+                            String jsonFile = new File(programDir, "block_colors.json").getAbsolutePath();
+                            String propsFile = new File(programDir, "extracted_colors.properties").getAbsolutePath();
 
-                        resourceExtractor.saveExtractedColorsAsJson(jsonFile);
-                        resourceExtractor.saveExtractedColors(propsFile);
+                            resourceExtractor.saveExtractedColorsAsJson(jsonFile);
+                            resourceExtractor.saveExtractedColors(propsFile);
+                        }
 
                         SwingUtilities.invokeLater(() -> {
                             progressLabel.setText("成功提取了 " + resourceExtractor.getAllExtractedColors().size() + " 种方块颜色");
@@ -861,7 +1059,8 @@ public class MinecraftMapGUI extends JFrame {
             for (int z = centerRegionZ - halfRange; z <= centerRegionZ + halfRange; z++) {
                 String regionFile = String.format("r.%d.%d.mca", x, z);
                 File regionPath = new File(savePath, "region/" + regionFile);
-                if (regionPath.exists()) {
+                boolean present = worldIndex != null ? worldIndex.hasRegion(x, z) : regionPath.exists();
+                if (present) {
                     mcaFiles.add(regionPath.getAbsolutePath());
                 }
             }
@@ -906,13 +1105,16 @@ public class MinecraftMapGUI extends JFrame {
      * 渲染多个MCA文件
      */
     private void renderMultipleMcaFiles(java.util.List<String> mcaFiles, int startRegionX, int startRegionZ, int gridSize) {
+        CancellationToken token = beginMainRender();
+        File thumbnailDir = getThumbnailDir(new File(mcaFiles.get(0)).getAbsoluteFile().getParentFile());
+        ProgressivePreview preview = beginPreview(startRegionX, startRegionZ, gridSize, thumbnailDir);
         SwingWorker<BufferedImage, Void> worker = new SwingWorker<BufferedImage, Void>() {
             @Override
             protected BufferedImage doInBackground() throws Exception {
                 // 创建进度回调
                 MapRenderer.ProgressCallback progressCallback = new MapRenderer.ProgressCallback() {
                     @Override
-                    public void onProgress(int processed, int total, double speed, Set<String> foundBlocks) {
+                    public void onProgress(int processed, int total, double speed, Set<String> newBlocks) {
                         if (total == 0) return;
 
                         int percent = Math.min(100, processed * 100 / total);
@@ -926,7 +1128,7 @@ public class MinecraftMapGUI extends JFrame {
 
                 // 创建地图渲染器
                 int maxWorkers = Math.min(Runtime.getRuntime().availableProcessors(), 4);
-                MapRenderer renderer = new MapRenderer(maxWorkers, progressCallback);
+                MapRenderer renderer = createRenderer(maxWorkers, progressCallback);
 
                 try {
                     // 计算总图像大小
@@ -939,6 +1141,8 @@ public class MinecraftMapGUI extends JFrame {
 
                     // 渲染每个MCA文件
                     for (String mcaFile : mcaFiles) {
+                        token.throwIfCancelled();
+
                         // 从文件名解析区域坐标
                         String fileName = new File(mcaFile).getName();
                         String[] parts = fileName.replace("r.", "").replace(".mca", "").split("\\.");
@@ -946,11 +1150,15 @@ public class MinecraftMapGUI extends JFrame {
                             int regionX = Integer.parseInt(parts[0]);
                             int regionZ = Integer.parseInt(parts[1]);
 
-                            // 渲染单个区域
-                            String[][] topBlocks = renderer.getTopBlocks(mcaFile, 32, 1);
+                            // 渲染单个区域，区块完成后立即显示在预览中
+                            renderer.setPreviewListener(preview.regionListener(regionX, regionZ));
+                            MapLayer layer = renderer.renderLayer(mcaFile, 32, 1, token);
+                            String[][] topBlocks = layer.getBlocks();
                             if (topBlocks != null) {
-                                BufferedImage regionImage = renderer.renderToPng(topBlocks, 1);
+                                BufferedImage regionImage = renderer.renderToPng(layer, 1);
                                 if (regionImage != null) {
+                                    ProgressivePreview.saveThumbnail(thumbnailDir, regionX, regionZ, regionImage);
+
                                     // 计算在大图像中的位置
                                     int offsetX = (regionX - startRegionX) * 512;
                                     int offsetY = (regionZ - startRegionZ) * 512;
@@ -971,11 +1179,14 @@ public class MinecraftMapGUI extends JFrame {
 
             @Override
             protected void done() {
+                finishMainRender(token);
+                preview.stop();
                 try {
                     BufferedImage image = get();
                     if (image != null) {
                         mapImage = image;
-                        mapCanvas.setImage(image);
+                        // 保持渲染期间用户调整过的视图
+                        mapCanvas.replaceImage(image);
 
                         // 设置世界坐标映射
                         int worldMinX = startRegionX * 512;
@@ -1000,6 +1211,10 @@ public class MinecraftMapGUI extends JFrame {
                         progressBar.setString("失败");
                     }
                 } catch (Exception e) {
+                    if (isCancellation(e)) {
+                        showRenderCancelled(token);
+                        return;
+                    }
                     JOptionPane.showMessageDialog(MinecraftMapGUI.this,
                                                 "渲染多区域地图时出错: " + e.getMessage(),
                                                 "错误", JOptionPane.ERROR_MESSAGE);
@@ -1013,6 +1228,87 @@ public class MinecraftMapGUI extends JFrame {
         worker.execute();
     }
 
+    /**
+     * 开始渐进式预览：先显示缩略图和已生成区块的粗略预览，之后逐个区块更新
+     * 粗略预览在当前线程中绘制，显示和定期重绘在事件线程中开始（早于渲染任务的done()）
+     */
+    private ProgressivePreview beginPreview(int minRegionX, int minRegionZ, int gridSize, File thumbnailDir) {
+        ProgressivePreview preview = new ProgressivePreview(minRegionX, minRegionZ, gridSize, mapCanvas);
+        preview.drawCoarse(worldIndex, thumbnailDir);
+        SwingUtilities.invokeLater(() -> {
+            mapCanvas.setImage(preview.getImage());
+            mapCanvas.setWorldCoordinateMapping(minRegionX * 512, minRegionZ * 512, 1.0);
+            preview.start();
+        });
+        return preview;
+    }
+
+    /**
+     * 区域目录对应的缩略图缓存目录
+     */
+    private File getThumbnailDir(File regionDir) {
+        return ProgressivePreview.thumbnailDir(new File(programDir, "preview_cache"), regionDir);
+    }
+
+    private static int[] parseRegionCoords(File regionFile) {
+        try {
+            return FileUtils.parseRegionCoordinates(regionFile.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 开始新的主渲染任务，仍在进行的上一个任务已经过时，直接取消
+     */
+    private CancellationToken beginMainRender() {
+        if (mainRenderToken != null) {
+            mainRenderToken.cancel();
+        }
+        mainRenderToken = new CancellationToken();
+        cancelRenderButton.setEnabled(true);
+        return mainRenderToken;
+    }
+
+    /**
+     * 主渲染任务结束，如果仍是当前任务则禁用取消按钮
+     */
+    private void finishMainRender(CancellationToken token) {
+        if (mainRenderToken == token) {
+            mainRenderToken = null;
+            cancelRenderButton.setEnabled(false);
+        }
+    }
+
+    /**
+     * 取消当前的主渲染任务，已排队的区块会立即释放
+     */
+    private void cancelMainRender() {
+        if (mainRenderToken != null) {
+            mainRenderToken.cancel();
+            progressLabel.setText("正在取消渲染...");
+        }
+    }
+
+    /**
+     * 被新任务取代的渲染不改动界面，由用户取消的渲染恢复按钮状态
+     */
+    private void showRenderCancelled(CancellationToken token) {
+        if (mainRenderToken != null && mainRenderToken != token) {
+            return;
+        }
+        renderButton.setEnabled(true);
+        renderAroundPlayerButton.setEnabled(true);
+        progressLabel.setText("渲染已取消");
+        progressBar.setValue(0);
+        progressBar.setString("已取消");
+    }
+
+    private static boolean isCancellation(Exception e) {
+        return e instanceof CancellationException
+            || (e instanceof ExecutionException && e.getCause() instanceof CancellationException);
+    }
+
     /**
      * 渲染单个MCA文件
      */
@@ -1028,13 +1324,19 @@ public class MinecraftMapGUI extends JFrame {
      * 渲染地图
      */
     private void renderMap(String regionPath) {
+        CancellationToken token = beginMainRender();
+        File regionFile = new File(regionPath).getAbsoluteFile();
+        File thumbnailDir = getThumbnailDir(regionFile.getParentFile());
+        int[] regionCoords = parseRegionCoords(regionFile);
+        ProgressivePreview preview = regionCoords != null
+            ? beginPreview(regionCoords[0], regionCoords[1], 1, thumbnailDir) : null;
         SwingWorker<BufferedImage, Void> worker = new SwingWorker<BufferedImage, Void>() {
             @Override
             protected BufferedImage doInBackground() throws Exception {
                 // 创建进度回调
                 MapRenderer.ProgressCallback progressCallback = new MapRenderer.ProgressCallback() {
                     @Override
-                    public void onProgress(int processed, int total, double speed, Set<String> foundBlocks) {
+                    public void onProgress(int processed, int total, double speed, Set<String> newBlocks) {
                         if (total == 0) return;
 
                         int percent = Math.min(100, processed * 100 / total);
@@ -1048,19 +1350,26 @@ public class MinecraftMapGUI extends JFrame {
 
                 // 创建地图渲染器
                 int maxWorkers = Math.min(Runtime.getRuntime().availableProcessors(), 4); // GUI模式使用较少线程
-                MapRenderer renderer = new MapRenderer(maxWorkers, progressCallback);
+                MapRenderer renderer = createRenderer(maxWorkers, progressCallback);
 
                 try {
-                    // 渲染区块
-                    String[][] topBlocks = renderer.getTopBlocks(regionPath, 32, 1);
+                    // 渲染区块，区块完成后立即显示在预览中
+                    if (preview != null) {
+                        renderer.setPreviewListener(preview.regionListener(regionCoords[0], regionCoords[1]));
+                    }
+                    MapLayer layer = renderer.renderLayer(regionPath, 32, 1, token);
+                    String[][] topBlocks = layer.getBlocks();
 
                     if (topBlocks != null) {
                         // 渲染图像
-                        BufferedImage image = renderer.renderToPng(topBlocks, 1);
+                        BufferedImage image = renderer.renderToPng(layer, 1);
 
                         // 保存图像到当前目录
                         if (image != null) {
                             saveRenderedImage(image, regionPath);
+                            if (regionCoords != null) {
+                                ProgressivePreview.saveThumbnail(thumbnailDir, regionCoords[0], regionCoords[1], image);
+                            }
                         }
 
                         return image;
@@ -1074,11 +1383,20 @@ public class MinecraftMapGUI extends JFrame {
 
             @Override
             protected void done() {
+                finishMainRender(token);
+                if (preview != null) {
+                    preview.stop();
+                }
                 try {
                     BufferedImage image = get();
                     if (image != null) {
                         mapImage = image;
-                        mapCanvas.setImage(image);
+                        if (preview != null) {
+                            // 保持渲染期间用户调整过的视图
+                            mapCanvas.replaceImage(image);
+                        } else {
+                            mapCanvas.setImage(image);
+                        }
 
                         // 设置世界坐标映射 (一个区域文件是512x512方块)
                         if (currentRegion != null) {
@@ -1100,6 +1418,10 @@ public class MinecraftMapGUI extends JFrame {
                         progressBar.setString("失败");
                     }
                 } catch (Exception e) {
+                    if (isCancellation(e)) {
+                        showRenderCancelled(token);
+                        return;
+                    }
                     JOptionPane.showMessageDialog(MinecraftMapGUI.this,
                                                 "渲染地图时出错: " + e.getMessage(),
                                                 "错误", JOptionPane.ERROR_MESSAGE);
@@ -1259,19 +1581,223 @@ public class MinecraftMapGUI extends JFrame {
         if (enabled) {
             progressLabel.setText("已启用自动加载模式 - 地图将根据视野自动加载");
         } else {
+            // 放弃所有还在进行的自动加载
+            for (CancellationToken token : regionLoadTokens.values()) {
+                token.cancel();
+            }
+            regionLoadTokens.clear();
             progressLabel.setText("已禁用自动加载模式");
         }
     }
 
+    /**
+     * 重新渲染当前视图中所有已加载的区域
+     */
+    private void reRenderCurrentView() {
+        if (savePath == null || dynamicMapManager == null) return;
+
+        if (!autoLoadCheckbox.isSelected()) {
+            progressLabel.setText("请先启用自动加载功能");
+            return;
+        }
+
+        java.util.List<Point> regions = dynamicMapManager.getLoadedRegions();
+        if (regions.isEmpty()) {
+            progressLabel.setText("当前没有已加载的区域");
+            return;
+        }
+
+        progressLabel.setText("正在重新渲染当前视图...");
+        for (Point region : regions) {
+            loadRegionInBackground(region.x, region.y);
+        }
+    }
+
+    /**
+     * 加载或更新当前存档的区域头部索引
+     * 索引缓存在程序目录的world_index文件夹中，只有大小或修改时间变化过的区域文件需要重新读取头部
+     */
+    private WorldIndex loadWorldIndex() {
+        File regionDir = new File(savePath, "region");
+        if (!regionDir.isDirectory()) {
+            return null;
+        }
+
+        WorldIndex index = WorldIndex.forDirectory(regionDir);
+        File cacheFile = new File(new File(programDir, "world_index"),
+            String.format("%08x.idx", regionDir.getAbsolutePath().hashCode()));
+        try {
+            long start = System.currentTimeMillis();
+            if (index.getRegionCount() == 0) {
+                index.load(cacheFile);
+            }
+            int updated = index.update(Runtime.getRuntime().availableProcessors() * 2);
+            if (updated > 0) {
+                index.save(cacheFile);
+            }
+            System.out.printf("存档索引: %d 个区域, %d 个区块 (重新读取 %d 个头部, 耗时 %dms)\n",
+                index.getRegionCount(), index.getChunkCount(), updated, System.currentTimeMillis() - start);
+            return index;
+        } catch (IOException e) {
+            System.err.println("构建存档索引失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 切换已探索区域显示
+     * 已加载地图时在地图上叠加显示未生成的区块，否则显示整个存档的已探索区域概览（1像素 = 1区块）
+     */
+    private void toggleExploredOverlay() {
+        if (!exploredCheckbox.isSelected()) {
+            mapCanvas.setExploredOverlay(null, 0, 0);
+            return;
+        }
+
+        if (savePath == null) {
+            exploredCheckbox.setSelected(false);
+            JOptionPane.showMessageDialog(this, "请先选择存档文件夹", "错误", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        boolean overview = mapImage == null;
+        SwingWorker<BufferedImage, Void> worker = new SwingWorker<BufferedImage, Void>() {
+            private int[] bounds;
+
+            @Override
+            protected BufferedImage doInBackground() {
+                WorldIndex index = loadWorldIndex();
+                worldIndex = index;
+                bounds = index != null ? index.getChunkBounds() : null;
+                if (bounds == null) {
+                    return null;
+                }
+                // 概览中已生成区块显示为绿色，叠加层只把未生成的区块调暗
+                return overview
+                    ? index.renderExploredMap(bounds[0], bounds[1], bounds[2], bounds[3], 0xFF3C8C3C, 0xFF202020)
+                    : index.renderExploredMap(bounds[0], bounds[1], bounds[2], bounds[3], 0x00000000, 0x99000000);
+            }
+
+            @Override
+            protected void done() {
+                BufferedImage image;
+                try {
+                    image = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    image = null;
+                }
+                if (image == null || !exploredCheckbox.isSelected()) {
+                    if (image == null) {
+                        exploredCheckbox.setSelected(false);
+                        progressLabel.setText("存档中没有已生成的区块");
+                    }
+                    return;
+                }
+
+                if (overview && mapImage == null) {
+                    mapCanvas.setImage(image);
+                    mapCanvas.setWorldCoordinateMapping(bounds[0] * 16, bounds[1] * 16, 1.0 / 16);
+                } else {
+                    mapCanvas.setExploredOverlay(image, bounds[0], bounds[1]);
+                }
+                progressLabel.setText(String.format("已探索区域: %d 个区块, 范围 (%d,%d) 到 (%d,%d)",
+                    worldIndex.getChunkCount(), bounds[0] * 16, bounds[1] * 16, bounds[2] * 16 + 15, bounds[3] * 16 + 15));
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * 切换监视存档变化模式
+     */
+    private void toggleWatch() {
+        if (regionWatcher != null) {
+            regionWatcher.close();
+            regionWatcher = null;
+        }
+        if (watchRenderer != null) {
+            watchRenderer.shutdown();
+            watchRenderer = null;
+        }
+
+        if (!watchCheckbox.isSelected()) {
+            progressLabel.setText("已停止监视存档变化");
+            return;
+        }
+
+        if (savePath == null) {
+            watchCheckbox.setSelected(false);
+            JOptionPane.showMessageDialog(this, "请先选择存档文件夹", "错误", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        watchRenderer = createRenderer(2, null);
+        regionWatcher = new RegionWatcher(new File(savePath, "region"), 3000, this::onRegionChanged);
+        try {
+            regionWatcher.start();
+            progressLabel.setText("正在监视存档变化 - 保存后将自动更新地图");
+        } catch (IOException e) {
+            regionWatcher = null;
+            watchRenderer.shutdown();
+            watchRenderer = null;
+            watchCheckbox.setSelected(false);
+            progressLabel.setText("无法监视存档目录: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 存档中的区域文件发生变化时，只重新渲染变化的区块并更新已加载的地图
+     * 在监视线程中调用：渲染设置在事件线程中读取，区块渲染到区域图像的副本中，
+     * 完成后再交给事件线程替换，正在绘制的图像不会被修改
+     */
+    private void onRegionChanged(int regionX, int regionZ, File regionFile, java.util.List<int[]> changedChunks) {
+        MapRenderer renderer = watchRenderer;
+        BufferedImage current = dynamicMapManager.getRegionImage(regionX, regionZ);
+        if (renderer == null || current == null || current.getWidth() != 512 || current.getHeight() != 512) {
+            // 区域未加载，无需更新
+            return;
+        }
+
+        try {
+            SwingUtilities.invokeAndWait(() -> applyRenderSettings(renderer));
+
+            BufferedImage regionImage = new BufferedImage(current.getColorModel(),
+                current.copyData(null), current.isAlphaPremultiplied(), null);
+            int count = renderer.renderChunksInto(regionFile.getAbsolutePath(), changedChunks, regionImage);
+
+            SwingUtilities.invokeLater(() -> {
+                dynamicMapManager.replaceRegion(regionX, regionZ, regionImage);
+                mapCanvas.repaint();
+                progressLabel.setText(String.format("区域 r.%d.%d.mca 已更新 %d 个区块", regionX, regionZ, count));
+            });
+        } catch (InterruptedException e) {
+            // 监视已停止
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException | java.lang.reflect.InvocationTargetException e) {
+            System.err.printf("更新区域 r.%d.%d.mca 失败: %s\n", regionX, regionZ, e.getMessage());
+        }
+    }
+
     /**
      * 在后台加载区域
      */
     private void loadRegionInBackground(int regionX, int regionZ) {
         if (!autoLoadCheckbox.isSelected()) return;
 
+        // 同一区域重新加载时，之前还没完成的渲染已经过时
+        Point key = new Point(regionX, regionZ);
+        CancellationToken token = new CancellationToken();
+        CancellationToken previous = regionLoadTokens.put(key, token);
+        if (previous != null) {
+            previous.cancel();
+        }
+
         SwingWorker<BufferedImage, Void> worker = new SwingWorker<BufferedImage, Void>() {
             @Override
             protected BufferedImage doInBackground() throws Exception {
+                // 排队期间区域可能已被卸载
+                token.throwIfCancelled();
+
                 String regionFile = String.format("r.%d.%d.mca", regionX, regionZ);
                 File regionPath = new File(savePath, "region/" + regionFile);
 
@@ -1283,22 +1809,20 @@ public class MinecraftMapGUI extends JFrame {
                 System.out.printf("开始渲染区域: %s (世界坐标: %d, %d)\n",
                     regionFile, regionX * 512, regionZ * 512);
 
-                // 创建简单的进度回调
-                MapRenderer.ProgressCallback progressCallback = (processed, total, speed, foundBlocks) -> {
-                    // 静默加载，不显示进度
-                };
-
-                // 创建地图渲染器
-                MapRenderer renderer = new MapRenderer(2, progressCallback); // 使用较少线程避免影响主渲染
+                // 创建地图渲染器，静默加载不需要进度回调
+                MapRenderer renderer = createRenderer(2, null); // 使用较少线程避免影响主渲染
 
                 try {
                     // 渲染整个区域 (32x32区块 = 512x512方块)
-                    String[][] topBlocks = renderer.getTopBlocks(regionPath.getAbsolutePath(), 32, 1);
+                    MapLayer layer = renderer.renderLayer(regionPath.getAbsolutePath(), 32, 1, token);
+                    String[][] topBlocks = layer.getBlocks();
                     if (topBlocks != null) {
-                        BufferedImage regionImage = renderer.renderToPng(topBlocks, 1);
+                        BufferedImage regionImage = renderer.renderToPng(layer, 1);
                         if (regionImage != null) {
                             System.out.printf("成功渲染区域: %s, 图像尺寸: %dx%d\n",
                                 regionFile, regionImage.getWidth(), regionImage.getHeight());
+                            ProgressivePreview.saveThumbnail(getThumbnailDir(regionPath.getAbsoluteFile().getParentFile()),
+                                regionX, regionZ, regionImage);
                         }
                         return regionImage;
                     }
@@ -1310,6 +1834,11 @@ public class MinecraftMapGUI extends JFrame {
 
             @Override
             protected void done() {
+                // 已被卸载或被更新的加载取代的结果直接丢弃
+                if (!regionLoadTokens.remove(key, token) || token.isCancelled()) {
+                    System.out.printf("放弃过时的区域渲染 r.%d.%d.mca\n", regionX, regionZ);
+                    return;
+                }
                 try {
                     BufferedImage regionImage = get();
                     if (regionImage != null) {
@@ -1346,6 +1875,12 @@ public class MinecraftMapGUI extends JFrame {
      * 卸载区域
      */
     private void unloadRegionInBackground(int regionX, int regionZ) {
+        // 还在渲染的区域不再需要
+        CancellationToken pending = regionLoadTokens.remove(new Point(regionX, regionZ));
+        if (pending != null) {
+            pending.cancel();
+        }
+
         // 从动态地图管理器中移除区域
         dynamicMapManager.removeRegion(regionX, regionZ);
 
@@ -0,0 +1,192 @@
+package com.minecraft.selector.gui;
+
+import com.minecraft.selector.core.MapRenderer;
+import com.minecraft.selector.region.WorldIndex;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 渐进式地图预览
+ * 渲染开始时立即显示粗略预览：有缩略图缓存的区域显示放大的缩略图，其余区域按存档索引把已生成的区块填充为灰色。
+ * 之后每处理完一个区块就把它的颜色写入预览图像，由Swing定时器按固定频率重绘画布，
+ * 重绘次数与区块数无关。渲染完成后用最终图像替换预览。
+ */
+public class ProgressivePreview {
+
+    // 默认每秒重绘10次
+    public static final int DEFAULT_REPAINT_MILLIS = 100;
+
+    // 缩略图边长（1像素 = 8x8方块）
+    private static final int THUMBNAIL_SIZE = 64;
+
+    private static final int GENERATED_COLOR = 0xFF505050;
+    private static final int EMPTY_COLOR = 0xFF202020;
+
+    private final BufferedImage image;
+    // 预览图像的像素数组，区块颜色按行直接复制进来，不经过setRGB的逐像素颜色模型转换
+    private final int[] pixels;
+    private final int minRegionX;
+    private final int minRegionZ;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Timer repaintTimer;
+
+    /**
+     * 创建覆盖 gridSize x gridSize 个区域的预览，左上角为区域 (minRegionX, minRegionZ)
+     */
+    public ProgressivePreview(int minRegionX, int minRegionZ, int gridSize, Component canvas) {
+        this.minRegionX = minRegionX;
+        this.minRegionZ = minRegionZ;
+        this.image = new BufferedImage(gridSize * 512, gridSize * 512, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.repaintTimer = new Timer(DEFAULT_REPAINT_MILLIS, e -> {
+            if (dirty.getAndSet(false)) {
+                canvas.repaint();
+            }
+        });
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * 用缩略图缓存和存档索引绘制粗略预览，只读取缓存文件，不读取区域数据
+     */
+    public void drawCoarse(WorldIndex index, File thumbnailDir) {
+        int gridSize = image.getWidth() / 512;
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int dz = 0; dz < gridSize; dz++) {
+            for (int dx = 0; dx < gridSize; dx++) {
+                int regionX = minRegionX + dx;
+                int regionZ = minRegionZ + dz;
+                BufferedImage thumbnail = thumbnailDir != null ? loadThumbnail(thumbnailDir, regionX, regionZ) : null;
+                if (thumbnail != null) {
+                    g2d.drawImage(thumbnail, dx * 512, dz * 512, 512, 512, null);
+                } else {
+                    drawOccupancy(index, regionX, regionZ, dx * 512, dz * 512);
+                }
+            }
+        }
+        g2d.dispose();
+        dirty.set(true);
+    }
+
+    /**
+     * 按存档索引把区域中已生成的区块填充为灰色
+     */
+    private void drawOccupancy(WorldIndex index, int regionX, int regionZ, int pixelX, int pixelZ) {
+        long[] mask = index != null ? index.getChunkMask(regionX, regionZ) : null;
+        int[] pixels = new int[512 * 512];
+        for (int chunk = 0; chunk < 1024; chunk++) {
+            boolean generated = mask != null && (mask[chunk >> 6] & (1L << chunk)) != 0;
+            int color = generated ? GENERATED_COLOR : EMPTY_COLOR;
+            int start = (chunk >> 5) * 16 * 512 + (chunk & 31) * 16;
+            for (int z = 0; z < 16; z++) {
+                java.util.Arrays.fill(pixels, start + z * 512, start + z * 512 + 16, color);
+            }
+        }
+        image.setRGB(pixelX, pixelZ, 512, 512, pixels, 0, 512);
+    }
+
+    /**
+     * 获取区域的区块监听器，区块颜色直接写入预览图像中该区域的位置
+     * 颜色由渲染器按方块编号查表得到（索引为 z * 16 + x），这里只按行复制
+     */
+    public MapRenderer.ChunkPreviewListener regionListener(int regionX, int regionZ) {
+        int width = image.getWidth();
+        int offsetX = (regionX - minRegionX) * 512;
+        int offsetZ = (regionZ - minRegionZ) * 512;
+        return (chunkX, chunkZ, argb) -> {
+            // 各区块写入的位置互不重叠，可以从多个工作线程同时写入
+            int start = (offsetZ + chunkZ * 16) * width + offsetX + chunkX * 16;
+            for (int z = 0; z < 16; z++) {
+                System.arraycopy(argb, z * 16, pixels, start + z * width, 16);
+            }
+            dirty.set(true);
+        };
+    }
+
+    /**
+     * 开始定期重绘，需要在事件线程中调用
+     */
+    public void start() {
+        repaintTimer.start();
+    }
+
+    /**
+     * 停止定期重绘，需要在事件线程中调用
+     */
+    public void stop() {
+        repaintTimer.stop();
+    }
+
+    /**
+     * 缩略图缓存目录，每个区域目录一个子目录
+     */
+    public static File thumbnailDir(File cacheRoot, File regionDir) {
+        return new File(cacheRoot, String.format("%08x", regionDir.getAbsolutePath().hashCode()));
+    }
+
+    /**
+     * 读取区域缩略图，不存在或读取失败时返回null
+     */
+    public static BufferedImage loadThumbnail(File thumbnailDir, int regionX, int regionZ) {
+        File file = new File(thumbnailDir, String.format("r.%d.%d.png", regionX, regionZ));
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return ImageIO.read(file);
+        } catch (IOException e) {
+            System.err.println("读取缩略图失败: " + file.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 把完整渲染的区域图像缩小保存为缩略图，下次打开该区域时用作粗略预览
+     */
+    public static void saveThumbnail(File thumbnailDir, int regionX, int regionZ, BufferedImage regionImage) {
+        if (regionImage.getWidth() < THUMBNAIL_SIZE || regionImage.getWidth() != regionImage.getHeight()) {
+            return;
+        }
+        if (!thumbnailDir.isDirectory() && !thumbnailDir.mkdirs()) {
+            System.err.println("无法创建缩略图目录: " + thumbnailDir);
+            return;
+        }
+        // 每个缩略图像素取对应方块颜色的平均值
+        int step = regionImage.getWidth() / THUMBNAIL_SIZE;
+        int[] source = regionImage.getRGB(0, 0, regionImage.getWidth(), regionImage.getHeight(), null, 0, regionImage.getWidth());
+        int[] pixels = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+        for (int ty = 0; ty < THUMBNAIL_SIZE; ty++) {
+            for (int tx = 0; tx < THUMBNAIL_SIZE; tx++) {
+                int r = 0, g = 0, b = 0;
+                for (int y = ty * step; y < (ty + 1) * step; y++) {
+                    for (int x = tx * step; x < (tx + 1) * step; x++) {
+                        int rgb = source[y * regionImage.getWidth() + x];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+                int count = step * step;
+                pixels[ty * THUMBNAIL_SIZE + tx] = (r / count) << 16 | (g / count) << 8 | (b / count);
+            }
+        }
+        BufferedImage thumbnail = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+        thumbnail.setRGB(0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE, pixels, 0, THUMBNAIL_SIZE);
+        try {
+            ImageIO.write(thumbnail, "PNG", new File(thumbnailDir, String.format("r.%d.%d.png", regionX, regionZ)));
+        } catch (IOException e) {
+            System.err.println("保存缩略图失败: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.minecraft.selector.gui;
 
+import com.minecraft.selector.metrics.ViewportRegionEvent;
 import java.awt.Rectangle;
 import java.util.Set;
 import java.util.HashSet;
@@ -46,9 +47,12 @@ public class ViewportManager {
         for (RegionCoord region : requiredRegions) {
             if (!loadedRegions.contains(region)) {
                 loadedRegions.add(region);
+                ViewportRegionEvent event = new ViewportRegionEvent();
+                event.begin();
                 if (callback != null) {
                     callback.loadRegion(region.x, region.z);
                 }
+                commitEvent(event, "load", region);
                 System.out.printf("加载区域: r.%d.%d.mca\n", region.x, region.z);
             }
         }
@@ -63,9 +67,12 @@ public class ViewportManager {
         
         for (RegionCoord region : toUnload) {
             loadedRegions.remove(region);
+            ViewportRegionEvent event = new ViewportRegionEvent();
+            event.begin();
             if (callback != null) {
                 callback.unloadRegion(region.x, region.z);
             }
+            commitEvent(event, "unload", region);
             System.out.printf("卸载区域: r.%d.%d.mca\n", region.x, region.z);
         }
         
@@ -88,9 +95,22 @@ public class ViewportManager {
     public void clearAll() {
         for (RegionCoord region : new HashSet<>(loadedRegions)) {
             loadedRegions.remove(region);
+            ViewportRegionEvent event = new ViewportRegionEvent();
+            event.begin();
             if (callback != null) {
                 callback.unloadRegion(region.x, region.z);
             }
+            commitEvent(event, "unload", region);
+        }
+    }
+
+    private static void commitEvent(ViewportRegionEvent event, String action, RegionCoord region) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.regionX = region.x;
+            event.regionZ = region.z;
+            event.commit();
         }
     }
     
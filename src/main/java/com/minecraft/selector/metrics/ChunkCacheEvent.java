@@ -0,0 +1,43 @@
+package com.minecraft.selector.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：区块缓存查找（瞬时事件）
+ */
+@Name("com.minecraft.selector.ChunkCache")
+@Label("Chunk Cache Lookup")
+@Category({"McMapSel", "Cache"})
+@StackTrace(false)
+public class ChunkCacheEvent extends Event {
+
+    @Label("Region")
+    public String region;
+
+    @Label("Chunk X")
+    public int chunkX;
+
+    @Label("Chunk Z")
+    public int chunkZ;
+
+    @Label("Hit")
+    public boolean hit;
+
+    /**
+     * 记录一次缓存查找，未录制时只有一次开关检查
+     */
+    public static void emit(String region, int chunkX, int chunkZ, boolean hit) {
+        ChunkCacheEvent event = new ChunkCacheEvent();
+        if (event.shouldCommit()) {
+            event.region = region;
+            event.chunkX = chunkX;
+            event.chunkZ = chunkZ;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.minecraft.selector.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：解码单个区块（解压 + NBT解析 + 区段解码），持续时间为整个解码过程
+ */
+@Name("com.minecraft.selector.ChunkDecode")
+@Label("Chunk Decode")
+@Category({"McMapSel", "Region"})
+@Description("解压并解码区域文件中的一个区块")
+@StackTrace(false)
+public class ChunkDecodeEvent extends Event {
+
+    @Label("Region")
+    public String region;
+
+    @Label("Chunk X")
+    @Description("区域内的区块X坐标(0-31)")
+    public int chunkX;
+
+    @Label("Chunk Z")
+    @Description("区域内的区块Z坐标(0-31)")
+    public int chunkZ;
+
+    @Label("Compressed Size")
+    @DataAmount
+    public int compressedSize;
+
+    @Label("Sections")
+    public int sections;
+}
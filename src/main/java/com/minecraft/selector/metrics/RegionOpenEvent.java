@@ -0,0 +1,29 @@
+package com.minecraft.selector.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR事件：打开区域文件，持续时间为读取文件的耗时
+ */
+@Name("com.minecraft.selector.RegionOpen")
+@Label("Region Open")
+@Category({"McMapSel", "Region"})
+@Description("读取区域文件(.mca)")
+public class RegionOpenEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Memory Mapped")
+    @Description("true为内存映射，false为读入堆内存")
+    public boolean mapped;
+}
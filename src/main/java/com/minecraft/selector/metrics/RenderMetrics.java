@@ -0,0 +1,301 @@
+package com.minecraft.selector.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 渲染指标：各阶段的计数器和耗时直方图
+ * 读取区域文件 -> 解压 -> NBT解析 -> 区段解码 -> 逐列处理 -> 写像素，每个阶段单独计时，
+ * 可以看出在当前硬件上哪个阶段限制了吞吐量。计数器使用LongAdder，多线程同时记录时没有竞争。
+ * 通过JMX查看，或定期以文本/JSON格式输出。
+ */
+public class RenderMetrics implements RenderMetricsMBean {
+
+    private static final RenderMetrics SHARED = new RenderMetrics();
+
+    public static final String OBJECT_NAME = "com.minecraft.selector:type=RenderMetrics";
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder regionsOpened = new LongAdder();
+    private final LongAdder chunksDecoded = new LongAdder();
+    private final LongAdder chunksRendered = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder pixelsWritten = new LongAdder();
+
+    private final Histogram inflateTime = new Histogram("inflate", "ns");
+    private final Histogram nbtParseTime = new Histogram("nbt_parse", "ns");
+    private final Histogram sectionDecodeTime = new Histogram("section_decode", "ns");
+    private final Histogram chunkProcessTime = new Histogram("chunk_process", "ns");
+    private final Histogram pixelWriteTime = new Histogram("pixel_write", "ns");
+    private final Histogram queueDepth = new Histogram("queue_depth", "tasks");
+
+    private final Histogram[] histograms = {
+        inflateTime, nbtParseTime, sectionDecodeTime, chunkProcessTime, pixelWriteTime, queueDepth
+    };
+
+    private ScheduledExecutorService dumpScheduler;
+
+    /**
+     * 获取全局共享的指标实例
+     */
+    public static RenderMetrics getShared() {
+        return SHARED;
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * 每打开一个区域文件调用一次，读取区块数据时只计字节数
+     */
+    public void recordRegionOpened() {
+        regionsOpened.increment();
+    }
+
+    public void recordInflate(long nanos) {
+        inflateTime.record(nanos);
+    }
+
+    public void recordNbtParse(long nanos) {
+        nbtParseTime.record(nanos);
+        chunksDecoded.increment();
+    }
+
+    public void recordSectionDecode(long nanos) {
+        sectionDecodeTime.record(nanos);
+    }
+
+    public void recordChunkProcess(long nanos) {
+        chunkProcessTime.record(nanos);
+        chunksRendered.increment();
+    }
+
+    public void recordPixelWrite(long nanos, long pixels) {
+        pixelWriteTime.record(nanos);
+        pixelsWritten.add(pixels);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    public void recordQueueDepth(int depth) {
+        queueDepth.record(depth);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getRegionsOpened() {
+        return regionsOpened.sum();
+    }
+
+    @Override
+    public long getChunksDecoded() {
+        return chunksDecoded.sum();
+    }
+
+    @Override
+    public long getChunksRendered() {
+        return chunksRendered.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getPixelsWritten() {
+        return pixelsWritten.sum();
+    }
+
+    @Override
+    public double getInflateMeanMicros() {
+        return inflateTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getNbtParseMeanMicros() {
+        return nbtParseTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getSectionDecodeMeanMicros() {
+        return sectionDecodeTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getChunkProcessMeanMicros() {
+        return chunkProcessTime.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getPixelWriteMeanMillis() {
+        return pixelWriteTime.getMean() / 1_000_000.0;
+    }
+
+    @Override
+    public long getQueueDepthMax() {
+        return queueDepth.getMax();
+    }
+
+    public Histogram[] getHistograms() {
+        return histograms.clone();
+    }
+
+    @Override
+    public void reset() {
+        bytesRead.reset();
+        regionsOpened.reset();
+        chunksDecoded.reset();
+        chunksRendered.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        pixelsWritten.reset();
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 文本格式的快照，每行一个指标
+     */
+    @Override
+    public String getTextSnapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== 渲染指标 ===\n");
+        sb.append(String.format("读取: %d 个区域, %.1f MB%n", getRegionsOpened(), getBytesRead() / 1048576.0));
+        sb.append(String.format("区块: 解码 %d, 渲染 %d, 缓存命中 %d, 未命中 %d%n",
+            getChunksDecoded(), getChunksRendered(), getCacheHits(), getCacheMisses()));
+        sb.append(String.format("像素: %d%n", getPixelsWritten()));
+        for (Histogram histogram : histograms) {
+            if ("ns".equals(histogram.getUnit())) {
+                sb.append(String.format("%-15s 次数 %8d  总计 %9.1f ms  平均 %9.1f us  p50 %9.1f us  p99 %9.1f us  最大 %9.1f us%n",
+                    histogram.getName(), histogram.getCount(), histogram.getSum() / 1e6, histogram.getMean() / 1e3,
+                    histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3, histogram.getMax() / 1e3));
+            } else {
+                sb.append(String.format("%-15s 次数 %8d  平均 %9.1f  p99 %9d  最大 %9d%n",
+                    histogram.getName(), histogram.getCount(), histogram.getMean(),
+                    histogram.getPercentile(0.99), histogram.getMax()));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * JSON格式的快照
+     */
+    @Override
+    public String getJsonSnapshot() {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("timestamp", System.currentTimeMillis());
+        ObjectNode counters = root.putObject("counters");
+        counters.put("bytes_read", getBytesRead());
+        counters.put("regions_opened", getRegionsOpened());
+        counters.put("chunks_decoded", getChunksDecoded());
+        counters.put("chunks_rendered", getChunksRendered());
+        counters.put("cache_hits", getCacheHits());
+        counters.put("cache_misses", getCacheMisses());
+        counters.put("pixels_written", getPixelsWritten());
+        ObjectNode histogramsNode = root.putObject("histograms");
+        for (Histogram histogram : histograms) {
+            ObjectNode node = histogramsNode.putObject(histogram.getName());
+            node.put("unit", histogram.getUnit());
+            node.put("count", histogram.getCount());
+            node.put("sum", histogram.getSum());
+            node.put("mean", histogram.getMean());
+            node.put("p50", histogram.getPercentile(0.5));
+            node.put("p90", histogram.getPercentile(0.9));
+            node.put("p99", histogram.getPercentile(0.99));
+            node.put("max", histogram.getMax());
+        }
+        try {
+            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+        } catch (IOException e) {
+            return "{}";
+        }
+    }
+
+    /**
+     * 注册到平台MBeanServer，重复调用不会重复注册
+     */
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("注册渲染指标MBean失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 定期输出指标：jsonFile为null时把文本快照打印到控制台，否则覆盖写入JSON文件
+     */
+    public synchronized void startPeriodicDump(long intervalSeconds, File jsonFile) {
+        stopPeriodicDump();
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "render-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> {
+            if (jsonFile == null) {
+                System.out.print(getTextSnapshot());
+                return;
+            }
+            try {
+                java.nio.file.Files.writeString(jsonFile.toPath(), getJsonSnapshot());
+            } catch (IOException e) {
+                System.err.println("写入渲染指标失败: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+            dumpScheduler = null;
+        }
+    }
+
+    /**
+     * 按系统属性启用：-Dmcmap.metrics.interval=秒数 定期输出，-Dmcmap.metrics.file=路径 改为写入JSON文件
+     */
+    public void configureFromSystemProperties() {
+        registerMBean();
+        long interval = Long.getLong("mcmap.metrics.interval", 0L);
+        if (interval > 0) {
+            String file = System.getProperty("mcmap.metrics.file");
+            startPeriodicDump(interval, file != null ? new File(file) : null);
+        }
+    }
+}
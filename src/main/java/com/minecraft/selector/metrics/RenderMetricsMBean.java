@@ -0,0 +1,39 @@
+package com.minecraft.selector.metrics;
+
+/**
+ * 渲染指标的JMX接口，在JConsole/VisualVM中位于 com.minecraft.selector:type=RenderMetrics
+ */
+public interface RenderMetricsMBean {
+
+    long getBytesRead();
+
+    long getRegionsOpened();
+
+    long getChunksDecoded();
+
+    long getChunksRendered();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getPixelsWritten();
+
+    double getInflateMeanMicros();
+
+    double getNbtParseMeanMicros();
+
+    double getSectionDecodeMeanMicros();
+
+    double getChunkProcessMeanMicros();
+
+    double getPixelWriteMeanMillis();
+
+    long getQueueDepthMax();
+
+    String getTextSnapshot();
+
+    String getJsonSnapshot();
+
+    void reset();
+}
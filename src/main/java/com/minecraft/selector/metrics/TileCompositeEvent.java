@@ -0,0 +1,31 @@
+package com.minecraft.selector.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR事件：把多个区域图像合成为一张图（GUI动态地图或瓦片服务器的瓦片）
+ */
+@Name("com.minecraft.selector.TileComposite")
+@Label("Tile Composite")
+@Category({"McMapSel", "Render"})
+@Description("把区域图像合成为地图或瓦片")
+public class TileCompositeEvent extends Event {
+
+    @Label("Target")
+    @Description("合成目标，如 dynamic-map 或 tile z/x/y")
+    public String target;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Regions")
+    @Description("参与合成的区域数")
+    public int regions;
+}
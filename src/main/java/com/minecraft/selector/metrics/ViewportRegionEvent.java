@@ -0,0 +1,24 @@
+package com.minecraft.selector.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR事件：视野变化导致的区域加载或卸载，持续时间为回调的耗时
+ */
+@Name("com.minecraft.selector.ViewportRegion")
+@Label("Viewport Region Load/Unload")
+@Category({"McMapSel", "GUI"})
+public class ViewportRegionEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Region X")
+    public int regionX;
+
+    @Label("Region Z")
+    public int regionZ;
+}
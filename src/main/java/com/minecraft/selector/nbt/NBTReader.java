@@ -409,8 +409,30 @@ public class NBTReader {
         }
     }
 
+    /**
+     * 可定位的字节数组输入流，用于延迟解析区段数据
+     */
+    private static class PositionedInputStream extends ByteArrayInputStream {
+        PositionedInputStream(byte[] data) {
+            super(data);
+        }
+
+        int position() {
+            return pos;
+        }
+
+        void seek(int position) {
+            pos = position;
+        }
+    }
+
     private DataInputStream input;
 
+    // 区段过滤（只在readChunkFromBytes中使用）
+    private PositionedInputStream positionedInput;
+    private int minSectionY = Integer.MIN_VALUE;
+    private int maxSectionY = Integer.MAX_VALUE;
+
     public NBTReader(InputStream input) {
         this.input = new DataInputStream(input);
     }
@@ -456,6 +478,28 @@ public class NBTReader {
         }
     }
 
+    /**
+     * 读取区块NBT数据，只解析Y坐标在[minSectionY, maxSectionY]范围内的区段
+     * 范围外区段的block_states和biomes在解析时直接跳过，不会创建任何标签对象
+     */
+    public static NBTCompound readChunkFromBytes(byte[] data, int minSectionY, int maxSectionY) throws IOException {
+        // 压缩数据先解压，区段过滤需要在字节数组上定位
+        if (data.length >= 2 && ((data[0] == (byte) 0x1f && data[1] == (byte) 0x8b) || data[0] == (byte) 0x78)) {
+            try (InputStream is = data[0] == (byte) 0x1f
+                    ? new GZIPInputStream(new ByteArrayInputStream(data))
+                    : new InflaterInputStream(new ByteArrayInputStream(data))) {
+                data = is.readAllBytes();
+            }
+        }
+
+        PositionedInputStream pis = new PositionedInputStream(data);
+        NBTReader reader = new NBTReader(pis);
+        reader.positionedInput = pis;
+        reader.minSectionY = minSectionY;
+        reader.maxSectionY = maxSectionY;
+        return reader.readCompound();
+    }
+
     /**
      * 读取NBT复合标签
      */
@@ -545,14 +589,138 @@ public class NBTReader {
 
         NBTList list = new NBTList(name, listType);
 
+        // 区块的区段列表：按Y坐标过滤
+        boolean filterSections = positionedInput != null && listType == TagType.TAG_Compound
+            && ("sections".equals(name) || "Sections".equals(name));
+
         for (int i = 0; i < length; i++) {
-            NBTTag tag = readTagPayload(listType, "");
+            NBTTag tag = filterSections ? readSectionPayload() : readTagPayload(listType, "");
             list.add(tag);
         }
 
         return list;
     }
 
+    /**
+     * 读取区段复合标签
+     * 方块和生物群系数据先跳过并记录位置，读完整个区段得到Y坐标后，
+     * 只有在范围内的区段才回到记录的位置解析这些数据
+     */
+    private NBTCompound readSectionPayload() throws IOException {
+        NBTCompound compound = new NBTCompound("");
+        List<String> deferredNames = new ArrayList<>(2);
+        List<TagType> deferredTypes = new ArrayList<>(2);
+        List<Integer> deferredPositions = new ArrayList<>(2);
+
+        while (true) {
+            TagType type = TagType.fromId(input.readByte());
+            if (type == TagType.TAG_End) {
+                break;
+            }
+
+            String tagName = readString();
+            if (isSectionData(tagName)) {
+                deferredNames.add(tagName);
+                deferredTypes.add(type);
+                deferredPositions.add(positionedInput.position());
+                skipTagPayload(type);
+            } else {
+                compound.put(tagName, readTagPayload(type, tagName));
+            }
+        }
+
+        NBTTag yTag = compound.get("Y");
+        boolean inRange = true;
+        if (yTag instanceof NBTByte) {
+            int y = ((NBTByte) yTag).getValue();
+            inRange = y >= minSectionY && y <= maxSectionY;
+        }
+
+        if (inRange && !deferredNames.isEmpty()) {
+            int end = positionedInput.position();
+            for (int i = 0; i < deferredNames.size(); i++) {
+                positionedInput.seek(deferredPositions.get(i));
+                compound.put(deferredNames.get(i), readTagPayload(deferredTypes.get(i), deferredNames.get(i)));
+            }
+            positionedInput.seek(end);
+        }
+
+        return compound;
+    }
+
+    /**
+     * 区段中体积较大、可以延迟解析的数据标签
+     */
+    private static boolean isSectionData(String tagName) {
+        return "block_states".equals(tagName) || "biomes".equals(tagName)
+            || "BlockStates".equals(tagName) || "Palette".equals(tagName)
+            || "Blocks".equals(tagName) || "Data".equals(tagName) || "Add".equals(tagName)
+            || "BlockLight".equals(tagName) || "SkyLight".equals(tagName);
+    }
+
+    /**
+     * 跳过标签内容，不创建任何对象
+     */
+    private void skipTagPayload(TagType type) throws IOException {
+        switch (type) {
+            case TAG_Byte:
+                skipFully(1);
+                break;
+            case TAG_Short:
+                skipFully(2);
+                break;
+            case TAG_Int:
+            case TAG_Float:
+                skipFully(4);
+                break;
+            case TAG_Long:
+            case TAG_Double:
+                skipFully(8);
+                break;
+            case TAG_Byte_Array:
+                skipFully(input.readInt());
+                break;
+            case TAG_String:
+                skipFully(input.readUnsignedShort());
+                break;
+            case TAG_List:
+                TagType listType = TagType.fromId(input.readByte());
+                int length = input.readInt();
+                for (int i = 0; i < length; i++) {
+                    skipTagPayload(listType);
+                }
+                break;
+            case TAG_Compound:
+                while (true) {
+                    TagType childType = TagType.fromId(input.readByte());
+                    if (childType == TagType.TAG_End) {
+                        break;
+                    }
+                    skipFully(input.readUnsignedShort());
+                    skipTagPayload(childType);
+                }
+                break;
+            case TAG_Int_Array:
+                skipFully(input.readInt() * 4L);
+                break;
+            case TAG_Long_Array:
+                skipFully(input.readInt() * 8L);
+                break;
+            default:
+                throw new IOException("Unknown tag type: " + type);
+        }
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            int skipped = input.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new EOFException("Unexpected end of NBT data");
+            }
+            n -= skipped;
+        }
+    }
+
     /**
      * 读取字符串
      */
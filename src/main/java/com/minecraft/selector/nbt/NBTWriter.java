@@ -0,0 +1,176 @@
+package com.minecraft.selector.nbt;
+
+import java.io.*;
+
+/**
+ * NBT数据写入器，与NBTReader对应
+ * 既可以写入完整的标签树，也可以按顺序流式写入（例如先写出长度，再逐字节写入很大的字节数组）
+ */
+public class NBTWriter implements Closeable {
+
+    private final DataOutputStream output;
+
+    public NBTWriter(OutputStream output) {
+        this.output = output instanceof DataOutputStream ? (DataOutputStream) output : new DataOutputStream(output);
+    }
+
+    /**
+     * 写入带名称的标签树（根标签通常是复合标签）
+     */
+    public void writeNamedTag(String name, NBTReader.NBTTag tag) throws IOException {
+        writeHeader(tag.getType(), name);
+        writePayload(tag);
+    }
+
+    /**
+     * 开始一个复合标签，之后写入的标签都属于它，直到调用endCompound
+     */
+    public void beginCompound(String name) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Compound, name);
+    }
+
+    /**
+     * 结束当前复合标签
+     */
+    public void endCompound() throws IOException {
+        output.writeByte(NBTReader.TagType.TAG_End.getId());
+    }
+
+    public void writeByte(String name, byte value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Byte, name);
+        output.writeByte(value);
+    }
+
+    public void writeShort(String name, short value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Short, name);
+        output.writeShort(value);
+    }
+
+    public void writeInt(String name, int value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Int, name);
+        output.writeInt(value);
+    }
+
+    public void writeLong(String name, long value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Long, name);
+        output.writeLong(value);
+    }
+
+    public void writeString(String name, String value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_String, name);
+        output.writeUTF(value);
+    }
+
+    public void writeByteArray(String name, byte[] value) throws IOException {
+        beginByteArray(name, value.length).write(value);
+    }
+
+    /**
+     * 开始一个字节数组标签，调用者需要向返回的流中写入正好length个字节
+     */
+    public DataOutputStream beginByteArray(String name, int length) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Byte_Array, name);
+        output.writeInt(length);
+        return output;
+    }
+
+    public void writeIntArray(String name, int[] value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Int_Array, name);
+        writeInts(value);
+    }
+
+    public void writeLongArray(String name, long[] value) throws IOException {
+        writeHeader(NBTReader.TagType.TAG_Long_Array, name);
+        writeLongs(value);
+    }
+
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeHeader(NBTReader.TagType type, String name) throws IOException {
+        output.writeByte(type.getId());
+        output.writeUTF(name != null ? name : "");
+    }
+
+    /**
+     * 写入标签的内容（不含类型和名称）
+     */
+    private void writePayload(NBTReader.NBTTag tag) throws IOException {
+        switch (tag.getType()) {
+            case TAG_Byte:
+                output.writeByte(((NBTReader.NBTByte) tag).getValue());
+                break;
+            case TAG_Short:
+                output.writeShort(((NBTReader.NBTShort) tag).getValue());
+                break;
+            case TAG_Int:
+                output.writeInt(((NBTReader.NBTInt) tag).getValue());
+                break;
+            case TAG_Long:
+                output.writeLong(((NBTReader.NBTLong) tag).getValue());
+                break;
+            case TAG_Float:
+                output.writeFloat(((NBTReader.NBTFloat) tag).getValue());
+                break;
+            case TAG_Double:
+                output.writeDouble(((NBTReader.NBTDouble) tag).getValue());
+                break;
+            case TAG_Byte_Array: {
+                byte[] value = ((NBTReader.NBTByteArray) tag).getValue();
+                output.writeInt(value.length);
+                output.write(value);
+                break;
+            }
+            case TAG_String:
+                output.writeUTF(((NBTReader.NBTString) tag).getValue());
+                break;
+            case TAG_List: {
+                NBTReader.NBTList list = (NBTReader.NBTList) tag;
+                // 空列表的元素类型按惯例写为TAG_End
+                NBTReader.TagType listType = list.size() > 0 ? list.getListType() : NBTReader.TagType.TAG_End;
+                output.writeByte(listType.getId());
+                output.writeInt(list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    writePayload(list.get(i));
+                }
+                break;
+            }
+            case TAG_Compound: {
+                NBTReader.NBTCompound compound = (NBTReader.NBTCompound) tag;
+                for (String key : compound.keySet()) {
+                    writeNamedTag(key, compound.get(key));
+                }
+                endCompound();
+                break;
+            }
+            case TAG_Int_Array:
+                writeInts(((NBTReader.NBTIntArray) tag).getValue());
+                break;
+            case TAG_Long_Array:
+                writeLongs(((NBTReader.NBTLongArray) tag).getValue());
+                break;
+            default:
+                throw new IOException("无法写入的NBT标签类型: " + tag.getType());
+        }
+    }
+
+    private void writeInts(int[] value) throws IOException {
+        output.writeInt(value.length);
+        for (int v : value) {
+            output.writeInt(v);
+        }
+    }
+
+    private void writeLongs(long[] value) throws IOException {
+        output.writeInt(value.length);
+        for (long v : value) {
+            output.writeLong(v);
+        }
+    }
+}
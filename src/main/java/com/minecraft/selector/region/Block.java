@@ -7,19 +7,33 @@ import java.util.HashMap;
 /**
  * 表示Minecraft中的一个方块
  * 对应Python anvil库中的Block类
+ * 创建时（即解码调色板时）解析方块ID的稠密编号，渲染时按编号查表
  */
 public class Block {
+    // 共享的空气方块，缺失的区段和越界的调色板索引都返回它，避免每次调用都分配新对象
+    public static final Block AIR = new Block("air");
+
     private String id;
     private Map<String, String> properties;
+    private final int index;
     
     public Block(String id) {
         this.id = id;
         this.properties = new HashMap<>();
+        this.index = indexOf(id);
     }
     
     public Block(String id, Map<String, String> properties) {
         this.id = id;
         this.properties = properties != null ? new HashMap<>(properties) : new HashMap<>();
+        this.index = indexOf(id);
+    }
+    
+    /**
+     * minecraft命名空间的方块只按名称编号，与渲染结果中去掉前缀的方块ID一致
+     */
+    private static int indexOf(String id) {
+        return BlockIndex.of(id != null && id.startsWith("minecraft:") ? id.substring("minecraft:".length()) : id);
     }
     
     /**
@@ -56,6 +70,13 @@ public class Block {
         return id;
     }
     
+    /**
+     * 获取方块ID的稠密编号（见BlockIndex）
+     */
+    public int getIndex() {
+        return index;
+    }
+    
     /**
      * 获取方块属性
      */
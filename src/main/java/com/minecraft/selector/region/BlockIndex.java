@@ -0,0 +1,59 @@
+package com.minecraft.selector.region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方块ID的稠密编号
+ * 每个方块ID第一次出现时分配一个编号，之后不再改变。解码调色板时每个调色板项只查一次编号，
+ * 渲染时颜色、不透明度等都按编号查数组，不再按字符串查找。
+ */
+public final class BlockIndex {
+
+    private static final Map<String, Integer> INDICES = new ConcurrentHashMap<>();
+
+    // 按编号排列的方块ID（只在持有类锁时修改）
+    private static final List<String> IDS = new ArrayList<>();
+
+    private BlockIndex() {
+    }
+
+    /**
+     * 获取方块ID的编号，第一次出现的方块ID分配新编号；null与空字符串使用同一个编号
+     */
+    public static int of(String blockId) {
+        String key = blockId != null ? blockId : "";
+        Integer index = INDICES.get(key);
+        if (index != null) {
+            return index;
+        }
+        return register(key);
+    }
+
+    private static synchronized int register(String blockId) {
+        Integer existing = INDICES.get(blockId);
+        if (existing != null) {
+            return existing;
+        }
+        int index = IDS.size();
+        IDS.add(blockId);
+        INDICES.put(blockId, index);
+        return index;
+    }
+
+    /**
+     * 获取编号对应的方块ID
+     */
+    public static synchronized String getId(int index) {
+        return IDS.get(index);
+    }
+
+    /**
+     * 已分配的编号数量
+     */
+    public static synchronized int size() {
+        return IDS.size();
+    }
+}
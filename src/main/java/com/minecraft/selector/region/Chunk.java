@@ -1,5 +1,6 @@
 package com.minecraft.selector.region;
 
+import com.minecraft.selector.metrics.RenderMetrics;
 import com.minecraft.selector.nbt.NBTReader;
 import java.util.*;
 
@@ -8,25 +9,95 @@ import java.util.*;
  * 对应Python anvil库中的Chunk类
  */
 public class Chunk {
-    private NBTReader.NBTCompound nbtData;
-    private int x;
-    private int z;
-    private List<Section> sections;
+    // 没有方块的列在高度图中的值
+    public static final short NO_HEIGHT = Short.MIN_VALUE;
+
+    private final NBTReader.NBTCompound nbtData;
+    private final int x;
+    private final int z;
+    // 按Y坐标升序排列
+    private final List<Section> sections;
+
+    // 解码时保留的区段Y范围
+    private final int minSectionY;
+    private final int maxSectionY;
+
+    // 每列最高非空气方块的Y坐标，首次使用时计算
+    private volatile short[] surfaceHeights;
     
     public Chunk(NBTReader.NBTCompound nbtData) {
+        this(nbtData, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 只解码区段Y坐标在[minSectionY, maxSectionY]范围内的区段
+     */
+    public Chunk(NBTReader.NBTCompound nbtData, int minSectionY, int maxSectionY) {
         this.nbtData = nbtData;
-        this.x = nbtData.getInt("xPos");
-        this.z = nbtData.getInt("zPos");
-        this.sections = new ArrayList<>();
+        // 1.18之前的区块数据都在Level标签中，区段在解码时转换为相同的表示
+        NBTReader.NBTCompound level = LegacyChunkFormat.getLevel(nbtData);
+        LegacyChunkFormat legacy = level != null ? new LegacyChunkFormat(level) : null;
+        NBTReader.NBTCompound root = level != null ? level : nbtData;
+        this.x = root.getInt("xPos");
+        this.z = root.getInt("zPos");
+        this.minSectionY = minSectionY;
+        this.maxSectionY = maxSectionY;
+        List<Section> parsed = new ArrayList<>();
+        long decodeStart = System.nanoTime();
+        String sectionsKey = legacy != null ? "Sections" : "sections";
         
         // 解析区段数据
-        if (nbtData.contains("sections")) {
-            NBTReader.NBTList sectionsList = nbtData.getList("sections");
+        if (root.contains(sectionsKey)) {
+            NBTReader.NBTList sectionsList = root.getList(sectionsKey);
             for (int i = 0; i < sectionsList.size(); i++) {
                 NBTReader.NBTCompound sectionData = (NBTReader.NBTCompound) sectionsList.get(i);
-                sections.add(new Section(sectionData));
+                NBTReader.NBTTag yTag = sectionData.get("Y");
+                if (yTag instanceof NBTReader.NBTByte) {
+                    int sectionY = ((NBTReader.NBTByte) yTag).getValue();
+                    if (sectionY < minSectionY || sectionY > maxSectionY) {
+                        continue;
+                    }
+                }
+                parsed.add(legacy != null ? legacy.convertSection(sectionData) : new Section(sectionData));
             }
         }
+        parsed.sort((a, b) -> Integer.compare(a.getY(), b.getY()));
+        this.sections = Collections.unmodifiableList(parsed);
+        RenderMetrics.getShared().recordSectionDecode(System.nanoTime() - decodeStart);
+    }
+
+    /**
+     * 紧凑区块：只保留区段数据，不引用NBT树
+     */
+    private Chunk(Chunk source) {
+        this.nbtData = null;
+        this.x = source.x;
+        this.z = source.z;
+        this.sections = source.sections;
+        this.minSectionY = source.minSectionY;
+        this.maxSectionY = source.maxSectionY;
+        this.surfaceHeights = source.surfaceHeights;
+    }
+
+    /**
+     * 返回不含NBT树的紧凑副本（共享不可变的区段数据），用于缓存
+     */
+    public Chunk compact() {
+        if (nbtData == null) {
+            return this;
+        }
+        return new Chunk(this);
+    }
+
+    /**
+     * 估算区块占用的内存字节数（不含NBT树）
+     */
+    public long estimateBytes() {
+        long bytes = 64 + 256 * 2;
+        for (Section section : sections) {
+            bytes += section.estimateBytes();
+        }
+        return bytes;
     }
     
     /**
@@ -54,6 +125,13 @@ public class Chunk {
         return z;
     }
     
+    /**
+     * 检查解码时保留的区段是否覆盖[minSectionY, maxSectionY]
+     */
+    public boolean coversSections(int minSectionY, int maxSectionY) {
+        return this.minSectionY <= minSectionY && this.maxSectionY >= maxSectionY;
+    }
+
     /**
      * 获取指定Y层的区段
      */
@@ -89,14 +167,307 @@ public class Chunk {
         
         Section section = getSection(sectionY);
         if (section == null) {
-            return new Block("air"); // 如果区段不存在，返回空气
+            return Block.AIR; // 如果区段不存在，返回空气
         }
         
         return section.getBlock(x, y & 15, z); // y & 15 等同于 y % 16
     }
     
     /**
-     * 获取原始NBT数据
+     * 获取每列最高非空气方块的Y坐标（索引为 z * 16 + x），没有方块的列为NO_HEIGHT
+     * 结果会被缓存，返回的数组不应被修改
+     */
+    public short[] getSurfaceHeights() {
+        short[] heights = surfaceHeights;
+        if (heights == null) {
+            heights = computeSurfaceHeights();
+            surfaceHeights = heights;
+        }
+        return heights;
+    }
+
+    /**
+     * 获取每列在[minY, maxY]范围内最高非空气方块的Y坐标，没有方块的列为NO_HEIGHT
+     * 范围覆盖所有区段时返回缓存的结果
+     */
+    public short[] getSurfaceHeights(int minY, int maxY) {
+        if (sections.isEmpty()
+                || (minY <= sections.get(0).getY() * 16 && maxY >= sections.get(sections.size() - 1).getY() * 16 + 15)) {
+            return getSurfaceHeights();
+        }
+        return computeSurfaceHeights(minY, maxY);
+    }
+
+    private short[] computeSurfaceHeights() {
+        return computeSurfaceHeights(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private short[] computeSurfaceHeights(int minY, int maxY) {
+        short[] heights = new short[256];
+        Arrays.fill(heights, NO_HEIGHT);
+        int[] indices = null;
+
+        // 从最高的区段开始向下查找
+        int remaining = 256;
+        for (int s = sections.size() - 1; s >= 0 && remaining > 0; s--) {
+            Section section = sections.get(s);
+            int baseY = section.getY() * 16;
+            int top = (int) Math.min(15L, (long) maxY - baseY);
+            int bottom = (int) Math.max(0L, (long) minY - baseY);
+            if (top < bottom) {
+                continue;
+            }
+
+            boolean[] airMask = section.getAirMask();
+            if (section.isUniform()) {
+                // 整个区段是同一种方块
+                if (airMask.length == 0 || airMask[0]) {
+                    continue;
+                }
+                for (int column = 0; column < 256; column++) {
+                    if (heights[column] == NO_HEIGHT) {
+                        heights[column] = (short) (baseY + top);
+                    }
+                }
+                break;
+            }
+
+            if (indices == null) {
+                indices = new int[4096];
+            }
+            section.unpackIndices(indices);
+            for (int column = 0; column < 256; column++) {
+                if (heights[column] != NO_HEIGHT) {
+                    continue;
+                }
+                for (int y = top; y >= bottom; y--) {
+                    int paletteIndex = indices[(y << 8) | column];
+                    if (paletteIndex < airMask.length && !airMask[paletteIndex]) {
+                        heights[column] = (short) (baseY + y);
+                        remaining--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return heights;
+    }
+
+    /**
+     * 从每列的起始高度向下查找：先越过实心方块，再越过空气，返回下方第一个非空气方块的Y坐标
+     * 起始位置是空气时直接返回下方第一个非空气方块，找不到的列为NO_HEIGHT
+     */
+    public short[] getFloorHeights(short[] startHeights, int minY) {
+        return getFloorHeights(startHeights, minY, false);
+    }
+
+    /**
+     * 同上，skipLeadingAir为true且起点上方没有实心方块时（起点在最高的一段实心方块之上，例如最大Y高于下界基岩顶层），
+     * 先越过起点下方的空气，把遇到的第一段实心方块当作天花板，再向下找地面；
+     * 起点所在的空气上方已有实心方块时（起点在顶层之下的空洞中）与不越过时一样，返回下方第一个非空气方块。
+     * 天花板下方找不到地面时返回遇到的第一个实心方块
+     */
+    public short[] getFloorHeights(short[] startHeights, int minY, boolean skipLeadingAir) {
+        short[] floors = new short[256];
+        Arrays.fill(floors, NO_HEIGHT);
+        if (sections.isEmpty()) {
+            return floors;
+        }
+
+        // 区段Y坐标到列表索引的映射，缺失的区段视为空气
+        int lowestSection = sections.get(0).getY();
+        int highestSection = sections.get(sections.size() - 1).getY();
+        int[] sectionIndex = new int[highestSection - lowestSection + 1];
+        Arrays.fill(sectionIndex, -1);
+        for (int i = 0; i < sections.size(); i++) {
+            sectionIndex[sections.get(i).getY() - lowestSection] = i;
+        }
+        int[][] unpacked = new int[sections.size()][];
+
+        int bottomY = Math.max(minY, lowestSection * 16);
+        int topY = highestSection * 16 + 15;
+
+        for (int column = 0; column < 256; column++) {
+            int startY = startHeights[column];
+            if (startY == NO_HEIGHT) {
+                continue;
+            }
+
+            // 起点上方有实心方块时不越过下方的第一段实心方块
+            boolean seenSolid = !skipLeadingAir || hasSolidAbove(startY, topY, column, lowestSection, sectionIndex, unpacked);
+
+            boolean seenAir = false;
+            int firstSolid = NO_HEIGHT;
+            if (startY > topY) {
+                // 起点在所有区段之上，中间都是空气
+                seenAir = seenSolid;
+                startY = topY;
+            }
+
+            for (int y = startY; y >= bottomY; y--) {
+                if (isAirAt(y, column, lowestSection, sectionIndex, unpacked)) {
+                    seenAir = seenSolid;
+                } else if (seenAir) {
+                    floors[column] = (short) y;
+                    break;
+                } else if (!seenSolid) {
+                    seenSolid = true;
+                    firstSolid = y;
+                }
+            }
+            if (floors[column] == NO_HEIGHT) {
+                floors[column] = (short) firstSolid;
+            }
+        }
+
+        return floors;
+    }
+
+    private boolean hasSolidAbove(int startY, int topY, int column, int lowestSection, int[] sectionIndex, int[][] unpacked) {
+        for (int y = startY + 1; y <= topY; y++) {
+            if (!isAirAt(y, column, lowestSection, sectionIndex, unpacked)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断列中某个高度是否为空气，区段的索引在第一次用到时解包到unpacked中
+     */
+    private boolean isAirAt(int y, int column, int lowestSection, int[] sectionIndex, int[][] unpacked) {
+        int index = sectionIndex[(y >> 4) - lowestSection];
+        if (index < 0) {
+            return true;
+        }
+        Section section = sections.get(index);
+        boolean[] airMask = section.getAirMask();
+        int paletteIndex = 0;
+        if (!section.isUniform()) {
+            if (unpacked[index] == null) {
+                unpacked[index] = new int[4096];
+                section.unpackIndices(unpacked[index]);
+            }
+            paletteIndex = unpacked[index][((y & 15) << 8) | column];
+        }
+        return paletteIndex >= airMask.length || airMask[paletteIndex];
+    }
+
+    /**
+     * 从每列的起始高度下方一格开始向下查找，越过空气和可以看穿的方块（如水、玻璃），
+     * 返回第一个不透明方块的Y坐标，起始高度为NO_HEIGHT或找不到的列为NO_HEIGHT
+     * 每个区段的调色板只判断一次是否可以看穿，seeThrough按方块编号（BlockIndex）判断
+     */
+    public short[] getOpaqueHeightsBelow(short[] startHeights, int minY, java.util.function.IntPredicate seeThrough) {
+        short[] result = new short[256];
+        Arrays.fill(result, NO_HEIGHT);
+        if (sections.isEmpty()) {
+            return result;
+        }
+
+        int lowestSection = sections.get(0).getY();
+        int highestSection = sections.get(sections.size() - 1).getY();
+        int[] sectionIndex = new int[highestSection - lowestSection + 1];
+        Arrays.fill(sectionIndex, -1);
+        for (int i = 0; i < sections.size(); i++) {
+            sectionIndex[sections.get(i).getY() - lowestSection] = i;
+        }
+        int[][] unpacked = new int[sections.size()][];
+        boolean[][] passable = new boolean[sections.size()][];
+
+        int bottomY = Math.max(minY, lowestSection * 16);
+        int topY = highestSection * 16 + 15;
+
+        for (int column = 0; column < 256; column++) {
+            if (startHeights[column] == NO_HEIGHT) {
+                continue;
+            }
+
+            for (int y = Math.min(startHeights[column] - 1, topY); y >= bottomY; y--) {
+                int index = sectionIndex[(y >> 4) - lowestSection];
+                if (index < 0) {
+                    continue;
+                }
+                Section section = sections.get(index);
+                if (passable[index] == null) {
+                    // 空气或可以看穿的调色板条目
+                    boolean[] airMask = section.getAirMask();
+                    boolean[] mask = new boolean[airMask.length];
+                    for (int p = 0; p < mask.length; p++) {
+                        Block block = section.getPaletteBlock(p);
+                        mask[p] = airMask[p] || (block != null && seeThrough.test(block.getIndex()));
+                    }
+                    passable[index] = mask;
+                }
+                int paletteIndex = 0;
+                if (!section.isUniform()) {
+                    if (unpacked[index] == null) {
+                        unpacked[index] = new int[4096];
+                        section.unpackIndices(unpacked[index]);
+                    }
+                    paletteIndex = unpacked[index][((y & 15) << 8) | column];
+                }
+                if (paletteIndex < passable[index].length && !passable[index][paletteIndex]) {
+                    result[column] = (short) y;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 批量获取每列指定高度的方块（索引为 z * 16 + x），每个区段只解包一次
+     * 高度为NO_HEIGHT或区段不存在的列为null
+     */
+    public Block[] getBlocksAt(short[] heights) {
+        Block[] blocks = new Block[256];
+        int[] indices = null;
+
+        for (Section section : sections) {
+            int sectionY = section.getY();
+            boolean unpacked = false;
+            for (int column = 0; column < 256; column++) {
+                int y = heights[column];
+                if (y == NO_HEIGHT || (y >> 4) != sectionY) {
+                    continue;
+                }
+                if (!unpacked) {
+                    if (indices == null) {
+                        indices = new int[4096];
+                    }
+                    section.unpackIndices(indices);
+                    unpacked = true;
+                }
+                blocks[column] = section.getPaletteBlock(indices[((y & 15) << 8) | column]);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * 批量获取每列指定高度处的生物群系（索引为 z * 16 + x）
+     * 高度为NO_HEIGHT、区段不存在或没有生物群系数据的列为null
+     */
+    public String[] getBiomesAt(short[] heights) {
+        String[] biomes = new String[256];
+        for (Section section : sections) {
+            int sectionY = section.getY();
+            for (int column = 0; column < 256; column++) {
+                int y = heights[column];
+                if (y != NO_HEIGHT && (y >> 4) == sectionY) {
+                    biomes[column] = section.getBiome(column & 15, y & 15, column >> 4);
+                }
+            }
+        }
+        return biomes;
+    }
+
+    /**
+     * 获取原始NBT数据，紧凑区块返回null
      */
     public NBTReader.NBTCompound getNbtData() {
         return nbtData;
@@ -106,10 +477,17 @@ public class Chunk {
      * 区段类，表示16x16x16的方块区域
      */
     public static class Section {
-        private int y;
-        private List<Block> palette;
-        private long[] blockStates;
-        private int bitsPerBlock;
+        private final int y;
+        private final List<Block> palette;
+        private final long[] blockStates;
+        private final int bitsPerBlock;
+
+        // 调色板中每个条目是否为空气
+        private final boolean[] airMask;
+
+        // 生物群系调色板（去掉minecraft:前缀）和64个4x4x4格子的调色板索引
+        private final String[] biomePalette;
+        private final int[] biomeIndices;
         
         public Section(NBTReader.NBTCompound sectionData) {
             this.y = ((NBTReader.NBTByte) sectionData.get("Y")).getValue();
@@ -118,14 +496,15 @@ public class Chunk {
                 NBTReader.NBTCompound blockStates = sectionData.getCompound("block_states");
                 
                 // 读取调色板
-                this.palette = new ArrayList<>();
+                List<Block> parsedPalette = new ArrayList<>();
                 if (blockStates.contains("palette")) {
                     NBTReader.NBTList paletteList = blockStates.getList("palette");
                     for (int i = 0; i < paletteList.size(); i++) {
                         NBTReader.NBTCompound paletteEntry = (NBTReader.NBTCompound) paletteList.get(i);
-                        this.palette.add(Block.fromPalette(paletteEntry));
+                        parsedPalette.add(Block.fromPalette(paletteEntry));
                     }
                 }
+                this.palette = Collections.unmodifiableList(parsedPalette);
                 
                 // 读取方块状态数据
                 if (blockStates.contains("data")) {
@@ -133,20 +512,67 @@ public class Chunk {
                     this.blockStates = dataArray.getValue();
                     
                     // 计算每个方块的位数
-                    if (palette.size() <= 1) {
+                    if (parsedPalette.size() <= 1) {
                         this.bitsPerBlock = 0;
                     } else {
-                        this.bitsPerBlock = Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(palette.size() - 1));
+                        this.bitsPerBlock = Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(parsedPalette.size() - 1));
                     }
                 } else {
                     this.blockStates = new long[0];
                     this.bitsPerBlock = 0;
                 }
             } else {
-                this.palette = Arrays.asList(new Block("air"));
+                this.palette = Collections.singletonList(Block.AIR);
                 this.blockStates = new long[0];
                 this.bitsPerBlock = 0;
             }
+
+            this.airMask = buildAirMask(palette);
+
+            // 读取生物群系，与方块使用相同的打包格式，但位数没有最小值4
+            this.biomeIndices = new int[64];
+            if (sectionData.contains("biomes")) {
+                NBTReader.NBTCompound biomes = sectionData.getCompound("biomes");
+                List<String> names = new ArrayList<>();
+                if (biomes.contains("palette")) {
+                    NBTReader.NBTList biomeList = biomes.getList("palette");
+                    for (int i = 0; i < biomeList.size(); i++) {
+                        String name = ((NBTReader.NBTString) biomeList.get(i)).getValue();
+                        names.add(name.startsWith("minecraft:") ? name.substring("minecraft:".length()) : name);
+                    }
+                }
+                this.biomePalette = names.toArray(new String[0]);
+                if (names.size() > 1 && biomes.contains("data")) {
+                    long[] data = ((NBTReader.NBTLongArray) biomes.get("data")).getValue();
+                    int bits = Integer.SIZE - Integer.numberOfLeadingZeros(names.size() - 1);
+                    unpack(data, bits, biomeIndices, 64);
+                }
+            } else {
+                this.biomePalette = new String[0];
+            }
+        }
+
+        /**
+         * 由已转换为1.18+表示的数据创建区段（旧版格式在解码时转换，见LegacyChunkFormat）
+         * blockStates为值不跨越long的打包数据，bitsPerBlock为0时整个区段是调色板的第一个方块
+         */
+        Section(int y, List<Block> palette, long[] blockStates, int bitsPerBlock,
+                String[] biomePalette, int[] biomeIndices) {
+            this.y = y;
+            this.palette = Collections.unmodifiableList(palette);
+            this.blockStates = blockStates;
+            this.bitsPerBlock = bitsPerBlock;
+            this.airMask = buildAirMask(this.palette);
+            this.biomePalette = biomePalette;
+            this.biomeIndices = biomeIndices;
+        }
+
+        private static boolean[] buildAirMask(List<Block> palette) {
+            boolean[] mask = new boolean[palette.size()];
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] = palette.get(i).isAir();
+            }
+            return mask;
         }
         
         /**
@@ -156,6 +582,108 @@ public class Chunk {
             return y;
         }
         
+        /**
+         * 估算区段占用的内存字节数
+         */
+        long estimateBytes() {
+            // 对象头和字段 + 打包数据 + 每个调色板条目（Block对象、ID字符串和属性表）
+            return 48 + (long) blockStates.length * 8 + palette.size() * 96L + 64 * 4 + biomePalette.length * 8L;
+        }
+
+        /**
+         * 整个区段是否只有一种方块
+         */
+        public boolean isUniform() {
+            return palette.size() <= 1 || bitsPerBlock == 0;
+        }
+
+        /**
+         * 获取调色板中每个条目是否为空气（返回内部数组，不应修改）
+         */
+        public boolean[] getAirMask() {
+            return airMask;
+        }
+
+        /**
+         * 批量解包全部4096个方块的调色板索引（索引为 y * 256 + z * 16 + x）
+         * 逐个long解包，比逐个调用getBlock少了重复的除法和边界检查
+         */
+        public void unpackIndices(int[] out) {
+            if (bitsPerBlock == 0 || blockStates.length == 0) {
+                Arrays.fill(out, 0, 4096, 0);
+                return;
+            }
+            unpack(blockStates, bitsPerBlock, out, 4096);
+        }
+
+        /**
+         * 按层统计调色板索引出现的次数，累加到 counts[索引 * 16 + 层]（层为区段内的Y，0-15）
+         * counts的长度至少为 调色板大小 * 16；只有一种方块的区段每层直接加256，不解包数据
+         *
+         * @param scratch 长度至少4096的临时数组，用于解包
+         */
+        public void countIndicesByLayer(int[] counts, int[] scratch) {
+            if (palette.isEmpty()) {
+                return;
+            }
+            if (isUniform() || blockStates.length == 0) {
+                for (int layer = 0; layer < 16; layer++) {
+                    counts[layer] += 256;
+                }
+                return;
+            }
+            unpack(blockStates, bitsPerBlock, scratch, 4096);
+            int paletteSize = palette.size();
+            for (int i = 0; i < 4096; i++) {
+                int paletteIndex = scratch[i];
+                // 越界的索引（损坏的数据）不计数
+                if (paletteIndex < paletteSize) {
+                    counts[paletteIndex * 16 + (i >> 8)]++;
+                }
+            }
+        }
+
+        /**
+         * 解包1.16+的打包数组（值不跨越两个long），数据不足的部分填0
+         */
+        static void unpack(long[] packed, int bits, int[] out, int count) {
+            int valuesPerLong = 64 / bits;
+            long mask = (1L << bits) - 1;
+            int index = 0;
+            for (int i = 0; i < packed.length && index < count; i++) {
+                long data = packed[i];
+                int n = Math.min(valuesPerLong, count - index);
+                for (int j = 0; j < n; j++) {
+                    out[index++] = (int) (data & mask);
+                    data >>>= bits;
+                }
+            }
+            if (index < count) {
+                Arrays.fill(out, index, count, 0);
+            }
+        }
+
+        /**
+         * 获取指定坐标（区段内0-15）的生物群系，没有生物群系数据时返回null
+         */
+        public String getBiome(int x, int y, int z) {
+            if (biomePalette.length == 0) {
+                return null;
+            }
+            int paletteIndex = biomeIndices[((y >> 2) << 4) | ((z >> 2) << 2) | (x >> 2)];
+            return paletteIndex < biomePalette.length ? biomePalette[paletteIndex] : biomePalette[0];
+        }
+
+        /**
+         * 获取调色板条目，索引越界时返回空气
+         */
+        public Block getPaletteBlock(int paletteIndex) {
+            if (paletteIndex >= 0 && paletteIndex < palette.size()) {
+                return palette.get(paletteIndex);
+            }
+            return Block.AIR;
+        }
+
         /**
          * 获取调色板
          */
@@ -168,7 +696,7 @@ public class Chunk {
          */
         public Block getBlock(int x, int y, int z) {
             if (palette.isEmpty() || bitsPerBlock == 0) {
-                return palette.isEmpty() ? new Block("air") : palette.get(0);
+                return palette.isEmpty() ? Block.AIR : palette.get(0);
             }
 
             // 计算方块在区段中的索引
@@ -183,7 +711,7 @@ public class Chunk {
                 return palette.get(paletteIndex);
             }
 
-            return new Block("air");
+            return Block.AIR;
         }
         
         /**
@@ -0,0 +1,193 @@
+package com.minecraft.selector.region;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已解码区块的LRU缓存
+ * 按占用字节数（而不是条目数）限制大小，缓存的是不含NBT树的紧凑区块数据，
+ * 由所有渲染路径共享。缓存中的Chunk对象不可变，可以安全地在多个线程间共享。
+ */
+public class ChunkCache {
+
+    // 默认上限：最大堆的1/4，最多256MB
+    private static final long DEFAULT_MAX_BYTES =
+        Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 4);
+
+    private static final ChunkCache SHARED = new ChunkCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long currentBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * 缓存键：区域文件 + 区块坐标
+     */
+    private static final class Key {
+        final String regionPath;
+        final int chunkX;
+        final int chunkZ;
+
+        Key(String regionPath, int chunkX, int chunkZ) {
+            this.regionPath = regionPath;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key that = (Key) obj;
+            return chunkX == that.chunkX && chunkZ == that.chunkZ && regionPath.equals(that.regionPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return (regionPath.hashCode() * 31 + chunkX) * 31 + chunkZ;
+        }
+    }
+
+    /**
+     * 缓存条目：区块数据及其在区域头部中的时间戳和位置项
+     * 时间戳只精确到秒，同一秒内重新保存的区块靠位置项（扇区偏移和扇区数）区分
+     */
+    private static final class Entry {
+        final int timestamp;
+        final int location;
+        final Chunk chunk;
+        final long bytes;
+
+        Entry(int timestamp, int location, Chunk chunk) {
+            this.timestamp = timestamp;
+            this.location = location;
+            this.chunk = chunk;
+            this.bytes = chunk.estimateBytes();
+        }
+    }
+
+    public ChunkCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取所有渲染路径共享的缓存实例
+     */
+    public static ChunkCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * 查找区块，时间戳或位置项与区域头部不一致（存档已重新保存）的条目视为失效
+     */
+    public synchronized Chunk get(File regionFile, int chunkX, int chunkZ, int timestamp, int location) {
+        return get(regionFile, chunkX, chunkZ, timestamp, location, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 查找区块，缓存的区块必须包含[minSectionY, maxSectionY]范围内的所有区段才算命中
+     */
+    public synchronized Chunk get(File regionFile, int chunkX, int chunkZ, int timestamp, int location,
+                                  int minSectionY, int maxSectionY) {
+        Key key = new Key(regionFile.getAbsolutePath(), chunkX, chunkZ);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.timestamp == timestamp && entry.location == location) {
+                if (entry.chunk.coversSections(minSectionY, maxSectionY)) {
+                    hits++;
+                    return entry.chunk;
+                }
+            } else {
+                entries.remove(key);
+                currentBytes -= entry.bytes;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * 放入区块，会自动去掉NBT树只保留紧凑数据
+     */
+    public synchronized Chunk put(File regionFile, int chunkX, int chunkZ, int timestamp, int location, Chunk chunk) {
+        Chunk compact = chunk.compact();
+        Entry entry = new Entry(timestamp, location, compact);
+        if (entry.bytes > maxBytes) {
+            return compact;
+        }
+
+        Entry old = entries.put(new Key(regionFile.getAbsolutePath(), chunkX, chunkZ), entry);
+        if (old != null) {
+            currentBytes -= old.bytes;
+        }
+        currentBytes += entry.bytes;
+
+        // 按LRU顺序淘汰直到低于上限
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (eldest == entry) {
+                continue;
+            }
+            currentBytes -= eldest.bytes;
+            it.remove();
+        }
+
+        return compact;
+    }
+
+    /**
+     * 移除某个区域文件的所有缓存区块
+     */
+    public synchronized void invalidateRegion(File regionFile) {
+        String path = regionFile.getAbsolutePath();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().regionPath.equals(path)) {
+                currentBytes -= e.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * 获取当前占用字节数
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * 获取缓存的区块数量
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取命中次数
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * 获取未命中次数
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,380 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 1.18之前的区块格式
+ * 解码时把Level.Sections中的旧格式区段转换为1.18+的表示（调色板 + 值不跨越long的打包数据），
+ * Chunk.Section和渲染器只处理一种表示，旧存档使用与新存档相同的批量解包路径。支持的格式：
+ * 1.16-1.17 的 Palette/BlockStates（值不跨越long，直接使用）、
+ * 1.13-1.15 的 Palette/BlockStates（值跨越long，重新打包）、
+ * 1.12及更早的 Blocks/Add/Data 数字ID（转换为方块名调色板）。
+ * 生物群系从Level.Biomes（1.15+ 的4x4x4格子或更早的每列一个值）转换为每个区段的调色板。
+ */
+final class LegacyChunkFormat {
+
+    private static final String[] COLORS = {
+        "white", "orange", "magenta", "light_blue", "yellow", "lime", "pink", "gray",
+        "light_gray", "cyan", "purple", "blue", "brown", "green", "red", "black"
+    };
+    private static final String[] WOOD = {"oak", "spruce", "birch", "jungle", "acacia", "dark_oak"};
+
+    // 1.12 数字ID对应的方块名，没有元数据变体的方块直接使用
+    private static final String[] BLOCK_NAMES = new String[256];
+
+    // (ID << 4 | 元数据) 对应的方块名，首次使用时计算
+    private static final String[] RESOLVED = new String[4096 * 16];
+
+    // 1.12-1.17 数字生物群系ID对应的1.18名称，变种生物群系没有单独颜色时使用原生物群系
+    private static final String[] BIOME_NAMES = new String[256];
+
+    static {
+        String[] names = {
+            "air", "stone", "grass_block", "dirt", "cobblestone", "oak_planks", "oak_sapling", "bedrock",
+            "water", "water", "lava", "lava", "sand", "gravel", "gold_ore", "iron_ore",
+            "coal_ore", "oak_log", "oak_leaves", "sponge", "glass", "lapis_ore", "lapis_block", "dispenser",
+            "sandstone", "note_block", "red_bed", "powered_rail", "detector_rail", "sticky_piston", "cobweb", "grass",
+            "dead_bush", "piston", "piston_head", "white_wool", "moving_piston", "dandelion", "poppy", "brown_mushroom",
+            "red_mushroom", "gold_block", "iron_block", "smooth_stone", "smooth_stone_slab", "bricks", "tnt", "bookshelf",
+            "mossy_cobblestone", "obsidian", "torch", "fire", "spawner", "oak_stairs", "chest", "redstone_wire",
+            "diamond_ore", "diamond_block", "crafting_table", "wheat", "farmland", "furnace", "furnace", "oak_sign",
+            "oak_door", "ladder", "rail", "cobblestone_stairs", "oak_wall_sign", "lever", "stone_pressure_plate", "iron_door",
+            "oak_pressure_plate", "redstone_ore", "redstone_ore", "redstone_torch", "redstone_torch", "stone_button", "snow", "ice",
+            "snow_block", "cactus", "clay", "sugar_cane", "jukebox", "oak_fence", "pumpkin", "netherrack",
+            "soul_sand", "glowstone", "nether_portal", "jack_o_lantern", "cake", "repeater", "repeater", "white_stained_glass",
+            "oak_trapdoor", "infested_stone", "stone_bricks", "brown_mushroom_block", "red_mushroom_block", "iron_bars", "glass_pane", "melon",
+            "pumpkin_stem", "melon_stem", "vine", "oak_fence_gate", "brick_stairs", "stone_brick_stairs", "mycelium", "lily_pad",
+            "nether_bricks", "nether_brick_fence", "nether_brick_stairs", "nether_wart", "enchanting_table", "brewing_stand", "cauldron", "end_portal",
+            "end_portal_frame", "end_stone", "dragon_egg", "redstone_lamp", "redstone_lamp", "oak_planks", "oak_slab", "cocoa",
+            "sandstone_stairs", "emerald_ore", "ender_chest", "tripwire_hook", "tripwire", "emerald_block", "spruce_stairs", "birch_stairs",
+            "jungle_stairs", "command_block", "beacon", "cobblestone_wall", "flower_pot", "carrots", "potatoes", "oak_button",
+            "skeleton_skull", "anvil", "trapped_chest", "light_weighted_pressure_plate", "heavy_weighted_pressure_plate", "comparator", "comparator", "daylight_detector",
+            "redstone_block", "nether_quartz_ore", "hopper", "quartz_block", "quartz_stairs", "activator_rail", "dropper", "white_terracotta",
+            "white_stained_glass_pane", "acacia_leaves", "acacia_log", "acacia_stairs", "dark_oak_stairs", "slime_block", "barrier", "iron_trapdoor",
+            "prismarine", "sea_lantern", "hay_block", "white_carpet", "terracotta", "coal_block", "packed_ice", "sunflower",
+            "white_banner", "white_wall_banner", "daylight_detector", "red_sandstone", "red_sandstone_stairs", "red_sandstone", "red_sandstone_slab", "spruce_fence_gate",
+            "birch_fence_gate", "jungle_fence_gate", "dark_oak_fence_gate", "acacia_fence_gate", "spruce_fence", "birch_fence", "jungle_fence", "dark_oak_fence",
+            "acacia_fence", "spruce_door", "birch_door", "jungle_door", "acacia_door", "dark_oak_door", "end_rod", "chorus_plant",
+            "chorus_flower", "purpur_block", "purpur_pillar", "purpur_stairs", "purpur_block", "purpur_slab", "end_stone_bricks", "beetroots",
+            "dirt_path", "end_gateway", "repeating_command_block", "chain_command_block", "frosted_ice", "magma_block", "nether_wart_block", "red_nether_bricks",
+            "bone_block", "structure_void", "observer"
+        };
+        System.arraycopy(names, 0, BLOCK_NAMES, 0, names.length);
+        for (int i = 0; i < 16; i++) {
+            BLOCK_NAMES[219 + i] = COLORS[i] + "_shulker_box";
+            BLOCK_NAMES[235 + i] = COLORS[i] + "_glazed_terracotta";
+        }
+        BLOCK_NAMES[251] = "white_concrete";
+        BLOCK_NAMES[252] = "white_concrete_powder";
+        BLOCK_NAMES[255] = "structure_block";
+
+        String[] biomes = {
+            "ocean", "plains", "desert", "windswept_hills", "forest", "taiga", "swamp", "river",
+            "nether_wastes", "the_end", "frozen_ocean", "frozen_river", "snowy_plains", "snowy_plains", "mushroom_fields", "mushroom_fields",
+            "beach", "desert", "forest", "taiga", "windswept_hills", "jungle", "jungle", "sparse_jungle",
+            "deep_ocean", "stony_shore", "snowy_beach", "birch_forest", "birch_forest", "dark_forest", "snowy_taiga", "snowy_taiga",
+            "old_growth_pine_taiga", "old_growth_pine_taiga", "windswept_forest", "savanna", "savanna_plateau", "badlands", "wooded_badlands", "badlands",
+            "small_end_islands", "end_midlands", "end_highlands", "end_barrens", "warm_ocean", "lukewarm_ocean", "cold_ocean", "warm_ocean",
+            "deep_lukewarm_ocean", "deep_cold_ocean", "deep_frozen_ocean"
+        };
+        System.arraycopy(biomes, 0, BIOME_NAMES, 0, biomes.length);
+        // 变种生物群系（ID + 128）默认与原生物群系相同
+        for (int i = 0; i < biomes.length; i++) {
+            BIOME_NAMES[128 + i] = biomes[i];
+        }
+        BIOME_NAMES[127] = "the_void";
+        BIOME_NAMES[129] = "sunflower_plains";
+        BIOME_NAMES[131] = "windswept_gravelly_hills";
+        BIOME_NAMES[132] = "flower_forest";
+        BIOME_NAMES[140] = "ice_spikes";
+        BIOME_NAMES[155] = "old_growth_birch_forest";
+        BIOME_NAMES[156] = "old_growth_birch_forest";
+        BIOME_NAMES[160] = "old_growth_spruce_taiga";
+        BIOME_NAMES[161] = "old_growth_spruce_taiga";
+        BIOME_NAMES[162] = "windswept_gravelly_hills";
+        BIOME_NAMES[163] = "windswept_savanna";
+        BIOME_NAMES[164] = "windswept_savanna";
+        BIOME_NAMES[165] = "eroded_badlands";
+        BIOME_NAMES[168] = "bamboo_jungle";
+        BIOME_NAMES[169] = "bamboo_jungle";
+        BIOME_NAMES[170] = "soul_sand_valley";
+        BIOME_NAMES[171] = "crimson_forest";
+        BIOME_NAMES[172] = "warped_forest";
+        BIOME_NAMES[173] = "basalt_deltas";
+    }
+
+    // Level.Biomes：1.15+为1024个4x4x4格子，更早为256列（int或byte）
+    private final int[] biomes;
+    private final boolean biomes3d;
+
+    LegacyChunkFormat(NBTReader.NBTCompound level) {
+        NBTReader.NBTTag tag = level.get("Biomes");
+        if (tag instanceof NBTReader.NBTIntArray) {
+            this.biomes = ((NBTReader.NBTIntArray) tag).getValue();
+        } else if (tag instanceof NBTReader.NBTByteArray) {
+            byte[] bytes = ((NBTReader.NBTByteArray) tag).getValue();
+            this.biomes = new int[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                biomes[i] = bytes[i] & 0xFF;
+            }
+        } else {
+            this.biomes = null;
+        }
+        this.biomes3d = biomes != null && biomes.length == 1024;
+    }
+
+    /**
+     * 旧格式区块返回Level标签，1.18+的区块返回null
+     */
+    static NBTReader.NBTCompound getLevel(NBTReader.NBTCompound root) {
+        if (root.contains("sections") || !(root.get("Level") instanceof NBTReader.NBTCompound)) {
+            return null;
+        }
+        return root.getCompound("Level");
+    }
+
+    /**
+     * 把旧格式的区段转换为1.18+的表示
+     */
+    Chunk.Section convertSection(NBTReader.NBTCompound sectionData) {
+        int y = ((NBTReader.NBTByte) sectionData.get("Y")).getValue();
+        List<Block> palette = new ArrayList<>();
+        long[] packed = new long[0];
+        int bits = 0;
+
+        if (sectionData.get("Palette") instanceof NBTReader.NBTList) {
+            NBTReader.NBTList paletteList = sectionData.getList("Palette");
+            for (int i = 0; i < paletteList.size(); i++) {
+                palette.add(Block.fromPalette((NBTReader.NBTCompound) paletteList.get(i)));
+            }
+            if (palette.size() > 1 && sectionData.get("BlockStates") instanceof NBTReader.NBTLongArray) {
+                bits = bitsFor(palette.size());
+                packed = repackSpanning(((NBTReader.NBTLongArray) sectionData.get("BlockStates")).getValue(), bits);
+            }
+        } else if (sectionData.get("Blocks") instanceof NBTReader.NBTByteArray) {
+            int[] indices = new int[4096];
+            convertNumericIds(sectionData, palette, indices);
+            if (palette.size() > 1) {
+                bits = bitsFor(palette.size());
+                packed = pack(indices, bits);
+            }
+        }
+        if (palette.isEmpty()) {
+            // 只有光照数据的区段
+            palette.add(Block.AIR);
+        }
+
+        List<String> biomePalette = new ArrayList<>();
+        int[] biomeIndices = new int[64];
+        convertBiomes(y, biomePalette, biomeIndices);
+        return new Chunk.Section(y, palette, packed, bits, biomePalette.toArray(new String[0]), biomeIndices);
+    }
+
+    /**
+     * 调色板索引的位数，与1.18+相同最少为4位
+     */
+    private static int bitsFor(int paletteSize) {
+        return Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(paletteSize - 1));
+    }
+
+    /**
+     * 1.16之前的打包数据中值可以跨越两个long（数组长度正好为 4096 * bits / 64），
+     * 重新打包为值不跨越long的格式；已经是不跨越格式的数据（1.16+）直接返回
+     * bits整除64时两种格式相同
+     */
+    static long[] repackSpanning(long[] data, int bits) {
+        if (64 % bits == 0 || data.length != 4096 * bits / 64) {
+            return data;
+        }
+        long mask = (1L << bits) - 1;
+        int[] indices = new int[4096];
+        for (int i = 0; i < 4096; i++) {
+            int bitIndex = i * bits;
+            int longIndex = bitIndex >>> 6;
+            int offset = bitIndex & 63;
+            long value = data[longIndex] >>> offset;
+            if (offset + bits > 64) {
+                value |= data[longIndex + 1] << (64 - offset);
+            }
+            indices[i] = (int) (value & mask);
+        }
+        return pack(indices, bits);
+    }
+
+    /**
+     * 按1.16+的格式（值不跨越long）打包调色板索引
+     */
+    static long[] pack(int[] indices, int bits) {
+        int valuesPerLong = 64 / bits;
+        long[] packed = new long[(indices.length + valuesPerLong - 1) / valuesPerLong];
+        for (int i = 0; i < indices.length; i++) {
+            packed[i / valuesPerLong] |= (long) indices[i] << ((i % valuesPerLong) * bits);
+        }
+        return packed;
+    }
+
+    /**
+     * 把Blocks/Add/Data中的数字ID和元数据转换为方块名调色板和每个方块的调色板索引（索引为 y * 256 + z * 16 + x）
+     */
+    private static void convertNumericIds(NBTReader.NBTCompound sectionData, List<Block> palette, int[] indices) {
+        byte[] blocks = ((NBTReader.NBTByteArray) sectionData.get("Blocks")).getValue();
+        byte[] add = sectionData.get("Add") instanceof NBTReader.NBTByteArray
+            ? ((NBTReader.NBTByteArray) sectionData.get("Add")).getValue() : null;
+        byte[] data = sectionData.get("Data") instanceof NBTReader.NBTByteArray
+            ? ((NBTReader.NBTByteArray) sectionData.get("Data")).getValue() : null;
+
+        Map<String, Integer> paletteIndex = new HashMap<>();
+        // 相邻方块通常相同，只有键变化时才查表
+        int lastKey = -1;
+        int lastIndex = 0;
+        int count = Math.min(4096, blocks.length);
+        for (int i = 0; i < count; i++) {
+            int id = blocks[i] & 0xFF;
+            if (add != null && (i >> 1) < add.length) {
+                id |= nibble(add, i) << 8;
+            }
+            int meta = data != null && (i >> 1) < data.length ? nibble(data, i) : 0;
+            int key = id << 4 | meta;
+            if (key != lastKey) {
+                String name = blockName(id, meta);
+                Integer index = paletteIndex.get(name);
+                if (index == null) {
+                    index = palette.size();
+                    paletteIndex.put(name, index);
+                    palette.add(new Block(name));
+                }
+                lastKey = key;
+                lastIndex = index;
+            }
+            indices[i] = lastIndex;
+        }
+    }
+
+    private static int nibble(byte[] array, int index) {
+        return (array[index >> 1] >> ((index & 1) << 2)) & 0xF;
+    }
+
+    /**
+     * 1.12 数字ID和元数据对应的1.13+方块名，未知ID返回 legacy_<ID>
+     */
+    static String blockName(int id, int meta) {
+        int key = id << 4 | meta;
+        if (key >= RESOLVED.length) {
+            return "legacy_" + id;
+        }
+        String name = RESOLVED[key];
+        if (name == null) {
+            // 重复计算的结果相同，不需要同步
+            name = resolveBlockName(id, meta);
+            RESOLVED[key] = name;
+        }
+        return name;
+    }
+
+    private static String resolveBlockName(int id, int meta) {
+        switch (id) {
+            case 1:
+                return new String[]{"stone", "granite", "polished_granite", "diorite", "polished_diorite",
+                    "andesite", "polished_andesite", "stone"}[meta & 7];
+            case 3:
+                return new String[]{"dirt", "coarse_dirt", "podzol", "dirt"}[meta & 3];
+            case 5:
+            case 125:
+                return WOOD[Math.min(meta & 7, 5)] + "_planks";
+            case 6:
+                return WOOD[Math.min(meta & 7, 5)] + "_sapling";
+            case 12:
+                return (meta & 1) == 0 ? "sand" : "red_sand";
+            case 17:
+                return WOOD[meta & 3] + "_log";
+            case 18:
+                return WOOD[meta & 3] + "_leaves";
+            case 31:
+                return new String[]{"dead_bush", "grass", "fern", "grass"}[meta & 3];
+            case 35:
+                return COLORS[meta] + "_wool";
+            case 38:
+                return new String[]{"poppy", "blue_orchid", "allium", "azure_bluet", "red_tulip", "orange_tulip",
+                    "white_tulip", "pink_tulip", "oxeye_daisy", "poppy", "poppy", "poppy", "poppy", "poppy",
+                    "poppy", "poppy"}[meta];
+            case 43:
+                return new String[]{"smooth_stone", "sandstone", "oak_planks", "cobblestone", "bricks",
+                    "stone_bricks", "nether_bricks", "quartz_block"}[meta & 7];
+            case 44:
+                return new String[]{"smooth_stone_slab", "sandstone_slab", "petrified_oak_slab", "cobblestone_slab",
+                    "brick_slab", "stone_brick_slab", "nether_brick_slab", "quartz_slab"}[meta & 7];
+            case 95:
+                return COLORS[meta] + "_stained_glass";
+            case 98:
+                return new String[]{"stone_bricks", "mossy_stone_bricks", "cracked_stone_bricks",
+                    "chiseled_stone_bricks"}[meta & 3];
+            case 126:
+                return WOOD[Math.min(meta & 7, 5)] + "_slab";
+            case 159:
+                return COLORS[meta] + "_terracotta";
+            case 160:
+                return COLORS[meta] + "_stained_glass_pane";
+            case 161:
+                return WOOD[4 + (meta & 1)] + "_leaves";
+            case 162:
+                return WOOD[4 + (meta & 1)] + "_log";
+            case 168:
+                return new String[]{"prismarine", "prismarine_bricks", "dark_prismarine", "prismarine"}[meta & 3];
+            case 171:
+                return COLORS[meta] + "_carpet";
+            case 175:
+                return new String[]{"sunflower", "lilac", "tall_grass", "large_fern", "rose_bush", "peony",
+                    "sunflower", "sunflower"}[meta & 7];
+            case 251:
+                return COLORS[meta] + "_concrete";
+            case 252:
+                return COLORS[meta] + "_concrete_powder";
+            default:
+                String name = id < BLOCK_NAMES.length ? BLOCK_NAMES[id] : null;
+                return name != null ? name : "legacy_" + id;
+        }
+    }
+
+    /**
+     * 数字生物群系ID对应的名称，未知ID返回plains
+     */
+    static String biomeName(int id) {
+        String name = id >= 0 && id < BIOME_NAMES.length ? BIOME_NAMES[id] : null;
+        return name != null ? name : "plains";
+    }
+
+    /**
+     * 取出区段范围内的生物群系，转换为区段的调色板和64个4x4x4格子的调色板索引
+     */
+    private void convertBiomes(int sectionY, List<String> palette, int[] indices) {
+        if (biomes == null || (biomes.length != 1024 && biomes.length != 256)) {
+            return;
+        }
+        Map<Integer, Integer> paletteIndex = new HashMap<>();
+        for (int cell = 0; cell < 64; cell++) {
+            int cellX = cell & 3;
+            int cellZ = (cell >> 2) & 3;
+            int cellY = cell >> 4;
+            int id;
+            if (biomes3d) {
+                // 1.15+ 的格子覆盖Y 0-255，超出范围的区段使用最近的格子
+                int worldCellY = Math.max(0, Math.min(63, sectionY * 4 + cellY));
+                id = biomes[(worldCellY << 4) | (cellZ << 2) | cellX];
+            } else {
+                id = biomes[(cellZ * 4) * 16 + cellX * 4];
+            }
+            Integer index = paletteIndex.get(id);
+            if (index == null) {
+                index = palette.size();
+                paletteIndex.put(id, index);
+                palette.add(biomeName(id));
+            }
+            indices[cell] = index;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.minecraft.selector.region;
 
+import com.minecraft.selector.metrics.ChunkDecodeEvent;
+import com.minecraft.selector.metrics.RegionOpenEvent;
+import com.minecraft.selector.metrics.RenderMetrics;
 import com.minecraft.selector.nbt.NBTReader;
 import java.io.*;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -12,18 +17,37 @@ import java.nio.ByteOrder;
  */
 public class Region {
     private byte[] data;
+
+    // 来源文件路径，仅用于JFR事件，从内存创建时为null
+    private final String path;
     
     public Region(byte[] data) {
+        this(data, null);
+    }
+
+    private Region(byte[] data, String path) {
         this.data = data;
+        this.path = path;
     }
     
     /**
      * 从文件创建Region对象
      */
     public static Region fromFile(String filePath) throws IOException {
+        RegionOpenEvent event = new RegionOpenEvent();
+        event.begin();
         try (FileInputStream fis = new FileInputStream(filePath)) {
             byte[] data = fis.readAllBytes();
-            return new Region(data);
+            RenderMetrics.getShared().recordRegionOpened();
+            RenderMetrics.getShared().addBytesRead(data.length);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = filePath;
+                event.bytes = data.length;
+                event.mapped = false;
+                event.commit();
+            }
+            return new Region(data, filePath);
         }
     }
     
@@ -62,6 +86,13 @@ public class Region {
      * 获取区块的NBT数据
      */
     public NBTReader.NBTCompound getChunkData(int chunkX, int chunkZ) throws IOException {
+        return getChunkData(chunkX, chunkZ, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 获取区块的NBT数据，只解析区段Y坐标在[minSectionY, maxSectionY]范围内的方块数据
+     */
+    public NBTReader.NBTCompound getChunkData(int chunkX, int chunkZ, int minSectionY, int maxSectionY) throws IOException {
         int[] location = getChunkLocation(chunkX, chunkZ);
         
         // 如果区块不存在
@@ -74,36 +105,101 @@ public class Region {
         // 读取区块数据长度（4字节，大端序）
         int length = ByteBuffer.wrap(data, offset, 4).order(ByteOrder.BIG_ENDIAN).getInt();
         
-        // 读取压缩类型（1字节）
+        // 读取压缩类型（1字节）：1为GZip，2为Zlib，3为未压缩，加128表示数据在外部的.mcc文件中
         int compression = data[offset + 4] & 0xFF;
-        
-        if (compression == 1) {
-            throw new IOException("GZip compression is not supported");
-        } else if (compression != 2) {
+        if ((compression & RegionFile.EXTERNAL_FLAG) != 0) {
+            if (path == null) {
+                throw new IOException("区块 (" + chunkX + ", " + chunkZ + ") 的数据在外部.mcc文件中，需要从文件打开区域");
+            }
+            byte[] external = RegionFile.readExternalChunk(new File(path), chunkX, chunkZ);
+            return decodeChunkData(compression & ~RegionFile.EXTERNAL_FLAG, external, 0, external.length,
+                minSectionY, maxSectionY);
+        }
+        return decodeChunkData(compression, data, offset + 5, length - 1, minSectionY, maxSectionY);
+    }
+
+    /**
+     * 解压并解析区块数据，只解析区段Y坐标在[minSectionY, maxSectionY]范围内的方块数据
+     */
+    static NBTReader.NBTCompound decodeChunkData(int compression, byte[] data, int offset, int length,
+                                                 int minSectionY, int maxSectionY) throws IOException {
+        if (compression < RegionWriter.COMPRESSION_GZIP || compression > RegionWriter.COMPRESSION_NONE) {
             throw new IOException("Unknown compression type: " + compression);
         }
-        
-        // 读取压缩数据
-        byte[] compressedData = new byte[length - 1];
-        System.arraycopy(data, offset + 5, compressedData, 0, length - 1);
-        
-        // 解压缩数据
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(compressedData);
-             InflaterInputStream iis = new InflaterInputStream(bis)) {
-            
-            return NBTReader.readFromBytes(iis.readAllBytes());
+
+        long inflateStart = System.nanoTime();
+        byte[] nbtBytes;
+        if (compression == RegionWriter.COMPRESSION_NONE) {
+            nbtBytes = Arrays.copyOfRange(data, offset, offset + length);
+        } else {
+            // 解压缩数据
+            try (ByteArrayInputStream bis = new ByteArrayInputStream(data, offset, length);
+                 InputStream iis = compression == RegionWriter.COMPRESSION_GZIP
+                     ? new GZIPInputStream(bis) : new InflaterInputStream(bis)) {
+                nbtBytes = iis.readAllBytes();
+            }
         }
+
+        long parseStart = System.nanoTime();
+        RenderMetrics.getShared().recordInflate(parseStart - inflateStart);
+
+        NBTReader.NBTCompound chunkData = minSectionY == Integer.MIN_VALUE && maxSectionY == Integer.MAX_VALUE
+            ? NBTReader.readFromBytes(nbtBytes)
+            : NBTReader.readChunkFromBytes(nbtBytes, minSectionY, maxSectionY);
+        RenderMetrics.getShared().recordNbtParse(System.nanoTime() - parseStart);
+        return chunkData;
     }
     
     /**
      * 获取区块对象
      */
     public Chunk getChunk(int chunkX, int chunkZ) throws IOException {
+        ChunkDecodeEvent event = new ChunkDecodeEvent();
+        event.begin();
         NBTReader.NBTCompound chunkData = getChunkData(chunkX, chunkZ);
         if (chunkData == null) {
             return null;
         }
-        return new Chunk(chunkData);
+        return commitDecodeEvent(event, path, chunkX, chunkZ, getCompressedSize(chunkX, chunkZ), new Chunk(chunkData));
+    }
+
+    /**
+     * 获取区块对象，只解码区段Y坐标在[minSectionY, maxSectionY]范围内的区段
+     */
+    public Chunk getChunk(int chunkX, int chunkZ, int minSectionY, int maxSectionY) throws IOException {
+        ChunkDecodeEvent event = new ChunkDecodeEvent();
+        event.begin();
+        NBTReader.NBTCompound chunkData = getChunkData(chunkX, chunkZ, minSectionY, maxSectionY);
+        if (chunkData == null) {
+            return null;
+        }
+        return commitDecodeEvent(event, path, chunkX, chunkZ, getCompressedSize(chunkX, chunkZ),
+            new Chunk(chunkData, minSectionY, maxSectionY));
+    }
+
+    static Chunk commitDecodeEvent(ChunkDecodeEvent event, String path, int chunkX, int chunkZ,
+                                   int compressedSize, Chunk chunk) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.region = path;
+            event.chunkX = chunkX;
+            event.chunkZ = chunkZ;
+            event.compressedSize = compressedSize;
+            event.sections = chunk.getSections().size();
+            event.commit();
+        }
+        return chunk;
+    }
+
+    /**
+     * 区块压缩数据的字节数（不含5字节的长度和压缩类型），区块不存在时返回0
+     */
+    public int getCompressedSize(int chunkX, int chunkZ) {
+        int[] location = getChunkLocation(chunkX, chunkZ);
+        if (location[0] == 0 && location[1] == 0) {
+            return 0;
+        }
+        return ByteBuffer.wrap(data, location[0] * 4096, 4).order(ByteOrder.BIG_ENDIAN).getInt() - 1;
     }
     
     /**
@@ -123,6 +219,13 @@ public class Region {
         return coordinates;
     }
     
+    /**
+     * 解析区域文件头部（位置表和时间戳表）
+     */
+    public RegionHeader getHeader() {
+        return RegionHeader.fromBytes(data);
+    }
+    
     /**
      * 获取区域文件的原始数据
      */
@@ -0,0 +1,232 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.metrics.ChunkDecodeEvent;
+import com.minecraft.selector.metrics.RegionOpenEvent;
+import com.minecraft.selector.metrics.RenderMetrics;
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.utils.FileUtils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 按需读取的区域文件
+ * 打开时只读取8KB头部，之后每个区块用定位读取只读它占用的扇区，不把整个文件读入内存。
+ * 读取得到的是压缩数据(RawChunk)，解压和解码可以交给其他线程完成。多个线程可以同时读取。
+ */
+public class RegionFile implements Closeable {
+
+    // 压缩类型加上此标志表示区块数据在同目录的 c.<x>.<z>.mcc 外部文件中
+    public static final int EXTERNAL_FLAG = 0x80;
+
+    private final File file;
+    private final FileChannel channel;
+    private final RegionHeader header;
+
+    private RegionFile(File file, FileChannel channel, RegionHeader header) {
+        this.file = file;
+        this.channel = channel;
+        this.header = header;
+    }
+
+    /**
+     * 打开区域文件并读取头部
+     */
+    public static RegionFile open(File file) throws IOException {
+        RegionOpenEvent event = new RegionOpenEvent();
+        event.begin();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(RegionHeader.HEADER_BYTES);
+            readFully(channel, buffer, 0);
+            RenderMetrics.getShared().recordRegionOpened();
+            RenderMetrics.getShared().addBytesRead(buffer.position());
+            if (buffer.position() > 0 && buffer.hasRemaining()) {
+                throw new EOFException("区域文件头部不完整: " + file);
+            }
+            // 空文件（服务器可能正在创建）视为没有区块
+            RegionHeader header = RegionHeader.fromBytes(buffer.hasRemaining() ? new byte[0] : buffer.array());
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = file.getPath();
+                event.bytes = buffer.limit();
+                event.mapped = false;
+                event.commit();
+            }
+            return new RegionFile(file, channel, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 从指定位置读取直到缓冲区填满或到达文件末尾
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                return;
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 打开时读取的头部
+     */
+    public RegionHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * 读取区块的压缩数据，区块不存在时返回null
+     */
+    public RawChunk readChunk(int chunkX, int chunkZ) throws IOException {
+        if (!header.chunkExists(chunkX, chunkZ)) {
+            return null;
+        }
+        long offset = (long) header.getSectorOffset(chunkX, chunkZ) * 4096;
+        int sectors = header.getSectorCount(chunkX, chunkZ);
+
+        // 先读长度和压缩类型，再只读实际的数据长度（通常小于占用的扇区）
+        ByteBuffer prefix = ByteBuffer.allocate(5);
+        readFully(channel, prefix, offset);
+        if (prefix.hasRemaining()) {
+            throw new EOFException("区块 (" + chunkX + ", " + chunkZ + ") 超出文件末尾: " + file);
+        }
+        prefix.flip();
+        int length = prefix.order(ByteOrder.BIG_ENDIAN).getInt();
+        int compression = prefix.get() & 0xFF;
+
+        int timestamp = header.getTimestamp(chunkX, chunkZ);
+        int location = header.getLocation(chunkX, chunkZ);
+        if ((compression & EXTERNAL_FLAG) != 0) {
+            byte[] external = readExternalChunk(file, chunkX, chunkZ);
+            return new RawChunk(file.getPath(), chunkX, chunkZ, compression & ~EXTERNAL_FLAG, external,
+                timestamp, location);
+        }
+        if (length < 1 || length - 1 > sectors * 4096 - 5) {
+            throw new IOException("区块 (" + chunkX + ", " + chunkZ + ") 的长度无效: " + length);
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(length - 1);
+        readFully(channel, data, offset + 5);
+        if (data.hasRemaining()) {
+            throw new EOFException("区块 (" + chunkX + ", " + chunkZ + ") 数据不完整: " + file);
+        }
+        RenderMetrics.getShared().addBytesRead(5 + data.capacity());
+        return new RawChunk(file.getPath(), chunkX, chunkZ, compression, data.array(), timestamp, location);
+    }
+
+    /**
+     * 外部区块文件，区域文件名无法解析出坐标时返回null
+     */
+    public static File externalChunkFile(File regionFile, int chunkX, int chunkZ) {
+        int[] coords;
+        try {
+            coords = FileUtils.parseRegionCoordinates(regionFile.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int absoluteX = coords[0] * 32 + (chunkX & 31);
+        int absoluteZ = coords[1] * 32 + (chunkZ & 31);
+        return new File(regionFile.getParentFile(), "c." + absoluteX + "." + absoluteZ + ".mcc");
+    }
+
+    /**
+     * 读取外部区块文件(.mcc)的压缩数据
+     */
+    static byte[] readExternalChunk(File regionFile, int chunkX, int chunkZ) throws IOException {
+        File external = externalChunkFile(regionFile, chunkX, chunkZ);
+        if (external == null || !external.isFile()) {
+            throw new IOException("区块 (" + chunkX + ", " + chunkZ + ") 的外部数据文件不存在: " + external);
+        }
+        byte[] data = Files.readAllBytes(external.toPath());
+        RenderMetrics.getShared().addBytesRead(data.length);
+        return data;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 未解压的区块数据
+     */
+    public static final class RawChunk {
+        private final String path;
+        private final int chunkX;
+        private final int chunkZ;
+        private final int compression;
+        private final byte[] data;
+        private final int timestamp;
+        private final int location;
+
+        RawChunk(String path, int chunkX, int chunkZ, int compression, byte[] data, int timestamp, int location) {
+            this.path = path;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.compression = compression;
+            this.data = data;
+            this.timestamp = timestamp;
+            this.location = location;
+        }
+
+        public int getChunkX() {
+            return chunkX;
+        }
+
+        public int getChunkZ() {
+            return chunkZ;
+        }
+
+        /**
+         * 读取时头部中的时间戳
+         */
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * 读取时头部中的位置项
+         */
+        public int getLocation() {
+            return location;
+        }
+
+        public int getCompressedSize() {
+            return data.length;
+        }
+
+        /**
+         * 解压并解析NBT，只解析区段Y坐标在[minSectionY, maxSectionY]范围内的方块数据
+         */
+        public NBTReader.NBTCompound decodeData(int minSectionY, int maxSectionY) throws IOException {
+            return Region.decodeChunkData(compression, data, 0, data.length, minSectionY, maxSectionY);
+        }
+
+        /**
+         * 解码为区块对象，只解码区段Y坐标在[minSectionY, maxSectionY]范围内的区段
+         */
+        public Chunk decode(int minSectionY, int maxSectionY) throws IOException {
+            ChunkDecodeEvent event = new ChunkDecodeEvent();
+            event.begin();
+            Chunk chunk = new Chunk(decodeData(minSectionY, maxSectionY), minSectionY, maxSectionY);
+            return Region.commitDecodeEvent(event, path, chunkX, chunkZ, data.length, chunk);
+        }
+    }
+}
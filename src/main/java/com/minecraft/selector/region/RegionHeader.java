@@ -0,0 +1,148 @@
+package com.minecraft.selector.region;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 区域文件头部（位置表 + 时间戳表，共8KB）
+ * 只读取文件开头的8KB，不加载区块数据
+ */
+public class RegionHeader {
+
+    public static final int HEADER_BYTES = 8192;
+
+    private final int[] locations;
+    private final int[] timestamps;
+
+    private RegionHeader(int[] locations, int[] timestamps) {
+        this.locations = locations;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * 从区域文件读取头部
+     */
+    public static RegionHeader read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, buffer.position());
+                if (n < 0) {
+                    // 空文件或头部不完整（服务器可能正在写入）
+                    if (buffer.position() == 0) {
+                        return new RegionHeader(new int[1024], new int[1024]);
+                    }
+                    throw new EOFException("区域文件头部不完整: " + file);
+                }
+            }
+            buffer.flip();
+            return fromBuffer(buffer);
+        }
+    }
+
+    /**
+     * 从已加载的区域文件数据解析头部
+     */
+    public static RegionHeader fromBytes(byte[] data) {
+        if (data.length < HEADER_BYTES) {
+            return new RegionHeader(new int[1024], new int[1024]);
+        }
+        return fromBuffer(ByteBuffer.wrap(data, 0, HEADER_BYTES));
+    }
+
+    /**
+     * 由位置表和时间戳表创建头部（各1024项，索引为 z * 32 + x）
+     */
+    static RegionHeader fromArrays(int[] locations, int[] timestamps) {
+        return new RegionHeader(locations, timestamps);
+    }
+
+    private static RegionHeader fromBuffer(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int[] locations = new int[1024];
+        int[] timestamps = new int[1024];
+        for (int i = 0; i < 1024; i++) {
+            locations[i] = buffer.getInt();
+        }
+        for (int i = 0; i < 1024; i++) {
+            timestamps[i] = buffer.getInt();
+        }
+        return new RegionHeader(locations, timestamps);
+    }
+
+    private static int index(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    /**
+     * 检查区块是否存在
+     */
+    public boolean chunkExists(int chunkX, int chunkZ) {
+        int location = locations[index(chunkX, chunkZ)];
+        return (location >>> 8) != 0 && (location & 0xFF) != 0;
+    }
+
+    /**
+     * 获取区块数据的起始扇区
+     */
+    public int getSectorOffset(int chunkX, int chunkZ) {
+        return locations[index(chunkX, chunkZ)] >>> 8;
+    }
+
+    /**
+     * 获取区块数据占用的扇区数
+     */
+    public int getSectorCount(int chunkX, int chunkZ) {
+        return locations[index(chunkX, chunkZ)] & 0xFF;
+    }
+
+    /**
+     * 获取区块的位置项（起始扇区 << 8 | 扇区数），区块重新保存时通常会改变
+     */
+    public int getLocation(int chunkX, int chunkZ) {
+        return locations[index(chunkX, chunkZ)];
+    }
+
+    /**
+     * 获取区块最后保存的时间戳（秒）
+     */
+    public int getTimestamp(int chunkX, int chunkZ) {
+        return timestamps[index(chunkX, chunkZ)];
+    }
+
+    /**
+     * 获取存在的区块数量
+     */
+    public int getChunkCount() {
+        int count = 0;
+        for (int location : locations) {
+            if ((location >>> 8) != 0 && (location & 0xFF) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 比较两个头部，返回位置或时间戳发生变化的区块坐标
+     */
+    public java.util.List<int[]> changedChunks(RegionHeader previous) {
+        java.util.List<int[]> changed = new java.util.ArrayList<>();
+        for (int z = 0; z < 32; z++) {
+            for (int x = 0; x < 32; x++) {
+                int i = index(x, z);
+                if (previous == null
+                        || previous.locations[i] != locations[i]
+                        || previous.timestamps[i] != timestamps[i]) {
+                    changed.add(new int[]{x, z});
+                }
+            }
+        }
+        return changed;
+    }
+}
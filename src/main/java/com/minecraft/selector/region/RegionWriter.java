@@ -0,0 +1,135 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.nbt.NBTWriter;
+
+import java.io.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 区域文件(.mca)写入器
+ * 区块在加入时立即序列化和压缩，写出时按区块顺序分配4KB扇区并生成位置表和时间戳表
+ */
+public class RegionWriter {
+
+    // 区块数据的压缩类型
+    public static final int COMPRESSION_GZIP = 1;
+    public static final int COMPRESSION_ZLIB = 2;
+    public static final int COMPRESSION_NONE = 3;
+
+    private static final int SECTOR_BYTES = 4096;
+
+    // 位置表中扇区数只有1字节
+    private static final int MAX_CHUNK_SECTORS = 255;
+
+    private final int compression;
+    private final byte[][] chunkData = new byte[1024][];
+    private final int[] timestamps = new int[1024];
+
+    public RegionWriter(int compression) {
+        if (compression < COMPRESSION_GZIP || compression > COMPRESSION_NONE) {
+            throw new IllegalArgumentException("不支持的压缩类型: " + compression);
+        }
+        this.compression = compression;
+    }
+
+    /**
+     * 加入区块（区域内坐标0-31），已存在的区块会被替换
+     */
+    public void putChunk(int chunkX, int chunkZ, NBTReader.NBTCompound chunk, int timestamp) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compress(bytes);
+             NBTWriter writer = new NBTWriter(out)) {
+            writer.writeNamedTag("", chunk);
+        }
+        byte[] data = bytes.toByteArray();
+        if (sectorsFor(data.length) > MAX_CHUNK_SECTORS) {
+            throw new IOException("区块 (" + chunkX + ", " + chunkZ + ") 压缩后超过1MB，无法写入区域文件");
+        }
+
+        int index = (chunkX & 31) + (chunkZ & 31) * 32;
+        chunkData[index] = data;
+        timestamps[index] = timestamp;
+    }
+
+    /**
+     * 已加入的区块数量
+     */
+    public int getChunkCount() {
+        int count = 0;
+        for (byte[] data : chunkData) {
+            if (data != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        switch (compression) {
+            case COMPRESSION_GZIP:
+                return new GZIPOutputStream(out);
+            case COMPRESSION_ZLIB:
+                return new DeflaterOutputStream(out);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * 数据长度（含4字节长度和1字节压缩类型）占用的扇区数
+     */
+    private static int sectorsFor(int dataLength) {
+        return (dataLength + 5 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    /**
+     * 写出区域文件
+     */
+    public void writeTo(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 65536)) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * 生成区域文件的字节
+     */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+    private void writeTo(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+
+        // 位置表：3字节扇区偏移 + 1字节扇区数，数据从第2个扇区开始
+        int sector = 2;
+        for (byte[] data : chunkData) {
+            if (data == null) {
+                out.writeInt(0);
+            } else {
+                int sectors = sectorsFor(data.length);
+                out.writeInt((sector << 8) | sectors);
+                sector += sectors;
+            }
+        }
+        for (int i = 0; i < 1024; i++) {
+            out.writeInt(chunkData[i] != null ? timestamps[i] : 0);
+        }
+
+        for (byte[] data : chunkData) {
+            if (data == null) {
+                continue;
+            }
+            out.writeInt(data.length + 1);
+            out.writeByte(compression);
+            out.write(data);
+            int padding = sectorsFor(data.length) * SECTOR_BYTES - data.length - 5;
+            out.write(new byte[padding]);
+        }
+        out.flush();
+    }
+}
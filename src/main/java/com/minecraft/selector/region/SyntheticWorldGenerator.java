@@ -0,0 +1,352 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.nbt.NBTWriter;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 合成存档生成器，用于性能测试和正确性测试
+ * 生成的区块结构与1.18+存档相同（sections/block_states/biomes），相同的种子和设置总是生成相同的数据。
+ * 地形为起伏的高度场：地下方块从调色板中均匀随机选取，地表为泥土和草方块，海平面以下的低地填充水。
+ */
+public class SyntheticWorldGenerator {
+
+    public static final int DATA_VERSION = 3700;
+
+    // 地下方块的候选名称，调色板更大时加数字后缀生成更多方块
+    private static final String[] UNDERGROUND_BLOCKS = {
+        "stone", "deepslate", "andesite", "diorite", "granite", "tuff", "gravel", "coal_ore",
+        "iron_ore", "copper_ore", "gold_ore", "redstone_ore", "lapis_ore", "diamond_ore", "emerald_ore", "clay"
+    };
+
+    // 地表方块，编号排在地下方块之后
+    private static final String[] SURFACE_BLOCKS = {"dirt", "sand", "grass_block", "water", "air"};
+    private static final int DIRT = 0;
+    private static final int SAND = 1;
+    private static final int GRASS_BLOCK = 2;
+    private static final int WATER = 3;
+    private static final int AIR = 4;
+
+    private static final String[] BIOMES = {"plains", "forest", "swamp", "desert"};
+
+    private static final int TIMESTAMP = 1700000000;
+
+    private final long seed;
+    private int baseHeight = 64;
+    private int heightVariation = 16;
+    private int waterLevel = 62;
+    private int minSectionY = -4;
+    private int maxSectionY = 19;
+    private int paletteSize = 8;
+    private int bitsPerBlock = 0;
+    private int blockEntitiesPerChunk = 0;
+    private int compression = RegionWriter.COMPRESSION_ZLIB;
+    private int chunksPerRegionSide = 32;
+
+    public SyntheticWorldGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 设置地形的平均高度和起伏幅度
+     */
+    public void setTerrainHeight(int baseHeight, int heightVariation) {
+        this.baseHeight = baseHeight;
+        this.heightVariation = Math.max(0, heightVariation);
+    }
+
+    public void setWaterLevel(int waterLevel) {
+        this.waterLevel = waterLevel;
+    }
+
+    /**
+     * 设置生成的区段Y范围（默认-4到19，即Y=-64到319）
+     */
+    public void setSectionRange(int minSectionY, int maxSectionY) {
+        this.minSectionY = minSectionY;
+        this.maxSectionY = maxSectionY;
+    }
+
+    /**
+     * 设置地下方块的种类数（调色板多样性）
+     */
+    public void setPaletteSize(int paletteSize) {
+        this.paletteSize = Math.max(1, Math.min(4096, paletteSize));
+    }
+
+    /**
+     * 设置有方块数据的区段的最小位数（4-12），调色板会补上未使用的条目使读取时的位数不小于该值；0为不补
+     */
+    public void setBitsPerBlock(int bitsPerBlock) {
+        this.bitsPerBlock = bitsPerBlock <= 0 ? 0 : Math.max(4, Math.min(12, bitsPerBlock));
+    }
+
+    /**
+     * 设置每个区块中的方块实体（装满物品的箱子）数量，用于模拟方块实体数据很多的区块
+     */
+    public void setBlockEntitiesPerChunk(int blockEntitiesPerChunk) {
+        this.blockEntitiesPerChunk = Math.max(0, Math.min(256, blockEntitiesPerChunk));
+    }
+
+    /**
+     * 设置区块数据的压缩类型（RegionWriter.COMPRESSION_*）
+     */
+    public void setCompression(int compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 设置每个区域中生成的区块范围：左上角 n x n 个区块（默认32，即整个区域）
+     */
+    public void setChunksPerRegionSide(int chunksPerRegionSide) {
+        this.chunksPerRegionSide = Math.max(1, Math.min(32, chunksPerRegionSide));
+    }
+
+    /**
+     * 生成存档：regionCount个区域排成以原点为中心的方阵，写入 worldDir/region，并写入最简的level.dat
+     *
+     * @return 生成的区域文件
+     */
+    public List<File> generateWorld(File worldDir, int regionCount, int maxWorkers) throws IOException {
+        File regionDir = new File(worldDir, "region");
+        if (!regionDir.isDirectory() && !regionDir.mkdirs()) {
+            throw new IOException("无法创建目录: " + regionDir.getAbsolutePath());
+        }
+        writeLevelDat(new File(worldDir, "level.dat"));
+
+        int side = (int) Math.ceil(Math.sqrt(regionCount));
+        List<File> files = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maxWorkers));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < regionCount; i++) {
+                int regionX = i % side - side / 2;
+                int regionZ = i / side - side / 2;
+                File file = new File(regionDir, "r." + regionX + "." + regionZ + ".mca");
+                files.add(file);
+                futures.add(executor.submit(() -> {
+                    generateRegion(regionX, regionZ).writeTo(file);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IOException("生成区域失败: " + cause.getMessage(), cause);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println("已生成 " + regionCount + " 个区域: " + regionDir.getAbsolutePath());
+        return files;
+    }
+
+    /**
+     * 生成一个区域
+     */
+    public RegionWriter generateRegion(int regionX, int regionZ) throws IOException {
+        RegionWriter writer = new RegionWriter(compression);
+        for (int chunkZ = 0; chunkZ < chunksPerRegionSide; chunkZ++) {
+            for (int chunkX = 0; chunkX < chunksPerRegionSide; chunkX++) {
+                writer.putChunk(chunkX, chunkZ, generateChunk(regionX * 32 + chunkX, regionZ * 32 + chunkZ), TIMESTAMP);
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * 生成区块的NBT数据（世界区块坐标）
+     */
+    public NBTReader.NBTCompound generateChunk(int chunkX, int chunkZ) {
+        Random random = new Random(seed ^ (chunkX * 341873128712L + chunkZ * 132897987541L));
+        NBTReader.NBTCompound root = new NBTReader.NBTCompound("");
+        root.put("DataVersion", new NBTReader.NBTInt("DataVersion", DATA_VERSION));
+        root.put("xPos", new NBTReader.NBTInt("xPos", chunkX));
+        root.put("zPos", new NBTReader.NBTInt("zPos", chunkZ));
+        root.put("yPos", new NBTReader.NBTInt("yPos", minSectionY));
+        root.put("Status", new NBTReader.NBTString("Status", "minecraft:full"));
+        root.put("LastUpdate", new NBTReader.NBTLong("LastUpdate", 0L));
+
+        int[] heights = new int[256];
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                heights[z * 16 + x] = terrainHeight(chunkX * 16 + x, chunkZ * 16 + z);
+            }
+        }
+        String biome = BIOMES[Math.floorMod(Math.floorDiv(chunkX, 4) * 31 + Math.floorDiv(chunkZ, 4) * 17 + (int) seed, BIOMES.length)];
+
+        NBTReader.NBTList sections = new NBTReader.NBTList("sections", NBTReader.TagType.TAG_Compound);
+        int[] blocks = new int[4096];
+        int[] paletteIndex = new int[paletteSize + SURFACE_BLOCKS.length];
+        for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+            for (int i = 0; i < 4096; i++) {
+                blocks[i] = blockAt(sectionY * 16 + (i >> 8), heights[i & 255], random);
+            }
+            sections.add(sectionTag(sectionY, blocks, paletteIndex, biome));
+        }
+        root.put("sections", sections);
+        root.put("block_entities", blockEntities(chunkX, chunkZ, heights, random));
+        return root;
+    }
+
+    private int terrainHeight(int x, int z) {
+        double phase = (seed & 0xFFFF) / 1000.0;
+        double noise = 0.5 * Math.sin(x / 20.0 + phase) + 0.5 * Math.cos(z / 17.0 - phase)
+            + 0.25 * Math.sin((x + z) / 7.0);
+        return baseHeight + (int) Math.round(noise / 1.25 * heightVariation);
+    }
+
+    /**
+     * 方块编号：0到paletteSize-1为地下方块，之后依次为SURFACE_BLOCKS
+     */
+    private int blockAt(int y, int height, Random random) {
+        if (y < height - 4) {
+            return paletteSize <= 1 ? 0 : random.nextInt(paletteSize);
+        } else if (y < height - 1) {
+            return paletteSize + DIRT;
+        } else if (y == height - 1) {
+            return paletteSize + (height <= waterLevel ? SAND : GRASS_BLOCK);
+        } else if (y < waterLevel) {
+            return paletteSize + WATER;
+        }
+        return paletteSize + AIR;
+    }
+
+    private String blockName(int block) {
+        return block < paletteSize ? undergroundBlock(block) : SURFACE_BLOCKS[block - paletteSize];
+    }
+
+    private static String undergroundBlock(int index) {
+        String base = UNDERGROUND_BLOCKS[index % UNDERGROUND_BLOCKS.length];
+        return index < UNDERGROUND_BLOCKS.length ? base : base + "_" + index;
+    }
+
+    /**
+     * 生成区段：调色板按方块编号排列，只有一种方块时不写data
+     *
+     * @param paletteIndex 长度为方块编号数的临时数组
+     */
+    private NBTReader.NBTCompound sectionTag(int sectionY, int[] blocks, int[] paletteIndex, String biome) {
+        Arrays.fill(paletteIndex, -1);
+        for (int block : blocks) {
+            paletteIndex[block] = 0;
+        }
+        List<String> palette = new ArrayList<>();
+        for (int block = 0; block < paletteIndex.length; block++) {
+            if (paletteIndex[block] == 0) {
+                paletteIndex[block] = palette.size();
+                palette.add(blockName(block));
+            }
+        }
+        if (palette.size() > 1 && bitsPerBlock > 0) {
+            // 补上未使用的条目，使读取时的位数达到设置值
+            int minSize = (1 << (bitsPerBlock - 1)) + 1;
+            for (int i = 0; palette.size() < minSize; i++) {
+                palette.add("unused_" + i);
+            }
+        }
+
+        NBTReader.NBTCompound section = new NBTReader.NBTCompound("");
+        section.put("Y", new NBTReader.NBTByte("Y", (byte) sectionY));
+
+        NBTReader.NBTCompound blockStates = new NBTReader.NBTCompound("block_states");
+        NBTReader.NBTList paletteList = new NBTReader.NBTList("palette", NBTReader.TagType.TAG_Compound);
+        for (String name : palette) {
+            NBTReader.NBTCompound entry = new NBTReader.NBTCompound("");
+            entry.put("Name", new NBTReader.NBTString("Name", "minecraft:" + name));
+            paletteList.add(entry);
+        }
+        blockStates.put("palette", paletteList);
+        if (palette.size() > 1) {
+            int bits = Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(palette.size() - 1));
+            int[] indices = new int[4096];
+            for (int i = 0; i < 4096; i++) {
+                indices[i] = paletteIndex[blocks[i]];
+            }
+            blockStates.put("data", new NBTReader.NBTLongArray("data", pack(indices, bits)));
+        }
+        section.put("block_states", blockStates);
+
+        NBTReader.NBTCompound biomes = new NBTReader.NBTCompound("biomes");
+        NBTReader.NBTList biomePalette = new NBTReader.NBTList("palette", NBTReader.TagType.TAG_String);
+        biomePalette.add(new NBTReader.NBTString("", "minecraft:" + biome));
+        biomes.put("palette", biomePalette);
+        section.put("biomes", biomes);
+        return section;
+    }
+
+    /**
+     * 按1.16+格式打包（值不跨越两个long）
+     */
+    static long[] pack(int[] values, int bits) {
+        int valuesPerLong = 64 / bits;
+        long[] packed = new long[(values.length + valuesPerLong - 1) / valuesPerLong];
+        for (int i = 0; i < values.length; i++) {
+            packed[i / valuesPerLong] |= (long) values[i] << ((i % valuesPerLong) * bits);
+        }
+        return packed;
+    }
+
+    /**
+     * 地表上的箱子，每个装满27格物品
+     */
+    private NBTReader.NBTList blockEntities(int chunkX, int chunkZ, int[] heights, Random random) {
+        NBTReader.NBTList list = new NBTReader.NBTList("block_entities", NBTReader.TagType.TAG_Compound);
+        for (int n = 0; n < blockEntitiesPerChunk; n++) {
+            int column = random.nextInt(256);
+            NBTReader.NBTCompound chest = new NBTReader.NBTCompound("");
+            chest.put("id", new NBTReader.NBTString("id", "minecraft:chest"));
+            chest.put("x", new NBTReader.NBTInt("x", chunkX * 16 + (column & 15)));
+            chest.put("y", new NBTReader.NBTInt("y", heights[column]));
+            chest.put("z", new NBTReader.NBTInt("z", chunkZ * 16 + (column >> 4)));
+            chest.put("keepPacked", new NBTReader.NBTByte("keepPacked", (byte) 0));
+
+            NBTReader.NBTList items = new NBTReader.NBTList("Items", NBTReader.TagType.TAG_Compound);
+            for (int slot = 0; slot < 27; slot++) {
+                NBTReader.NBTCompound item = new NBTReader.NBTCompound("");
+                item.put("Slot", new NBTReader.NBTByte("Slot", (byte) slot));
+                item.put("id", new NBTReader.NBTString("id", "minecraft:" + undergroundBlock(random.nextInt(UNDERGROUND_BLOCKS.length))));
+                item.put("Count", new NBTReader.NBTByte("Count", (byte) 64));
+                NBTReader.NBTCompound display = new NBTReader.NBTCompound("display");
+                display.put("Name", new NBTReader.NBTString("Name", "{\"text\":\"Item " + random.nextInt(1000000) + "\"}"));
+                NBTReader.NBTCompound tag = new NBTReader.NBTCompound("tag");
+                tag.put("display", display);
+                item.put("tag", tag);
+                items.add(item);
+            }
+            chest.put("Items", items);
+            list.add(chest);
+        }
+        return list;
+    }
+
+    /**
+     * 写入最简的level.dat（GZip压缩），出生点位于原点地表
+     */
+    private void writeLevelDat(File file) throws IOException {
+        try (NBTWriter writer = new NBTWriter(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            writer.beginCompound("");
+            writer.beginCompound("Data");
+            writer.writeString("LevelName", "Synthetic " + seed);
+            writer.writeInt("DataVersion", DATA_VERSION);
+            writer.writeInt("SpawnX", 0);
+            writer.writeInt("SpawnY", terrainHeight(0, 0));
+            writer.writeInt("SpawnZ", 0);
+            writer.writeLong("RandomSeed", seed);
+            writer.endCompound();
+            writer.endCompound();
+        }
+    }
+}
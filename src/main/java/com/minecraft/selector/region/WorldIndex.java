@@ -0,0 +1,366 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.utils.FileUtils;
+import com.minecraft.selector.utils.IoExecutors;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 存档级别的区块索引
+ * 并行地只读取每个区域文件的8KB头部（位置表和时间戳表），得到已生成区块的位图、每个区块的时间戳和占用字节数。
+ * 其他阶段据此跳过空区域和空区块而不必打开文件。索引可以保存到缓存文件，
+ * 更新时只重新读取大小或修改时间变化过的区域文件。
+ */
+public class WorldIndex {
+
+    // 缓存文件的标识（"MCWI"）和版本
+    private static final int CACHE_MAGIC = 0x4D435749;
+    private static final int CACHE_VERSION = 1;
+
+    private static final Map<File, WorldIndex> SHARED = new ConcurrentHashMap<>();
+
+    private final File regionDir;
+    private final Map<Long, RegionEntry> regions = new ConcurrentHashMap<>();
+
+    /**
+     * 一个区域文件的索引：读取时的文件状态、头部和已生成区块的位图（1024位，索引为 z * 32 + x）
+     */
+    private static final class RegionEntry {
+        final int regionX;
+        final int regionZ;
+        final long length;
+        final long lastModified;
+        final RegionHeader header;
+        final long[] mask = new long[16];
+        final int chunkCount;
+
+        RegionEntry(int regionX, int regionZ, long length, long lastModified, RegionHeader header) {
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.header = header;
+            int count = 0;
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    if (header.chunkExists(x, z)) {
+                        int index = z * 32 + x;
+                        mask[index >> 6] |= 1L << index;
+                        count++;
+                    }
+                }
+            }
+            this.chunkCount = count;
+        }
+
+        boolean matches(File file) {
+            return length == file.length() && lastModified == file.lastModified();
+        }
+    }
+
+    public WorldIndex(File regionDir) {
+        this.regionDir = regionDir;
+    }
+
+    /**
+     * 获取目录共享的索引，第一次获取时为空，需要调用update()或load()
+     */
+    public static WorldIndex forDirectory(File regionDir) {
+        return SHARED.computeIfAbsent(regionDir.getAbsoluteFile(), WorldIndex::new);
+    }
+
+    private static long key(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    public File getRegionDir() {
+        return regionDir;
+    }
+
+    /**
+     * 扫描目录并重新读取新增或变化过的区域文件头部，删除已不存在的区域，返回读取的头部数
+     */
+    public synchronized int update(int workers) throws IOException {
+        File[] files = regionDir.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".mca"));
+        if (files == null) {
+            throw new IOException("无法读取区域目录: " + regionDir);
+        }
+
+        List<Long> present = new ArrayList<>();
+        List<File> changed = new ArrayList<>();
+        for (File file : files) {
+            int[] coords;
+            try {
+                coords = FileUtils.parseRegionCoordinates(file.getName());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            long key = key(coords[0], coords[1]);
+            present.add(key);
+            RegionEntry entry = regions.get(key);
+            if (entry == null || !entry.matches(file)) {
+                changed.add(file);
+            }
+        }
+        regions.keySet().retainAll(present);
+
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = IoExecutors.newIoExecutor("world-index", Math.max(1, workers));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File file : changed) {
+                futures.add(executor.submit(() -> {
+                    readEntry(file);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    System.err.println("读取区域头部失败: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("构建存档索引被中断");
+        } finally {
+            executor.shutdownNow();
+        }
+        return changed.size();
+    }
+
+    /**
+     * 读取区域文件头部并更新索引，先记录文件状态，读取期间文件被改写时下次更新会重新读取
+     */
+    private RegionEntry readEntry(File file) throws IOException {
+        int[] coords = FileUtils.parseRegionCoordinates(file.getName());
+        long length = file.length();
+        long lastModified = file.lastModified();
+        RegionEntry entry = new RegionEntry(coords[0], coords[1], length, lastModified, RegionHeader.read(file));
+        regions.put(key(coords[0], coords[1]), entry);
+        return entry;
+    }
+
+    /**
+     * 获取区域文件的头部，文件未变化时直接使用索引中的头部，否则读取并更新索引
+     */
+    public RegionHeader getHeader(File regionFile) throws IOException {
+        int[] coords;
+        try {
+            coords = FileUtils.parseRegionCoordinates(regionFile.getName());
+        } catch (IllegalArgumentException e) {
+            return RegionHeader.read(regionFile);
+        }
+        RegionEntry entry = regions.get(key(coords[0], coords[1]));
+        if (entry != null && entry.matches(regionFile)) {
+            return entry.header;
+        }
+        return readEntry(regionFile).header;
+    }
+
+    /**
+     * 丢弃区域的索引，下次访问时重新读取头部
+     */
+    public void invalidate(File regionFile) {
+        try {
+            int[] coords = FileUtils.parseRegionCoordinates(regionFile.getName());
+            regions.remove(key(coords[0], coords[1]));
+        } catch (IllegalArgumentException e) {
+            // 不是区域文件，索引中没有
+        }
+    }
+
+    /**
+     * 区域文件是否存在且至少有一个区块
+     */
+    public boolean hasRegion(int regionX, int regionZ) {
+        RegionEntry entry = regions.get(key(regionX, regionZ));
+        return entry != null && entry.chunkCount > 0;
+    }
+
+    /**
+     * 区块（世界区块坐标）是否已生成
+     */
+    public boolean chunkExists(int chunkX, int chunkZ) {
+        RegionEntry entry = regions.get(key(chunkX >> 5, chunkZ >> 5));
+        return entry != null && entry.header.chunkExists(chunkX & 31, chunkZ & 31);
+    }
+
+    /**
+     * 区块最后保存的时间戳（秒），区块不存在时返回0
+     */
+    public int getTimestamp(int chunkX, int chunkZ) {
+        RegionEntry entry = regions.get(key(chunkX >> 5, chunkZ >> 5));
+        return entry != null && entry.header.chunkExists(chunkX & 31, chunkZ & 31)
+            ? entry.header.getTimestamp(chunkX & 31, chunkZ & 31) : 0;
+    }
+
+    /**
+     * 区块数据在区域文件中占用的字节数（按4KB扇区计），区块不存在时返回0
+     */
+    public int getAllocatedBytes(int chunkX, int chunkZ) {
+        RegionEntry entry = regions.get(key(chunkX >> 5, chunkZ >> 5));
+        return entry != null && entry.header.chunkExists(chunkX & 31, chunkZ & 31)
+            ? entry.header.getSectorCount(chunkX & 31, chunkZ & 31) * 4096 : 0;
+    }
+
+    /**
+     * 区域中已生成区块的位图（1024位，索引为 z * 32 + x），区域不存在时返回null
+     */
+    public long[] getChunkMask(int regionX, int regionZ) {
+        RegionEntry entry = regions.get(key(regionX, regionZ));
+        return entry != null ? entry.mask.clone() : null;
+    }
+
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    public long getChunkCount() {
+        long count = 0;
+        for (RegionEntry entry : regions.values()) {
+            count += entry.chunkCount;
+        }
+        return count;
+    }
+
+    /**
+     * 已生成区块的范围 [minChunkX, minChunkZ, maxChunkX, maxChunkZ]（包含两端），没有区块时返回null
+     */
+    public int[] getChunkBounds() {
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (RegionEntry entry : regions.values()) {
+            for (int index = 0; index < 1024; index++) {
+                if ((entry.mask[index >> 6] & (1L << index)) != 0) {
+                    int chunkX = entry.regionX * 32 + (index & 31);
+                    int chunkZ = entry.regionZ * 32 + (index >> 5);
+                    minX = Math.min(minX, chunkX);
+                    minZ = Math.min(minZ, chunkZ);
+                    maxX = Math.max(maxX, chunkX);
+                    maxZ = Math.max(maxZ, chunkZ);
+                }
+            }
+        }
+        return minX == Integer.MAX_VALUE ? null : new int[]{minX, minZ, maxX, maxZ};
+    }
+
+    /**
+     * 生成已探索区域图，每个像素对应一个区块，范围为区块坐标 [minChunkX, maxChunkX] x [minChunkZ, maxChunkZ]
+     */
+    public BufferedImage renderExploredMap(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                           int exploredArgb, int emptyArgb) {
+        int width = maxChunkX - minChunkX + 1;
+        int height = maxChunkZ - minChunkZ + 1;
+        int[] pixels = new int[width * height];
+        java.util.Arrays.fill(pixels, emptyArgb);
+        for (RegionEntry entry : regions.values()) {
+            int baseX = entry.regionX * 32 - minChunkX;
+            int baseZ = entry.regionZ * 32 - minChunkZ;
+            if (baseX + 32 <= 0 || baseZ + 32 <= 0 || baseX >= width || baseZ >= height) {
+                continue;
+            }
+            for (int index = 0; index < 1024; index++) {
+                if ((entry.mask[index >> 6] & (1L << index)) == 0) {
+                    continue;
+                }
+                int x = baseX + (index & 31);
+                int z = baseZ + (index >> 5);
+                if (x >= 0 && z >= 0 && x < width && z < height) {
+                    pixels[z * width + x] = exploredArgb;
+                }
+            }
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * 保存索引到缓存文件，每个区域只保存位图和已生成区块的位置与时间戳
+     */
+    public void save(File cacheFile) throws IOException {
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("无法创建目录: " + parent);
+        }
+        List<RegionEntry> entries = new ArrayList<>(regions.values());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(entries.size());
+            for (RegionEntry entry : entries) {
+                out.writeInt(entry.regionX);
+                out.writeInt(entry.regionZ);
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+                for (long word : entry.mask) {
+                    out.writeLong(word);
+                }
+                for (int index = 0; index < 1024; index++) {
+                    if ((entry.mask[index >> 6] & (1L << index)) != 0) {
+                        int x = index & 31;
+                        int z = index >> 5;
+                        out.writeInt((entry.header.getSectorOffset(x, z) << 8) | entry.header.getSectorCount(x, z));
+                        out.writeInt(entry.header.getTimestamp(x, z));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 从缓存文件加载索引，返回加载的区域数，缓存文件不存在或格式不符时返回0
+     * 加载后应调用update()，变化过的区域会被重新读取
+     */
+    public synchronized int load(File cacheFile) {
+        if (!cacheFile.isFile()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return 0;
+            }
+            int count = in.readInt();
+            List<RegionEntry> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int regionX = in.readInt();
+                int regionZ = in.readInt();
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                long[] mask = new long[16];
+                for (int j = 0; j < 16; j++) {
+                    mask[j] = in.readLong();
+                }
+                int[] locations = new int[1024];
+                int[] timestamps = new int[1024];
+                for (int index = 0; index < 1024; index++) {
+                    if ((mask[index >> 6] & (1L << index)) != 0) {
+                        locations[index] = in.readInt();
+                        timestamps[index] = in.readInt();
+                    }
+                }
+                loaded.add(new RegionEntry(regionX, regionZ, length, lastModified,
+                    RegionHeader.fromArrays(locations, timestamps)));
+            }
+            for (RegionEntry entry : loaded) {
+                regions.put(key(entry.regionX, entry.regionZ), entry);
+            }
+            return loaded.size();
+        } catch (IOException e) {
+            System.err.println("读取存档索引缓存失败: " + cacheFile.getName() + " - " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.minecraft.selector.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 瓦片缓存
+ * 内存中按字节数限制的LRU缓存 + 磁盘缓存，条目以ETag校验
+ */
+public class TileCache {
+
+    private final long maxMemoryBytes;
+    private final File diskDir;
+
+    // 访问顺序的LinkedHashMap实现LRU
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes = 0;
+
+    /**
+     * 缓存条目：PNG数据及其ETag
+     */
+    public static class Entry {
+        private final String etag;
+        private final byte[] png;
+
+        public Entry(String etag, byte[] png) {
+            this.etag = etag;
+            this.png = png;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public byte[] getPng() {
+            return png;
+        }
+    }
+
+    /**
+     * @param maxMemoryBytes 内存缓存上限（字节）
+     * @param diskDir 磁盘缓存目录，为null时不使用磁盘缓存
+     */
+    public TileCache(long maxMemoryBytes, File diskDir) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskDir = diskDir;
+        if (diskDir != null && !diskDir.exists()) {
+            diskDir.mkdirs();
+        }
+    }
+
+    /**
+     * 查找瓦片，ETag不匹配的条目视为失效
+     */
+    public Entry get(int z, int x, int y, String etag) {
+        String key = key(z, x, y);
+
+        synchronized (this) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.etag.equals(etag)) {
+                    return entry;
+                }
+                remove(key);
+            }
+        }
+
+        // 内存未命中，尝试磁盘缓存
+        if (diskDir != null) {
+            File file = diskFile(z, x, y, etag);
+            if (file.isFile()) {
+                try {
+                    Entry entry = new Entry(etag, Files.readAllBytes(file.toPath()));
+                    putMemory(key, entry);
+                    return entry;
+                } catch (IOException e) {
+                    System.err.println("读取磁盘瓦片缓存失败: " + file + " - " + e.getMessage());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 写入瓦片（内存和磁盘）
+     */
+    public void put(int z, int x, int y, Entry entry) {
+        putMemory(key(z, x, y), entry);
+
+        if (diskDir != null) {
+            File file = diskFile(z, x, y, entry.etag);
+            try {
+                File parent = file.getParentFile();
+                if (!parent.exists()) {
+                    parent.mkdirs();
+                }
+
+                // 删除同一瓦片的旧版本
+                String prefix = y + ".";
+                File[] stale = parent.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".png"));
+                if (stale != null) {
+                    for (File old : stale) {
+                        old.delete();
+                    }
+                }
+
+                // 先写临时文件再原子替换，避免并发读到半个文件
+                File tmp = new File(parent, file.getName() + ".tmp" + Thread.currentThread().getId());
+                Files.write(tmp.toPath(), entry.png);
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("写入磁盘瓦片缓存失败: " + file + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取内存缓存占用字节数
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * 获取内存缓存条目数
+     */
+    public synchronized int getMemoryEntryCount() {
+        return memory.size();
+    }
+
+    private synchronized void putMemory(String key, Entry entry) {
+        remove(key);
+        memory.put(key, entry);
+        memoryBytes += entry.png.length;
+
+        // 超出上限时淘汰最久未使用的条目
+        Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            memoryBytes -= eldest.getValue().png.length;
+            it.remove();
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = memory.remove(key);
+        if (old != null) {
+            memoryBytes -= old.png.length;
+        }
+    }
+
+    private File diskFile(int z, int x, int y, String etag) {
+        return new File(diskDir, z + File.separator + x + File.separator + y + "." + etag + ".png");
+    }
+
+    private static String key(int z, int x, int y) {
+        return z + "/" + x + "/" + y;
+    }
+}
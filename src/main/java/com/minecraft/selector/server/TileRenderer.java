@@ -0,0 +1,257 @@
+package com.minecraft.selector.server;
+
+import com.minecraft.selector.core.MapLayer;
+import com.minecraft.selector.core.MapRenderer;
+import com.minecraft.selector.metrics.TileCompositeEvent;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 瓦片渲染器
+ * 按需渲染区域图像并合成为 z/x/y 瓦片，同一区域只解码一次
+ */
+public class TileRenderer {
+
+    // 瓦片像素大小
+    public static final int TILE_SIZE = 256;
+
+    // 原始精度的缩放级别（1像素 = 1方块），更小的级别每级缩小一半
+    public static final int NATIVE_ZOOM = 4;
+
+    // 每个区域的方块大小
+    private static final int REGION_BLOCKS = 512;
+
+    private final File regionDir;
+    private final int maxCachedRegions;
+
+    // 空闲的渲染器，每次区域渲染独占一个，避免并发渲染互相覆盖进度等状态
+    private final BlockingQueue<MapRenderer> renderers;
+    private final List<MapRenderer> allRenderers = new ArrayList<>();
+
+    // 正在渲染或已完成的区域图像，并发请求共享同一个Future
+    private final Map<String, CompletableFuture<RegionImage>> inFlight = new ConcurrentHashMap<>();
+
+    // 已渲染区域图像的LRU缓存
+    private final LinkedHashMap<String, RegionImage> regionImages = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 已渲染的区域图像及其对应的文件时间戳
+     */
+    private static class RegionImage {
+        final long lastModified;
+        final BufferedImage image;
+
+        RegionImage(long lastModified, BufferedImage image) {
+            this.lastModified = lastModified;
+            this.image = image;
+        }
+    }
+
+    /**
+     * @param regionDir 存档的region目录
+     * @param rendererCount 可同时渲染的区域数，每个渲染器分到一部分解码线程
+     * @param maxCachedRegions 内存中缓存的区域图像数
+     */
+    public TileRenderer(File regionDir, int rendererCount, int maxCachedRegions) {
+        this.regionDir = regionDir;
+        this.maxCachedRegions = maxCachedRegions;
+        this.renderers = new ArrayBlockingQueue<>(rendererCount);
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8) / rendererCount);
+        for (int i = 0; i < rendererCount; i++) {
+            MapRenderer renderer = new MapRenderer(workers, null);
+            allRenderers.add(renderer);
+            renderers.add(renderer);
+        }
+    }
+
+    /**
+     * 关闭所有渲染器
+     */
+    public void shutdown() {
+        for (MapRenderer renderer : allRenderers) {
+            renderer.shutdown();
+        }
+    }
+
+    /**
+     * 每像素对应的方块数
+     */
+    public static int blocksPerPixel(int zoom) {
+        return 1 << (NATIVE_ZOOM - zoom);
+    }
+
+    /**
+     * 计算瓦片的ETag，由覆盖的所有区域文件的时间戳和大小决定
+     * 返回null表示瓦片范围内没有任何区域文件
+     */
+    public String computeEtag(int zoom, int tileX, int tileY) {
+        int[] range = regionRange(zoom, tileX, tileY);
+        long hash = 1125899906842597L + zoom;
+        boolean any = false;
+
+        for (int rz = range[1]; rz <= range[3]; rz++) {
+            for (int rx = range[0]; rx <= range[2]; rx++) {
+                File file = regionFile(rx, rz);
+                long modified = file.lastModified();
+                if (modified == 0L) {
+                    continue;
+                }
+                any = true;
+                hash = 31 * hash + rx;
+                hash = 31 * hash + rz;
+                hash = 31 * hash + modified;
+                hash = 31 * hash + file.length();
+            }
+        }
+
+        return any ? Long.toHexString(hash) : null;
+    }
+
+    /**
+     * 渲染瓦片并编码为PNG
+     */
+    public byte[] renderTile(int zoom, int tileX, int tileY) throws IOException, InterruptedException {
+        int bpp = blocksPerPixel(zoom);
+        int span = TILE_SIZE * bpp;
+        long tileMinX = (long) tileX * span;
+        long tileMinZ = (long) tileY * span;
+        int[] range = regionRange(zoom, tileX, tileY);
+
+        TileCompositeEvent event = new TileCompositeEvent();
+        event.begin();
+        int composited = 0;
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = tile.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        try {
+            for (int rz = range[1]; rz <= range[3]; rz++) {
+                for (int rx = range[0]; rx <= range[2]; rx++) {
+                    BufferedImage regionImage = getRegionImage(rx, rz, Math.min(8, bpp));
+                    if (regionImage == null) {
+                        continue;
+                    }
+
+                    // 区域在瓦片中的像素位置
+                    int dx = (int) (((long) rx * REGION_BLOCKS - tileMinX) / bpp);
+                    int dy = (int) (((long) rz * REGION_BLOCKS - tileMinZ) / bpp);
+                    int size = REGION_BLOCKS / bpp;
+
+                    g2d.drawImage(regionImage, dx, dy, dx + size, dy + size,
+                        0, 0, regionImage.getWidth(), regionImage.getHeight(), null);
+                    composited++;
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.target = "tile " + zoom + "/" + tileX + "/" + tileY;
+            event.width = TILE_SIZE;
+            event.height = TILE_SIZE;
+            event.regions = composited;
+            event.commit();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        ImageIO.write(tile, "PNG", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 获取区域图像，已缓存且文件未变化时直接返回，否则渲染
+     * 多个瓦片同时请求同一区域时只渲染一次
+     */
+    private BufferedImage getRegionImage(int regionX, int regionZ, int sampleInterval)
+            throws IOException, InterruptedException {
+        File file = regionFile(regionX, regionZ);
+        long modified = file.lastModified();
+        if (modified == 0L) {
+            return null;
+        }
+
+        String key = regionX + "," + regionZ + "@" + sampleInterval;
+
+        synchronized (regionImages) {
+            RegionImage cached = regionImages.get(key);
+            if (cached != null && cached.lastModified == modified) {
+                return cached.image;
+            }
+        }
+
+        CompletableFuture<RegionImage> future = new CompletableFuture<>();
+        CompletableFuture<RegionImage> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing == null) {
+            // 当前线程负责渲染
+            MapRenderer mapRenderer = null;
+            try {
+                mapRenderer = renderers.take();
+                MapLayer layer = mapRenderer.renderLayer(file.getAbsolutePath(), 32, sampleInterval);
+                String[][] topBlocks = layer.getBlocks();
+                BufferedImage image = topBlocks != null ? mapRenderer.renderToPng(layer, sampleInterval) : null;
+                RegionImage result = new RegionImage(modified, image);
+
+                if (image != null) {
+                    synchronized (regionImages) {
+                        regionImages.put(key, result);
+                        while (regionImages.size() > maxCachedRegions) {
+                            String eldest = regionImages.keySet().iterator().next();
+                            regionImages.remove(eldest);
+                        }
+                    }
+                }
+                future.complete(result);
+                return image;
+            } catch (Throwable e) {
+                // 包括Error和中断，保证等待同一区域的请求不会一直阻塞
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, future);
+                if (mapRenderer != null) {
+                    renderers.add(mapRenderer);
+                }
+            }
+        }
+
+        // 等待其他线程的渲染结果
+        try {
+            RegionImage result = existing.get();
+            return result.lastModified == modified ? result.image : getRegionImage(regionX, regionZ, sampleInterval);
+        } catch (ExecutionException e) {
+            throw new IOException("渲染区域 r." + regionX + "." + regionZ + ".mca 失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 计算瓦片覆盖的区域范围 [minRX, minRZ, maxRX, maxRZ]
+     */
+    private static int[] regionRange(int zoom, int tileX, int tileY) {
+        long span = (long) TILE_SIZE * blocksPerPixel(zoom);
+        long minX = tileX * span;
+        long minZ = tileY * span;
+        return new int[]{
+            (int) Math.floorDiv(minX, REGION_BLOCKS),
+            (int) Math.floorDiv(minZ, REGION_BLOCKS),
+            (int) Math.floorDiv(minX + span - 1, REGION_BLOCKS),
+            (int) Math.floorDiv(minZ + span - 1, REGION_BLOCKS)
+        };
+    }
+
+    private File regionFile(int regionX, int regionZ) {
+        return new File(regionDir, String.format("r.%d.%d.mca", regionX, regionZ));
+    }
+}
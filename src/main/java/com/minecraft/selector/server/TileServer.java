@@ -0,0 +1,227 @@
+package com.minecraft.selector.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地HTTP瓦片服务器
+ * 使用JDK内置的HttpServer，按需从区域文件渲染 z/x/y 地图瓦片
+ * 浏览页面需要从 unpkg.com 加载固定版本的Leaflet，浏览器按子资源完整性（SRI）校验其内容；
+ * 离线时瓦片接口仍可用，但浏览页面无法显示
+ */
+public class TileServer {
+
+    // 浏览页面使用的Leaflet版本及其官方发布的SRI哈希，升级版本时必须同时更新哈希
+    private static final String LEAFLET_URL = "https://unpkg.com/leaflet@1.9.4/dist/";
+    private static final String LEAFLET_CSS_INTEGRITY = "sha256-p4NxAoJBhIIN+hmNHrzRCf9tD/miZyoHS5obTRR9BMY=";
+    private static final String LEAFLET_JS_INTEGRITY = "sha256-20nQCchB9co0qIjJZRGuk2/Z9VM+kNiyxNV1lvTlZBo=";
+
+    private static final Pattern TILE_PATH = Pattern.compile("^/tiles/(\\d+)/(-?\\d+)/(-?\\d+)\\.png$");
+
+    private final int port;
+    private final TileRenderer tileRenderer;
+    private final TileCache tileCache;
+
+    // 有界渲染队列，队列满时拒绝请求而不是无限堆积
+    private final ThreadPoolExecutor renderExecutor;
+    private final ExecutorService httpExecutor;
+
+    // 同一瓦片的并发请求共享同一个渲染任务
+    private final ConcurrentHashMap<String, Future<TileCache.Entry>> pendingTiles = new ConcurrentHashMap<>();
+
+    private HttpServer httpServer;
+
+    /**
+     * @param worldPath 存档目录
+     * @param port 监听端口
+     * @param cacheDir 磁盘瓦片缓存目录，为null时只使用内存缓存
+     * @param renderThreads 并行渲染的瓦片数
+     * @param queueCapacity 渲染队列容量
+     */
+    public TileServer(String worldPath, int port, File cacheDir, int renderThreads, int queueCapacity) {
+        this.port = port;
+        this.tileRenderer = new TileRenderer(new File(worldPath, "region"), renderThreads, 64);
+        this.tileCache = new TileCache(128L * 1024 * 1024, cacheDir);
+        this.renderExecutor = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(16, queueCapacity));
+    }
+
+    /**
+     * 启动服务器
+     */
+    public void start() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/tiles/", this::handleTile);
+        httpServer.createContext("/", this::handleIndex);
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+
+        System.out.println("瓦片服务器已启动: http://localhost:" + port + "/");
+    }
+
+    /**
+     * 停止服务器
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(1);
+        }
+        renderExecutor.shutdownNow();
+        httpExecutor.shutdownNow();
+        tileRenderer.shutdown();
+    }
+
+    /**
+     * 处理瓦片请求
+     */
+    private void handleTile(HttpExchange exchange) throws IOException {
+        try {
+            Matcher matcher = TILE_PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                sendEmpty(exchange, 404);
+                return;
+            }
+
+            int z = Integer.parseInt(matcher.group(1));
+            int x = Integer.parseInt(matcher.group(2));
+            int y = Integer.parseInt(matcher.group(3));
+
+            if (z > TileRenderer.NATIVE_ZOOM) {
+                sendEmpty(exchange, 404);
+                return;
+            }
+
+            String etag = tileRenderer.computeEtag(z, x, y);
+            if (etag == null) {
+                // 瓦片范围内没有区域文件
+                sendEmpty(exchange, 404);
+                return;
+            }
+
+            String quotedEtag = "\"" + etag + "\"";
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (quotedEtag.equals(ifNoneMatch)) {
+                exchange.getResponseHeaders().set("ETag", quotedEtag);
+                sendEmpty(exchange, 304);
+                return;
+            }
+
+            TileCache.Entry entry = tileCache.get(z, x, y, etag);
+            if (entry == null) {
+                entry = renderTile(z, x, y, etag);
+                if (entry == null) {
+                    // 渲染队列已满
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendEmpty(exchange, 503);
+                    return;
+                }
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("ETag", quotedEtag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, entry.getPng().length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(entry.getPng());
+            }
+        } catch (Exception e) {
+            System.err.println("处理瓦片请求失败: " + exchange.getRequestURI() + " - " + e.getMessage());
+            sendEmpty(exchange, 500);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 将瓦片提交到渲染队列并等待结果，队列已满时返回null
+     */
+    private TileCache.Entry renderTile(int z, int x, int y, String etag) throws Exception {
+        String key = z + "/" + x + "/" + y + "@" + etag;
+
+        Future<TileCache.Entry> future = pendingTiles.get(key);
+        if (future == null) {
+            FutureTask<TileCache.Entry> task = new FutureTask<>(() -> {
+                try {
+                    TileCache.Entry entry = new TileCache.Entry(etag, tileRenderer.renderTile(z, x, y));
+                    tileCache.put(z, x, y, entry);
+                    return entry;
+                } finally {
+                    pendingTiles.remove(key);
+                }
+            });
+
+            future = pendingTiles.putIfAbsent(key, task);
+            if (future == null) {
+                try {
+                    renderExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    pendingTiles.remove(key, task);
+                    return null;
+                }
+                future = task;
+            }
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 返回一个基于Leaflet的简单浏览页面
+     * Leaflet从CDN加载并带有integrity属性，内容被篡改时浏览器拒绝执行
+     */
+    private void handleIndex(HttpExchange exchange) throws IOException {
+        try {
+            if (!"/".equals(exchange.getRequestURI().getPath())) {
+                sendEmpty(exchange, 404);
+                return;
+            }
+
+            // Leaflet的CRS.Simple中1个单位 = 16方块，使原始精度正好对应缩放级别NATIVE_ZOOM
+            String html = "<!DOCTYPE html>\n"
+                + "<html><head><meta charset=\"utf-8\"><title>Minecraft 地图</title>\n"
+                + "<link rel=\"stylesheet\" href=\"" + LEAFLET_URL + "leaflet.css\"\n"
+                + "  integrity=\"" + LEAFLET_CSS_INTEGRITY + "\" crossorigin=\"anonymous\"/>\n"
+                + "<script src=\"" + LEAFLET_URL + "leaflet.js\"\n"
+                + "  integrity=\"" + LEAFLET_JS_INTEGRITY + "\" crossorigin=\"anonymous\"></script>\n"
+                + "<style>html,body,#map{height:100%;margin:0;background:#202020}</style></head>\n"
+                + "<body><div id=\"map\"></div><script>\n"
+                + "var map = L.map('map', {crs: L.CRS.Simple, minZoom: 0, maxZoom: " + (TileRenderer.NATIVE_ZOOM + 2) + "});\n"
+                + "L.tileLayer('/tiles/{z}/{x}/{y}.png', {tileSize: " + TileRenderer.TILE_SIZE
+                + ", maxNativeZoom: " + TileRenderer.NATIVE_ZOOM + ", noWrap: true}).addTo(map);\n"
+                + "map.setView([0, 0], " + TileRenderer.NATIVE_ZOOM + ");\n"
+                + "</script></body></html>\n";
+
+            byte[] body = html.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) {
+        try {
+            exchange.sendResponseHeaders(status, -1);
+        } catch (IOException e) {
+            // 响应头已发送，忽略
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.minecraft.selector.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方块模型顶面解析测试，使用内存中精简的原版模型
+ */
+public class BlockModelResolverTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, JsonNode> blockstates = new HashMap<>();
+    private final Map<String, JsonNode> models = new HashMap<>();
+
+    private void blockstate(String block, String json) throws IOException {
+        blockstates.put("minecraft:" + block, mapper.readTree(json.replace('\'', '"')));
+    }
+
+    private void model(String path, String json) throws IOException {
+        models.put("minecraft:" + path, mapper.readTree(json.replace('\'', '"')));
+    }
+
+    @BeforeEach
+    void loadModels() throws IOException {
+        model("block/cube", "{'elements': [{'from': [0, 0, 0], 'to': [16, 16, 16], 'faces': {"
+            + "'up': {'texture': '#up', 'cullface': 'up'}, 'north': {'texture': '#north', 'cullface': 'north'}}}]}");
+        model("block/cube_column", "{'parent': 'block/cube', 'textures': {'particle': '#side', 'up': '#end', 'north': '#side'}}");
+        model("block/oak_log", "{'parent': 'minecraft:block/cube_column', "
+            + "'textures': {'end': 'minecraft:block/oak_log_top', 'side': 'minecraft:block/oak_log'}}");
+        blockstate("oak_log", "{'variants': {'axis=x': {'model': 'minecraft:block/oak_log', 'x': 90}, "
+            + "'axis=y': {'model': 'minecraft:block/oak_log'}}}");
+
+        model("block/cross", "{'textures': {'particle': '#cross'}, 'elements': [{'from': [0.8, 0, 8], 'to': [15.2, 16, 8], "
+            + "'faces': {'north': {'texture': '#cross'}, 'south': {'texture': '#cross'}}}]}");
+        model("block/tinted_cross", "{'textures': {'particle': '#cross'}, 'elements': [{'from': [0.8, 0, 8], 'to': [15.2, 16, 8], "
+            + "'faces': {'north': {'texture': '#cross', 'tintindex': 0}, 'south': {'texture': '#cross', 'tintindex': 0}}}]}");
+        model("block/fern", "{'parent': 'minecraft:block/tinted_cross', 'textures': {'cross': 'minecraft:block/fern'}}");
+        blockstate("fern", "{'variants': {'': {'model': 'minecraft:block/fern'}}}");
+        model("block/sugar_cane", "{'parent': 'minecraft:block/cross', 'textures': {'cross': 'minecraft:block/sugar_cane'}}");
+        blockstate("sugar_cane", "{'variants': {'age=0': {'model': 'minecraft:block/sugar_cane'}}}");
+        model("block/dandelion", "{'parent': 'minecraft:block/cross', 'textures': {'cross': 'minecraft:block/dandelion'}}");
+        blockstate("dandelion", "{'variants': {'': {'model': 'minecraft:block/dandelion'}}}");
+
+        model("block/water", "{'textures': {'particle': 'block/water_still'}}");
+        blockstate("water", "{'variants': {'level=0': {'model': 'minecraft:block/water'}}}");
+    }
+
+    private BlockModelResolver resolver() {
+        return new BlockModelResolver(blockstates, models);
+    }
+
+    @Test
+    @DisplayName("原木取不旋转变体中最高的朝上面的纹理")
+    void oakLogUsesTopTexture() {
+        BlockModelResolver.TopFace face = resolver().resolveBlock("minecraft:oak_log");
+        assertNotNull(face);
+        assertEquals("minecraft:block/oak_log_top", face.getTexture());
+        assertFalse(face.isTinted());
+        assertFalse(face.isGuessed());
+    }
+
+    @Test
+    @DisplayName("十字形植物按cross纹理猜测，tinted_cross和注册了着色的方块视为着色")
+    void crossPlantsInferTint() {
+        BlockModelResolver resolver = resolver();
+        BlockModelResolver.TopFace fern = resolver.resolveBlock("minecraft:fern");
+        assertNotNull(fern);
+        assertEquals("minecraft:block/fern", fern.getTexture());
+        assertTrue(fern.isGuessed());
+        assertTrue(fern.isTinted());
+
+        BlockModelResolver.TopFace sugarCane = resolver.resolveBlock("minecraft:sugar_cane");
+        assertNotNull(sugarCane);
+        assertTrue(sugarCane.isTinted());
+
+        BlockModelResolver.TopFace dandelion = resolver.resolveBlock("minecraft:dandelion");
+        assertNotNull(dandelion);
+        assertEquals("minecraft:block/dandelion", dandelion.getTexture());
+        assertFalse(dandelion.isTinted());
+    }
+
+    @Test
+    @DisplayName("只有particle纹理的水不解析出顶面")
+    void waterParticleIgnored() {
+        assertNull(resolver().resolveBlock("minecraft:water"));
+        assertFalse(resolver().resolveAll().containsKey("minecraft:water"));
+    }
+
+    @Test
+    @DisplayName("模组植物继承tinted_cross时视为着色，缺少原版父模型时也一样")
+    void modTintedCross() throws IOException {
+        models.put("examplemod:block/reed", mapper.readTree(
+            "{\"parent\": \"minecraft:block/tinted_cross\", \"textures\": {\"cross\": \"examplemod:block/reed\"}}"));
+        blockstates.put("examplemod:reed", mapper.readTree(
+            "{\"variants\": {\"\": {\"model\": \"examplemod:block/reed\"}}}"));
+        BlockModelResolver.TopFace reed = resolver().resolveBlock("examplemod:reed");
+        assertNotNull(reed);
+        assertEquals("examplemod:block/reed", reed.getTexture());
+        assertTrue(reed.isTinted());
+
+        models.remove("minecraft:block/tinted_cross");
+        reed = resolver().resolveBlock("examplemod:reed");
+        assertNotNull(reed);
+        assertTrue(reed.isTinted());
+    }
+}
@@ -0,0 +1,188 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.region.Block;
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.Region;
+import com.minecraft.selector.region.RegionWriter;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方块搜索测试：调色板跳过、索引的使用和失效
+ */
+public class BlockSearchTest {
+
+    private static final long MODIFIED = 1700000000000L;
+
+    @TempDir
+    File tempDir;
+
+    private final SyntheticWorldGenerator generator = new SyntheticWorldGenerator(12345L);
+
+    /**
+     * 只有Y=0区段、全部为指定方块的区块
+     */
+    private static NBTReader.NBTCompound uniformChunk(int chunkX, int chunkZ, String blockId) {
+        NBTReader.NBTCompound root = new NBTReader.NBTCompound("");
+        root.put("xPos", new NBTReader.NBTInt("xPos", chunkX));
+        root.put("zPos", new NBTReader.NBTInt("zPos", chunkZ));
+        NBTReader.NBTCompound entry = new NBTReader.NBTCompound("");
+        entry.put("Name", new NBTReader.NBTString("Name", blockId));
+        NBTReader.NBTList palette = new NBTReader.NBTList("palette", NBTReader.TagType.TAG_Compound);
+        palette.add(entry);
+        NBTReader.NBTCompound blockStates = new NBTReader.NBTCompound("block_states");
+        blockStates.put("palette", palette);
+        NBTReader.NBTCompound section = new NBTReader.NBTCompound("");
+        section.put("Y", new NBTReader.NBTByte("Y", (byte) 0));
+        section.put("block_states", blockStates);
+        NBTReader.NBTList sections = new NBTReader.NBTList("sections", NBTReader.TagType.TAG_Compound);
+        sections.add(section);
+        root.put("sections", sections);
+        return root;
+    }
+
+    /**
+     * 写入区域 r.0.0：两个合成区块加上一个全是金块的区块（区域内坐标 goldX, goldZ）
+     */
+    private File writeRegion(File regionDir, int goldX, int goldZ) throws Exception {
+        RegionWriter writer = new RegionWriter(RegionWriter.COMPRESSION_ZLIB);
+        writer.putChunk(0, 0, generator.generateChunk(0, 0), 1);
+        writer.putChunk(1, 0, generator.generateChunk(1, 0), 1);
+        writer.putChunk(goldX, goldZ, uniformChunk(goldX, goldZ, "minecraft:gold_block"), 1);
+        assertTrue(regionDir.isDirectory() || regionDir.mkdirs());
+        File file = new File(regionDir, "r.0.0.mca");
+        writer.writeTo(file);
+        assertTrue(file.setLastModified(MODIFIED));
+        return file;
+    }
+
+    /**
+     * 没有金块的区域 r.1.0
+     */
+    private File writePlainRegion(File regionDir) throws Exception {
+        generator.setChunksPerRegionSide(2);
+        File file = new File(regionDir, "r.1.0.mca");
+        generator.generateRegion(1, 0).writeTo(file);
+        return file;
+    }
+
+    private static Set<String> search(BlockSearch search, List<File> regionFiles, Collection<String> blockIds) {
+        Set<String> matches = new HashSet<>();
+        long found = search.search(regionFiles, blockIds, (blockId, x, y, z) ->
+            assertTrue(matches.add(blockId + "," + x + "," + y + "," + z), "重复的结果"));
+        assertEquals(matches.size(), found);
+        return matches;
+    }
+
+    /**
+     * 逐个方块读取区域得到的结果
+     */
+    private static Set<String> bruteForce(List<File> regionFiles, Set<String> targets) throws Exception {
+        Set<String> matches = new HashSet<>();
+        for (File file : regionFiles) {
+            int regionX = Integer.parseInt(file.getName().split("\\.")[1]);
+            int regionZ = Integer.parseInt(file.getName().split("\\.")[2]);
+            Region region = Region.fromFile(file.getPath());
+            for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
+                for (int chunkX = 0; chunkX < 32; chunkX++) {
+                    if (!region.chunkExists(chunkX, chunkZ)) {
+                        continue;
+                    }
+                    Chunk chunk = region.getChunk(chunkX, chunkZ);
+                    for (Chunk.Section section : chunk.getSections()) {
+                        for (int i = 0; i < 4096; i++) {
+                            int x = i & 15, y = section.getY() * 16 + (i >> 8), z = (i >> 4) & 15;
+                            Block block = chunk.getBlock(x, y, z);
+                            String id = block.getId().replace("minecraft:", "");
+                            if (targets.contains(id)) {
+                                matches.add(id + "," + (regionX * 512 + chunkX * 16 + x) + "," + y + ","
+                                    + (regionZ * 512 + chunkZ * 16 + z));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Test
+    @DisplayName("搜索结果与逐个方块读取的结果一致，带不带索引都一样")
+    void matchesBruteForce() throws Exception {
+        File regionDir = new File(tempDir, "world/region");
+        List<File> files = Arrays.asList(writeRegion(regionDir, 0, 1), writePlainRegion(regionDir));
+        Set<String> targets = new HashSet<>(Arrays.asList("diamond_ore", "gold_block", "water"));
+        Set<String> expected = bruteForce(files, targets);
+        assertFalse(expected.isEmpty());
+
+        assertEquals(expected, search(new BlockSearch(2, null), files,
+            Arrays.asList("minecraft:diamond_ore", "gold_block", "water")));
+        BlockSearch indexed = new BlockSearch(2, new File(tempDir, "index"));
+        assertEquals(expected, search(indexed, files, targets));
+        assertEquals(expected, search(indexed, files, targets));
+    }
+
+    @Test
+    @DisplayName("第二次搜索按索引跳过区域和区块，区域文件改变后重建索引")
+    void indexSkipsAndInvalidates() throws Exception {
+        File regionDir = new File(tempDir, "world/region");
+        File region = writeRegion(regionDir, 0, 1);
+        List<File> files = Arrays.asList(region, writePlainRegion(regionDir));
+        List<String> gold = Arrays.asList("gold_block");
+        BlockSearch search = new BlockSearch(2, new File(tempDir, "index"));
+
+        assertEquals(4096, search(search, files, gold).size());
+        assertEquals(0, search.getRegionsSkipped());
+        assertEquals(0, search.getChunksSkipped());
+
+        // 有索引后：没有金块的区域整个跳过，有金块的区域只读取金块区块
+        assertEquals(4096, search(search, files, gold).size());
+        assertEquals(1, search.getRegionsSkipped());
+        assertEquals(2, search.getChunksSkipped());
+        assertEquals(1, search.getSectionsUnpacked());
+
+        // 修改时间改变后索引失效，重新读取所有区块
+        assertTrue(region.setLastModified(MODIFIED + 60000));
+        assertEquals(4096, search(search, files, gold).size());
+        assertEquals(1, search.getRegionsSkipped());
+        assertEquals(0, search.getChunksSkipped());
+        assertEquals(4096, search(search, files, gold).size());
+        assertEquals(2, search.getChunksSkipped());
+    }
+
+    @Test
+    @DisplayName("不同目录中同名、同长度、同修改时间的区域文件使用各自的索引")
+    void indexPerRegionDirectory() throws Exception {
+        File indexDir = new File(tempDir, "index");
+        File first = writeRegion(new File(tempDir, "a/region"), 0, 1);
+        File second = writeRegion(new File(tempDir, "b/region"), 1, 1);
+        assertEquals(first.length(), second.length());
+        List<String> gold = Arrays.asList("gold_block");
+
+        Set<String> firstMatches = search(new BlockSearch(1, indexDir), Arrays.asList(first), gold);
+        Set<String> secondMatches = search(new BlockSearch(1, indexDir), Arrays.asList(second), gold);
+        assertEquals(4096, firstMatches.size());
+        assertEquals(4096, secondMatches.size());
+        assertTrue(secondMatches.contains("gold_block,16,0,16"));
+        assertFalse(firstMatches.equals(secondMatches));
+
+        File[] subdirs = indexDir.listFiles(File::isDirectory);
+        assertNotNull(subdirs);
+        assertEquals(2, subdirs.length);
+        for (File subdir : subdirs) {
+            assertTrue(new File(subdir, "r.0.0.mca.palette").isFile());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.Region;
+import com.minecraft.selector.region.RegionWriter;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方块统计测试，使用合成存档
+ */
+public class BlockStatisticsTest {
+
+    // 合成存档默认的区段范围为 -4 到 19
+    private static final int SECTIONS_PER_CHUNK = 24;
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 319;
+
+    @TempDir
+    File tempDir;
+
+    /**
+     * 生成两个区域，每个区域 2x2 个区块
+     */
+    private List<File> generateRegions() throws Exception {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(12345L);
+        generator.setChunksPerRegionSide(2);
+        generator.setPaletteSize(20);
+        File first = new File(tempDir, "r.0.0.mca");
+        File second = new File(tempDir, "r.-1.0.mca");
+        generator.generateRegion(0, 0).writeTo(first);
+        generator.generateRegion(-1, 0).writeTo(second);
+        return Arrays.asList(first, second);
+    }
+
+    @Test
+    @DisplayName("按层统计每个区段的计数之和为4096")
+    void countIndicesByLayerCoversSection() throws Exception {
+        Region region = Region.fromFile(generateRegions().get(0).getPath());
+        int[] scratch = new int[4096];
+        int[] indices = new int[4096];
+        for (Chunk.Section section : region.getChunk(1, 1).getSections()) {
+            int paletteSize = section.getPalette().size();
+            int[] counts = new int[paletteSize * 16];
+            section.countIndicesByLayer(counts, scratch);
+
+            // 与逐个解包的结果一致
+            int[] expected = new int[paletteSize * 16];
+            section.unpackIndices(indices);
+            for (int i = 0; i < 4096; i++) {
+                expected[indices[i] * 16 + (i >> 8)]++;
+            }
+            assertArrayEquals(expected, counts, "区段 " + section.getY());
+            assertEquals(4096, Arrays.stream(counts).sum());
+        }
+    }
+
+    @Test
+    @DisplayName("统计的方块总数为 区块数 x 区段数 x 4096，每层为 区块数 x 256")
+    void collectCountsEveryBlock() throws Exception {
+        BlockStatistics statistics = new BlockStatistics(2);
+        statistics.collect(generateRegions());
+
+        assertEquals(8, statistics.getChunkCount());
+        assertEquals(8 * SECTIONS_PER_CHUNK, statistics.getSectionCount());
+
+        long total = 0;
+        for (long count : statistics.getTotals().values()) {
+            total += count;
+        }
+        assertEquals(8L * SECTIONS_PER_CHUNK * 4096, total);
+
+        for (int y = MIN_Y; y <= MAX_Y; y++) {
+            long layer = 0;
+            for (String blockId : statistics.getTotals().keySet()) {
+                layer += statistics.getBlockCount(blockId).getCountAt(y);
+            }
+            assertEquals(8L * 256, layer, "Y=" + y);
+        }
+
+        // 每个区域的计数之和与总数一致
+        Map<String, Long> merged = new HashMap<>();
+        for (Map<String, Long> region : statistics.getRegionTotals().values()) {
+            region.forEach((id, count) -> merged.merge(id, count, Long::sum));
+        }
+        assertEquals(statistics.getTotals(), merged);
+        assertEquals(2, statistics.getRegionTotals().size());
+    }
+
+    @Test
+    @DisplayName("没有区块的区域被跳过，不影响统计结果")
+    void emptyRegionSkipped() throws Exception {
+        List<File> regions = new java.util.ArrayList<>(generateRegions());
+        File empty = new File(tempDir, "r.5.5.mca");
+        new RegionWriter(RegionWriter.COMPRESSION_ZLIB).writeTo(empty);
+        regions.add(empty);
+
+        BlockStatistics statistics = new BlockStatistics(2);
+        statistics.collect(regions);
+        assertEquals(8, statistics.getChunkCount());
+        assertEquals(8 * SECTIONS_PER_CHUNK, statistics.getSectionCount());
+        assertTrue(statistics.getRegionTotals().get("r.5.5.mca").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Y范围限制只统计范围内的层")
+    void collectWithinYRange() throws Exception {
+        BlockStatistics statistics = new BlockStatistics(1);
+        statistics.collect(generateRegions(), 10, 25);
+
+        long total = 0;
+        for (long count : statistics.getTotals().values()) {
+            total += count;
+        }
+        assertEquals(8L * 16 * 256, total);
+        for (String blockId : statistics.getTotals().keySet()) {
+            assertEquals(0, statistics.getBlockCount(blockId).getCountAt(9));
+            assertEquals(0, statistics.getBlockCount(blockId).getCountAt(26));
+        }
+    }
+
+    @Test
+    @DisplayName("二进制文件保存后读回的统计结果不变")
+    void binaryRoundTrip() throws Exception {
+        BlockStatistics statistics = new BlockStatistics(2);
+        statistics.collect(generateRegions());
+        File file = new File(tempDir, "stats.bin");
+        statistics.writeBinary(file);
+
+        BlockStatistics loaded = BlockStatistics.readBinary(file);
+        assertEquals(statistics.getChunkCount(), loaded.getChunkCount());
+        assertEquals(statistics.getSectionCount(), loaded.getSectionCount());
+        assertEquals(statistics.getTotals(), loaded.getTotals());
+        assertEquals(statistics.getRegionTotals(), loaded.getRegionTotals());
+        for (String blockId : statistics.getTotals().keySet()) {
+            BlockStatistics.BlockCount expected = statistics.getBlockCount(blockId);
+            BlockStatistics.BlockCount actual = loaded.getBlockCount(blockId);
+            for (int y = MIN_Y; y <= MAX_Y; y++) {
+                assertEquals(expected.getCountAt(y), actual.getCountAt(y), blockId + " Y=" + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.ChunkCache;
+import com.minecraft.selector.region.RegionWriter;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地形阴影测试类
+ */
+public class ReliefShaderTest {
+
+    private static final int GRAY = 0xFF808080;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("测试平地不改变颜色")
+    void testFlatTerrainUnchanged() {
+        int size = 8;
+        short[] heights = new short[size * size];
+        Arrays.fill(heights, (short) 64);
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, GRAY);
+
+        ReliefShader.shade(pixels, heights, size, size, null, null);
+
+        for (int pixel : pixels) {
+            assertEquals(GRAY, pixel);
+        }
+    }
+
+    @Test
+    @DisplayName("测试高度差描边")
+    void testHeightDifferenceEdge() {
+        // 上半部分是高地（Y=100），下半部分是低地（Y=50）
+        int size = 10;
+        short[] heights = new short[size * size];
+        for (int z = 0; z < size; z++) {
+            Arrays.fill(heights, z * size, (z + 1) * size, (short) (z < size / 2 ? 100 : 50));
+        }
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, GRAY);
+
+        ReliefShader.shade(pixels, heights, size, size, null, null);
+
+        // 台阶下方的第一行变暗，其他行不变
+        int edge = pixels[5 * size + 5];
+        assertTrue((edge & 0xFF) < 0x80, "台阶处应该变暗");
+        assertEquals(0xFF000000, edge & 0xFF000000, "透明度不应改变");
+        assertEquals(GRAY, pixels[4 * size + 5]);
+        assertEquals(GRAY, pixels[6 * size + 5]);
+    }
+
+    @Test
+    @DisplayName("测试跨区域边界的阴影与整体渲染一致")
+    void testRegionBorderMatchesWholeGrid() {
+        int width = 32;
+        int height = 16;
+        short[] heights = new short[width * height];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = (short) (60 + (i * 7919) % 13);
+        }
+        heights[3] = Chunk.NO_HEIGHT;
+        int[] whole = new int[width * height];
+        Arrays.fill(whole, GRAY);
+        ReliefShader.shade(whole, heights, width, height, null, null);
+
+        // 拆成左右两个区域，右侧使用左侧最东一列作为西侧边缘
+        int half = width / 2;
+        short[] left = new short[half * height];
+        short[] right = new short[half * height];
+        short[] westEdge = new short[height];
+        for (int z = 0; z < height; z++) {
+            System.arraycopy(heights, z * width, left, z * half, half);
+            System.arraycopy(heights, z * width + half, right, z * half, half);
+            westEdge[z] = left[z * half + half - 1];
+        }
+        int[] rightPixels = new int[half * height];
+        Arrays.fill(rightPixels, GRAY);
+        ReliefShader.shade(rightPixels, right, half, height, westEdge, null);
+
+        for (int z = 0; z < height; z++) {
+            for (int x = 0; x < half; x++) {
+                assertEquals(whole[z * width + half + x], rightPixels[z * half + x]);
+            }
+        }
+    }
+
+    /**
+     * 写入只含一个区块的区域：世界区块 (chunkX, 0)
+     */
+    private File writeSingleChunkRegion(SyntheticWorldGenerator generator, int chunkX) throws Exception {
+        RegionWriter writer = new RegionWriter(RegionWriter.COMPRESSION_ZLIB);
+        writer.putChunk(chunkX & 31, 0, generator.generateChunk(chunkX, 0), 1);
+        File file = new File(tempDir, "r." + Math.floorDiv(chunkX, 32) + ".0.mca");
+        writer.writeTo(file);
+        return file;
+    }
+
+    @Test
+    @DisplayName("测试渲染器使用缓存中相邻区域的边缘，阴影跨区域边界连续")
+    void testRendererShadingContinuousAcrossRegions() throws Exception {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(7L);
+        generator.setTerrainHeight(64, 30);
+        File west = writeSingleChunkRegion(generator, 31);
+        File east = writeSingleChunkRegion(generator, 32);
+
+        MapRenderer renderer = new MapRenderer(2, null);
+        try {
+            renderer.setReliefShading(true);
+            MapLayer westLayer = renderer.renderLayer(west.getPath(), 32, 1);
+            MapLayer eastLayer = renderer.renderLayer(east.getPath(), 32, 1);
+            BufferedImage shaded = renderer.renderToPng(eastLayer, 1);
+            renderer.setReliefShading(false);
+            BufferedImage westFlat = renderer.renderToPng(westLayer, 1);
+            BufferedImage eastFlat = renderer.renderToPng(eastLayer, 1);
+
+            // 把边界两侧的区块拼成一个 32x16 的整体做阴影，东侧一半应与分开渲染的结果一致
+            int[] pixels = new int[32 * 16];
+            short[] heights = new short[32 * 16];
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    pixels[z * 32 + x] = westFlat.getRGB(496 + x, z);
+                    heights[z * 32 + x] = westLayer.getHeights()[z * 512 + 496 + x];
+                    pixels[z * 32 + 16 + x] = eastFlat.getRGB(x, z);
+                    heights[z * 32 + 16 + x] = eastLayer.getHeights()[z * 512 + x];
+                }
+            }
+            ReliefShader.shade(pixels, heights, 32, 16, null, null);
+
+            boolean edgeShaded = false;
+            for (int z = 0; z < 16; z++) {
+                assertEquals(heights[z * 32 + 15], eastLayer.getWestEdge()[z]);
+                for (int x = 0; x < 16; x++) {
+                    assertEquals(pixels[z * 32 + 16 + x], shaded.getRGB(x, z), "(" + x + ", " + z + ")");
+                }
+                edgeShaded |= heights[z * 32 + 15] != heights[z * 32 + 16];
+            }
+            assertTrue(edgeShaded, "边界两侧应有高度差");
+
+            // 相邻区块不在缓存中时不读取相邻区域，边缘按无高度处理
+            ChunkCache.getShared().clear();
+            renderer.setReliefShading(true);
+            MapLayer uncached = renderer.renderLayer(east.getPath(), 32, 1);
+            for (int z = 0; z < 16; z++) {
+                assertEquals(Chunk.NO_HEIGHT, uncached.getWestEdge()[z]);
+            }
+        } finally {
+            renderer.shutdown();
+        }
+    }
+}
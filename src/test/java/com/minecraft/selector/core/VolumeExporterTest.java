@@ -0,0 +1,180 @@
+package com.minecraft.selector.core;
+
+import com.minecraft.selector.nbt.NBTReader;
+import com.minecraft.selector.region.Chunk;
+import com.minecraft.selector.region.Region;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方块体积导出测试：导出合成区域后读回，与区域中的方块逐个比较
+ */
+public class VolumeExporterTest {
+
+    // 选区跨越区块边界，X方向超出已生成的 2x2 个区块（缺失的区块为空气）
+    private static final int MIN_X = 5, MAX_X = 40;
+    private static final int MIN_Z = 3, MAX_Z = 20;
+    private static final int MIN_Y = 50, MAX_Y = 75;
+
+    private static final int SIZE_X = MAX_X - MIN_X + 1;
+    private static final int SIZE_Y = MAX_Y - MIN_Y + 1;
+    private static final int SIZE_Z = MAX_Z - MIN_Z + 1;
+
+    @TempDir
+    File tempDir;
+
+    private File regionDir;
+    private Region region;
+
+    @BeforeEach
+    void generateRegion() throws Exception {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(12345L);
+        generator.setChunksPerRegionSide(2);
+        generator.setPaletteSize(20);
+        regionDir = new File(tempDir, "region");
+        assertTrue(regionDir.mkdirs());
+        File file = new File(regionDir, "r.0.0.mca");
+        generator.generateRegion(0, 0).writeTo(file);
+        region = Region.fromFile(file.getPath());
+    }
+
+    /**
+     * 区域中世界坐标处的方块状态字符串，按 y、z、x 顺序排列
+     */
+    private String[] expectedVolume() throws IOException {
+        String[] states = new String[SIZE_X * SIZE_Y * SIZE_Z];
+        for (int y = MIN_Y; y <= MAX_Y; y++) {
+            for (int z = MIN_Z; z <= MAX_Z; z++) {
+                for (int x = MIN_X; x <= MAX_X; x++) {
+                    int chunkX = x >> 4, chunkZ = z >> 4;
+                    String state = "minecraft:air";
+                    if (region.chunkExists(chunkX, chunkZ)) {
+                        Chunk chunk = region.getChunk(chunkX, chunkZ);
+                        state = VolumeExporter.toStateString(chunk.getBlock(x & 15, y, z & 15));
+                    }
+                    states[((y - MIN_Y) * SIZE_Z + (z - MIN_Z)) * SIZE_X + (x - MIN_X)] = state;
+                }
+            }
+        }
+        return states;
+    }
+
+    private static long countNonAir(String[] states) {
+        long count = 0;
+        for (String state : states) {
+            if (!"minecraft:air".equals(state)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long export(File output) throws IOException {
+        return new VolumeExporter(2, null).export(regionDir, MIN_X, MIN_Z, MAX_X, MAX_Z, MIN_Y, MAX_Y,
+            output, VolumeExporter.Format.fromFile(output));
+    }
+
+    @Test
+    @DisplayName("导出为mcvol后按区块记录读回，与区域中的方块一致")
+    void binaryRoundTrip() throws Exception {
+        File output = new File(tempDir, "volume.mcvol");
+        long nonAir = export(output);
+
+        String[] expected = expectedVolume();
+        String[] actual = new String[expected.length];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(output))))) {
+            assertEquals(0x4D435658, in.readInt());
+            assertEquals(1, in.readInt());
+            assertEquals(MIN_X, in.readInt());
+            assertEquals(MIN_Y, in.readInt());
+            assertEquals(MIN_Z, in.readInt());
+            assertEquals(SIZE_X, in.readInt());
+            assertEquals(SIZE_Y, in.readInt());
+            assertEquals(SIZE_Z, in.readInt());
+            int chunkCount = in.readInt();
+            // X方向区块0-2，Z方向区块0-1
+            assertEquals(6, chunkCount);
+
+            for (int c = 0; c < chunkCount; c++) {
+                in.readInt();
+                in.readInt();
+                int x0 = in.readInt(), z0 = in.readInt();
+                int width = in.readInt(), length = in.readInt();
+                String[] palette = new String[in.readInt()];
+                for (int p = 0; p < palette.length; p++) {
+                    palette[p] = in.readUTF();
+                }
+                assertEquals("minecraft:air", palette[0]);
+                int indexBytes = in.readByte();
+                for (int y = 0; y < SIZE_Y; y++) {
+                    for (int z = 0; z < length; z++) {
+                        for (int x = 0; x < width; x++) {
+                            int index = indexBytes == 2 ? in.readUnsignedShort() : in.readUnsignedByte();
+                            actual[(y * SIZE_Z + z0 + z) * SIZE_X + x0 + x] = palette[index];
+                        }
+                    }
+                }
+            }
+            assertEquals(-1, in.read());
+        }
+
+        assertArrayEquals(expected, actual);
+        assertEquals(countNonAir(expected), nonAir);
+        assertTrue(nonAir > 0);
+    }
+
+    @Test
+    @DisplayName("导出为schem后解码BlockData，与区域中的方块一致")
+    void schematicRoundTrip() throws Exception {
+        File output = new File(tempDir, "volume.schem");
+        long nonAir = export(output);
+
+        NBTReader.NBTCompound schematic = NBTReader.readFromFile(output.getPath());
+        assertEquals("Schematic", schematic.getName());
+        assertEquals(2, schematic.getInt("Version"));
+        assertEquals(SyntheticWorldGenerator.DATA_VERSION, schematic.getInt("DataVersion"));
+        assertEquals((short) SIZE_X, schematic.get("Width").getValue());
+        assertEquals((short) SIZE_Y, schematic.get("Height").getValue());
+        assertEquals((short) SIZE_Z, schematic.get("Length").getValue());
+        assertArrayEquals(new int[]{MIN_X, MIN_Y, MIN_Z}, ((NBTReader.NBTIntArray) schematic.get("Offset")).getValue());
+
+        NBTReader.NBTCompound paletteTag = schematic.getCompound("Palette");
+        assertEquals(paletteTag.keySet().size(), schematic.getInt("PaletteMax"));
+        String[] palette = new String[paletteTag.keySet().size()];
+        for (String state : paletteTag.keySet()) {
+            palette[paletteTag.getInt(state)] = state;
+        }
+
+        byte[] blockData = ((NBTReader.NBTByteArray) schematic.get("BlockData")).getValue();
+        String[] actual = new String[SIZE_X * SIZE_Y * SIZE_Z];
+        int position = 0;
+        for (int i = 0; i < actual.length; i++) {
+            int id = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = blockData[position++];
+                id |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            actual[i] = palette[id];
+        }
+        assertEquals(blockData.length, position);
+
+        String[] expected = expectedVolume();
+        assertArrayEquals(expected, actual);
+        assertEquals(countNonAir(expected), nonAir);
+    }
+}
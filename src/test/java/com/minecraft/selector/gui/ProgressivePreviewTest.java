@@ -0,0 +1,54 @@
+package com.minecraft.selector.gui;
+
+import com.minecraft.selector.core.BlockColors;
+import com.minecraft.selector.core.MapLayer;
+import com.minecraft.selector.core.MapRenderer;
+import com.minecraft.selector.region.SyntheticWorldGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.JPanel;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 渐进式预览测试：渲染过程中写入的区块颜色与最终图层的方块编号一致
+ */
+public class ProgressivePreviewTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("预览中每个区块的颜色等于图层方块编号查表得到的颜色，未渲染的区块不被写入")
+    void previewMatchesLayerIndices() throws Exception {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(12345L);
+        generator.setChunksPerRegionSide(2);
+        File file = new File(tempDir, "r.0.0.mca");
+        generator.generateRegion(0, 0).writeTo(file);
+
+        ProgressivePreview preview = new ProgressivePreview(0, 0, 1, new JPanel());
+        MapRenderer renderer = new MapRenderer(2, null);
+        MapLayer layer;
+        try {
+            renderer.setPreviewListener(preview.regionListener(0, 0));
+            layer = renderer.renderLayer(file.getPath(), 32, 1);
+        } finally {
+            renderer.shutdown();
+        }
+
+        BufferedImage image = preview.getImage();
+        int[] indices = layer.getBlockIndices();
+        for (int z = 0; z < 32; z++) {
+            for (int x = 0; x < 32; x++) {
+                int expected = BlockColors.getArgb(indices[z * layer.getWidth() + x]) & 0xFFFFFF;
+                assertEquals(expected, image.getRGB(x, z) & 0xFFFFFF, "x=" + x + " z=" + z);
+            }
+        }
+        assertEquals(0, image.getRGB(40, 5) & 0xFFFFFF);
+        assertEquals(0, image.getRGB(5, 40) & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,94 @@
+package com.minecraft.selector.nbt;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NBT写入与读取的往返测试
+ */
+public class NBTWriterTest {
+
+    @Test
+    @DisplayName("流式写入的各种标签读回后不变")
+    void streamingRoundTrip() throws IOException {
+        byte[] bytes = new byte[300];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (NBTWriter writer = new NBTWriter(buffer)) {
+            writer.beginCompound("root");
+            writer.writeByte("byte", (byte) -5);
+            writer.writeShort("short", (short) 1234);
+            writer.writeInt("int", -123456789);
+            writer.writeLong("long", 1L << 40);
+            writer.writeString("string", "minecraft:oak_log[axis=y] 橡木");
+            writer.writeByteArray("bytes", bytes);
+            writer.writeIntArray("ints", new int[]{-1, 0, 65536});
+            writer.writeLongArray("longs", new long[]{Long.MIN_VALUE, 7L});
+            DataOutputStream stream = writer.beginByteArray("streamed", 3);
+            stream.writeByte(1);
+            stream.writeByte(2);
+            stream.writeByte(3);
+            writer.beginCompound("nested");
+            writer.writeInt("value", 42);
+            writer.endCompound();
+            writer.endCompound();
+        }
+
+        NBTReader.NBTCompound root = NBTReader.readFromBytes(buffer.toByteArray());
+        assertEquals("root", root.getName());
+        assertEquals((byte) -5, root.get("byte").getValue());
+        assertEquals((short) 1234, root.get("short").getValue());
+        assertEquals(-123456789, root.getInt("int"));
+        assertEquals(1L << 40, root.get("long").getValue());
+        assertEquals("minecraft:oak_log[axis=y] 橡木", root.getString("string"));
+        assertArrayEquals(bytes, ((NBTReader.NBTByteArray) root.get("bytes")).getValue());
+        assertArrayEquals(new int[]{-1, 0, 65536}, ((NBTReader.NBTIntArray) root.get("ints")).getValue());
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 7L}, ((NBTReader.NBTLongArray) root.get("longs")).getValue());
+        assertArrayEquals(new byte[]{1, 2, 3}, ((NBTReader.NBTByteArray) root.get("streamed")).getValue());
+        assertEquals(42, root.getCompound("nested").getInt("value"));
+    }
+
+    @Test
+    @DisplayName("标签树（含列表）经gzip写入后读回不变")
+    void tagTreeRoundTrip() throws IOException {
+        NBTReader.NBTCompound root = new NBTReader.NBTCompound("");
+        root.put("DataVersion", new NBTReader.NBTInt("DataVersion", 3700));
+        NBTReader.NBTList palette = new NBTReader.NBTList("palette", NBTReader.TagType.TAG_Compound);
+        for (String name : new String[]{"minecraft:air", "minecraft:stone", "minecraft:dirt"}) {
+            NBTReader.NBTCompound entry = new NBTReader.NBTCompound("");
+            entry.put("Name", new NBTReader.NBTString("Name", name));
+            palette.add(entry);
+        }
+        root.put("palette", palette);
+        NBTReader.NBTList heights = new NBTReader.NBTList("heights", NBTReader.TagType.TAG_Int);
+        heights.add(new NBTReader.NBTInt("", -64));
+        heights.add(new NBTReader.NBTInt("", 319));
+        root.put("heights", heights);
+        root.put("empty", new NBTReader.NBTList("empty", NBTReader.TagType.TAG_End));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (NBTWriter writer = new NBTWriter(new GZIPOutputStream(buffer))) {
+            writer.writeNamedTag("", root);
+        }
+
+        NBTReader.NBTCompound read = NBTReader.readFromBytes(buffer.toByteArray());
+        assertEquals(3700, read.getInt("DataVersion"));
+        NBTReader.NBTList readPalette = read.getList("palette");
+        assertEquals(3, readPalette.size());
+        assertEquals("minecraft:stone", ((NBTReader.NBTCompound) readPalette.get(1)).getString("Name"));
+        NBTReader.NBTList readHeights = read.getList("heights");
+        assertEquals(NBTReader.TagType.TAG_Int, readHeights.getListType());
+        assertEquals(319, readHeights.get(1).getValue());
+        assertEquals(0, read.getList("empty").size());
+    }
+}
@@ -0,0 +1,87 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 洞穴地面和天花板以下两种模式使用的地面高度测试
+ * 合成区块从下到上：Y 0-31 地面，32-47 洞穴，48-63 地表，64-95 开阔的空洞，96-127 顶层
+ */
+public class ChunkFloorHeightsTest {
+
+    private static final String[] LAYERS = {
+        "netherrack", "netherrack", "air", "netherrack", "air", "air", "bedrock", "bedrock"
+    };
+
+    private static Chunk layeredChunk() {
+        NBTReader.NBTCompound root = new NBTReader.NBTCompound("");
+        root.put("xPos", new NBTReader.NBTInt("xPos", 0));
+        root.put("zPos", new NBTReader.NBTInt("zPos", 0));
+        NBTReader.NBTList sections = new NBTReader.NBTList("sections", NBTReader.TagType.TAG_Compound);
+        for (int y = 0; y < LAYERS.length; y++) {
+            NBTReader.NBTCompound entry = new NBTReader.NBTCompound("");
+            entry.put("Name", new NBTReader.NBTString("Name", "minecraft:" + LAYERS[y]));
+            NBTReader.NBTList palette = new NBTReader.NBTList("palette", NBTReader.TagType.TAG_Compound);
+            palette.add(entry);
+            NBTReader.NBTCompound blockStates = new NBTReader.NBTCompound("block_states");
+            blockStates.put("palette", palette);
+            NBTReader.NBTCompound section = new NBTReader.NBTCompound("");
+            section.put("Y", new NBTReader.NBTByte("Y", (byte) y));
+            section.put("block_states", blockStates);
+            sections.add(section);
+        }
+        root.put("sections", sections);
+        return new Chunk(root);
+    }
+
+    private static short[] start(int y) {
+        short[] heights = new short[256];
+        Arrays.fill(heights, (short) y);
+        return heights;
+    }
+
+    private static void assertAllColumns(int expected, short[] heights) {
+        for (int column = 0; column < 256; column++) {
+            assertEquals(expected, heights[column], "列 " + column);
+        }
+    }
+
+    @Test
+    @DisplayName("起点在顶层之上时越过顶层，找到顶层之下的地面")
+    void startAboveRoof() {
+        Chunk chunk = layeredChunk();
+        assertAllColumns(63, chunk.getFloorHeights(start(319), 0, true));
+        assertAllColumns(63, chunk.getFloorHeights(start(127), 0, true));
+    }
+
+    @Test
+    @DisplayName("起点在顶层之下的空洞中时返回下方第一个非空气方块，而不是更深的洞穴")
+    void startBelowRoof() {
+        Chunk chunk = layeredChunk();
+        assertAllColumns(63, chunk.getFloorHeights(start(80), 0, true));
+        assertAllColumns(63, chunk.getFloorHeights(start(80), 0, false));
+    }
+
+    @Test
+    @DisplayName("起点在顶层中时越过顶层")
+    void startInsideRoof() {
+        Chunk chunk = layeredChunk();
+        assertAllColumns(63, chunk.getFloorHeights(start(100), 0, true));
+    }
+
+    @Test
+    @DisplayName("洞穴地面从最高的非空气方块向下越过地表找到洞穴的地面")
+    void caveFloorBelowSurface() {
+        Chunk chunk = layeredChunk();
+        short[] surface = chunk.getSurfaceHeights(0, 90);
+        assertAllColumns(63, surface);
+        assertAllColumns(31, chunk.getFloorHeights(surface, 0));
+        // 只有一段实心方块时没有地面
+        assertAllColumns(Chunk.NO_HEIGHT, chunk.getFloorHeights(start(20), 0));
+    }
+}
@@ -0,0 +1,149 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 1.18之前区块格式的转换测试
+ */
+public class LegacyChunkFormatTest {
+
+    @TempDir
+    File tempDir;
+
+    private static NBTReader.NBTCompound legacyChunk(int chunkX, int chunkZ, NBTReader.NBTCompound section) {
+        NBTReader.NBTCompound level = new NBTReader.NBTCompound("Level");
+        level.put("xPos", new NBTReader.NBTInt("xPos", chunkX));
+        level.put("zPos", new NBTReader.NBTInt("zPos", chunkZ));
+        NBTReader.NBTList sections = new NBTReader.NBTList("Sections", NBTReader.TagType.TAG_Compound);
+        sections.add(section);
+        level.put("Sections", sections);
+        NBTReader.NBTCompound root = new NBTReader.NBTCompound("");
+        root.put("Level", level);
+        return root;
+    }
+
+    /**
+     * 调色板为 block_0 ... block_(size-1) 的区段
+     */
+    private static NBTReader.NBTCompound paletteSection(int y, int size, long[] blockStates) {
+        NBTReader.NBTCompound section = new NBTReader.NBTCompound("");
+        section.put("Y", new NBTReader.NBTByte("Y", (byte) y));
+        NBTReader.NBTList palette = new NBTReader.NBTList("Palette", NBTReader.TagType.TAG_Compound);
+        for (int i = 0; i < size; i++) {
+            NBTReader.NBTCompound entry = new NBTReader.NBTCompound("");
+            entry.put("Name", new NBTReader.NBTString("Name", "minecraft:block_" + i));
+            palette.add(entry);
+        }
+        section.put("Palette", palette);
+        section.put("BlockStates", new NBTReader.NBTLongArray("BlockStates", blockStates));
+        return section;
+    }
+
+    /**
+     * 1.13-1.15 的打包方式：值可以跨越两个long
+     */
+    private static long[] packSpanning(int[] indices, int bits) {
+        long[] packed = new long[indices.length * bits / 64];
+        for (int i = 0; i < indices.length; i++) {
+            int bitIndex = i * bits;
+            packed[bitIndex >>> 6] |= (long) indices[i] << (bitIndex & 63);
+            if ((bitIndex & 63) + bits > 64) {
+                packed[(bitIndex >>> 6) + 1] |= (long) indices[i] >>> (64 - (bitIndex & 63));
+            }
+        }
+        return packed;
+    }
+
+    private static int[] randomIndices(int paletteSize) {
+        Random random = new Random(42);
+        int[] indices = new int[4096];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(paletteSize);
+        }
+        return indices;
+    }
+
+    private static void assertIndices(int[] expected, Chunk chunk) {
+        Chunk.Section section = chunk.getSection(3);
+        assertNotNull(section);
+        int[] actual = new int[4096];
+        section.unpackIndices(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("1.13-1.15 跨越long的BlockStates重新打包后与原索引一致")
+    void spanningBlockStates() {
+        int[] indices = randomIndices(20);
+        Chunk chunk = new Chunk(legacyChunk(5, -7, paletteSection(3, 20, packSpanning(indices, 5))));
+
+        assertEquals(5, chunk.getX());
+        assertEquals(-7, chunk.getZ());
+        assertIndices(indices, chunk);
+        assertEquals("block_" + indices[256 + 3], chunk.getBlock(3, 3 * 16 + 1, 0).getId());
+    }
+
+    @Test
+    @DisplayName("1.16-1.17 不跨越long的BlockStates直接使用")
+    void paddedBlockStates() {
+        int[] indices = randomIndices(20);
+        Chunk chunk = new Chunk(legacyChunk(0, 0, paletteSection(3, 20, LegacyChunkFormat.pack(indices, 5))));
+        assertIndices(indices, chunk);
+    }
+
+    @Test
+    @DisplayName("1.12 数字ID和元数据转换为方块名调色板")
+    void numericIds() {
+        byte[] blocks = new byte[4096];
+        byte[] data = new byte[2048];
+        // 底层为石头，第二层为红色羊毛（35:14），其余为空气
+        for (int i = 0; i < 256; i++) {
+            blocks[i] = 1;
+            blocks[256 + i] = 35;
+            data[(256 + i) >> 1] |= (byte) (14 << (((256 + i) & 1) << 2));
+        }
+        NBTReader.NBTCompound section = new NBTReader.NBTCompound("");
+        section.put("Y", new NBTReader.NBTByte("Y", (byte) 3));
+        section.put("Blocks", new NBTReader.NBTByteArray("Blocks", blocks));
+        section.put("Data", new NBTReader.NBTByteArray("Data", data));
+        NBTReader.NBTCompound root = legacyChunk(0, 0, section);
+        ((NBTReader.NBTCompound) root.get("Level")).put("Biomes",
+            new NBTReader.NBTByteArray("Biomes", filled(256, (byte) 21)));
+
+        Chunk chunk = new Chunk(root);
+        assertEquals("stone", chunk.getBlock(7, 48, 9).getId());
+        assertEquals("red_wool", chunk.getBlock(7, 49, 9).getId());
+        assertTrue(chunk.getBlock(7, 50, 9).isAir());
+        assertEquals(49, chunk.getSurfaceHeights()[9 * 16 + 7]);
+        assertEquals("jungle", chunk.getSection(3).getBiome(7, 1, 9));
+    }
+
+    private static byte[] filled(int length, byte value) {
+        byte[] array = new byte[length];
+        java.util.Arrays.fill(array, value);
+        return array;
+    }
+
+    @Test
+    @DisplayName("旧格式区块经过区域文件读取后与直接转换的结果一致")
+    void regionRoundTrip() throws Exception {
+        int[] indices = randomIndices(20);
+        RegionWriter writer = new RegionWriter(RegionWriter.COMPRESSION_ZLIB);
+        writer.putChunk(0, 0, legacyChunk(0, 0, paletteSection(3, 20, packSpanning(indices, 5))), 1);
+        File file = new File(tempDir, "r.0.0.mca");
+        writer.writeTo(file);
+
+        Region region = Region.fromFile(file.getPath());
+        assertIndices(indices, region.getChunk(0, 0));
+        // 只解码部分区段时不影响转换
+        assertNull(new Chunk(region.getChunkData(0, 0), 0, 1).getSection(3));
+    }
+}
@@ -0,0 +1,143 @@
+package com.minecraft.selector.region;
+
+import com.minecraft.selector.nbt.NBTReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 区域文件写入和合成存档的往返测试
+ */
+public class RegionWriterTest {
+
+    @TempDir
+    File tempDir;
+
+    private static SyntheticWorldGenerator smallGenerator() {
+        SyntheticWorldGenerator generator = new SyntheticWorldGenerator(12345L);
+        generator.setChunksPerRegionSide(2);
+        generator.setPaletteSize(20);
+        return generator;
+    }
+
+    /**
+     * 比较两个区块的所有区段和方块
+     */
+    private static void assertSameBlocks(Chunk expected, Chunk actual) {
+        assertEquals(expected.getX(), actual.getX());
+        assertEquals(expected.getZ(), actual.getZ());
+        List<Chunk.Section> expectedSections = expected.getSections();
+        List<Chunk.Section> actualSections = actual.getSections();
+        assertEquals(expectedSections.size(), actualSections.size());
+        int[] expectedIndices = new int[4096];
+        int[] actualIndices = new int[4096];
+        for (int i = 0; i < expectedSections.size(); i++) {
+            Chunk.Section e = expectedSections.get(i);
+            Chunk.Section a = actualSections.get(i);
+            assertEquals(e.getY(), a.getY());
+            assertEquals(e.getPalette(), a.getPalette());
+            e.unpackIndices(expectedIndices);
+            a.unpackIndices(actualIndices);
+            assertArrayEquals(expectedIndices, actualIndices);
+        }
+    }
+
+    private void assertRoundTrip(int compression) throws IOException {
+        SyntheticWorldGenerator generator = smallGenerator();
+        generator.setCompression(compression);
+        File file = new File(tempDir, "r.1.-1.mca");
+        generator.generateRegion(1, -1).writeTo(file);
+
+        Region region = Region.fromFile(file.getPath());
+        for (int chunkZ = 0; chunkZ < 2; chunkZ++) {
+            for (int chunkX = 0; chunkX < 2; chunkX++) {
+                Chunk expected = new Chunk(generator.generateChunk(32 + chunkX, -32 + chunkZ));
+                assertSameBlocks(expected, region.getChunk(chunkX, chunkZ));
+            }
+        }
+        assertFalse(region.chunkExists(2, 0));
+        assertNull(region.getChunk(5, 5));
+    }
+
+    @Test
+    @DisplayName("测试Zlib压缩的区域往返")
+    void testZlibRoundTrip() throws IOException {
+        assertRoundTrip(RegionWriter.COMPRESSION_ZLIB);
+    }
+
+    @Test
+    @DisplayName("测试GZip压缩的区域往返")
+    void testGzipRoundTrip() throws IOException {
+        assertRoundTrip(RegionWriter.COMPRESSION_GZIP);
+    }
+
+    @Test
+    @DisplayName("测试未压缩的区域往返")
+    void testUncompressedRoundTrip() throws IOException {
+        assertRoundTrip(RegionWriter.COMPRESSION_NONE);
+    }
+
+    @Test
+    @DisplayName("测试区段过滤读取")
+    void testSectionFilteredRead() throws IOException {
+        Region region = new Region(smallGenerator().generateRegion(0, 0).toBytes());
+        Chunk chunk = region.getChunk(1, 1, 3, 4);
+        assertEquals(2, chunk.getSections().size());
+        assertEquals(3, chunk.getSections().get(0).getY());
+        assertEquals(4, chunk.getSections().get(1).getY());
+    }
+
+    @Test
+    @DisplayName("测试头部时间戳")
+    void testHeaderTimestamps() throws IOException {
+        byte[] data = smallGenerator().generateRegion(0, 0).toBytes();
+        RegionHeader header = RegionHeader.fromBytes(data);
+        assertTrue(header.chunkExists(1, 1));
+        assertFalse(header.chunkExists(2, 2));
+        assertEquals(0, data.length % 4096);
+    }
+
+    @Test
+    @DisplayName("测试按设置的位数补齐调色板")
+    void testBitsPerBlock() {
+        SyntheticWorldGenerator generator = smallGenerator();
+        generator.setPaletteSize(3);
+        generator.setBitsPerBlock(8);
+        Chunk chunk = new Chunk(generator.generateChunk(0, 0));
+
+        // Y=0的区段完全在地下，调色板至少需要129项才会用8位
+        Chunk.Section section = chunk.getSection(0);
+        assertTrue(section.getPalette().size() >= 129);
+        for (int x = 0; x < 16; x++) {
+            String id = section.getBlock(x, 0, 0).getId();
+            assertTrue(id.equals("stone") || id.equals("deepslate") || id.equals("andesite"), id);
+        }
+    }
+
+    @Test
+    @DisplayName("测试方块实体")
+    void testBlockEntities() throws IOException {
+        SyntheticWorldGenerator generator = smallGenerator();
+        generator.setBlockEntitiesPerChunk(5);
+        Region region = new Region(generator.generateRegion(0, 0).toBytes());
+
+        NBTReader.NBTCompound chunk = region.getChunkData(0, 0);
+        NBTReader.NBTList blockEntities = chunk.getList("block_entities");
+        assertEquals(5, blockEntities.size());
+        NBTReader.NBTCompound chest = (NBTReader.NBTCompound) blockEntities.get(0);
+        assertEquals("minecraft:chest", chest.getString("id"));
+        assertEquals(27, chest.getList("Items").size());
+    }
+
+    @Test
+    @DisplayName("测试生成结果可重复")
+    void testDeterministic() throws IOException {
+        assertArrayEquals(smallGenerator().generateRegion(0, 0).toBytes(), smallGenerator().generateRegion(0, 0).toBytes());
+    }
+}